@@ -1,3 +1,7 @@
 echo "Compiling run.txt"
-java "-jar" "target\lyc-compiler-1.0.0.jar" "target\input\test.txt"
+if exist "target\lyc-compiler.jsa" (
+  java "-XX:SharedArchiveFile=target\lyc-compiler.jsa" "-jar" "target\lyc-compiler-1.0.0.jar" "target\input\test.txt"
+) else (
+  java "-XX:ArchiveClassesAtExit=target\lyc-compiler.jsa" "-jar" "target\lyc-compiler-1.0.0.jar" "target\input\test.txt"
+)
 COPY  "target\output\final.asm" "target\asm\final.asm"
\ No newline at end of file
@@ -1,3 +1,11 @@
 echo "Compiling run.txt"
-java -jar ./target/lyc-compiler-1.0.0.jar ./target/input/test.txt
+# Archivo CDS con las clases del compilador ya cargadas: se arma en la primera corrida
+# (y cada vez que cambia el jar) y las siguientes lo mapean en lugar de leer el jar
+JAR=./target/lyc-compiler-1.0.0.jar
+CDS=./target/lyc-compiler.jsa
+if [ -f "$CDS" ] && [ ! "$JAR" -nt "$CDS" ]; then
+  java -XX:SharedArchiveFile=$CDS -jar $JAR ./target/input/test.txt
+else
+  java -XX:ArchiveClassesAtExit=$CDS -jar $JAR ./target/input/test.txt
+fi
 cp target/output/final.asm target/asm/final.asm
@@ -10,4 +10,43 @@ public class Constants {
     public static final int INT_MAX = Integer.MAX_VALUE;
 
     public static final BigDecimal FLOAT_ABS_MAX = new BigDecimal("1e38");
+    // Dígitos de la parte entera de FLOAT_ABS_MAX: el lexer cuenta dígitos en vez de armar el BigDecimal
+    public static final int FLOAT_MAX_DIGITS = FLOAT_ABS_MAX.toBigInteger().toString().length();
+
+    // Tamaño del buffer de salida del runtime (modo --output=buffered)
+    public static final int OUTPUT_BUFFER_SIZE = 512;
+
+    // Archivo donde el programa instrumentado (--profile-generate) deja sus contadores (nombre 8.3)
+    public static final String PROFILE_FILE = "PROFILE.DAT";
+
+    // Tokens de polaca que puede ocupar un bucle desenrollado (--unroll)
+    public static final int UNROLL_TOKEN_BUDGET = 256;
+
+    // Tamaño mínimo (en tokens de polaca) de cada tramo que se traduce en paralelo (--jobs)
+    public static final int PARALLEL_CHUNK_TOKENS = 4096;
+
+    // switch: tabla de saltos desde esta cantidad de casos, si ocupan al menos 1 de cada
+    // SWITCH_TABLE_DENSITY valores del rango y el rango no pasa de SWITCH_TABLE_MAX_SPAN
+    public static final int SWITCH_TABLE_MIN_CASES = 4;
+    public static final int SWITCH_TABLE_DENSITY = 3;
+    public static final int SWITCH_TABLE_MAX_SPAN = 1024;
+
+    // Variables de un while que quedan en la pila x87 (--promote); el resto de la pila
+    // alcanza para las operaciones del cuerpo y las rutinas del runtime
+    public static final int PROMOTED_VARIABLES = 3;
+
+    // --partial-eval: tokens de la polaca que se ejecutan al compilar (si no se da otro
+    // valor) y caracteres de salida que se pueden guardar en .DATA
+    public static final int PARTIAL_EVAL_STEPS = 10_000_000;
+    public static final int PARTIAL_EVAL_MAX_OUTPUT = 16384;
+
+    // --fixed-point: bits de la parte fraccionaria si no se da otro valor (Q16.16) y máximo
+    // (con 30 la parte entera va de -2 a 1)
+    public static final int FIXED_POINT_BITS = 16;
+    public static final int FIXED_POINT_MAX_BITS = 30;
+
+    // Decimales que imprime write con un número si no se da --float-digits, y máximo
+    // (10^9 todavía entra en 32 bits)
+    public static final int FLOAT_DIGITS = 4;
+    public static final int FLOAT_MAX_PRINT_DIGITS = 9;
 }
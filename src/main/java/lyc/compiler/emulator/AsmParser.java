@@ -0,0 +1,414 @@
+package lyc.compiler.emulator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import lyc.compiler.emulator.AsmProgram.DataSymbol;
+import lyc.compiler.model.EmulatorException;
+
+/**
+ * Interpreta el texto del assembler en dos pasadas: primero las declaraciones de .DATA
+ * (para conocer direcciones y tamaños) y después el segmento de código.
+ */
+final class AsmParser {
+
+    /** Valor arbitrario que toma @DATA: el emulador usa un único segmento de datos. */
+    static final int DATA_SEGMENT = 0x1000;
+
+    private static final Pattern DATA_LINE =
+        Pattern.compile("^(?:([A-Za-z_@$?][\\w@$?]*)\\s+)?(DB|DW|DD|DQ)\\s+(.*)$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern DUP =
+        Pattern.compile("^(\\w+)\\s+DUP\\s*\\((.*)\\)$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern LABEL = Pattern.compile("^([A-Za-z_@$?][\\w@$?]*):(.*)$");
+    private static final Pattern PROC = Pattern.compile("^([A-Za-z_@$?][\\w@$?]*)\\s+PROC\\b.*$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ENDP = Pattern.compile("^[A-Za-z_@$?][\\w@$?]*\\s+ENDP$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SIZE_PTR =
+        Pattern.compile("^(BYTE|WORD|DWORD|QWORD)\\s+PTR\\s+(.*)$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern FPU_REGISTER = Pattern.compile("^ST(?:\\((\\d)\\))?$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SEGMENT_OVERRIDE = Pattern.compile("^(CS|DS|ES|SS):", Pattern.CASE_INSENSITIVE);
+    private static final Pattern IDENTIFIER = Pattern.compile("^[A-Za-z_@$?][\\w@$?]*$");
+
+    /** Dato inicializado con una etiqueta de código (tablas de saltos): se completa al final. */
+    private record CodeAddress(int offset, int size, String label, int line) {}
+
+    private final String[] lines;
+    private final byte[] data = new byte[AsmProgram.SEGMENT_SIZE];
+    private int dataSize;
+    private final Map<String, DataSymbol> symbols = new LinkedHashMap<>();
+    private final List<Instruction> instructions = new ArrayList<>();
+    private final Map<String, Integer> labels = new LinkedHashMap<>();
+    private final List<String> blockNames = new ArrayList<>();
+    private final List<String> pendingLabels = new ArrayList<>();
+    private final List<CodeAddress> codeAddresses = new ArrayList<>();
+    private String entryLabel;
+    private int stackSize = 0x400;
+
+    AsmParser(String source) {
+        this.lines = source.split("\\r?\\n", -1);
+    }
+
+    AsmProgram parse() {
+        String section = "";
+        for (int i = 0; i < lines.length; i++) {
+            String line = stripComment(lines[i]).trim();
+            if (line.isEmpty()) continue;
+            String upper = line.toUpperCase();
+            if (upper.startsWith(".")) {
+                section = upper.startsWith(".DATA") ? "DATA" : upper.startsWith(".CODE") ? "CODE" : section;
+            } else if (section.equals("DATA")) {
+                parseData(line, i + 1);
+            }
+        }
+
+        section = "";
+        for (int i = 0; i < lines.length; i++) {
+            String line = stripComment(lines[i]).trim();
+            if (line.isEmpty()) continue;
+            String upper = line.toUpperCase();
+            if (upper.startsWith(".STACK")) {
+                stackSize = (int) parseInteger(line.substring(6).trim(), i + 1);
+            } else if (upper.startsWith(".")) {
+                section = upper.startsWith(".DATA") ? "DATA" : upper.startsWith(".CODE") ? "CODE" : section;
+            } else if (section.equals("CODE")) {
+                parseCodeLine(line, i + 1);
+            }
+        }
+
+        for (Instruction instruction : instructions) {
+            for (Operand operand : instruction.operands) {
+                if (operand.is(Operand.Kind.LABEL)) {
+                    Integer target = labels.get(operand.label.toUpperCase());
+                    if (target == null) {
+                        throw new EmulatorException("Línea " + instruction.line + ": etiqueta inexistente " + operand.label);
+                    }
+                    operand.target = target;
+                }
+            }
+        }
+
+        // Las direcciones de código son índices de instrucción
+        for (CodeAddress address : codeAddresses) {
+            Integer target = labels.get(address.label().toUpperCase());
+            if (target == null) {
+                throw new EmulatorException("Línea " + address.line() + ": etiqueta inexistente " + address.label());
+            }
+            for (int i = 0; i < address.size(); i++) {
+                data[address.offset() + i] = (byte) (target >>> (8 * i));
+            }
+        }
+
+        int entry = 0;
+        if (entryLabel != null) {
+            Integer index = labels.get(entryLabel.toUpperCase());
+            if (index == null) throw new EmulatorException("Punto de entrada inexistente: " + entryLabel);
+            entry = index;
+        }
+        return new AsmProgram(data, dataSize, symbols, instructions, labels, blockNames, entry, stackSize);
+    }
+
+    // --- Datos ------------------------------------------------------------------
+
+    private void parseData(String line, int lineNumber) {
+        Matcher m = DATA_LINE.matcher(line);
+        if (!m.matches()) {
+            throw new EmulatorException("Línea " + lineNumber + ": declaración de datos no soportada: " + line);
+        }
+        int elementSize = switch (m.group(2).toUpperCase()) {
+            case "DB" -> 1;
+            case "DW" -> 2;
+            case "DD" -> 4;
+            default -> 8;
+        };
+        // Sin nombre: continuación de la declaración anterior
+        String name = m.group(1);
+        if (name != null) {
+            if (symbols.containsKey(name.toUpperCase())) {
+                throw new EmulatorException("Línea " + lineNumber + ": variable duplicada " + name);
+            }
+            symbols.put(name.toUpperCase(), new DataSymbol(name, dataSize, elementSize));
+        }
+        for (String item : splitTopLevel(m.group(3))) {
+            emitItem(item.trim(), elementSize, lineNumber);
+        }
+    }
+
+    private void emitItem(String item, int size, int lineNumber) {
+        Matcher dup = DUP.matcher(item);
+        if (dup.matches()) {
+            long count = parseInteger(dup.group(1), lineNumber);
+            List<String> inner = splitTopLevel(dup.group(2));
+            for (long n = 0; n < count; n++) {
+                for (String value : inner) {
+                    emitItem(value.trim(), size, lineNumber);
+                }
+            }
+        } else if (item.equals("?")) {
+            writeData(0, size, lineNumber);
+        } else if (isQuoted(item)) {
+            String text = item.substring(1, item.length() - 1);
+            if (size == 1) {
+                for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+                    writeData(b, 1, lineNumber);
+                }
+            } else {
+                writeData(text.isEmpty() ? 0 : text.charAt(0), size, lineNumber);
+            }
+        } else if (isInteger(item)) {
+            writeData(parseInteger(item, lineNumber), size, lineNumber);
+        } else if (IDENTIFIER.matcher(item).matches() && size >= 2) {
+            codeAddresses.add(new CodeAddress(dataSize, size, item, lineNumber));
+            writeData(0, size, lineNumber);
+        } else {
+            double value;
+            try {
+                value = Double.parseDouble(item);
+            } catch (NumberFormatException e) {
+                throw new EmulatorException("Línea " + lineNumber + ": valor inicial no soportado: " + item);
+            }
+            if (size == 4) {
+                writeData(Float.floatToRawIntBits((float) value), 4, lineNumber);
+            } else if (size == 8) {
+                writeData(Double.doubleToRawLongBits(value), 8, lineNumber);
+            } else {
+                throw new EmulatorException("Línea " + lineNumber + ": real en un dato de " + size + " bytes");
+            }
+        }
+    }
+
+    private void writeData(long value, int size, int lineNumber) {
+        if (dataSize + size > data.length) {
+            throw new EmulatorException("Línea " + lineNumber + ": el segmento de datos supera los 64 KB");
+        }
+        for (int i = 0; i < size; i++) {
+            data[dataSize++] = (byte) (value >>> (8 * i));
+        }
+    }
+
+    // --- Código -----------------------------------------------------------------
+
+    private void parseCodeLine(String line, int lineNumber) {
+        Matcher proc = PROC.matcher(line);
+        if (proc.matches()) {
+            addLabel(proc.group(1), lineNumber);
+            return;
+        }
+        if (ENDP.matcher(line).matches()) {
+            return;
+        }
+        String upper = line.toUpperCase();
+        if (upper.equals("END") || upper.startsWith("END ")) {
+            String rest = line.substring(3).trim();
+            entryLabel = rest.isEmpty() ? null : rest;
+            return;
+        }
+
+        Matcher label = LABEL.matcher(line);
+        while (label.matches() && Register.parse(label.group(1)) == null) {
+            addLabel(label.group(1), lineNumber);
+            line = label.group(2).trim();
+            if (line.isEmpty()) return;
+            label = LABEL.matcher(line);
+        }
+        parseInstruction(line, lineNumber);
+    }
+
+    private void addLabel(String name, int lineNumber) {
+        if (labels.containsKey(name.toUpperCase())) {
+            throw new EmulatorException("Línea " + lineNumber + ": etiqueta duplicada " + name);
+        }
+        labels.put(name.toUpperCase(), instructions.size());
+        pendingLabels.add(name);
+    }
+
+    private void parseInstruction(String line, int lineNumber) {
+        String[] parts = line.split("\\s+", 2);
+        String mnemonic = parts[0].toUpperCase();
+        String rest = parts.length > 1 ? parts[1].trim() : "";
+        String prefix = null;
+        if (mnemonic.startsWith("REP")) {
+            prefix = mnemonic;
+            parts = rest.split("\\s+", 2);
+            mnemonic = parts[0].toUpperCase();
+            rest = parts.length > 1 ? parts[1].trim() : "";
+        }
+
+        boolean branch = isBranch(mnemonic);
+        List<Operand> operands = new ArrayList<>();
+        if (!rest.isEmpty()) {
+            for (String text : splitTopLevel(rest)) {
+                String operand = text.trim();
+                operands.add(branch && !isIndirect(operand) ? branchTarget(operand) : parseOperand(operand, lineNumber));
+            }
+        }
+
+        boolean blockStart = !pendingLabels.isEmpty() || blockNames.isEmpty();
+        if (blockStart) {
+            blockNames.add(pendingLabels.isEmpty() ? "(inicio)" : pendingLabels.get(0));
+            pendingLabels.clear();
+        }
+        instructions.add(new Instruction(mnemonic, prefix, List.copyOf(operands), lineNumber,
+            blockNames.size() - 1, blockStart));
+    }
+
+    static boolean isBranch(String mnemonic) {
+        return mnemonic.startsWith("J") || mnemonic.equals("CALL") || mnemonic.startsWith("LOOP");
+    }
+
+    /** JMP WORD PTR tabla[BX], JMP [BX], JMP BX: el destino sale de memoria o de un registro. */
+    private static boolean isIndirect(String text) {
+        return text.indexOf('[') >= 0 || SIZE_PTR.matcher(text).matches() || Register.parse(text) != null;
+    }
+
+    private static Operand branchTarget(String text) {
+        String label = text.replaceFirst("(?i)^(SHORT|NEAR PTR|FAR PTR)\\s+", "");
+        return Operand.label(text, label);
+    }
+
+    private Operand parseOperand(String text, int lineNumber) {
+        String upper = text.toUpperCase();
+
+        Matcher fpu = FPU_REGISTER.matcher(text);
+        if (fpu.matches()) {
+            return Operand.fpuRegister(text, fpu.group(1) == null ? 0 : Integer.parseInt(fpu.group(1)));
+        }
+        Register register = Register.parse(text);
+        if (register != null) {
+            return Operand.register(text, register);
+        }
+        Matcher sized = SIZE_PTR.matcher(text);
+        if (sized.matches()) {
+            int size = switch (sized.group(1).toUpperCase()) {
+                case "BYTE" -> 1;
+                case "WORD" -> 2;
+                case "DWORD" -> 4;
+                default -> 8;
+            };
+            return parseMemory(text, sized.group(2).trim(), size, lineNumber);
+        }
+        if (upper.startsWith("OFFSET ")) {
+            Operand address = parseMemory(text, text.substring(7).trim(), 0, lineNumber);
+            if (!address.baseRegisters.isEmpty()) {
+                throw new EmulatorException("Línea " + lineNumber + ": OFFSET con registros: " + text);
+            }
+            return Operand.immediate(text, address.value);
+        }
+        if (upper.equals("@DATA")) {
+            return Operand.immediate(text, DATA_SEGMENT);
+        }
+        if (isQuoted(text) && text.length() == 3) {
+            return Operand.immediate(text, text.charAt(1));
+        }
+        if (isInteger(text)) {
+            return Operand.immediate(text, parseInteger(text, lineNumber));
+        }
+        return parseMemory(text, text, 0, lineNumber);
+    }
+
+    /** Direcciones de la forma var, var+n, var[BX+n], [SI+BX], [BP-2]. */
+    private Operand parseMemory(String original, String text, int size, int lineNumber) {
+        text = SEGMENT_OVERRIDE.matcher(text).replaceFirst("");
+        boolean bracket = text.indexOf('[') >= 0;
+        String expression = text.replace("[", "+").replace("]", "");
+
+        long displacement = 0;
+        boolean symbolFound = false;
+        List<Register> registers = new ArrayList<>();
+        int sign = 1;
+        int start = 0;
+        for (int i = 0; i <= expression.length(); i++) {
+            char c = i < expression.length() ? expression.charAt(i) : '+';
+            if (c != '+' && c != '-') continue;
+            String term = expression.substring(start, i).trim();
+            if (!term.isEmpty()) {
+                Register register = Register.parse(term);
+                DataSymbol symbol = symbols.get(term.toUpperCase());
+                if (register != null) {
+                    if (sign < 0) throw new EmulatorException("Línea " + lineNumber + ": registro restado en " + original);
+                    registers.add(register);
+                } else if (symbol != null) {
+                    displacement += sign * (long) symbol.offset;
+                    if (size == 0) size = symbol.elementSize;
+                    symbolFound = true;
+                } else if (isInteger(term)) {
+                    displacement += sign * parseInteger(term, lineNumber);
+                } else {
+                    throw new EmulatorException("Línea " + lineNumber + ": operando desconocido " + original);
+                }
+            }
+            sign = c == '-' ? -1 : 1;
+            start = i + 1;
+        }
+        if (!symbolFound && !bracket) {
+            throw new EmulatorException("Línea " + lineNumber + ": operando desconocido " + original);
+        }
+        return Operand.memory(original, displacement, size, registers);
+    }
+
+    // --- Léxico -----------------------------------------------------------------
+
+    private static boolean isQuoted(String text) {
+        return text.length() >= 2
+            && (text.charAt(0) == '\'' || text.charAt(0) == '"')
+            && text.charAt(text.length() - 1) == text.charAt(0);
+    }
+
+    private static boolean isInteger(String text) {
+        return text.matches("^-?\\d+$") || text.matches("^-?[0-9][0-9A-Fa-f]*[hH]$");
+    }
+
+    private static long parseInteger(String text, int lineNumber) {
+        try {
+            if (text.endsWith("h") || text.endsWith("H")) {
+                return Long.parseLong(text.substring(0, text.length() - 1), 16);
+            }
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            throw new EmulatorException("Línea " + lineNumber + ": número inválido " + text);
+        }
+    }
+
+    /** Separa por comas que no estén dentro de comillas, corchetes ni paréntesis. */
+    private static List<String> splitTopLevel(String text) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        char quote = 0;
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '(' || c == '[') {
+                depth++;
+            } else if (c == ')' || c == ']') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                parts.add(text.substring(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(text.substring(start));
+        return parts;
+    }
+
+    private static String stripComment(String line) {
+        char quote = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == ';') {
+                return line.substring(0, i);
+            }
+        }
+        return line;
+    }
+}
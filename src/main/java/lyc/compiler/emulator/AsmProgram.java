@@ -0,0 +1,118 @@
+package lyc.compiler.emulator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import lyc.compiler.model.EmulatorException;
+
+/**
+ * Programa assembler ya interpretado: imagen inicial del segmento de datos,
+ * instrucciones del segmento de código y etiquetas.
+ * Acepta el subconjunto de sintaxis TASM/MASM que emite {@code AsmCodeGenerator}.
+ */
+public final class AsmProgram {
+
+    static final int SEGMENT_SIZE = 0x10000;
+
+    /** Variable o dato declarado en .DATA. */
+    static final class DataSymbol {
+        final String name;
+        final int offset;
+        final int elementSize;
+
+        DataSymbol(String name, int offset, int elementSize) {
+            this.name = name;
+            this.offset = offset;
+            this.elementSize = elementSize;
+        }
+    }
+
+    private final byte[] data;
+    private final int dataSize;
+    private final Map<String, DataSymbol> symbols;
+    private final List<Instruction> instructions;
+    private final Map<String, Integer> labels;
+    private final List<String> blockNames;
+    private final int entry;
+    private final int stackSize;
+
+    AsmProgram(byte[] data, int dataSize, Map<String, DataSymbol> symbols, List<Instruction> instructions,
+               Map<String, Integer> labels, List<String> blockNames, int entry, int stackSize) {
+        this.data = data;
+        this.dataSize = dataSize;
+        this.symbols = symbols;
+        this.instructions = instructions;
+        this.labels = labels;
+        this.blockNames = blockNames;
+        this.entry = entry;
+        this.stackSize = stackSize;
+    }
+
+    public static AsmProgram parse(String source) {
+        return new AsmParser(source).parse();
+    }
+
+    public static AsmProgram load(Path path) throws IOException {
+        return parse(Files.readString(path, StandardCharsets.UTF_8));
+    }
+
+    /** Copia de la imagen inicial de .DATA (cada ejecución trabaja sobre la suya). */
+    byte[] copyOfData() {
+        return data.clone();
+    }
+
+    public int getDataSize() {
+        return dataSize;
+    }
+
+    public int getInstructionCount() {
+        return instructions.size();
+    }
+
+    public int getStackSize() {
+        return stackSize;
+    }
+
+    /** Desplazamiento de una variable de .DATA, o -1 si no existe. */
+    public int offsetOf(String name) {
+        DataSymbol symbol = symbols.get(name.toUpperCase());
+        return symbol == null ? -1 : symbol.offset;
+    }
+
+    DataSymbol symbol(String name) {
+        return symbols.get(name.toUpperCase());
+    }
+
+    Instruction instruction(int index) {
+        return instructions.get(index);
+    }
+
+    List<Instruction> instructions() {
+        return instructions;
+    }
+
+    int labelIndex(String name) {
+        Integer index = labels.get(name.toUpperCase());
+        if (index == null) {
+            throw new EmulatorException("Etiqueta inexistente: " + name);
+        }
+        return index;
+    }
+
+    public Map<String, Integer> getLabels() {
+        return Collections.unmodifiableMap(labels);
+    }
+
+    List<String> blockNames() {
+        return blockNames;
+    }
+
+    int entry() {
+        return entry;
+    }
+}
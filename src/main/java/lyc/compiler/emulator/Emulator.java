@@ -0,0 +1,970 @@
+package lyc.compiler.emulator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lyc.compiler.emulator.ExecutionReport.BlockProfile;
+import lyc.compiler.model.EmulatorException;
+
+/**
+ * Ejecuta un {@link AsmProgram} en modo real de 16 bits, con la x87 y las funciones
+ * de INT 21h que usa el runtime, y mide el costo según una {@link TimingTable}.
+ * El segmento de datos (DS = ES) y el de pila (SS) son de 64 KB cada uno.
+ */
+public final class Emulator {
+
+    public static final long DEFAULT_MAX_STEPS = 200_000_000L;
+
+    private final AsmProgram program;
+    private final TimingTable timing;
+    private long maxSteps = DEFAULT_MAX_STEPS;
+    private OutputStream echo;
+
+    // Estado de la máquina
+    private final int[] registers = new int[Register.COUNT];
+    private final byte[] stack = new byte[AsmProgram.SEGMENT_SIZE];
+    private byte[] data;
+    private boolean cf, zf, sf, of, pf, df;
+    private final X87 fpu = new X87();
+    private int ip;
+    private boolean halted;
+    private int exitCode;
+    private InputStream input;
+    private ByteArrayOutputStream output;
+    // Archivos que crea el programa (AH=3Ch): quedan en memoria, por nombre y por handle abierto
+    private Map<String, ByteArrayOutputStream> files;
+    private Map<Integer, ByteArrayOutputStream> openFiles;
+    private int nextHandle;
+
+    // Medición
+    private long steps;
+    private long cycle;
+    private long stalls;
+    private long misaligned;
+    private long dosCalls;
+    private long[] executed;
+    private long[] spent;
+
+    public Emulator(AsmProgram program) {
+        this(program, TimingTable.pentium());
+    }
+
+    public Emulator(AsmProgram program, TimingTable timing) {
+        this.program = program;
+        this.timing = timing;
+    }
+
+    /** Corta la ejecución (con error) después de esta cantidad de instrucciones. */
+    public Emulator setMaxSteps(long maxSteps) {
+        this.maxSteps = maxSteps;
+        return this;
+    }
+
+    /** Además de guardarla en el reporte, copia la salida del programa a medida que se produce. */
+    public Emulator echoTo(OutputStream echo) {
+        this.echo = echo;
+        return this;
+    }
+
+    public ExecutionReport run(String input) {
+        return run(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public ExecutionReport run(InputStream input) {
+        reset(input);
+        List<Instruction> code = program.instructions();
+        while (!halted) {
+            if (ip < 0 || ip >= code.size()) {
+                throw new EmulatorException("La ejecución salió del segmento de código sin INT 21h/4Ch");
+            }
+            if (steps >= maxSteps) {
+                throw new EmulatorException("Se superó el límite de " + maxSteps + " instrucciones ejecutadas");
+            }
+            int current = ip++;
+            Instruction instruction = code.get(current);
+            long before = cycle;
+            try {
+                execute(instruction);
+            } catch (EmulatorException e) {
+                throw new EmulatorException("Línea " + instruction.line + " (" + instruction + "): " + e.getMessage());
+            }
+            steps++;
+            executed[current]++;
+            spent[current] += cycle - before;
+        }
+        flushEcho();
+        return buildReport();
+    }
+
+    private void reset(InputStream input) {
+        this.input = input;
+        this.output = new ByteArrayOutputStream();
+        this.files = new LinkedHashMap<>();
+        this.openFiles = new HashMap<>();
+        this.nextHandle = 5;
+        Arrays.fill(registers, 0);
+        Arrays.fill(stack, (byte) 0);
+        data = program.copyOfData();
+        setSp(program.getStackSize());
+        cf = zf = sf = of = pf = df = false;
+        fpu.init();
+        ip = program.entry();
+        halted = false;
+        exitCode = 0;
+        steps = cycle = stalls = misaligned = dosCalls = 0;
+        executed = new long[program.getInstructionCount()];
+        spent = new long[program.getInstructionCount()];
+    }
+
+    private ExecutionReport buildReport() {
+        List<Instruction> code = program.instructions();
+        List<String> names = program.blockNames();
+        long[] entries = new long[names.size()];
+        long[] instructions = new long[names.size()];
+        long[] cycles = new long[names.size()];
+        Map<String, Long> mnemonics = new HashMap<>();
+        for (int i = 0; i < code.size(); i++) {
+            Instruction instruction = code.get(i);
+            if (executed[i] == 0) continue;
+            if (instruction.blockStart) entries[instruction.block] += executed[i];
+            instructions[instruction.block] += executed[i];
+            cycles[instruction.block] += spent[i];
+            mnemonics.merge(instruction.mnemonic, executed[i], Long::sum);
+        }
+        List<BlockProfile> blocks = new ArrayList<>();
+        for (int b = 0; b < names.size(); b++) {
+            blocks.add(new BlockProfile(names.get(b), entries[b], instructions[b], cycles[b]));
+        }
+        Map<String, byte[]> created = new LinkedHashMap<>();
+        files.forEach((name, content) -> created.put(name, content.toByteArray()));
+        return new ExecutionReport(output.toByteArray(), exitCode, steps, cycle, stalls, misaligned, dosCalls,
+            ExecutionReport.sortByCount(mnemonics), blocks, created);
+    }
+
+    // --- Despacho -----------------------------------------------------------------
+
+    private void execute(Instruction ins) {
+        String m = ins.mnemonic;
+        if (m.charAt(0) == 'F') {
+            executeFpu(ins);
+            return;
+        }
+
+        int cost = timing.issue(m);
+        if (ins.arity() > 0 && !m.equals("MOV") && !m.equals("PUSH") && !m.equals("POP")) {
+            // Lectura-modificación-escritura en memoria
+            if (ins.operand(0).is(Operand.Kind.MEMORY)) cost += 2;
+            else if (ins.arity() > 1 && ins.operand(1).is(Operand.Kind.MEMORY)) cost += 1;
+        }
+        cycle += cost;
+
+        Boolean condition = condition(m);
+        if (condition != null) {
+            if (condition) ip = ins.operand(0).target;
+            return;
+        }
+
+        int size;
+        long a;
+        long b;
+        switch (m) {
+            case "MOV":
+                size = sizeOf(ins);
+                write(ins.operand(0), size, read(ins.operand(1), size));
+                break;
+            case "MOVZX":
+            case "MOVSX": {
+                Operand src = ins.operand(1);
+                int srcSize = src.size == 0 ? 1 : src.size;
+                long value = read(src, srcSize);
+                if (m.equals("MOVSX")) value = signed(value, srcSize);
+                write(ins.operand(0), ins.operand(0).size, value);
+                break;
+            }
+            case "ADD":
+                size = sizeOf(ins);
+                write(ins.operand(0), size, add(read(ins.operand(0), size), read(ins.operand(1), size), size));
+                break;
+            case "SUB":
+                size = sizeOf(ins);
+                write(ins.operand(0), size, sub(read(ins.operand(0), size), read(ins.operand(1), size), size));
+                break;
+            case "CMP":
+                size = sizeOf(ins);
+                sub(read(ins.operand(0), size), read(ins.operand(1), size), size);
+                break;
+            case "AND":
+            case "OR":
+            case "XOR":
+            case "TEST": {
+                size = sizeOf(ins);
+                a = read(ins.operand(0), size);
+                b = read(ins.operand(1), size);
+                long result = m.equals("OR") ? a | b : m.equals("XOR") ? a ^ b : a & b;
+                logicFlags(result, size);
+                if (!m.equals("TEST")) write(ins.operand(0), size, result);
+                break;
+            }
+            case "INC":
+            case "DEC": {
+                size = sizeOf(ins);
+                boolean carry = cf;
+                a = read(ins.operand(0), size);
+                write(ins.operand(0), size, m.equals("INC") ? add(a, 1, size) : sub(a, 1, size));
+                cf = carry;
+                break;
+            }
+            case "NEG":
+                size = sizeOf(ins);
+                write(ins.operand(0), size, sub(0, read(ins.operand(0), size), size));
+                break;
+            case "NOT":
+                size = sizeOf(ins);
+                write(ins.operand(0), size, ~read(ins.operand(0), size));
+                break;
+            case "SHL":
+            case "SHR":
+            case "SAR":
+                shift(ins);
+                break;
+            case "IMUL":
+            case "MUL":
+                multiply(ins);
+                break;
+            case "DIV":
+            case "IDIV":
+                divide(ins);
+                break;
+            case "CWD":
+                writeReg(Register.DX, signed(readReg(Register.AX), 2) < 0 ? 0xFFFF : 0);
+                break;
+            case "CDQ":
+                writeReg(Register.EDX, signed(readReg(Register.EAX), 4) < 0 ? 0xFFFFFFFFL : 0);
+                break;
+            case "PUSH": {
+                Operand op = ins.operand(0);
+                size = op.size == 0 ? 2 : op.size;
+                push(read(op, size), size);
+                break;
+            }
+            case "POP": {
+                Operand op = ins.operand(0);
+                size = op.size == 0 ? 2 : op.size;
+                write(op, size, pop(size));
+                break;
+            }
+            case "PUSHAD": {
+                long sp = readReg(Register.ESP);
+                for (Register r : new Register[] {Register.EAX, Register.ECX, Register.EDX, Register.EBX}) {
+                    push(readReg(r), 4);
+                }
+                push(sp, 4);
+                for (Register r : new Register[] {Register.EBP, Register.ESI, Register.EDI}) {
+                    push(readReg(r), 4);
+                }
+                break;
+            }
+            case "POPAD":
+                for (Register r : new Register[] {Register.EDI, Register.ESI, Register.EBP}) {
+                    writeReg(r, pop(4));
+                }
+                pop(4);
+                for (Register r : new Register[] {Register.EBX, Register.EDX, Register.ECX, Register.EAX}) {
+                    writeReg(r, pop(4));
+                }
+                break;
+            case "CALL":
+                push(ip, 2);
+                ip = ins.operand(0).target;
+                break;
+            case "RET":
+                if (getSp() >= program.getStackSize()) {
+                    throw new EmulatorException("RET sin CALL pendiente");
+                }
+                ip = (int) pop(2);
+                if (ins.arity() > 0) setSp(getSp() + (int) ins.operand(0).value);
+                break;
+            case "JMP":
+                // Indirecto (tabla de saltos): en memoria o registro está el índice de instrucción
+                ip = ins.operand(0).is(Operand.Kind.LABEL) ? ins.operand(0).target : (int) read(ins.operand(0), 2);
+                break;
+            case "LOOP": {
+                long count = (readReg(Register.CX) - 1) & 0xFFFF;
+                writeReg(Register.CX, count);
+                if (count != 0) ip = ins.operand(0).target;
+                else cycle += 1;
+                break;
+            }
+            case "JCXZ":
+                if (readReg(Register.CX) == 0) ip = ins.operand(0).target;
+                else cycle += 1;
+                break;
+            case "JECXZ":
+                if (readReg(Register.ECX) == 0) ip = ins.operand(0).target;
+                else cycle += 1;
+                break;
+            case "CLD":
+                df = false;
+                break;
+            case "STD":
+                df = true;
+                break;
+            case "MOVSB":
+                moveString(ins);
+                break;
+            case "SAHF": {
+                long ah = readReg(Register.AH);
+                cf = (ah & 0x01) != 0;
+                pf = (ah & 0x04) != 0;
+                zf = (ah & 0x40) != 0;
+                sf = (ah & 0x80) != 0;
+                break;
+            }
+            case "LAHF":
+                writeReg(Register.AH, (cf ? 0x01 : 0) | (pf ? 0x04 : 0) | 0x02 | (zf ? 0x40 : 0) | (sf ? 0x80 : 0));
+                break;
+            case "INT":
+                interrupt((int) ins.operand(0).value);
+                break;
+            case "NOP":
+                break;
+            default:
+                throw new EmulatorException("Instrucción no soportada: " + m);
+        }
+    }
+
+    private Boolean condition(String m) {
+        switch (m) {
+            case "JE": case "JZ": return zf;
+            case "JNE": case "JNZ": return !zf;
+            case "JA": case "JNBE": return !cf && !zf;
+            case "JAE": case "JNB": case "JNC": return !cf;
+            case "JB": case "JNAE": case "JC": return cf;
+            case "JNA": case "JBE": return cf || zf;
+            case "JG": case "JNLE": return !zf && sf == of;
+            case "JGE": case "JNL": return sf == of;
+            case "JL": case "JNGE": return sf != of;
+            case "JLE": case "JNG": return zf || sf != of;
+            case "JS": return sf;
+            case "JNS": return !sf;
+            case "JO": return of;
+            case "JNO": return !of;
+            case "JP": case "JPE": return pf;
+            case "JNP": case "JPO": return !pf;
+            default: return null;
+        }
+    }
+
+    // --- Aritmética entera --------------------------------------------------------
+
+    private long add(long a, long b, int size) {
+        long mask = mask(size);
+        long result = (a & mask) + (b & mask);
+        cf = (result & ~mask) != 0;
+        of = signBit(a, size) == signBit(b, size) && signBit(result, size) != signBit(a, size);
+        resultFlags(result, size);
+        return result & mask;
+    }
+
+    private long sub(long a, long b, int size) {
+        long mask = mask(size);
+        a &= mask;
+        b &= mask;
+        long result = (a - b) & mask;
+        cf = Long.compareUnsigned(a, b) < 0;
+        of = signBit(a, size) != signBit(b, size) && signBit(result, size) != signBit(a, size);
+        resultFlags(result, size);
+        return result;
+    }
+
+    private void logicFlags(long result, int size) {
+        cf = false;
+        of = false;
+        resultFlags(result, size);
+    }
+
+    private void resultFlags(long result, int size) {
+        long value = result & mask(size);
+        zf = value == 0;
+        sf = signBit(value, size);
+        pf = Long.bitCount(value & 0xFF) % 2 == 0;
+    }
+
+    private void shift(Instruction ins) {
+        int size = sizeOf(ins);
+        int count = (int) (read(ins.operand(1), 1) & 31);
+        if (count == 0) return;
+        long value = read(ins.operand(0), size);
+        long result;
+        switch (ins.mnemonic) {
+            case "SHL":
+                cf = ((value << (count - 1)) & signMask(size)) != 0;
+                result = value << count;
+                break;
+            case "SHR":
+                cf = ((value >>> (count - 1)) & 1) != 0;
+                result = value >>> count;
+                break;
+            default:
+                long s = signed(value, size);
+                cf = ((s >> (count - 1)) & 1) != 0;
+                result = s >> count;
+                break;
+        }
+        of = false;
+        resultFlags(result, size);
+        write(ins.operand(0), size, result);
+    }
+
+    private void multiply(Instruction ins) {
+        boolean signed = ins.mnemonic.equals("IMUL");
+        if (ins.arity() == 1) {
+            Operand src = ins.operand(0);
+            int size = src.size;
+            Register low = size == 1 ? Register.AL : size == 2 ? Register.AX : Register.EAX;
+            long a = readReg(low);
+            long b = read(src, size);
+            long product = signed ? signed(a, size) * signed(b, size) : a * b;
+            if (size == 1) {
+                writeReg(Register.AX, product);
+            } else {
+                Register high = size == 2 ? Register.DX : Register.EDX;
+                writeReg(low, product);
+                writeReg(high, product >> (8 * size));
+            }
+            long fits = signed ? signed(product, size) : product & mask(size);
+            cf = of = fits != product;
+            return;
+        }
+        Operand dst = ins.operand(0);
+        int size = dst.size;
+        Operand left = ins.arity() == 3 ? ins.operand(1) : dst;
+        Operand right = ins.arity() == 3 ? ins.operand(2) : ins.operand(1);
+        long product = signed(read(left, size), size) * signed(read(right, size), size);
+        cf = of = signed(product, size) != product;
+        write(dst, size, product);
+    }
+
+    private void divide(Instruction ins) {
+        boolean signed = ins.mnemonic.equals("IDIV");
+        Operand src = ins.operand(0);
+        int size = src.size;
+        long divisor = read(src, size);
+        if (divisor == 0) throw new EmulatorException("División por cero");
+        long dividend;
+        if (size == 1) {
+            dividend = readReg(Register.AX);
+            if (signed) dividend = signed(dividend, 2);
+        } else {
+            Register low = size == 2 ? Register.AX : Register.EAX;
+            Register high = size == 2 ? Register.DX : Register.EDX;
+            dividend = (readReg(high) << (8 * size)) | readReg(low);
+            if (signed) dividend = signed(dividend, 2 * size);
+        }
+        long quotient;
+        long remainder;
+        if (signed) {
+            long d = signed(divisor, size);
+            quotient = dividend / d;
+            remainder = dividend % d;
+            if (signed(quotient, size) != quotient) throw new EmulatorException("Desborde en la división");
+        } else {
+            quotient = Long.divideUnsigned(dividend, divisor);
+            remainder = Long.remainderUnsigned(dividend, divisor);
+            if ((quotient & ~mask(size)) != 0) throw new EmulatorException("Desborde en la división");
+        }
+        if (size == 1) {
+            writeReg(Register.AL, quotient);
+            writeReg(Register.AH, remainder);
+        } else {
+            writeReg(size == 2 ? Register.AX : Register.EAX, quotient);
+            writeReg(size == 2 ? Register.DX : Register.EDX, remainder);
+        }
+    }
+
+    private void moveString(Instruction ins) {
+        int step = df ? -1 : 1;
+        long count = ins.prefix != null ? readReg(Register.CX) : 1;
+        for (long n = 0; n < count; n++) {
+            int si = (int) readReg(Register.SI);
+            int di = (int) readReg(Register.DI);
+            data[di] = data[si];
+            writeReg(Register.SI, si + step);
+            writeReg(Register.DI, di + step);
+        }
+        if (ins.prefix != null) {
+            writeReg(Register.CX, 0);
+            cycle += 9 + 4 * (count - 1);
+        }
+    }
+
+    // --- x87 ----------------------------------------------------------------------
+
+    private void executeFpu(Instruction ins) {
+        String m = ins.mnemonic;
+        switch (m) {
+            case "FINIT":
+            case "FNINIT":
+                issue(m, 0);
+                fpu.init();
+                return;
+            case "FWAIT":
+            case "WAIT":
+                issue(m, 0);
+                return;
+            case "FLD": {
+                Operand src = ins.operand(0);
+                if (src.is(Operand.Kind.FPU_REGISTER)) {
+                    int i = (int) src.value;
+                    double value = fpu.get(i);
+                    fpu.push(value, issue(m, fpu.readyAt(i)));
+                } else {
+                    double value = readReal(src);
+                    fpu.push(value, issue(m, 0));
+                }
+                return;
+            }
+            case "FLDZ":
+                fpu.push(0.0, issue(m, 0));
+                return;
+            case "FLD1":
+                fpu.push(1.0, issue(m, 0));
+                return;
+            case "FILD": {
+                Operand src = ins.operand(0);
+                int size = src.size == 0 ? 2 : src.size;
+                fpu.push(signed(read(src, size), size), issue(m, 0));
+                return;
+            }
+            case "FST":
+            case "FSTP": {
+                Operand dst = ins.operand(0);
+                if (dst.is(Operand.Kind.FPU_REGISTER)) {
+                    long ready = issue(m, fpu.readyAt(0));
+                    fpu.set((int) dst.value, fpu.get(0), ready);
+                } else {
+                    issue(m, fpu.readyAt(0));
+                    writeReal(dst, fpu.get(0));
+                }
+                if (m.equals("FSTP")) fpu.pop();
+                return;
+            }
+            case "FIST":
+            case "FISTP": {
+                Operand dst = ins.operand(0);
+                int size = dst.size == 0 ? 2 : dst.size;
+                issue(m, fpu.readyAt(0));
+                write(dst, size, toInteger(fpu.get(0), size));
+                if (m.equals("FISTP")) fpu.pop();
+                return;
+            }
+            case "FXCH":
+                issue(m, 0);
+                fpu.exchange(ins.arity() == 0 ? 1 : (int) ins.operand(0).value);
+                return;
+            case "FCHS":
+            case "FABS": {
+                long ready = issue(m, fpu.readyAt(0));
+                double value = fpu.get(0);
+                fpu.set(0, m.equals("FCHS") ? -value : Math.abs(value), ready);
+                return;
+            }
+            case "FCOM":
+            case "FCOMP":
+            case "FCOMPP":
+            case "FUCOM":
+            case "FUCOMP":
+            case "FUCOMPP":
+            case "FTST": {
+                double source;
+                long ready;
+                if (m.equals("FTST")) {
+                    source = 0.0;
+                    ready = fpu.readyAt(0);
+                } else if (ins.arity() == 0) {
+                    source = fpu.get(1);
+                    ready = Math.max(fpu.readyAt(0), fpu.readyAt(1));
+                } else if (ins.operand(0).is(Operand.Kind.FPU_REGISTER)) {
+                    int i = (int) ins.operand(0).value;
+                    source = fpu.get(i);
+                    ready = Math.max(fpu.readyAt(0), fpu.readyAt(i));
+                } else {
+                    source = readReal(ins.operand(0));
+                    ready = fpu.readyAt(0);
+                }
+                fpu.compare(fpu.get(0), source, issue(m, ready));
+                if (m.endsWith("P")) fpu.pop();
+                if (m.endsWith("PP")) fpu.pop();
+                return;
+            }
+            case "FSTSW":
+            case "FNSTSW":
+                issue(m, fpu.statusReadyAt());
+                write(ins.operand(0), 2, fpu.statusWord());
+                return;
+            case "FSTCW":
+            case "FNSTCW":
+                issue(m, 0);
+                write(ins.operand(0), 2, fpu.control());
+                return;
+            case "FLDCW":
+                issue(m, 0);
+                fpu.setControl((int) read(ins.operand(0), 2));
+                return;
+            case "FIADD":
+            case "FISUB":
+            case "FISUBR":
+            case "FIMUL":
+            case "FIDIV":
+            case "FIDIVR": {
+                Operand src = ins.operand(0);
+                int size = src.size == 0 ? 2 : src.size;
+                double value = signed(read(src, size), size);
+                String base = m.substring(2, 5);
+                long ready = issue(m, fpu.readyAt(0));
+                fpu.set(0, arithmetic(base, fpu.get(0), value, m.endsWith("R")), ready);
+                return;
+            }
+            default:
+                break;
+        }
+
+        String base = m.length() >= 4 ? m.substring(1, 4) : "";
+        if (base.equals("ADD") || base.equals("SUB") || base.equals("MUL") || base.equals("DIV")) {
+            String suffix = m.substring(4);
+            boolean reversed = suffix.startsWith("R");
+            boolean popAfter = suffix.endsWith("P");
+            if (ins.arity() == 0) {
+                // Forma sin operandos de MASM/TASM: F<op>P ST(1), ST
+                long ready = issue(m, Math.max(fpu.readyAt(0), fpu.readyAt(1)));
+                fpu.set(1, arithmetic(base, fpu.get(1), fpu.get(0), reversed), ready);
+                fpu.pop();
+            } else if (ins.operand(0).is(Operand.Kind.FPU_REGISTER)) {
+                int dst = ins.arity() == 2 ? (int) ins.operand(0).value : 0;
+                int src = ins.arity() == 2 ? (int) ins.operand(1).value : (int) ins.operand(0).value;
+                long ready = issue(m, Math.max(fpu.readyAt(dst), fpu.readyAt(src)));
+                fpu.set(dst, arithmetic(base, fpu.get(dst), fpu.get(src), reversed), ready);
+                if (popAfter) fpu.pop();
+            } else {
+                double value = readReal(ins.operand(0));
+                long ready = issue(m, fpu.readyAt(0));
+                fpu.set(0, arithmetic(base, fpu.get(0), value, reversed), ready);
+            }
+            return;
+        }
+        throw new EmulatorException("Instrucción x87 no soportada: " + m);
+    }
+
+    /**
+     * Cobra una instrucción x87 que necesita un operando disponible en {@code operandReady}.
+     * Devuelve el ciclo en que su resultado queda disponible.
+     */
+    private long issue(String mnemonic, long operandReady) {
+        long start = Math.max(cycle, operandReady);
+        stalls += start - cycle;
+        cycle = start + timing.issue(mnemonic);
+        return start + timing.latency(mnemonic);
+    }
+
+    private static double arithmetic(String base, double dst, double src, boolean reversed) {
+        double a = reversed ? src : dst;
+        double b = reversed ? dst : src;
+        switch (base) {
+            case "ADD": return a + b;
+            case "SUB": return a - b;
+            case "MUL": return a * b;
+            default: return a / b;
+        }
+    }
+
+    private long toInteger(double value, int size) {
+        double rounded = fpu.round(value);
+        long indefinite = 1L << (8 * size - 1);
+        if (Double.isNaN(rounded) || rounded < -indefinite || rounded > indefinite - 1) {
+            return indefinite;
+        }
+        return (long) rounded;
+    }
+
+    private double readReal(Operand op) {
+        int size = op.size == 0 ? 4 : op.size;
+        long bits = read(op, size);
+        if (size == 4) return Float.intBitsToFloat((int) bits);
+        if (size == 8) return Double.longBitsToDouble(bits);
+        throw new EmulatorException("Real de " + size + " bytes no soportado: " + op);
+    }
+
+    private void writeReal(Operand op, double value) {
+        int size = op.size == 0 ? 4 : op.size;
+        if (size == 4) write(op, 4, Float.floatToRawIntBits((float) value));
+        else if (size == 8) write(op, 8, Double.doubleToRawLongBits(value));
+        else throw new EmulatorException("Real de " + size + " bytes no soportado: " + op);
+    }
+
+    // --- DOS ----------------------------------------------------------------------
+
+    private void interrupt(int number) {
+        if (number != 0x21) {
+            throw new EmulatorException("Interrupción no soportada: " + Integer.toHexString(number) + "h");
+        }
+        dosCalls++;
+        int function = (int) readReg(Register.AH);
+        switch (function) {
+            case 0x02:
+                out((int) readReg(Register.DL));
+                break;
+            case 0x09: {
+                int address = (int) readReg(Register.DX);
+                for (int n = 0; data[address] != '$'; n++) {
+                    if (n >= AsmProgram.SEGMENT_SIZE) throw new EmulatorException("Cadena sin '$' en AH=09h");
+                    out(data[address]);
+                    address = (address + 1) & 0xFFFF;
+                }
+                break;
+            }
+            case 0x0A:
+                bufferedInput((int) readReg(Register.DX));
+                break;
+            case 0x3C: {
+                String name = asciiz((int) readReg(Register.DX));
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                files.put(name, content);
+                openFiles.put(nextHandle, content);
+                writeReg(Register.AX, nextHandle++);
+                cf = false;
+                break;
+            }
+            case 0x3E: {
+                int handle = (int) readReg(Register.BX);
+                cf = openFiles.remove(handle) == null && handle > 4;
+                if (cf) writeReg(Register.AX, 6); // handle inválido
+                break;
+            }
+            case 0x40: {
+                int handle = (int) readReg(Register.BX);
+                int count = (int) readReg(Register.CX);
+                int address = (int) readReg(Register.DX);
+                ByteArrayOutputStream file = openFiles.get(handle);
+                if (file == null && handle != 1 && handle != 2) {
+                    throw new EmulatorException("AH=40h con handle no soportado: " + handle);
+                }
+                for (int n = 0; n < count; n++) {
+                    byte b = data[(address + n) & 0xFFFF];
+                    if (file != null) file.write(b);
+                    else out(b);
+                }
+                writeReg(Register.AX, count);
+                cf = false;
+                break;
+            }
+            case 0x4C:
+                halted = true;
+                exitCode = (int) readReg(Register.AL);
+                break;
+            default:
+                throw new EmulatorException("INT 21h con función no soportada: AH=" + Integer.toHexString(function) + "h");
+        }
+    }
+
+    /** Nombre de archivo terminado en 0, como lo reciben las funciones de archivos de DOS. */
+    private String asciiz(int address) {
+        StringBuilder name = new StringBuilder();
+        for (int n = 0; data[(address + n) & 0xFFFF] != 0; n++) {
+            if (n >= 128) throw new EmulatorException("Nombre de archivo sin terminar en 0");
+            name.append((char) (data[(address + n) & 0xFFFF] & 0xFF));
+        }
+        return name.toString();
+    }
+
+    /** AH=0Ah: [DX] = máximo, [DX+1] = leídos, [DX+2..] = texto terminado en CR. Hace eco como DOS. */
+    private void bufferedInput(int address) {
+        int max = data[address] & 0xFF;
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        try {
+            int c;
+            while ((c = input.read()) != -1 && c != '\n') {
+                if (c != '\r') line.write(c);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] text = line.toByteArray();
+        int count = Math.min(text.length, Math.max(max - 1, 0));
+        for (int i = 0; i < count; i++) {
+            data[(address + 2 + i) & 0xFFFF] = text[i];
+            out(text[i]);
+        }
+        data[(address + 1) & 0xFFFF] = (byte) count;
+        data[(address + 2 + count) & 0xFFFF] = 0x0D;
+        out(0x0D);
+    }
+
+    private void out(int b) {
+        output.write(b);
+        if (echo != null) {
+            try {
+                echo.write(b);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void flushEcho() {
+        if (echo != null) {
+            try {
+                echo.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // --- Registros, memoria y pila ------------------------------------------------
+
+    private int sizeOf(Instruction ins) {
+        for (Operand op : ins.operands) {
+            if (op.size > 0) return op.size;
+        }
+        throw new EmulatorException("No se puede deducir el tamaño de los operandos");
+    }
+
+    private long read(Operand op, int size) {
+        switch (op.kind) {
+            case REGISTER:
+                return readReg(op.register);
+            case IMMEDIATE:
+                return op.value & mask(size);
+            case MEMORY:
+                return readMemory(segmentOf(op), checkAlignment(address(op), size), size);
+            default:
+                throw new EmulatorException("Operando no legible: " + op);
+        }
+    }
+
+    private void write(Operand op, int size, long value) {
+        switch (op.kind) {
+            case REGISTER:
+                writeReg(op.register, value);
+                break;
+            case MEMORY:
+                writeMemory(segmentOf(op), checkAlignment(address(op), size), size, value);
+                break;
+            default:
+                throw new EmulatorException("Operando no escribible: " + op);
+        }
+    }
+
+    /** Cobra la penalidad de un acceso que no está alineado a su tamaño. */
+    private int checkAlignment(int address, int size) {
+        if (size > 1 && address % size != 0) {
+            misaligned++;
+            cycle += timing.misalignedPenalty();
+        }
+        return address;
+    }
+
+    private byte[] segmentOf(Operand op) {
+        return op.isStackRelative() ? stack : data;
+    }
+
+    private int address(Operand op) {
+        long address = op.value;
+        for (Register r : op.baseRegisters) {
+            address += readReg(r);
+        }
+        return (int) (address & 0xFFFF);
+    }
+
+    private static long readMemory(byte[] segment, int address, int size) {
+        long value = 0;
+        for (int i = 0; i < size; i++) {
+            value |= (segment[(address + i) & 0xFFFF] & 0xFFL) << (8 * i);
+        }
+        return value;
+    }
+
+    private static void writeMemory(byte[] segment, int address, int size, long value) {
+        for (int i = 0; i < size; i++) {
+            segment[(address + i) & 0xFFFF] = (byte) (value >>> (8 * i));
+        }
+    }
+
+    private long readReg(Register r) {
+        int value = registers[r.index];
+        switch (r.size) {
+            case 1: return (value >>> r.shift) & 0xFF;
+            case 2: return value & 0xFFFF;
+            default: return value & 0xFFFFFFFFL;
+        }
+    }
+
+    private void writeReg(Register r, long value) {
+        int i = r.index;
+        switch (r.size) {
+            case 1:
+                registers[i] = (registers[i] & ~(0xFF << r.shift)) | ((int) (value & 0xFF) << r.shift);
+                break;
+            case 2:
+                registers[i] = (registers[i] & 0xFFFF0000) | (int) (value & 0xFFFF);
+                break;
+            default:
+                registers[i] = (int) value;
+                break;
+        }
+    }
+
+    private int getSp() {
+        return (int) readReg(Register.SP);
+    }
+
+    private void setSp(int sp) {
+        writeReg(Register.SP, sp);
+    }
+
+    private void push(long value, int size) {
+        int sp = getSp() - size;
+        if (sp < 0) {
+            throw new EmulatorException("Desborde de la pila (.STACK " + program.getStackSize() + " bytes)");
+        }
+        writeMemory(stack, sp, size, value);
+        setSp(sp);
+    }
+
+    private long pop(int size) {
+        int sp = getSp();
+        if (sp + size > program.getStackSize()) {
+            throw new EmulatorException("POP con la pila vacía");
+        }
+        setSp(sp + size);
+        return readMemory(stack, sp, size);
+    }
+
+    private static long mask(int size) {
+        return size >= 8 ? -1L : (1L << (8 * size)) - 1;
+    }
+
+    private static long signMask(int size) {
+        return 1L << (8 * size - 1);
+    }
+
+    private static boolean signBit(long value, int size) {
+        return (value & signMask(size)) != 0;
+    }
+
+    private static long signed(long value, int size) {
+        int bits = 64 - 8 * size;
+        return (value << bits) >> bits;
+    }
+}
@@ -0,0 +1,74 @@
+package lyc.compiler.emulator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+import lyc.compiler.model.EmulatorException;
+
+/**
+ * Ejecuta un final.asm generado y muestra su salida seguida del perfil.
+ * Uso: [--max-steps=n] [--report=archivo] final.asm [entrada.txt]
+ */
+public final class EmulatorMain {
+
+    private EmulatorMain() {}
+
+    public static void main(String[] args) {
+        String asmFile = null;
+        String inputFile = null;
+        String reportFile = null;
+        long maxSteps = Emulator.DEFAULT_MAX_STEPS;
+
+        for (String arg : args) {
+            if (arg.startsWith("--max-steps=")) {
+                maxSteps = Long.parseLong(arg.substring("--max-steps=".length()));
+            } else if (arg.startsWith("--report=")) {
+                reportFile = arg.substring("--report=".length());
+            } else if (asmFile == null) {
+                asmFile = arg;
+            } else if (inputFile == null) {
+                inputFile = arg;
+            } else {
+                usage();
+                return;
+            }
+        }
+        if (asmFile == null) {
+            usage();
+            return;
+        }
+
+        try (InputStream input = inputFile == null ? System.in : Files.newInputStream(Paths.get(inputFile))) {
+            AsmProgram program = AsmProgram.load(Paths.get(asmFile));
+            ExecutionReport report = new Emulator(program)
+                .setMaxSteps(maxSteps)
+                .echoTo(System.out)
+                .run(input);
+            System.out.println();
+            System.out.println("------------------------------------------------------");
+            System.out.print(report.format());
+            if (reportFile != null) {
+                Files.writeString(Path.of(reportFile), report.format());
+            }
+            // Los archivos que creó el programa quedan en el directorio actual, como en DOS
+            for (Map.Entry<String, byte[]> file : report.getFiles().entrySet()) {
+                Files.write(Paths.get(file.getKey()), file.getValue());
+                System.out.println("Archivo creado: " + file.getKey() + " (" + file.getValue().length + " bytes)");
+            }
+        } catch (IOException e) {
+            System.err.println("Error de lectura: " + e.getMessage());
+            System.exit(1);
+        } catch (EmulatorException e) {
+            System.err.println("Error de ejecución: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void usage() {
+        System.out.println("Uso: [--max-steps=n] [--report=archivo] final.asm [entrada.txt]");
+    }
+}
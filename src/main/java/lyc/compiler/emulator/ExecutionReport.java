@@ -0,0 +1,170 @@
+package lyc.compiler.emulator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado de una ejecución en el emulador: salida del programa y perfil
+ * (instrucciones ejecutadas, ciclos estimados y bloques más costosos).
+ */
+public final class ExecutionReport {
+
+    /** Contadores de un bloque: instrucciones desde una etiqueta hasta la siguiente. */
+    public static final class BlockProfile {
+        private final String label;
+        private final long entries;
+        private final long instructions;
+        private final long cycles;
+
+        BlockProfile(String label, long entries, long instructions, long cycles) {
+            this.label = label;
+            this.entries = entries;
+            this.instructions = instructions;
+            this.cycles = cycles;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        /** Veces que se ejecutó la primera instrucción del bloque. */
+        public long getEntries() {
+            return entries;
+        }
+
+        public long getInstructions() {
+            return instructions;
+        }
+
+        public long getCycles() {
+            return cycles;
+        }
+    }
+
+    private final byte[] output;
+    private final int exitCode;
+    private final long instructions;
+    private final long cycles;
+    private final long fpuStallCycles;
+    private final long misalignedAccesses;
+    private final long dosCalls;
+    private final Map<String, Long> mnemonicCounts;
+    private final List<BlockProfile> blocks;
+    private final Map<String, byte[]> files;
+
+    ExecutionReport(byte[] output, int exitCode, long instructions, long cycles, long fpuStallCycles, long misalignedAccesses, long dosCalls,
+                    Map<String, Long> mnemonicCounts, List<BlockProfile> blocks, Map<String, byte[]> files) {
+        this.output = output;
+        this.exitCode = exitCode;
+        this.instructions = instructions;
+        this.cycles = cycles;
+        this.fpuStallCycles = fpuStallCycles;
+        this.misalignedAccesses = misalignedAccesses;
+        this.dosCalls = dosCalls;
+        this.mnemonicCounts = mnemonicCounts;
+        this.blocks = blocks;
+        this.files = files;
+    }
+
+    /** Lo que el programa escribió por consola (UTF-8, como quedan las cadenas en final.asm). */
+    public String getOutput() {
+        return new String(output, StandardCharsets.UTF_8);
+    }
+
+    public byte[] getOutputBytes() {
+        return output.clone();
+    }
+
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    public long getInstructionCount() {
+        return instructions;
+    }
+
+    public long getCycles() {
+        return cycles;
+    }
+
+    /** Ciclos perdidos esperando resultados de la x87 (incluidos en {@link #getCycles()}). */
+    public long getFpuStallCycles() {
+        return fpuStallCycles;
+    }
+
+    /** Accesos a memoria de 2, 4 u 8 bytes en una dirección que no es múltiplo de su tamaño. */
+    public long getMisalignedAccesses() {
+        return misalignedAccesses;
+    }
+
+    public long getDosCalls() {
+        return dosCalls;
+    }
+
+    /** Instrucciones ejecutadas por mnemónico, de mayor a menor. */
+    public Map<String, Long> getMnemonicCounts() {
+        return Collections.unmodifiableMap(mnemonicCounts);
+    }
+
+    /** Bloques en orden de aparición en el código. */
+    /** Archivos que creó el programa (por ejemplo PROFILE.DAT), con su contenido final. */
+    public Map<String, byte[]> getFiles() {
+        return Collections.unmodifiableMap(files);
+    }
+
+    public List<BlockProfile> getBlocks() {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    public BlockProfile getBlock(String label) {
+        for (BlockProfile block : blocks) {
+            if (block.getLabel().equalsIgnoreCase(label)) return block;
+        }
+        return null;
+    }
+
+    /** Bloques ordenados por ciclos, de mayor a menor. */
+    public List<BlockProfile> getHotSpots(int limit) {
+        List<BlockProfile> sorted = new ArrayList<>(blocks);
+        sorted.sort(Comparator.comparingLong(BlockProfile::getCycles).reversed());
+        return sorted.subList(0, Math.min(limit, sorted.size()));
+    }
+
+    /** Resumen en texto para la consola o para guardar como artefacto de CI. */
+    public String format() {
+        StringBuilder b = new StringBuilder();
+        b.append(String.format("Instrucciones ejecutadas: %d%n", instructions));
+        b.append(String.format("Ciclos estimados:         %d%n", cycles));
+        b.append(String.format("Esperas x87:              %d%n", fpuStallCycles));
+        b.append(String.format("Accesos desalineados:     %d%n", misalignedAccesses));
+        b.append(String.format("Llamadas a DOS:           %d%n", dosCalls));
+        b.append(String.format("Código de salida:         %d%n", exitCode));
+
+        b.append(String.format("%nBloques más costosos:%n"));
+        b.append(String.format("  %-20s %10s %12s %12s %7s%n", "etiqueta", "entradas", "instrucc.", "ciclos", "%"));
+        for (BlockProfile block : getHotSpots(15)) {
+            if (block.getInstructions() == 0) break;
+            b.append(String.format("  %-20s %10d %12d %12d %6.1f%%%n", block.getLabel(), block.getEntries(),
+                block.getInstructions(), block.getCycles(), cycles == 0 ? 0.0 : 100.0 * block.getCycles() / cycles));
+        }
+
+        b.append(String.format("%nInstrucciones por mnemónico:%n"));
+        for (Map.Entry<String, Long> entry : mnemonicCounts.entrySet()) {
+            b.append(String.format("  %-8s %12d%n", entry.getKey(), entry.getValue()));
+        }
+        return b.toString();
+    }
+
+    static Map<String, Long> sortByCount(Map<String, Long> counts) {
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+            .forEach(e -> sorted.put(e.getKey(), e.getValue()));
+        return sorted;
+    }
+}
@@ -0,0 +1,45 @@
+package lyc.compiler.emulator;
+
+import java.util.List;
+
+/**
+ * Instrucción del segmento de código, con la línea de origen y el bloque
+ * (etiqueta anterior más cercana) al que pertenece para el perfil.
+ */
+final class Instruction {
+
+    final String mnemonic;
+    final String prefix;
+    final List<Operand> operands;
+    final int line;
+    final int block;
+    final boolean blockStart;
+
+    Instruction(String mnemonic, String prefix, List<Operand> operands, int line, int block, boolean blockStart) {
+        this.mnemonic = mnemonic;
+        this.prefix = prefix;
+        this.operands = operands;
+        this.line = line;
+        this.block = block;
+        this.blockStart = blockStart;
+    }
+
+    Operand operand(int i) {
+        return operands.get(i);
+    }
+
+    int arity() {
+        return operands.size();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder();
+        if (prefix != null) b.append(prefix).append(' ');
+        b.append(mnemonic);
+        for (int i = 0; i < operands.size(); i++) {
+            b.append(i == 0 ? " " : ", ").append(operands.get(i));
+        }
+        return b.toString();
+    }
+}
@@ -0,0 +1,71 @@
+package lyc.compiler.emulator;
+
+import java.util.List;
+
+/**
+ * Operando ya interpretado de una instrucción.
+ */
+final class Operand {
+
+    enum Kind { REGISTER, IMMEDIATE, MEMORY, FPU_REGISTER, LABEL }
+
+    final Kind kind;
+    final String text;
+    final Register register;
+    // Inmediato, desplazamiento de memoria o índice ST(i)
+    final long value;
+    // Tamaño en bytes del acceso a memoria (0 si no está especificado)
+    final int size;
+    final List<Register> baseRegisters;
+    final String label;
+    // Índice de instrucción destino para LABEL, resuelto al terminar el parseo
+    int target = -1;
+
+    private Operand(Kind kind, String text, Register register, long value, int size,
+                    List<Register> baseRegisters, String label) {
+        this.kind = kind;
+        this.text = text;
+        this.register = register;
+        this.value = value;
+        this.size = size;
+        this.baseRegisters = baseRegisters;
+        this.label = label;
+    }
+
+    static Operand register(String text, Register register) {
+        return new Operand(Kind.REGISTER, text, register, 0, register.size, List.of(), null);
+    }
+
+    static Operand immediate(String text, long value) {
+        return new Operand(Kind.IMMEDIATE, text, null, value, 0, List.of(), null);
+    }
+
+    static Operand memory(String text, long displacement, int size, List<Register> baseRegisters) {
+        return new Operand(Kind.MEMORY, text, null, displacement, size, List.copyOf(baseRegisters), null);
+    }
+
+    static Operand fpuRegister(String text, int index) {
+        return new Operand(Kind.FPU_REGISTER, text, null, index, 0, List.of(), null);
+    }
+
+    static Operand label(String text, String label) {
+        return new Operand(Kind.LABEL, text, null, 0, 0, List.of(), label);
+    }
+
+    boolean is(Kind kind) {
+        return this.kind == kind;
+    }
+
+    /** Direcciona sobre el segmento de pila (base BP o SP). */
+    boolean isStackRelative() {
+        for (Register r : baseRegisters) {
+            if (r.isStackBase()) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
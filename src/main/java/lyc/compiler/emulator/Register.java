@@ -0,0 +1,40 @@
+package lyc.compiler.emulator;
+
+/**
+ * Registros de la CPU que usa el assembler generado. Las partes de 8, 16 y 32 bits
+ * comparten el mismo registro físico ({@link #index}).
+ */
+enum Register {
+    AL(0, 1, 0), CL(1, 1, 0), DL(2, 1, 0), BL(3, 1, 0),
+    AH(0, 1, 8), CH(1, 1, 8), DH(2, 1, 8), BH(3, 1, 8),
+    AX(0, 2, 0), CX(1, 2, 0), DX(2, 2, 0), BX(3, 2, 0),
+    SP(4, 2, 0), BP(5, 2, 0), SI(6, 2, 0), DI(7, 2, 0),
+    EAX(0, 4, 0), ECX(1, 4, 0), EDX(2, 4, 0), EBX(3, 4, 0),
+    ESP(4, 4, 0), EBP(5, 4, 0), ESI(6, 4, 0), EDI(7, 4, 0),
+    CS(8, 2, 0), DS(9, 2, 0), ES(10, 2, 0), SS(11, 2, 0);
+
+    static final int COUNT = 12;
+
+    final int index;
+    final int size;
+    final int shift;
+
+    Register(int index, int size, int shift) {
+        this.index = index;
+        this.size = size;
+        this.shift = shift;
+    }
+
+    /** El registro se usa como base de pila (direcciona sobre SS). */
+    boolean isStackBase() {
+        return index == 4 || index == 5;
+    }
+
+    static Register parse(String name) {
+        try {
+            return Register.valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package lyc.compiler.emulator;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Costo estimado de cada instrucción, en ciclos.
+ * {@code issue} es lo que ocupa la instrucción antes de que pueda empezar la siguiente;
+ * {@code latency} es lo que tarda su resultado x87 en estar disponible para otra instrucción
+ * (el emulador lleva un marcador por registro de la pila y cuenta las esperas).
+ */
+public final class TimingTable {
+
+    private static final int[] UNKNOWN = {1, 1};
+
+    private final Map<String, int[]> timings = new HashMap<>();
+    private int misalignedPenalty;
+
+    /**
+     * Tabla aproximada de un Pentium (P5): enteros de un ciclo, FADD/FMUL segmentados
+     * con latencia 3, FDIV sin segmentar. Las llamadas a DOS no tienen un costo fijo real;
+     * se toma un orden de magnitud (despacho de INT 21h y escritura en consola).
+     */
+    public static TimingTable pentium() {
+        TimingTable t = new TimingTable();
+        for (String m : new String[] {"MOV", "ADD", "SUB", "AND", "OR", "XOR", "CMP", "TEST",
+                                      "INC", "DEC", "NEG", "NOT", "PUSH", "POP", "CALL", "JMP", "NOP"}) {
+            t.set(m, 1, 1);
+        }
+        for (String m : new String[] {"JE", "JZ", "JNE", "JNZ", "JA", "JNBE", "JAE", "JNB", "JNC", "JB", "JNAE",
+                                      "JC", "JNA", "JBE", "JG", "JNLE", "JGE", "JNL", "JL", "JNGE", "JLE", "JNG",
+                                      "JS", "JNS", "JO", "JNO", "JP", "JPE", "JNP", "JPO"}) {
+            t.set(m, 1, 1);
+        }
+        t.set("SHL", 1, 1);
+        t.set("SHR", 1, 1);
+        t.set("SAR", 1, 1);
+        t.set("RET", 2, 2);
+        t.set("PUSHAD", 5, 5);
+        t.set("POPAD", 5, 5);
+        t.set("LOOP", 5, 5);
+        t.set("JCXZ", 5, 5);
+        t.set("JECXZ", 5, 5);
+        t.set("MOVZX", 3, 3);
+        t.set("MOVSX", 3, 3);
+        t.set("CLD", 2, 2);
+        t.set("CWD", 2, 2);
+        t.set("CDQ", 2, 2);
+        t.set("MOVSB", 4, 4);
+        t.set("IMUL", 10, 10);
+        t.set("MUL", 11, 11);
+        t.set("DIV", 25, 25);
+        t.set("IDIV", 28, 28);
+        t.set("SAHF", 2, 2);
+        t.set("INT", 1000, 1000);
+
+        t.set("FLD", 1, 1);
+        t.set("FLDZ", 2, 2);
+        t.set("FLD1", 2, 2);
+        t.set("FST", 2, 2);
+        t.set("FSTP", 2, 2);
+        t.set("FXCH", 0, 0);
+        t.set("FCHS", 1, 1);
+        t.set("FABS", 1, 1);
+        for (String m : new String[] {"FADD", "FADDP", "FSUB", "FSUBP", "FSUBR", "FSUBRP"}) {
+            t.set(m, 1, 3);
+        }
+        t.set("FMUL", 2, 3);
+        t.set("FMULP", 2, 3);
+        t.set("FDIV", 39, 39);
+        t.set("FDIVP", 39, 39);
+        t.set("FDIVR", 39, 39);
+        t.set("FDIVRP", 39, 39);
+        t.set("FCOM", 1, 4);
+        t.set("FCOMP", 1, 4);
+        t.set("FCOMPP", 1, 4);
+        t.set("FSTSW", 2, 2);
+        t.set("FNSTSW", 2, 2);
+        t.set("FILD", 3, 3);
+        t.set("FIST", 6, 6);
+        t.set("FISTP", 6, 6);
+        t.set("FIADD", 4, 7);
+        t.set("FISUB", 4, 7);
+        t.set("FIMUL", 4, 7);
+        t.set("FIDIV", 42, 42);
+        t.set("FSTCW", 2, 2);
+        t.set("FNSTCW", 2, 2);
+        t.set("FLDCW", 7, 7);
+        t.set("FINIT", 16, 16);
+        t.set("FWAIT", 1, 1);
+        // Un acceso de 2, 4 u 8 bytes a una dirección que no es múltiplo de su tamaño
+        t.misalignedPenalty = 3;
+        return t;
+    }
+
+    public TimingTable set(String mnemonic, int issue, int latency) {
+        timings.put(mnemonic.toUpperCase(), new int[] {issue, latency});
+        return this;
+    }
+
+    public int issue(String mnemonic) {
+        return timings.getOrDefault(mnemonic, UNKNOWN)[0];
+    }
+
+    public int latency(String mnemonic) {
+        return timings.getOrDefault(mnemonic, UNKNOWN)[1];
+    }
+
+    /** Ciclos de más por un acceso a memoria desalineado. */
+    public int misalignedPenalty() {
+        return misalignedPenalty;
+    }
+
+    public TimingTable setMisalignedPenalty(int cycles) {
+        this.misalignedPenalty = cycles;
+        return this;
+    }
+}
@@ -0,0 +1,126 @@
+package lyc.compiler.emulator;
+
+import lyc.compiler.model.EmulatorException;
+
+/**
+ * Pila de registros de la x87. Los valores se llevan en double (no en 80 bits) y cada
+ * registro guarda además el ciclo en que su valor queda disponible, para el modelo de latencias.
+ */
+final class X87 {
+
+    private static final int DEFAULT_CONTROL = 0x037F;
+
+    private final double[] registers = new double[8];
+    private final long[] readyAt = new long[8];
+    private int top;
+    private int depth;
+
+    private int control = DEFAULT_CONTROL;
+    private boolean c0;
+    private boolean c2;
+    private boolean c3;
+    private long statusReadyAt;
+
+    void init() {
+        top = 0;
+        depth = 0;
+        control = DEFAULT_CONTROL;
+        c0 = c2 = c3 = false;
+        statusReadyAt = 0;
+    }
+
+    int depth() {
+        return depth;
+    }
+
+    private int physical(int i) {
+        if (i < 0 || i >= depth) {
+            throw new EmulatorException("Pila x87 vacía: se leyó ST(" + i + ") con " + depth + " valores cargados");
+        }
+        return (top + i) & 7;
+    }
+
+    double get(int i) {
+        return registers[physical(i)];
+    }
+
+    long readyAt(int i) {
+        return readyAt[physical(i)];
+    }
+
+    void set(int i, double value, long ready) {
+        int p = physical(i);
+        registers[p] = value;
+        readyAt[p] = ready;
+    }
+
+    void push(double value, long ready) {
+        if (depth == 8) {
+            throw new EmulatorException("Desborde de la pila x87 (más de 8 valores)");
+        }
+        top = (top - 1) & 7;
+        depth++;
+        registers[top] = value;
+        readyAt[top] = ready;
+    }
+
+    double pop() {
+        double value = get(0);
+        top = (top + 1) & 7;
+        depth--;
+        return value;
+    }
+
+    void exchange(int i) {
+        int a = physical(0);
+        int b = physical(i);
+        double value = registers[a];
+        registers[a] = registers[b];
+        registers[b] = value;
+        long ready = readyAt[a];
+        readyAt[a] = readyAt[b];
+        readyAt[b] = ready;
+    }
+
+    /** FCOM: C3 = iguales, C0 = ST(0) menor, los tres en 1 si no son comparables. */
+    void compare(double st0, double source, long ready) {
+        if (Double.isNaN(st0) || Double.isNaN(source)) {
+            c0 = c2 = c3 = true;
+        } else {
+            c0 = st0 < source;
+            c2 = false;
+            c3 = st0 == source;
+        }
+        statusReadyAt = ready;
+    }
+
+    int statusWord() {
+        int status = (top & 7) << 11;
+        if (c0) status |= 0x0100;
+        if (c2) status |= 0x0400;
+        if (c3) status |= 0x4000;
+        return status;
+    }
+
+    long statusReadyAt() {
+        return statusReadyAt;
+    }
+
+    int control() {
+        return control;
+    }
+
+    void setControl(int control) {
+        this.control = control & 0xFFFF;
+    }
+
+    /** Redondeo a entero según los bits RC de la palabra de control. */
+    double round(double value) {
+        switch ((control >> 10) & 3) {
+            case 1: return Math.floor(value);
+            case 2: return Math.ceil(value);
+            case 3: return value < 0 ? Math.ceil(value) : Math.floor(value);
+            default: return Math.rint(value);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package lyc.compiler.factories;
+
+import lyc.compiler.files.AsmCodeGenerator;
+import lyc.compiler.files.Backend;
+import lyc.compiler.files.X64CodeGenerator;
+import lyc.compiler.model.CompilerOptions.Target;
+
+public final class BackendFactory {
+
+    private BackendFactory() {}
+
+    public static Backend create(Target target) {
+        switch (target) {
+            case LINUX64:
+                return X64CodeGenerator.getInstance();
+            case DOS:
+            default:
+                return AsmCodeGenerator.getInstance();
+        }
+    }
+
+}
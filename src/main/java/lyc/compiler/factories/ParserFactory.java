@@ -1,5 +1,6 @@
 package lyc.compiler.factories;
 
+import lyc.compiler.Lexer;
 import lyc.compiler.Parser;
 
 import java.io.Reader;
@@ -9,11 +10,15 @@ public final class ParserFactory {
     private ParserFactory(){}
 
     public static Parser create(String input) {
-        return new Parser(LexerFactory.create(input));
+        return create(LexerFactory.create(input));
     }
 
     public static Parser create(Reader reader) {
-        return new Parser(LexerFactory.create(reader));
+        return create(LexerFactory.create(reader));
+    }
+
+    public static Parser create(Lexer lexer) {
+        return new Parser(lexer, new PlainSymbolFactory());
     }
 
 
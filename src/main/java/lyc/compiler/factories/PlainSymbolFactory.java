@@ -0,0 +1,45 @@
+package lyc.compiler.factories;
+
+import java_cup.runtime.Symbol;
+import java_cup.runtime.SymbolFactory;
+
+/**
+ * Los símbolos del parser como {@link Symbol} comunes, con línea y columna en left/right,
+ * igual que los que arma el lexer. Lo mismo que el DefaultSymbolFactory de CUP, que está
+ * deprecado.
+ */
+final class PlainSymbolFactory implements SymbolFactory {
+
+    @Override
+    public Symbol newSymbol(String name, int id, Symbol left, Symbol right, Object value) {
+        return new Symbol(id, left, right, value);
+    }
+
+    @Override
+    public Symbol newSymbol(String name, int id, Symbol left, Symbol right) {
+        return new Symbol(id, left, right);
+    }
+
+    @Override
+    public Symbol newSymbol(String name, int id, Symbol left, Object value) {
+        return new Symbol(id, left, value);
+    }
+
+    @Override
+    public Symbol newSymbol(String name, int id, Object value) {
+        return new Symbol(id, value);
+    }
+
+    @Override
+    public Symbol newSymbol(String name, int id) {
+        return new Symbol(id);
+    }
+
+    @Override
+    public Symbol startSymbol(String name, int id, int state) {
+        // El constructor de Symbol con el estado no es público
+        Symbol start = new Symbol(id, 0, 0);
+        start.parse_state = state;
+        return start;
+    }
+}
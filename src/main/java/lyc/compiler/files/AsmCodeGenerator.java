@@ -1,21 +1,94 @@
 package lyc.compiler.files;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
-public class AsmCodeGenerator implements FileGenerator {
+import lyc.compiler.constants.Constants;
+import lyc.compiler.emulator.TimingTable;
+import lyc.compiler.model.CompilerOptions;
+import lyc.compiler.model.CompilerOptions.OutputMode;
+import lyc.compiler.optimizer.PartialEvaluator;
+import lyc.compiler.profile.ProfileData;
+import lyc.compiler.runtime.RuntimeLibrary;
+
+public class AsmCodeGenerator implements Backend {
 
     private static AsmCodeGenerator instance;
 
-    private int tempCounter = 0;
     private final Set<String> temporaries = new LinkedHashSet<>();
     private final Set<String> stringLiterals = new LinkedHashSet<>();
     private final Set<Integer> jumpTargets = new LinkedHashSet<>();
     private final LinkedHashSet<String> operands = new LinkedHashSet<>();
+    private final Set<String> readBuffers = new LinkedHashSet<>();
+    private RuntimeLibrary runtime = new RuntimeLibrary();
+    private final StringBuilder code = new StringBuilder();
+    private boolean usesFpu;
+    private final List<StringBuilder> coldSections = new ArrayList<>();
+    // Tablas de saltos de los switch densos, y si algún switch necesita _SWITCH_SEL
+    private final List<String> switchTables = new ArrayList<>();
+    private boolean usesSwitch;
+    // for: los que llevan cuenta y variable en ECX/ESI y las cuentas que quedan en memoria
+    private final ForLoops forLoops = new ForLoops();
+    private final List<String> forCounters = new ArrayList<>();
+    private boolean usesFor;
+    // --promote: variables de cada while que viven en la pila x87
+    private final LoopPromotion promotion = new LoopPromotion();
+    // --partial-eval: valor inicial en .DATA de las variables ya calculadas y salida ya escrita
+    private final Map<String, String> initialValues = new HashMap<>();
+    private String precomputedOutput;
+    // --cost-report: si se piden, instrucciones atribuidas a cada línea del fuente y tipo de sentencia
+    private boolean collectCosts;
+    private CostReport costs;
+    // --fixed-point: bits fraccionarios de los números (0 = reales de la x87) y constantes
+    // que se redondearon, ya avisadas
+    private int fixedBits;
+    // Avisos para CompilationResult (constantes redondeadas, perfil ignorado)
+    private final List<String> warnings = new ArrayList<>();
+    private final Set<String> roundedConstants = new HashSet<>();
+
+    // Etiquetas de .DATA que usa el código, con la cantidad de accesos estimada (cada nivel
+    // de bucle pesa por 8), y profundidad de bucles de cada posición desde loopDepthBase
+    private final Map<String, Long> references = new HashMap<>();
+    private int[] loopDepth = new int[0];
+    private int loopDepthBase;
+
+    // --stream: código ya traducido (en disco), fin del último tramo y temporales por sentencia
+    private Path streamFile;
+    private Writer streamCode;
+    private int streamEnd;
+    private int streamTemps;
+
+    // --profile-generate: índice en la polaca de cada contador, y su posición en _PGO_HDR
+    private final List<Integer> counterPoints = new ArrayList<>();
+    private final Map<Integer, Integer> counterSlots = new HashMap<>();
+
+    // --profile-use: decisiones de ubicación de bloques
+    private ProfileData profile;
+    private final Map<Integer, Integer> rotatedLoops = new HashMap<>();
+    private final Map<Integer, Integer> loopBodies = new HashMap<>();
+    private final Set<Integer> coldBranches = new HashSet<>();
+    private final Map<Integer, String> branchOverrides = new HashMap<>();
 
     private AsmCodeGenerator() {}
 
@@ -27,14 +100,194 @@ public class AsmCodeGenerator implements FileGenerator {
     }
 
     @Override
-    public void generate(FileWriter writer) throws IOException {
+    public String getOutputFileName() {
+        return "final.asm";
+    }
+
+    @Override
+    public void generate(Writer writer) throws IOException {
         resetState();
         IntermediateCodeGenerator icg = IntermediateCodeGenerator.getInstance();
-        SymbolTableGenerator symbolTable = SymbolTableGenerator.getInstance();
         List<String> rpn = icg.getRpnCode();
 
         performFirstPreScan(rpn);
         performTemporaryDiscovery(rpn);
+        forLoops.scan(rpn, 0, rpn.size());
+        planLoopDepth(rpn, 0, rpn.size());
+        if (fixedBits > 0) {
+            checkFixedConstants(rpn, 0);
+        }
+
+        CompilerOptions options = CompilerOptions.getInstance();
+        if (options.isProfileGenerate()) {
+            planCounters(rpn);
+            runtime.use(RuntimeLibrary.PGO_DUMP);
+        }
+        profile = loadProfile(options.getProfileUse(), rpn);
+        if (profile != null) {
+            planLayout(rpn);
+        }
+        if (options.isPromote()) {
+            planPromotion(rpn, 0, rpn.size());
+        }
+
+        PartialEvaluator evaluation = null;
+        if (options.getPartialEvalSteps() > 0) {
+            evaluation = new PartialEvaluator(options.getPartialEvalSteps(), Constants.PARTIAL_EVAL_MAX_OUTPUT,
+                options.getFloatDigits());
+            evaluation.evaluate(rpn);
+        }
+
+        // El código se arma primero en memoria: recién al terminar sabemos qué
+        // rutinas de runtime se usaron y si hace falta FINIT / inicializar ES.
+        List<Integer> splits = profile == null && evaluation == null ? chunkBoundaries(rpn, options.getJobs()) : List.of();
+        if (evaluation != null && evaluation.getResumePoint() > 0) {
+            lowerSpecialized(rpn, evaluation);
+        } else if (splits.isEmpty()) {
+            Lowering whole = new Lowering(0);
+            whole.emitBlock(rpn, 0, rpn.size());
+            whole.emitBlockStart(rpn.size());
+            merge(whole);
+        } else {
+            for (Lowering chunk : lowerInParallel(rpn, splits, options.getJobs())) {
+                merge(chunk);
+            }
+        }
+        if (options.isSchedule()) {
+            scheduleFpu();
+        }
+
+        writeProgram(writer, rpn, new StringReader(code.toString()));
+    }
+
+    /**
+     * --partial-eval: lo que ya se ejecutó al compilar no se traduce. La salida que produjo
+     * se imprime con una sola llamada a DOS, las variables arrancan en .DATA con el valor
+     * que tenían y el código sigue desde donde se dejó de evaluar (nada, si terminó).
+     */
+    private void lowerSpecialized(List<String> rpn, PartialEvaluator evaluation) {
+        int resume = evaluation.getResumePoint();
+        evaluation.getNumbers().forEach((variable, value) -> initialValues.put(getValidAsmLabel(variable), realValue(value)));
+        if (!evaluation.getOutput().isEmpty()) {
+            precomputedOutput = evaluation.getOutput();
+        }
+
+        Lowering whole = new Lowering(0);
+        if (resume < rpn.size()) {
+            whole.emitPrecomputed(new TreeMap<>(evaluation.getStrings()));
+            // Si algún salto de lo que queda vuelve antes (al cuerpo de un case), va todo
+            if (jumpsBefore(rpn, resume)) {
+                jumpTargets.add(resume);
+                whole.emit(String.format("    JMP L%d\n\n", resume));
+                whole.emitBlock(rpn, 0, rpn.size());
+            } else {
+                whole.emitBlock(rpn, resume, rpn.size());
+            }
+        } else {
+            whole.emitPrecomputed(Map.of());
+        }
+        whole.emitBlockStart(rpn.size());
+        merge(whole);
+    }
+
+    /** ¿Algún salto de {@code rpn[from, fin)} va a una posición anterior a {@code from}? */
+    private static boolean jumpsBefore(List<String> rpn, int from) {
+        for (int pc = from; pc < rpn.size(); pc++) {
+            String token = rpn.get(pc);
+            if (token.equals(RpnTokens.SWITCH)) {
+                SwitchDispatch dispatch = SwitchDispatch.read(rpn, pc);
+                if (dispatch.getDefaultTarget() < from
+                        || dispatch.getCases().stream().anyMatch(c -> c.getTarget() < from)) {
+                    return true;
+                }
+                pc = dispatch.getEnd() - 1;
+            } else if (RpnTokens.isBranch(token)) {
+                if (Integer.parseInt(rpn.get(pc + 1)) < from) {
+                    return true;
+                }
+                pc++;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Modo --stream: la traducción llega por tramos con {@link #lowerStatements} y el
+     * código se va escribiendo a un archivo temporal; .DATA recién se conoce al final.
+     */
+    public void beginStream() throws IOException {
+        resetState();
+        streamFile = Files.createTempFile("lyc-stream", ".asm");
+        streamCode = Files.newBufferedWriter(streamFile, StandardCharsets.UTF_8);
+        streamEnd = 0;
+        streamTemps = 0;
+    }
+
+    /** Traduce un tramo cerrado de la polaca, que empieza en el índice global {@code base}. */
+    public void lowerStatements(int base, List<String> tokens) throws IOException {
+        performFirstPreScan(tokens);
+        if (fixedBits > 0) {
+            checkFixedConstants(tokens, base);
+        }
+        int end = base + tokens.size();
+        forLoops.scan(new OffsetList(base, tokens), base, end);
+        planLoopDepth(new OffsetList(base, tokens), base, end);
+        if (CompilerOptions.getInstance().isPromote()) {
+            planPromotion(new OffsetList(base, tokens), base, end);
+        }
+        // Los temporales no sobreviven a la sentencia: cada tramo los vuelve a numerar desde 1
+        Lowering lowering = new Lowering(0);
+        lowering.emitBlock(new OffsetList(base, tokens), base, end);
+        if (!lowering.evalStack.isEmpty()) {
+            throw new IllegalStateException("La sentencia que termina en " + end + " deja operandos sin usar: " + lowering.evalStack);
+        }
+        streamTemps = Math.max(streamTemps, lowering.nextTemp);
+        merge(lowering);
+        if (CompilerOptions.getInstance().isSchedule()) {
+            scheduleFpu();
+        }
+        streamCode.write(code.toString());
+        code.setLength(0);
+        // Ningún salto posterior puede volver antes del final del tramo
+        jumpTargets.removeIf(target -> target < end);
+        streamEnd = end;
+    }
+
+    /** Cierra el modo --stream y escribe final.asm completo. */
+    public void finishStream(Writer writer) throws IOException {
+        Lowering tail = new Lowering(0);
+        tail.emitBlockStart(streamEnd);
+        merge(tail);
+        streamCode.write(code.toString());
+        code.setLength(0);
+        streamCode.close();
+        for (int n = 1; n <= streamTemps; n++) {
+            temporaries.add("@T" + n);
+        }
+        try (Reader body = Files.newBufferedReader(streamFile, StandardCharsets.UTF_8)) {
+            writeProgram(writer, null, body);
+        } finally {
+            Files.deleteIfExists(streamFile);
+            streamFile = null;
+        }
+    }
+
+    /** Descarta un --stream que no llegó a {@link #finishStream} (error de compilación). */
+    public void abortStream() throws IOException {
+        if (streamFile == null) {
+            return;
+        }
+        try {
+            streamCode.close();
+        } finally {
+            Files.deleteIfExists(streamFile);
+            streamFile = null;
+        }
+    }
+
+    /** Segmentos de datos y de código alrededor de {@code body}, el código ya traducido. */
+    private void writeProgram(Writer writer, List<String> rpn, Reader body) throws IOException {
+        SymbolTableGenerator symbolTable = SymbolTableGenerator.getInstance();
 
         writer.write(".MODEL LARGE\n");
         writer.write(".386\n");
@@ -42,97 +295,346 @@ public class AsmCodeGenerator implements FileGenerator {
 
         writer.write(".DATA\n");
 
-        // --- Manejo de constantes numéricas (.99, 99.) ---
+        // Primero todo lo de 4 bytes, así queda alineado desde el comienzo del segmento;
+        // después palabras y al final bytes. Lo que el código no usa no se declara.
+        // Las variables y constantes más usadas dentro de bucles van juntas al principio.
+        Map<String, String> values = new HashMap<>();
+        List<String> dwords = new ArrayList<>();
         for (String op : operands) {
             String asmLabel = getValidAsmLabel(op);
-
-            if (isNumberLiteral(op)) {
+            if (RpnTokens.isNumberLiteral(op)) {
                 symbolTable.addToken(op, "Float", op);
-                
-                String val = op;
-                // Normalizar (ej: .99 -> 0.99, 99. -> 99.0)
-                if (val.startsWith(".")) {
-                    val = "0" + val;
-                }
-                if (val.endsWith(".")) {
-                    val = val + "0";
-                }
-                if (!val.contains(".")) {
-                    val += ".0";
-                }
-                writer.write(String.format("%s dd %s\n", asmLabel, val));
-            } else {
-                writer.write(String.format("%s dd 0.0\n", asmLabel));
             }
+            if (!references.containsKey(asmLabel) || values.containsKey(asmLabel)) {
+                continue;
+            }
+            // Constantes con el mismo valor (1, 1.0, 1.) comparten etiqueta
+            values.put(asmLabel, RpnTokens.isNumberLiteral(op) ? numberValue(op) : initialValues.getOrDefault(asmLabel, zero()));
+            dwords.add(asmLabel);
         }
-
         for (String tempName : temporaries) {
-            writer.write(String.format("%s dd 0.0\n", tempName));
             symbolTable.addToken(tempName);
+            if (references.containsKey(tempName)) {
+                values.put(tempName, zero());
+                dwords.add(tempName);
+            }
+        }
+        dwords.sort(Comparator.comparingLong(label -> -references.get(label)));
+        for (String label : dwords) {
+            writer.write(String.format("%s dd %s\n", label, values.get(label)));
         }
 
-        for (String rawLiteral : stringLiterals) {
-            writer.write(getStringLiteralData(rawLiteral));
+        // Cabecera y contadores del perfil, contiguos: PGO_DUMP los escribe de una vez
+        if (!counterPoints.isEmpty()) {
+            writer.write(String.format("_PGO_HDR dd 0%08Xh, 0%08Xh, %d\n",
+                ProfileData.MAGIC, ProfileData.fingerprint(rpn), counterPoints.size()));
+            for (int point : counterPoints) {
+                writer.write(String.format("    dd %d, 0\n", point));
+            }
         }
+        if (usesSwitch) {
+            writer.write("_SWITCH_SEL dd 0\n");
+        }
+        if (usesFor) {
+            writer.write("_FOR_INT dd 0\n");
+        }
+        for (String counter : forCounters) {
+            writer.write(counter + " dd 0\n");
+        }
+        runtime.writeData(writer, "dd");
+
+        if (!counterPoints.isEmpty()) {
+            writer.write(String.format("_PGO_LEN dw %d\n", 12 + 8 * counterPoints.size()));
+        }
+        for (String table : switchTables) {
+            writer.write(table);
+        }
+        runtime.writeData(writer, "dw");
 
-        writer.write("_NEWLINE db 0DH,0AH,0\n");
+        for (String rawLiteral : stringLiterals) {
+            if (references.containsKey(getStringLiteralLabel(rawLiteral))) {
+                writer.write(getStringLiteralData(rawLiteral));
+            }
+        }
+        if (precomputedOutput != null) {
+            writer.write(precomputedData(precomputedOutput));
+        }
+        // Buffers propios de las variables String que se leen con READ
+        for (String buffer : readBuffers) {
+            writer.write(String.format("%s db %d dup('$')\n", buffer, Constants.MAX_STRING_LITERAL_LENGTH));
+        }
+        runtime.writeData(writer, "db");
 
         writer.write("\n.CODE\n");
         writer.write("START:\n");
-        writer.write("    MOV AX, @DATA\n");
-        writer.write("    MOV DS, AX\n");
-        writer.write("    MOV ES, AX\n");
-        writer.write("    FINIT\n\n");
+        // Prólogo mínimo: DS solo si hay datos, ES solo si alguna rutina lo usa
+        if (!operands.isEmpty() || !temporaries.isEmpty() || !stringLiterals.isEmpty() || !readBuffers.isEmpty() || usesSwitch || usesFor
+                || precomputedOutput != null || runtime.hasData()) {
+            writer.write("    MOV AX, @DATA\n");
+            writer.write("    MOV DS, AX\n");
+            if (runtime.usesExtraSegment()) {
+                writer.write("    MOV ES, AX\n");
+            }
+        }
+        if (usesFpu || runtime.usesFpu()) {
+            writer.write("    FINIT\n");
+        }
+        writer.write("\n");
 
-        Stack<String> evalStack = new Stack<>();
+        body.transferTo(writer);
 
-        for (int pc = 0; pc < rpn.size(); pc++) {
+        // Lo que quede en el buffer de salida se vuelca antes de terminar
+        if (runtime.isUsed(RuntimeLibrary.OUT_FLUSH)) {
+            writer.write("    CALL OUT_FLUSH\n");
+        }
+        if (!counterPoints.isEmpty()) {
+            writer.write("    CALL PGO_DUMP\n");
+        }
+        writer.write("    MOV AX, 4C00h\n");
+        writer.write("    INT 21h\n");
+
+        // Bloques fríos (según el perfil), fuera del camino principal
+        if (!coldSections.isEmpty()) {
+            writer.write("\n");
+        }
+        for (StringBuilder section : coldSections) {
+            writer.write(section.toString());
+        }
+
+        runtime.writeCode(writer);
 
+        writer.write("END START\n");
+    }
+
+    /**
+     * Traducción de un tramo de la polaca. Cada tramo tiene su propio texto, pila de
+     * evaluación y rango de temporales, así que los tramos se pueden traducir en paralelo
+     * y concatenar después en orden.
+     */
+    private final class Lowering {
+
+        private final StringBuilder lowered = new StringBuilder();
+        private StringBuilder out = lowered;
+        private final Stack<String> evalStack = new Stack<>();
+        private int nextTemp;
+        private boolean fpu;
+        private final Set<String> buffers = new LinkedHashSet<>();
+        private final Set<String> routines = new LinkedHashSet<>();
+        private final List<StringBuilder> sections = new ArrayList<>();
+        private final List<String> tables = new ArrayList<>();
+        private boolean switched;
+        private final List<String> counters = new ArrayList<>();
+        private boolean looped;
+        private final Map<String, Long> used = new HashMap<>();
+        private long weight = 1;
+        // Temporal que no se guardó porque lo imprime el write que sigue, y si hay una línea abierta
+        private String onStackTop;
+        private boolean lineOpen;
+        // --cost-report: costo de lo emitido y token de la polaca que se está traduciendo
+        private final CostReport cost = collectCosts ? new CostReport() : null;
+        private int sourcePc = -1;
+
+        /** @param firstTemp cantidad de temporales que usan los tramos anteriores */
+        Lowering(int firstTemp) {
+            this.nextTemp = firstTemp;
+        }
+
+        /**
+         * Emite las instrucciones de la polaca en [from, to). Con perfil, los bucles calientes
+         * salen rotados y los cuerpos de if fríos van a una sección aparte.
+         */
+        private void emitBlock(List<String> rpn, int from, int to) {
+            int pc = from;
+            while (pc < to) {
+                Integer backEdge = rotatedLoops.get(pc);
+                if (backEdge != null && backEdge + 2 <= to) {
+                    pc = emitRotatedLoop(rpn, pc, backEdge);
+                } else if (coldBranches.contains(pc)) {
+                    pc = emitColdRegion(rpn, pc);
+                } else {
+                    pc = emitToken(rpn, pc);
+                }
+            }
+        }
+
+        /**
+         * while rotado: se entra saltando a la condición, que queda después del cuerpo
+         * y vuelve a él con el salto invertido. Cada vuelta ejecuta un solo salto.
+         */
+        private int emitRotatedLoop(List<String> rpn, int conditionStart, int backEdge) {
+            int bodyStart = loopBodies.get(conditionStart);
+            sourcePc = conditionStart;
+            emit("    JMP L" + conditionStart + "\n\n");
+            emitBlock(rpn, bodyStart, backEdge);
+            for (int pc = conditionStart; pc < bodyStart; ) {
+                pc = emitToken(rpn, pc);
+            }
+            return backEdge + 2;
+        }
+
+        /** if con cuerpo frío: el salto invertido lleva al cuerpo, que vuelve al final con JMP. */
+        private int emitColdRegion(List<String> rpn, int branch) {
+            int end = Integer.parseInt(rpn.get(branch + 1));
+            emitToken(rpn, branch);
+
+            StringBuilder saved = out;
+            StringBuilder section = new StringBuilder();
+            out = section;
+            emitBlock(rpn, branch + 2, end);
+            // Si el cuerpo termina en el BI de un if-else (o de un while sin rotar) no sigue de largo
+            boolean endsWithJump = rpn.get(end - 2).equals("BI") && !rotatedLoops.containsValue(end - 2);
+            if (!endsWithJump) {
+                emit("    JMP L" + end + "\n\n");
+            }
+            out = saved;
+            sections.add(section);
+            return end;
+        }
+
+        /**
+         * Etiqueta del bloque (si es destino de salto) y su contador (si está instrumentado).
+         * Antes de un while con variables promovidas van sus cargas, y la vuelta salta a LP.
+         */
+        private void emitBlockStart(int pc) {
             if (jumpTargets.contains(pc)) {
-                writer.write(String.format("L%d:\n", pc));
+                emit(String.format("L%d:\n", pc));
+            }
+            List<String> promoted = promotion.loadedAt(pc);
+            if (promoted != null) {
+                for (int slot = promoted.size() - 1; slot >= 0; slot--) {
+                    emit("    FLD " + promoted.get(slot) + "\n");
+                }
+                emit(String.format("LP%d:\n", pc));
             }
+            Integer slot = counterSlots.get(pc);
+            if (slot != null) {
+                emit(String.format("    INC DWORD PTR _PGO_HDR+%d\n", 12 + 8 * slot + 4));
+            }
+        }
+
+        /** Emite el token de la posición {@code pc} y devuelve la posición del siguiente. */
+        private int emitToken(List<String> rpn, int pc) {
+            SymbolTableGenerator symbolTable = SymbolTableGenerator.getInstance();
+            weight = loopWeight(pc);
+            sourcePc = pc;
+            emitBlockStart(pc);
 
             String token = rpn.get(pc);
 
-            if (token.equals("WRITE")) {
-                if (evalStack.isEmpty()) throw new RuntimeException("Error: WRITE sin operando");
-                String operand = evalStack.pop(); 
-                
-                if (isStringLiteral(operand)) {
-                    String label = getStringLiteralLabel(operand);
-                    writer.write("    MOV DX, OFFSET " + label + "\n");
-                    writer.write("    MOV AH, 09h\n");
-                    writer.write("    INT 21h\n");
+            if (RpnTokens.isWrite(token)) {
+                if (evalStack.isEmpty()) throw new RuntimeException("Error: " + token + " sin operando");
+                String operand = evalStack.pop();
+                // write con varios argumentos: la línea se arma en el buffer de salida y sale
+                // entera con el último, con una sola llamada a DOS
+                boolean line = lineOpen || token.equals(RpnTokens.WRITE_PART);
+                lineOpen = token.equals(RpnTokens.WRITE_PART);
+
+                if (RpnTokens.isStringLiteral(operand)) {
+                    emitPrintString("OFFSET " + getStringLiteralLabel(operand), line);
+                } else if ("String".equals(symbolTable.getVariableType(rpn.get(pc - 1)))) {
+                    // Variable String: guarda el offset de su cadena
+                    emitPrintString("WORD PTR " + operand, line);
                 } else {
-                    writer.write("    FLD " + operand + "\n");
-                    writer.write("    CALL PRINT_FLOAT\n");
+                    // El resultado de una expresión ya está en ST0 (o en EAX con --fixed-point)
+                    boolean loaded = operand.equals(onStackTop);
+                    String routine;
+                    if (fixedBits > 0) {
+                        if (!loaded) {
+                            emit("    MOV EAX, " + operand + "\n");
+                        }
+                        routine = line ? RuntimeLibrary.FORMAT_FIXED : RuntimeLibrary.PRINT_FIXED;
+                    } else {
+                        if (!loaded) {
+                            emit("    FLD " + load(operand, pc, 0) + "\n");
+                        }
+                        routine = line ? RuntimeLibrary.FORMAT_FLOAT : RuntimeLibrary.PRINT_FLOAT;
+                    }
+                    emit("    CALL " + routine + "\n");
+                    routines.add(routine);
+                    if (line) {
+                        emit("    CALL OUT_STR\n");
+                        routines.add(RuntimeLibrary.OUT_STR);
+                    }
                 }
-                writer.write("    MOV DX, OFFSET _NEWLINE\n");
-                writer.write("    MOV AH, 09h\n");
-                writer.write("    INT 21h\n\n");
-                continue;
+                onStackTop = null;
+
+                if (lineOpen) {
+                    emit("\n");
+                } else if (line) {
+                    emit("    CALL OUT_NEWLINE\n");
+                    routines.add(RuntimeLibrary.OUT_NEWLINE);
+                    if (!isBuffered()) {
+                        emit("    CALL OUT_FLUSH\n");
+                        routines.add(RuntimeLibrary.OUT_FLUSH);
+                    }
+                    emit("\n");
+                } else if (isBuffered()) {
+                    emit("    CALL OUT_NEWLINE\n\n");
+                    routines.add(RuntimeLibrary.OUT_NEWLINE);
+                } else {
+                    emit("    MOV DX, OFFSET _NEWLINE\n");
+                    emit("    MOV AH, 09h\n");
+                    emit("    INT 21h\n\n");
+                    routines.add(RuntimeLibrary.NEWLINE);
+                }
+                return pc + 1;
             }
-            
+        
             if (token.equals("READ")) {
-                if (!evalStack.isEmpty()) {
-                    evalStack.pop(); 
+                if (evalStack.isEmpty()) throw new RuntimeException("Error: READ sin operando");
+                String operand = evalStack.pop();
+                String type = symbolTable.getVariableType(rpn.get(pc - 1));
+
+                // El runtime lee la línea con una sola llamada a DOS y parsea
+                // directo sobre la variable destino según su tipo declarado.
+                if ("String".equals(type)) {
+                    String buffer = operand + "_BUF";
+                    buffers.add(buffer);
+                    emit("    MOV DI, OFFSET " + buffer + "\n");
+                    emit("    CALL READ_STR\n");
+                    emit("    MOV AX, OFFSET " + buffer + "\n");
+                    emit("    MOV WORD PTR " + operand + ", AX\n\n");
+                    routines.add(RuntimeLibrary.READ_STR);
+                } else if (fixedBits > 0) {
+                    String routine = "Int".equals(type) ? RuntimeLibrary.READ_FIXED_INT : RuntimeLibrary.READ_FIXED;
+                    emit("    MOV DI, OFFSET " + operand + "\n");
+                    emit("    CALL " + routine + "\n\n");
+                    routines.add(routine);
+                } else if ("Int".equals(type)) {
+                    emit("    MOV DI, OFFSET " + operand + "\n");
+                    emit("    CALL READ_INT\n\n");
+                    routines.add(RuntimeLibrary.READ_INT);
+                } else {
+                    emit("    MOV DI, OFFSET " + operand + "\n");
+                    emit("    CALL READ_FLOAT\n\n");
+                    routines.add(RuntimeLibrary.READ_FLOAT);
                 }
-                continue;
+                // Si la variable está en la pila x87, el valor leído va ahí
+                int slot = promotion.slotOf(pc, operand);
+                if (slot >= 0) {
+                    emit("    FLD " + operand + "\n");
+                    emit(String.format("    FSTP ST(%d)\n\n", slot + 1));
+                }
+                return pc + 1;
             }
 
-            if (isArithmeticOperator(token)) {
+            if (RpnTokens.isArithmeticOperator(token)) {
+                if (fixedBits > 0) {
+                    emitFixedOperation(rpn, token, pc);
+                    return pc + 1;
+                }
                 // --- Soporte para MENOS UNARIO (-123) ---
                 if (token.equals("-") && evalStack.size() < 2) {
                     // Si es un '-' y solo hay 1 cosa en la pila, es unario (negativo)
                     String op1 = evalStack.pop();
                     String aux = generateTempName();
-                    
-                    writer.write(String.format("    FLD %s\n", op1));
-                    writer.write("    FCHS\n"); // cambia signo
-                    writer.write(String.format("    FSTP %s\n\n", aux));
-                    
+                
+                    emit(String.format("    FLD %s\n", load(op1, pc, 0)));
+                    emit("    FCHS\n"); // cambia signo
+                    storeResult(rpn, pc, aux);
+                
                     evalStack.push(aux);
-                    continue;
+                    return pc + 1;
                 }
 
                 // Operación Binaria Normal (+, -, *, /)
@@ -142,19 +644,27 @@ public class AsmCodeGenerator implements FileGenerator {
                 String op2 = evalStack.pop();
                 String op1 = evalStack.pop();
                 String aux = generateTempName();
+                String operation = token.equals("+") ? "FADD" : token.equals("-") ? "FSUB" : token.equals("*") ? "FMUL" : "FDIV";
 
-                writer.write(String.format("    FLD %s\n", op1));
-                writer.write(String.format("    FLD %s\n", op2));
-
-                switch (token) {
-                    case "+": writer.write("    FADD\n"); break;
-                    case "-": writer.write("    FSUB\n"); break;
-                    case "*": writer.write("    FMUL\n"); break;
-                    case "/": writer.write("    FDIV\n"); break;
+                int slot1 = promotion.slotOf(pc, op1);
+                int slot2 = promotion.slotOf(pc, op2);
+                if (slot2 >= 0) {
+                    // El segundo operando ya está en la pila: se opera contra él
+                    emit(String.format("    FLD %s\n", load(op1, pc, 0)));
+                    emit(String.format("    %s ST, ST(%d)\n", operation, slot2 + 1));
+                } else if (slot1 >= 0) {
+                    // El primero está en la pila: se carga el segundo y se opera al revés
+                    boolean commutative = token.equals("+") || token.equals("*");
+                    emit(String.format("    FLD %s\n", op2));
+                    emit(String.format("    %s%s ST, ST(%d)\n", operation, commutative ? "" : "R", slot1 + 1));
+                } else {
+                    emit(String.format("    FLD %s\n", op1));
+                    emit(String.format("    FLD %s\n", op2));
+                    emit("    " + operation + "\n");
                 }
-                writer.write(String.format("    FSTP %s\n\n", aux));
+                storeResult(rpn, pc, aux);
                 evalStack.push(aux);
-                continue;
+                return pc + 1;
             }
 
             if (token.equals(":=")) {
@@ -164,96 +674,873 @@ public class AsmCodeGenerator implements FileGenerator {
                 String dst = evalStack.pop();
                 String src = evalStack.pop();
 
-                if (isStringLiteral(src)) {
+                if (RpnTokens.isStringLiteral(src)) {
                     String label = getStringLiteralLabel(src);
-                    writer.write("    MOV AX, OFFSET " + label + "\n");
-                    writer.write("    MOV WORD PTR " + dst + ", AX\n"); 
-                    writer.write("\n");
+                    emit("    MOV AX, OFFSET " + label + "\n");
+                    emit("    MOV WORD PTR " + dst + ", AX\n"); 
+                    emit("\n");
+                } else if (fixedBits > 0) {
+                    emit("    MOV EAX, " + src + "\n");
+                    emit("    MOV " + dst + ", EAX\n\n");
                 } else {
-                    writer.write(String.format("    FLD %s\n", src));
-                    writer.write(String.format("    FSTP %s\n\n", dst));
+                    int slot = promotion.slotOf(pc, dst);
+                    emit(String.format("    FLD %s\n", load(src, pc, 0)));
+                    emit(String.format("    FSTP %s\n\n", slot >= 0 ? "ST(" + (slot + 1) + ")" : dst));
                 }
-                
-                continue;
+            
+                return pc + 1;
             }
 
             if (token.equals("CMP")) {
                 if (evalStack.size() < 2) throw new RuntimeException("CMP sin operandos");
                 String op2 = evalStack.pop();
                 String op1 = evalStack.pop();
-                writer.write(String.format("    FLD %s\n", op1));
-                writer.write(String.format("    FLD %s\n", op2));
-                writer.write("    FXCH\n");
-                writer.write("    FCOMPP\n"); 
-                writer.write("    FSTSW ax\n");
-                writer.write("    SAHF\n\n");
-                continue;
+                if (fixedBits > 0) {
+                    // Comparación entera: los saltos van con signo (ver mapBranchToAsm)
+                    emit("    MOV EAX, " + op1 + "\n");
+                    emit("    CMP EAX, " + op2 + "\n\n");
+                    return pc + 1;
+                }
+                int slot1 = promotion.slotOf(pc, op1);
+                int slot2 = promotion.slotOf(pc, op2);
+                if (slot2 >= 0) {
+                    emit(String.format("    FLD %s\n", load(op1, pc, 0)));
+                    emit(String.format("    FCOMP ST(%d)\n", slot2 + 1));
+                } else if (slot1 >= 0) {
+                    // Cargando primero el segundo operando no hace falta el FXCH
+                    emit(String.format("    FLD %s\n", op2));
+                    emit(String.format("    FLD ST(%d)\n", slot1 + 1));
+                    emit("    FCOMPP\n");
+                } else {
+                    emit(String.format("    FLD %s\n", op1));
+                    emit(String.format("    FLD %s\n", op2));
+                    emit("    FXCH\n");
+                    emit("    FCOMPP\n");
+                }
+                emit("    FSTSW ax\n");
+                emit("    SAHF\n\n");
+                return pc + 1;
+            }
+
+            if (token.equals(RpnTokens.SWITCH)) {
+                if (evalStack.isEmpty()) throw new RuntimeException("Error: SWITCH sin selector");
+                return emitSwitch(rpn, pc, evalStack.pop());
+            }
+
+            if (token.equals(RpnTokens.FOR)) {
+                if (evalStack.size() < 3) throw new RuntimeException("RPN inválida: FOR sin suficientes operandos en pc=" + pc);
+                evalStack.pop();
+                String variable = evalStack.pop();
+                emitForStart(rpn, pc, variable, evalStack.pop());
+                return pc + 2;
             }
 
-            if (isBranch(token)) {
+            if (token.equals(RpnTokens.NEXT)) {
+                if (evalStack.size() < 2) throw new RuntimeException("RPN inválida: NEXT sin suficientes operandos en pc=" + pc);
+                String step = evalStack.pop();
+                emitForNext(rpn, pc, evalStack.pop(), step);
+                return pc + 2;
+            }
+
+            if (RpnTokens.isBranch(token)) {
                 if (pc + 1 < rpn.size()) {
                     String dest = rpn.get(pc + 1);
-                    writer.write("    " + mapBranchToAsm(token, dest) + "\n\n");
-                    pc++; 
-                    continue;
+                    emit("    " + branchOverrides.getOrDefault(pc, mapBranchToAsm(token, promotion.jumpTarget(pc, dest))) + "\n\n");
+                    // Después de la vuelta de un while con variables promovidas, su salida
+                    List<String> promoted = promotion.storedAfter(pc);
+                    if (promoted != null) {
+                        emit(String.format("LX%d:\n", Integer.parseInt(dest)));
+                        for (String variable : promoted) {
+                            emit("    FSTP " + variable + "\n");
+                        }
+                        emit("\n");
+                    }
+                    return pc + 2;
                 }
             }
 
-            if (isNumberLiteral(token)) {
+            if (RpnTokens.isNumberLiteral(token)) {
                 evalStack.push(getValidAsmLabel(token)); 
-            } else if (isStringLiteral(token)) { 
+            } else if (RpnTokens.isStringLiteral(token)) { 
                 evalStack.push(token); 
             } else {
                 if (!token.equals("READ")) {
-                    evalStack.push(getValidAsmLabel(token));
+                    String operand = getValidAsmLabel(token);
+                    if (forLoops.isInductionRead(pc)) {
+                        storeInduction(operand);
+                    }
+                    evalStack.push(operand);
                 }
             }
+            return pc + 1;
         }
 
-        if (jumpTargets.contains(rpn.size())) {
-            writer.write(String.format("L%d:\n", rpn.size()));
+        /**
+         * Inicio de un for: la cantidad de vueltas se calcula una sola vez, en enteros, como
+         * (limite - inicio) / paso + 1, y si no es positiva se saltea el cuerpo. Queda en ECX
+         * (y la variable en ESI) o en un contador en memoria si hay otro for adentro.
+         */
+        private void emitForStart(List<String> rpn, int pc, String variable, String limit) {
+            long step = Long.parseLong(rpn.get(pc - 1));
+            String exit = "L" + rpn.get(pc + 1);
+            looped = true;
+
+            if (fixedBits > 0) {
+                emit("    MOV EAX, " + limit + "\n");
+                emit("    SAR EAX, " + fixedBits + "\n");
+                emit("    MOV EDX, " + variable + "\n");
+                emit("    SAR EDX, " + fixedBits + "\n");
+                emit("    MOV DWORD PTR _FOR_INT, EDX\n");
+            } else {
+                emit("    FLD " + limit + "\n");
+                emit("    FISTP DWORD PTR _FOR_INT\n");
+                emit("    MOV EAX, DWORD PTR _FOR_INT\n");
+                emit("    FLD " + variable + "\n");
+                emit("    FISTP DWORD PTR _FOR_INT\n");
+                emit("    MOV EDX, DWORD PTR _FOR_INT\n");
+            }
+            if (step > 0) {
+                emit("    SUB EAX, EDX\n");
+            } else {
+                emit("    SUB EDX, EAX\n");
+                emit("    MOV EAX, EDX\n");
+            }
+            emit("    JL " + exit + "\n");
+            long magnitude = Math.abs(step);
+            if (Long.bitCount(magnitude) == 1) {
+                if (magnitude > 1) {
+                    emit("    SHR EAX, " + Long.numberOfTrailingZeros(magnitude) + "\n");
+                }
+            } else {
+                emit("    XOR EDX, EDX\n");
+                emit("    MOV EBX, " + magnitude + "\n");
+                emit("    DIV EBX\n");
+            }
+            emit("    INC EAX\n");
+            if (forLoops.isInRegisters(pc)) {
+                emit("    MOV ECX, EAX\n");
+                emit("    MOV ESI, DWORD PTR _FOR_INT\n\n");
+            } else {
+                String counter = "_FORC" + pc;
+                counters.add(counter);
+                emit("    MOV DWORD PTR " + counter + ", EAX\n\n");
+            }
         }
 
-        writer.write("    MOV AX, 4C00h\n");
-        writer.write("    INT 21h\n");
-        
-        writePrintProc(writer);
+        /** Fin de una vuelta del for: avanza la variable y descuenta una vuelta. */
+        private void emitForNext(List<String> rpn, int pc, String variable, String step) {
+            int start = forLoops.startOf(pc);
+            String body = "L" + rpn.get(pc + 1);
+            if (forLoops.isInRegisters(start)) {
+                emit("    ADD ESI, " + rpn.get(pc - 1) + "\n");
+                emit("    DEC ECX\n");
+                emit("    JNZ " + body + "\n");
+                // Al salir la variable queda con el primer valor que ya no entró
+                storeInduction(variable);
+                emit("\n");
+            } else if (fixedBits > 0) {
+                emit("    MOV EAX, " + step + "\n");
+                emit("    ADD DWORD PTR " + variable + ", EAX\n");
+                emit("    DEC DWORD PTR _FORC" + start + "\n");
+                emit("    JNZ " + body + "\n\n");
+            } else {
+                emit("    FLD " + variable + "\n");
+                emit("    FLD " + step + "\n");
+                emit("    FADD\n");
+                emit("    FSTP " + variable + "\n");
+                emit("    DEC DWORD PTR _FORC" + start + "\n");
+                emit("    JNZ " + body + "\n\n");
+            }
+        }
 
-        writer.write("END START\n");
-        writer.close();
+        /** Pasa a memoria (como real, o en punto fijo) la variable de un for que está en ESI. */
+        private void storeInduction(String variable) {
+            if (fixedBits > 0) {
+                emit("    MOV EAX, ESI\n");
+                emit("    SHL EAX, " + fixedBits + "\n");
+                emit("    MOV " + variable + ", EAX\n");
+                return;
+            }
+            emit("    MOV DWORD PTR _FOR_INT, ESI\n");
+            emit("    FILD DWORD PTR _FOR_INT\n");
+            emit("    FSTP " + variable + "\n");
+        }
+
+        /**
+         * Despacho de un switch. El selector se pasa a entero en _SWITCH_SEL (si no era
+         * entero va al default); con casos densos se salta por una tabla en .DATA y si no,
+         * con comparaciones en forma de árbol binario. Devuelve la posición que sigue.
+         */
+        private int emitSwitch(List<String> rpn, int pc, String selector) {
+            SwitchDispatch dispatch = SwitchDispatch.read(rpn, pc);
+            String otherwise = "L" + dispatch.getDefaultTarget();
+
+            if (fixedBits > 0) {
+                // En punto fijo es entero si no tiene bits fraccionarios
+                emit("    MOV EAX, " + selector + "\n");
+                emit("    TEST EAX, " + ((1L << fixedBits) - 1) + "\n");
+                emit("    JNZ " + otherwise + "\n");
+                emit("    SAR EAX, " + fixedBits + "\n");
+            } else {
+                switched = true;
+                emit("    FLD " + selector + "\n");
+                emit("    FIST DWORD PTR _SWITCH_SEL\n");
+                emit("    FILD DWORD PTR _SWITCH_SEL\n");
+                emit("    FCOMPP\n");
+                emit("    FSTSW ax\n");
+                emit("    SAHF\n");
+                emit("    JNE " + otherwise + "\n");
+                emit("    MOV EAX, DWORD PTR _SWITCH_SEL\n");
+            }
+
+            if (dispatch.isDense()) {
+                // Un solo CMP sin signo descarta los valores de abajo y los de arriba del rango
+                String table = "_SWT" + pc;
+                if (dispatch.getMin() != 0) {
+                    emit("    SUB EAX, " + dispatch.getMin() + "\n");
+                }
+                emit("    CMP EAX, " + (dispatch.getSpan() - 1) + "\n");
+                emit("    JA " + otherwise + "\n");
+                emit("    MOV BX, AX\n");
+                emit("    SHL BX, 1\n");
+                emit("    JMP WORD PTR " + table + "[BX]\n\n");
+                tables.add(jumpTable(table, dispatch.tableTargets()));
+            } else {
+                emitCaseSearch(dispatch.getCases(), 0, dispatch.getCases().size(), "LSW" + pc + "_", otherwise);
+                emit("\n");
+            }
+            return dispatch.getEnd();
+        }
+
+        /** Busca EAX entre los casos [from, to) (ordenados): mitad de arriba o de abajo según el del medio. */
+        private void emitCaseSearch(List<SwitchDispatch.Case> cases, int from, int to, String prefix, String otherwise) {
+            if (to - from <= 3) {
+                for (int i = from; i < to; i++) {
+                    emit("    CMP EAX, " + cases.get(i).getValue() + "\n");
+                    emit("    JE L" + cases.get(i).getTarget() + "\n");
+                }
+                emit("    JMP " + otherwise + "\n");
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            String upper = prefix + middle;
+            emit("    CMP EAX, " + cases.get(middle).getValue() + "\n");
+            emit("    JE L" + cases.get(middle).getTarget() + "\n");
+            emit("    JG " + upper + "\n");
+            emitCaseSearch(cases, from, middle, prefix, otherwise);
+            emit(upper + ":\n");
+            emitCaseSearch(cases, middle + 1, to, prefix, otherwise);
+        }
+
+        /**
+         * --fixed-point: operación en EAX. El producto de 64 bits (EDX:EAX) se corre fixedBits
+         * a la derecha, y el dividendo se corre a la izquierda antes del IDIV; contra una
+         * constante entera alcanza con IMUL o IDIV por el entero, sin correr nada.
+         */
+        private void emitFixedOperation(List<String> rpn, String token, int pc) {
+            if (token.equals("-") && evalStack.size() < 2) {
+                String aux = generateTempName();
+                emit("    MOV EAX, " + evalStack.pop() + "\n");
+                emit("    NEG EAX\n");
+                storeResult(rpn, pc, aux);
+                evalStack.push(aux);
+                return;
+            }
+            if (evalStack.size() < 2) {
+                throw new RuntimeException("RPN inválida: operador " + token + " sin suficientes operandos en pc=" + pc);
+            }
+            String op2 = evalStack.pop();
+            String op1 = evalStack.pop();
+            String aux = generateTempName();
+            Long factor1 = integerConstant(op1);
+            Long factor2 = integerConstant(op2);
+
+            switch (token) {
+                case "+":
+                case "-":
+                    emit("    MOV EAX, " + op1 + "\n");
+                    emit("    " + (token.equals("+") ? "ADD" : "SUB") + " EAX, " + op2 + "\n");
+                    break;
+                case "*":
+                    if (factor1 != null || factor2 != null) {
+                        emit("    MOV EAX, " + (factor2 != null ? op1 : op2) + "\n");
+                        emit("    IMUL EAX, EAX, " + (factor2 != null ? factor2 : factor1) + "\n");
+                    } else {
+                        emit("    MOV EAX, " + op1 + "\n");
+                        emit("    IMUL DWORD PTR " + op2 + "\n");
+                        emit("    SHR EAX, " + fixedBits + "\n");
+                        emit("    SHL EDX, " + (32 - fixedBits) + "\n");
+                        emit("    OR EAX, EDX\n");
+                    }
+                    break;
+                default:
+                    emit("    MOV EAX, " + op1 + "\n");
+                    if (factor2 != null && factor2 != 0) {
+                        emit("    CDQ\n");
+                        emit("    MOV EBX, " + factor2 + "\n");
+                        emit("    IDIV EBX\n");
+                    } else {
+                        emit("    MOV EDX, EAX\n");
+                        emit("    SAR EDX, " + (32 - fixedBits) + "\n");
+                        emit("    SHL EAX, " + fixedBits + "\n");
+                        emit("    IDIV DWORD PTR " + op2 + "\n");
+                    }
+                    break;
+            }
+            storeResult(rpn, pc, aux);
+            evalStack.push(aux);
+        }
+
+        /** El resultado de la operación en {@code pc} lo consume directamente un write. */
+        private boolean feedsWrite(List<String> rpn, int pc) {
+            return pc + 1 < rpn.size() && RpnTokens.isWrite(rpn.get(pc + 1));
+        }
+
+        /**
+         * Guarda en {@code aux} el resultado de la operación (en ST0, o en EAX con --fixed-point),
+         * salvo que lo consuma un write: ese lo imprime desde ahí, sin pasar por memoria.
+         */
+        private void storeResult(List<String> rpn, int pc, String aux) {
+            if (feedsWrite(rpn, pc)) {
+                onStackTop = aux;
+            } else if (fixedBits > 0) {
+                emit("    MOV " + aux + ", EAX\n\n");
+            } else {
+                emit(String.format("    FSTP %s\n\n", aux));
+            }
+        }
+
+        /**
+         * Operando de un FLD: la variable en la pila x87 si está promovida en {@code pc}
+         * ({@code above} valores cargados encima), si no la etiqueta.
+         */
+        private String load(String operand, int pc, int above) {
+            int slot = promotion.slotOf(pc, operand);
+            return slot >= 0 ? "ST(" + (slot + above) + ")" : operand;
+        }
+
+        /** Punteros de las variables String ya asignadas y la salida ya calculada (--partial-eval). */
+        private void emitPrecomputed(Map<String, String> strings) {
+            strings.forEach((variable, literal) -> {
+                emit("    MOV AX, OFFSET " + getStringLiteralLabel(literal) + "\n");
+                emit("    MOV WORD PTR " + getValidAsmLabel(variable) + ", AX\n");
+            });
+            if (precomputedOutput != null) {
+                emit("    MOV DX, OFFSET _PRECOMPUTED\n");
+                emit("    MOV AH, 09h\n");
+                emit("    INT 21h\n");
+            }
+            emit("\n");
+        }
+
+        /**
+         * Imprime la cadena terminada en '$' cuyo offset indica {@code source}.
+         *
+         * @param toBuffer va al buffer de salida aunque no sea --buffered (una línea de varios argumentos)
+         */
+        private void emitPrintString(String source, boolean toBuffer) {
+            emit("    MOV DX, " + source + "\n");
+            if (toBuffer || isBuffered()) {
+                emit("    CALL OUT_STR\n");
+                routines.add(RuntimeLibrary.OUT_STR);
+            } else {
+                emit("    MOV AH, 09h\n");
+                emit("    INT 21h\n");
+            }
+        }
+
+        /** Agrega texto al código. Todas las instrucciones x87 empiezan con 'F'. */
+        private void emit(String text) {
+            if (text.startsWith("    F")) {
+                fpu = true;
+            }
+            out.append(text);
+            noteReferences(text);
+            if (cost != null) {
+                IntermediateCodeGenerator icg = IntermediateCodeGenerator.getInstance();
+                cost.add(sourcePc < 0 ? 0 : icg.getLine(sourcePc), sourcePc < 0 ? null : icg.getKind(sourcePc), text);
+            }
+        }
+
+        /** Cuenta las etiquetas de datos ({@code _x}, {@code @Tn}) que nombra la instrucción. */
+        private void noteReferences(String text) {
+            int n = text.length();
+            for (int i = 0; i < n; i++) {
+                char c = text.charAt(i);
+                if ((c == '_' || c == '@') && (i == 0 || !isLabelChar(text.charAt(i - 1)))) {
+                    int j = i + 1;
+                    while (j < n && isLabelChar(text.charAt(j))) {
+                        j++;
+                    }
+                    used.merge(text.substring(i, j), weight, Long::sum);
+                    i = j;
+                }
+            }
+        }
+
+        private String generateTempName() {
+            nextTemp++;
+            return "@T" + nextTemp;
+        }
+    }
+
+    private void merge(Lowering lowering) {
+        code.append(lowering.lowered);
+        usesFpu |= lowering.fpu;
+        readBuffers.addAll(lowering.buffers);
+        lowering.routines.forEach(runtime::use);
+        coldSections.addAll(lowering.sections);
+        switchTables.addAll(lowering.tables);
+        usesSwitch |= lowering.switched;
+        forCounters.addAll(lowering.counters);
+        usesFor |= lowering.looped;
+        lowering.used.forEach((label, count) -> references.merge(label, count, Long::sum));
+        if (lowering.cost != null) {
+            getCostReport().addAll(lowering.cost);
+        }
+    }
+
+    /** Si las próximas traducciones arman el {@link #getCostReport() reporte de costos}. */
+    public void setCollectCosts(boolean collectCosts) {
+        this.collectCosts = collectCosts;
+    }
+
+    /** Lo que costó en instrucciones cada línea y sentencia en la última traducción (--cost-report). */
+    public CostReport getCostReport() {
+        // Se arma recién la primera vez que se pide: sin --cost-report ni se carga
+        if (costs == null) {
+            costs = new CostReport();
+        }
+        return costs;
+    }
+
+    /**
+     * --schedule: reordena el código x87 ya traducido. Se hace sobre el código completo
+     * (no por tramo de --jobs) para que el resultado no dependa de cómo se cortó.
+     */
+    private void scheduleFpu() {
+        // Dentro de un while promovido la pila ya tiene sus variables abajo
+        int occupied = CompilerOptions.getInstance().isPromote() ? Constants.PROMOTED_VARIABLES : 0;
+        X87Scheduler scheduler = new X87Scheduler(TimingTable.pentium(), occupied);
+        String scheduled = scheduler.schedule(code.toString());
+        code.setLength(0);
+        code.append(scheduled);
+        for (StringBuilder section : coldSections) {
+            scheduled = scheduler.schedule(section.toString());
+            section.setLength(0);
+            section.append(scheduled);
+        }
+    }
+
+    /** Tabla de saltos en .DATA, de a 8 etiquetas por línea. */
+    private static String jumpTable(String name, int[] targets) {
+        StringBuilder table = new StringBuilder();
+        for (int i = 0; i < targets.length; i++) {
+            if (i % 8 == 0) {
+                table.append(i == 0 ? name + " dw " : "\n    dw ");
+            } else {
+                table.append(", ");
+            }
+            table.append('L').append(targets[i]);
+        }
+        return table.append('\n').toString();
+    }
+
+    /**
+     * Puntos de corte para traducir en paralelo: inicios de bloque básico o de sentencia
+     * (la pila de evaluación está vacía), separados por al menos
+     * {@link Constants#PARALLEL_CHUNK_TOKENS} tokens. Vacío si no conviene paralelizar.
+     */
+    private List<Integer> chunkBoundaries(List<String> rpn, int jobs) {
+        List<Integer> splits = new ArrayList<>();
+        if (jobs < 2 || rpn.size() < 2 * Constants.PARALLEL_CHUNK_TOKENS) {
+            return splits;
+        }
+        // Unos cuantos tramos por hilo, para repartir mejor si unos son más pesados
+        int chunkSize = Math.max(Constants.PARALLEL_CHUNK_TOKENS, rpn.size() / (jobs * 4));
+        int depth = 0;
+        int last = 0;
+        // Una línea de write con varios argumentos la traduce un solo tramo
+        boolean lineOpen = false;
+        for (int pc = 0; pc < rpn.size(); pc++) {
+            if (depth == 0 && !lineOpen && pc - last >= chunkSize && rpn.size() - pc >= chunkSize / 2) {
+                splits.add(pc);
+                last = pc;
+            }
+            String token = rpn.get(pc);
+            if (RpnTokens.isWrite(token) || token.equals("READ")) {
+                depth = Math.max(depth - 1, 0);
+                lineOpen = token.equals(RpnTokens.WRITE_PART);
+            } else if (RpnTokens.isArithmeticOperator(token)) {
+                depth = depth < 2 ? depth : depth - 1;
+            } else if (token.equals(":=") || token.equals("CMP")) {
+                depth = Math.max(depth - 2, 0);
+            } else if (token.equals(RpnTokens.SWITCH)) {
+                depth = Math.max(depth - 1, 0);
+                pc = SwitchDispatch.endOf(rpn, pc) - 1;
+            } else if (token.equals(RpnTokens.FOR) || token.equals(RpnTokens.NEXT)) {
+                depth = Math.max(depth - (token.equals(RpnTokens.FOR) ? 3 : 2), 0);
+                pc++;
+            } else if (RpnTokens.isBranch(token)) {
+                pc++;
+            } else if (!RpnTokens.isOperator(token) && !RpnTokens.isControlToken(token)) {
+                depth++;
+            }
+        }
+        return splits;
+    }
+
+    /**
+     * Traduce los tramos con fork/join. Cada tramo numera sus temporales a partir de los
+     * que usan los anteriores (uno por operador aritmético), así el resultado concatenado
+     * es idéntico al de la traducción secuencial.
+     */
+    private List<Lowering> lowerInParallel(List<String> rpn, List<Integer> splits, int jobs) {
+        int chunks = splits.size() + 1;
+        int[] from = new int[chunks];
+        int[] to = new int[chunks];
+        int[] firstTemp = new int[chunks];
+        for (int c = 0; c < chunks; c++) {
+            from[c] = c == 0 ? 0 : splits.get(c - 1);
+            to[c] = c == chunks - 1 ? rpn.size() : splits.get(c);
+        }
+        int temps = 0;
+        for (int c = 0, pc = 0; pc < rpn.size(); pc++) {
+            while (c + 1 < chunks && pc == from[c + 1]) {
+                firstTemp[++c] = temps;
+            }
+            String token = rpn.get(pc);
+            if (RpnTokens.isArithmeticOperator(token)) {
+                temps++;
+            } else if (RpnTokens.isBranch(token)) {
+                pc++;
+            }
+        }
+
+        Lowering[] lowered = new Lowering[chunks];
+        ForkJoinPool pool = new ForkJoinPool(jobs);
+        try {
+            pool.invoke(new LowerChunks(rpn, from, to, firstTemp, lowered, 0, chunks));
+        } finally {
+            pool.shutdown();
+        }
+        lowered[chunks - 1].emitBlockStart(rpn.size());
+        return List.of(lowered);
+    }
+
+    // Nunca se serializa: RecursiveAction es Serializable solo por herencia
+    @SuppressWarnings("serial")
+    private final class LowerChunks extends RecursiveAction {
+
+        private final List<String> rpn;
+        private final int[] from;
+        private final int[] to;
+        private final int[] firstTemp;
+        private final Lowering[] lowered;
+        private final int first;
+        private final int last;
+
+        LowerChunks(List<String> rpn, int[] from, int[] to, int[] firstTemp, Lowering[] lowered, int first, int last) {
+            this.rpn = rpn;
+            this.from = from;
+            this.to = to;
+            this.firstTemp = firstTemp;
+            this.lowered = lowered;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute() {
+            if (last - first > 1) {
+                int middle = (first + last) >>> 1;
+                invokeAll(new LowerChunks(rpn, from, to, firstTemp, lowered, first, middle),
+                          new LowerChunks(rpn, from, to, firstTemp, lowered, middle, last));
+                return;
+            }
+            Lowering chunk = new Lowering(firstTemp[first]);
+            chunk.emitBlock(rpn, from[first], to[first]);
+            if (!chunk.evalStack.isEmpty()) {
+                throw new IllegalStateException("Tramo " + from[first] + ".." + to[first]
+                    + " termina con operandos sin usar: " + chunk.evalStack);
+            }
+            lowered[first] = chunk;
+        }
+    }
+
+    /** Vista de un tramo de la polaca con índices globales: get(i) = tokens[i - base]. */
+    private static final class OffsetList extends AbstractList<String> {
+
+        private final int base;
+        private final List<String> tokens;
+
+        OffsetList(int base, List<String> tokens) {
+            this.base = base;
+            this.tokens = tokens;
+        }
+
+        @Override
+        public String get(int index) {
+            return tokens.get(index - base);
+        }
+
+        @Override
+        public int size() {
+            return base + tokens.size();
+        }
     }
 
     private String getValidAsmLabel(String rawToken) {
-        if (isNumberLiteral(rawToken)) {
-            String label = rawToken.replace(".", "_").replace("-", "neg_");
+        if (RpnTokens.isNumberLiteral(rawToken)) {
+            // Por valor y no por lexema: 1, 1.0 y 1. son la misma constante
+            String value = floatValue(rawToken);
+            if (value.endsWith(".0")) {
+                value = value.substring(0, value.length() - 2);
+            }
+            String label = value.replace(".", "_").replace("-", "neg_");
             return "_" + label;
         } else {
             return "_" + rawToken.replace(".", "_");
         }
     }
 
+    /** Valor exacto de {@code value} para un dd: el decimal más corto si al leerlo vuelve a dar lo mismo. */
+    private static String realValue(float value) {
+        if (Float.floatToRawIntBits(value) == Float.floatToRawIntBits(-0.0f)) {
+            return "-0.0";
+        }
+        String text = new BigDecimal(Float.toString(value)).toPlainString();
+        if ((float) Double.parseDouble(text) != value) {
+            text = new BigDecimal(value).toPlainString();
+        }
+        return text.contains(".") ? text : text + ".0";
+    }
+
+    /**
+     * La salida ya calculada como cadena para INT 21h AH=09h: un renglón (o un tramo de
+     * 64 caracteres) por línea de .DATA, con CR, LF y comillas como bytes.
+     */
+    private static String precomputedData(String output) {
+        List<String> lines = new ArrayList<>();
+        List<String> items = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i <= output.length(); i++) {
+            char c = i < output.length() ? output.charAt(i) : '$';
+            if (c >= ' ' && c != '"' && c != '$') {
+                text.append(c);
+                if (text.length() == 64) {
+                    items.add("\"" + text + "\"");
+                    text.setLength(0);
+                    lines.add(String.join(",", items));
+                    items.clear();
+                }
+                continue;
+            }
+            if (text.length() > 0) {
+                items.add("\"" + text + "\"");
+                text.setLength(0);
+            }
+            items.add(c == '$' ? "'$'" : String.format("%02XH", (int) c));
+            if (c == '\n' || c == '$') {
+                lines.add(String.join(",", items));
+                items.clear();
+            }
+        }
+        return "_PRECOMPUTED db " + String.join("\n    db ", lines) + "\n";
+    }
+
+    /** Valor de una constante como lo escribe .DATA: sin ceros de más y con al menos un decimal. */
+    private static String floatValue(String literal) {
+        String value = new BigDecimal(literal.endsWith(".") ? literal + "0" : literal).stripTrailingZeros().toPlainString();
+        if (literal.startsWith("-") && !value.startsWith("-")) {
+            value = "-" + value;
+        }
+        return value.contains(".") ? value : value + ".0";
+    }
+
+    /** Valor de una constante en .DATA: real, o el entero que la representa en punto fijo. */
+    private String numberValue(String literal) {
+        if (fixedBits > 0) {
+            return Integer.toString(FixedPoint.raw(FixedPoint.valueOf(literal), fixedBits));
+        }
+        return floatValue(literal);
+    }
+
+    private String zero() {
+        return fixedBits > 0 ? "0" : "0.0";
+    }
+
+    /** El entero k si {@code label} es la etiqueta de la constante k (_5, _neg_3), si no null. */
+    private static Long integerConstant(String label) {
+        int start = label.startsWith("_neg_") ? 5 : 1;
+        if (label.charAt(0) != '_' || start >= label.length()) {
+            return null;
+        }
+        for (int i = start; i < label.length(); i++) {
+            if (!Character.isDigit(label.charAt(i))) {
+                return null;
+            }
+        }
+        long value = Long.parseLong(label.substring(start));
+        return start == 5 ? -value : value;
+    }
+
+    /**
+     * --fixed-point: avisa (una vez por constante) las que no se representan exactamente y
+     * quedan redondeadas. Las que no entran ya las rechazó el lexer.
+     * @param base índice global del primer token de {@code rpn}
+     */
+    private void checkFixedConstants(List<String> rpn, int base) {
+        IntermediateCodeGenerator icg = IntermediateCodeGenerator.getInstance();
+        for (int i = 0; i < rpn.size(); i++) {
+            String token = rpn.get(i);
+            if (RpnTokens.isBranch(token)) {
+                i++;
+            } else if (token.equals(RpnTokens.SWITCH)) {
+                i = SwitchDispatch.endOf(rpn, i) - 1;
+            } else if (token.equals(RpnTokens.FOR) || token.equals(RpnTokens.NEXT)) {
+                i++;
+            } else if (RpnTokens.isNumberLiteral(token) && roundedConstants.add(getValidAsmLabel(token))) {
+                BigDecimal value = FixedPoint.valueOf(token);
+                if (!FixedPoint.isExact(value, fixedBits)) {
+                    int line = icg.getLine(base + i);
+                    String warning = String.format("%sla constante %s queda como %s en %s",
+                        line > 0 ? "línea " + line + ": " : "", token,
+                        FixedPoint.toDecimal(FixedPoint.raw(value, fixedBits), fixedBits).toPlainString(),
+                        FixedPoint.format(fixedBits));
+                    warnings.add(warning);
+                }
+            }
+        }
+    }
+
+    /**
+     * Avisos de la última traducción: constantes redondeadas con --fixed-point y perfiles de
+     * --profile-use que no se pueden usar.
+     */
+    public List<String> getWarnings() {
+        return List.copyOf(warnings);
+    }
+
+    public void clearWarnings() {
+        warnings.clear();
+    }
+
+    private static boolean isLabelChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    /**
+     * Profundidad de bucles (while y for) de cada posición de [from, to): sirve para estimar
+     * cuántas veces se ejecuta cada acceso a datos al ordenar .DATA.
+     */
+    private void planLoopDepth(List<String> rpn, int from, int to) {
+        int[] delta = new int[to - from + 1];
+        for (int pc = from; pc < to; pc++) {
+            String token = rpn.get(pc);
+            if (token.equals(RpnTokens.SWITCH)) {
+                // Los case saltan hacia atrás, a sus cuerpos, pero no son bucles
+                pc = SwitchDispatch.endOf(rpn, pc) - 1;
+            } else if (RpnTokens.isBranch(token)) {
+                int target = Integer.parseInt(rpn.get(pc + 1));
+                if (target <= pc && target >= from) {
+                    delta[target - from]++;
+                    delta[pc + 2 - from]--;
+                }
+                pc++;
+            }
+        }
+        loopDepth = new int[to - from];
+        int depth = 0;
+        for (int i = 0; i < loopDepth.length; i++) {
+            depth += delta[i];
+            loopDepth[i] = depth;
+        }
+        loopDepthBase = from;
+    }
+
+    /**
+     * --promote: elige las variables de cada while. Solo las Int y Float (ambas son reales
+     * de 4 bytes en este backend), y no la variable de un for que está en ESI. Los while
+     * rotados por el perfil quedan como están.
+     */
+    private void planPromotion(List<String> rpn, int from, int to) {
+        SymbolTableGenerator symbolTable = SymbolTableGenerator.getInstance();
+        promotion.scan(rpn, from, to, rotatedLoops.keySet(), pc -> {
+            String type = symbolTable.getVariableType(rpn.get(pc));
+            return ("Int".equals(type) || "Float".equals(type)) && !forLoops.isInductionRead(pc);
+        }, this::getValidAsmLabel);
+    }
+
+    private long loopWeight(int pc) {
+        int i = pc - loopDepthBase;
+        int depth = i >= 0 && i < loopDepth.length ? loopDepth[i] : 0;
+        return 1L << (3 * Math.min(depth, 6));
+    }
+
     private void resetState() {
-        tempCounter = 0;
         temporaries.clear();
         stringLiterals.clear();
         jumpTargets.clear();
         operands.clear();
+        readBuffers.clear();
+        code.setLength(0);
+        usesFpu = false;
+        coldSections.clear();
+        switchTables.clear();
+        usesSwitch = false;
+        forLoops.clear();
+        promotion.clear();
+        initialValues.clear();
+        precomputedOutput = null;
+        if (costs != null) {
+            costs.clear();
+        }
+        references.clear();
+        loopDepth = new int[0];
+        loopDepthBase = 0;
+        forCounters.clear();
+        usesFor = false;
+        counterPoints.clear();
+        counterSlots.clear();
+        profile = null;
+        rotatedLoops.clear();
+        loopBodies.clear();
+        coldBranches.clear();
+        branchOverrides.clear();
+        fixedBits = CompilerOptions.getInstance().getFixedPointBits();
+        warnings.clear();
+        roundedConstants.clear();
+        runtime = new RuntimeLibrary(CompilerOptions.getInstance().getOutputMode(), fixedBits,
+            CompilerOptions.getInstance().getFloatDigits());
+    }
+
+    private boolean isBuffered() {
+        return runtime.getOutputMode() == OutputMode.BUFFERED;
     }
 
     private void performFirstPreScan(List<String> rpn) {
         for (int i = 0; i < rpn.size(); i++) {
             String tok = rpn.get(i);
-            if (isBranch(tok)) {
+            if (RpnTokens.isBranch(tok)) {
                 if (i + 1 < rpn.size()) {
                     String dest = rpn.get(i + 1);
-                    if (dest.matches("^\\d+$")) jumpTargets.add(Integer.parseInt(dest));
+                    if (RpnTokens.isIntegerLiteral(dest) && !dest.startsWith("-")) jumpTargets.add(Integer.parseInt(dest));
                 }
                 i++; 
-            } else if (tok.equals("WRITE")) {
+            } else if (tok.equals(RpnTokens.SWITCH)) {
+                // Los valores de los casos van como inmediatos, no son operandos
+                SwitchDispatch dispatch = SwitchDispatch.read(rpn, i);
+                for (SwitchDispatch.Case c : dispatch.getCases()) {
+                    jumpTargets.add(c.getTarget());
+                }
+                jumpTargets.add(dispatch.getDefaultTarget());
+                i = dispatch.getEnd() - 1;
+            } else if (RpnTokens.isWrite(tok)) {
             } else if (tok.equals("READ")) {
-            } else if (isStringLiteral(tok)) {
+            } else if (RpnTokens.isStringLiteral(tok)) {
                 stringLiterals.add(tok);
-            } else if (!isOperator(tok) && !isControlToken(tok)) {
+            } else if (!RpnTokens.isOperator(tok) && !RpnTokens.isControlToken(tok)) {
                 operands.add(tok);
             }
         }
@@ -264,11 +1551,11 @@ public class AsmCodeGenerator implements FileGenerator {
         int dryRunTempCounter = 0;
         for (int pc = 0; pc < rpn.size(); pc++) {
             String token = rpn.get(pc);
-            if (token.equals("WRITE")) {
+            if (RpnTokens.isWrite(token)) {
                 if (!dryRunStack.isEmpty()) dryRunStack.pop();
             } else if (token.equals("READ")) {
                 if (!dryRunStack.isEmpty()) dryRunStack.pop();
-            } else if (isArithmeticOperator(token)) {
+            } else if (RpnTokens.isArithmeticOperator(token)) {
                 // si hay < 2 operandos, asumimos unario y no popeamos 2
                 if (dryRunStack.size() < 2) {
                     if (!dryRunStack.isEmpty()) dryRunStack.pop(); // Pop 1 (unario)
@@ -283,38 +1570,173 @@ public class AsmCodeGenerator implements FileGenerator {
             } else if (token.equals(":=") || token.equals("CMP")) {
                 if (dryRunStack.size() < 2) continue;
                 dryRunStack.pop(); dryRunStack.pop();
-            } else if (isBranch(token)) {
+            } else if (token.equals(RpnTokens.SWITCH)) {
+                if (!dryRunStack.isEmpty()) dryRunStack.pop();
+                pc = SwitchDispatch.endOf(rpn, pc) - 1;
+            } else if (token.equals(RpnTokens.FOR) || token.equals(RpnTokens.NEXT)) {
+                for (int n = token.equals(RpnTokens.FOR) ? 3 : 2; n > 0 && !dryRunStack.isEmpty(); n--) {
+                    dryRunStack.pop();
+                }
+                pc++;
+            } else if (RpnTokens.isBranch(token)) {
                 pc++;
-            } else if (!isOperator(token) && !isControlToken(token)) { 
+            } else if (!RpnTokens.isOperator(token) && !RpnTokens.isControlToken(token)) { 
                 dryRunStack.push(token);
             }
         }
     }
 
-    private boolean isOperator(String t) {
-        return isArithmeticOperator(t) || t.equals(":=") || t.equals("CMP") || isBranch(t) || t.equals("WRITE") || t.equals("READ");
+    /**
+     * Un contador por bloque básico: cada destino de salto y cada instrucción que sigue
+     * a un salto condicional (la rama que no salta).
+     */
+    private void planCounters(List<String> rpn) {
+        Set<Integer> points = new TreeSet<>(jumpTargets);
+        for (int i = 0; i < rpn.size(); i++) {
+            String tok = rpn.get(i);
+            if (RpnTokens.isBranch(tok)) {
+                if (RpnTokens.isConditionalBranch(tok)) {
+                    points.add(i + 2);
+                }
+                i++;
+            }
+        }
+        for (int point : points) {
+            counterSlots.put(point, counterPoints.size());
+            counterPoints.add(point);
+        }
     }
-    private boolean isArithmeticOperator(String t) {
-        return t.equals("+") || t.equals("-") || t.equals("*") || t.equals("/");
+
+    private ProfileData loadProfile(String file, List<String> rpn) {
+        if (file == null) {
+            return null;
+        }
+        try {
+            ProfileData data = ProfileData.load(Paths.get(file));
+            if (!data.matches(rpn)) {
+                warnings.add("el perfil " + file + " es de otra versión del programa, se ignora");
+                return null;
+            }
+            return data;
+        } catch (IOException e) {
+            warnings.add("no se pudo leer el perfil " + file + " (" + e.getMessage() + "), se ignora");
+            return null;
+        }
+    }
+
+    /**
+     * Decide la ubicación de los bloques con los contadores del perfil:
+     * <ul>
+     *   <li>while que itera más veces de las que se entra: se rota para que cada
+     *       vuelta ejecute un solo salto (el condicional, hacia atrás);</li>
+     *   <li>if cuyo cuerpo se ejecuta poco: el cuerpo sale del camino principal y la
+     *       rama frecuente sigue de largo sin saltar.</li>
+     * </ul>
+     */
+    private void planLayout(List<String> rpn) {
+        for (int j = 0; j < rpn.size(); j++) {
+            String tok = rpn.get(j);
+            if (tok.equals(RpnTokens.SWITCH)) {
+                j = SwitchDispatch.endOf(rpn, j) - 1;
+                continue;
+            }
+            if (!RpnTokens.isBranch(tok)) {
+                continue;
+            }
+            int target = Integer.parseInt(rpn.get(j + 1));
+            if (tok.equals("BI") && target < j) {
+                planLoopRotation(rpn, target, j);
+            } else if (RpnTokens.isConditionalBranch(tok) && target > j + 2) {
+                planColdBody(rpn, j, target);
+            }
+            j++;
+        }
+    }
+
+    /** while: W: cond B<salida>; cuerpo; BI W; salida */
+    private void planLoopRotation(List<String> rpn, int conditionStart, int backEdge) {
+        int exitBranch = -1;
+        for (int b = conditionStart; b < backEdge; b++) {
+            if (RpnTokens.isBranch(rpn.get(b))) {
+                if (RpnTokens.isConditionalBranch(rpn.get(b)) && Integer.parseInt(rpn.get(b + 1)) == backEdge + 2) {
+                    exitBranch = b;
+                }
+                b++;
+            }
+        }
+        if (exitBranch < 0) {
+            return;
+        }
+        int bodyStart = exitBranch + 2;
+        if (!profile.hasCount(bodyStart) || !profile.hasCount(conditionStart)) {
+            return;
+        }
+        long iterations = profile.getCount(bodyStart);
+        long entries = profile.getCount(conditionStart) - iterations;
+        if (iterations > entries) {
+            rotatedLoops.put(conditionStart, backEdge);
+            loopBodies.put(conditionStart, bodyStart);
+            jumpTargets.add(bodyStart);
+            branchOverrides.put(exitBranch, mapBranchToAsm(invertBranch(rpn.get(exitBranch)), String.valueOf(bodyStart)));
+        }
     }
-    private boolean isControlToken(String t) { return t.equals("_PLHDR"); }
-    private boolean isBranch(String t) {
-        return t.equals("BLE") || t.equals("BGE") || t.equals("BLT") ||
-                t.equals("BGT") || t.equals("BEQ") || t.equals("BNE") || t.equals("BI");
+
+    /** if: cond B<fin>; cuerpo; fin   |   if-else: cond B<else>; cuerpo; BI <fin>; else */
+    private void planColdBody(List<String> rpn, int branch, int end) {
+        String beforeEnd = rpn.get(end - 2);
+        if (RpnTokens.isConditionalBranch(beforeEnd)) {
+            return; // OR: el primer salto va al cuerpo, no lo saltea
+        }
+        int beforeEndTarget = beforeEnd.equals("BI") ? Integer.parseInt(rpn.get(end - 1)) : -1;
+        if (beforeEnd.equals("BI") && beforeEndTarget <= branch) {
+            return; // salida de un while
+        }
+        // Con AND hay varios saltos al mismo destino: solo se mueve desde el último
+        for (int b = branch + 2; b < end; b++) {
+            if (RpnTokens.isBranch(rpn.get(b))) {
+                if (RpnTokens.isConditionalBranch(rpn.get(b)) && Integer.parseInt(rpn.get(b + 1)) == end) {
+                    return;
+                }
+                b++;
+            }
+        }
+        if (!profile.hasCount(branch + 2) || !profile.hasCount(end)) {
+            return;
+        }
+        long body = profile.getCount(branch + 2);
+        boolean hasElse = beforeEnd.equals("BI") && beforeEndTarget > end;
+        boolean cold = hasElse
+            ? body < profile.getCount(end)
+            : body * 2 < profile.getCount(end) - body;
+        if (cold) {
+            coldBranches.add(branch);
+            jumpTargets.add(branch + 2);
+            branchOverrides.put(branch, mapBranchToAsm(invertBranch(rpn.get(branch)), String.valueOf(branch + 2)));
+        }
     }
-    private boolean isStringLiteral(String s) { return s != null && s.startsWith("\"") && s.endsWith("\""); }
-    
-    
-    private boolean isNumberLiteral(String s) { 
-        return s != null && (
-            s.matches("^-?\\d+$") ||           // Enteros: 123, -123
-            s.matches("^-?\\d+\\.\\d+$") ||    // Floats normales: 1.23, -1.23
-            s.matches("^-?\\d+\\.$") ||        // Floats terminados en punto: 99.
-            s.matches("^-?\\.\\d+$")           // Floats empezados en punto: .99
-        ); 
+
+    private static String invertBranch(String br) {
+        switch (br) {
+            case "BLE": return "BGT";
+            case "BGT": return "BLE";
+            case "BGE": return "BLT";
+            case "BLT": return "BGE";
+            case "BEQ": return "BNE";
+            case "BNE": return "BEQ";
+        }
+        throw new IllegalArgumentException("Salto sin inverso: " + br);
     }
 
     private String mapBranchToAsm(String br, String dest) {
+        if (fixedBits > 0) {
+            // --fixed-point compara enteros con CMP: saltos con signo
+            switch (br) {
+                case "BLE": return "JLE L" + dest;
+                case "BGE": return "JGE L" + dest;
+                case "BLT": return "JL L"  + dest;
+                case "BGT": return "JG L"  + dest;
+            }
+        }
         switch (br) {
             case "BLE": return "JNA L" + dest;
             case "BGE": return "JAE L" + dest;
@@ -327,11 +1749,6 @@ public class AsmCodeGenerator implements FileGenerator {
         return null;
     }
 
-    private String generateTempName() {
-        tempCounter++;
-        return "@T" + tempCounter;
-    }
-
     private String getStringLiteralLabel(String raw) {
         String clean = raw;
         if (clean.startsWith("\"") && clean.endsWith("\"") && clean.length() >= 2) {
@@ -348,105 +1765,4 @@ public class AsmCodeGenerator implements FileGenerator {
         String label = getStringLiteralLabel(raw);
         return label + " db \"" + clean + "$\"\n";
     }
-
-    private void writePrintProc(FileWriter writer) throws IOException {
-        writer.write("\n; --------------------------------------------------\n");
-        writer.write("; Subrutina para imprimir un numero flotante (ST0)\n");
-        writer.write("; --------------------------------------------------\n");
-        writer.write("PRINT_FLOAT PROC NEAR\n");
-        writer.write("    PUSH AX\n");
-        writer.write("    PUSH BX\n");
-        writer.write("    PUSH CX\n");
-        writer.write("    PUSH DX\n");
-        writer.write("    PUSH SI\n");
-        writer.write("    PUSH DI\n");
-        writer.write("    PUSH BP\n");
-        writer.write("    MOV BP, SP\n\n");
-
-        writer.write("    SUB SP, 4\n\n");
-
-        writer.write("    FSTCW WORD PTR [BP-2]\n");
-        writer.write("    MOV AX, WORD PTR [BP-2]\n");
-        writer.write("    OR AX, 0C00h\n");
-        writer.write("    MOV WORD PTR [BP-4], AX\n");
-        writer.write("    FLDCW WORD PTR [BP-4]\n");
-        writer.write("    FIST WORD PTR [BP-4]\n");
-        writer.write("    FLDCW WORD PTR [BP-2]\n");
-        writer.write("    MOV AX, WORD PTR [BP-4]\n");
-        writer.write("    CALL PRINT_NUM_INT\n\n");
-
-        writer.write("    MOV DL, '.'\n");
-        writer.write("    MOV AH, 02h\n");
-        writer.write("    INT 21h\n\n");
-
-        writer.write("    FISUB WORD PTR [BP-4]\n");
-        writer.write("    MOV CX, 10000\n");
-        writer.write("    MOV WORD PTR [BP-4], CX\n");
-        writer.write("    FIMUL WORD PTR [BP-4]\n");
-        writer.write("    FSTCW WORD PTR [BP-2]\n");
-        writer.write("    MOV AX, WORD PTR [BP-2]\n");
-        writer.write("    OR AX, 0C00h\n");
-        writer.write("    MOV WORD PTR [BP-4], AX\n");
-        writer.write("    FLDCW WORD PTR [BP-4]\n");
-        writer.write("    FISTP WORD PTR [BP-4]\n");
-        writer.write("    FLDCW WORD PTR [BP-2]\n\n");
-
-        writer.write("    MOV AX, WORD PTR [BP-4]\n");
-        writer.write("    CMP AX, 0\n");
-        writer.write("    JGE POS_DEC\n");
-        writer.write("    NEG AX\n");
-        writer.write("POS_DEC:\n");
-        writer.write("    CALL PRINT_NUM_INT\n\n");
-
-        writer.write("    ADD SP, 4\n");
-        writer.write("    POP BP\n");
-        writer.write("    POP DI\n");
-        writer.write("    POP SI\n");
-        writer.write("    POP DX\n");
-        writer.write("    POP CX\n");
-        writer.write("    POP BX\n");
-        writer.write("    POP AX\n");
-        writer.write("    RET\n");
-        writer.write("PRINT_FLOAT ENDP\n\n");
-
-        writer.write("PRINT_NUM_INT PROC NEAR\n");
-        writer.write("    PUSH AX\n");
-        writer.write("    PUSH BX\n");
-        writer.write("    PUSH CX\n");
-        writer.write("    PUSH DX\n\n");
-
-        writer.write("    TEST AX, AX\n");
-        writer.write("    JNS STORE_DIGITS\n");
-        writer.write("    PUSH AX\n");
-        writer.write("    MOV DL, '-'\n");
-        writer.write("    MOV AH, 02h\n");
-        writer.write("    INT 21h\n");
-        writer.write("    POP AX\n");
-        writer.write("    NEG AX\n\n");
-
-        writer.write("STORE_DIGITS:\n");
-        writer.write("    MOV CX, 0\n");
-        writer.write("    MOV BX, 10\n");
-        writer.write("LOOP_DIV:\n");
-        writer.write("    MOV DX, 0\n");
-        writer.write("    DIV BX\n");
-        writer.write("    PUSH DX\n");
-        writer.write("    INC CX\n");
-        writer.write("    TEST AX, AX\n");
-        writer.write("    JNZ LOOP_DIV\n\n");
-
-        writer.write("PRINT_DIGITS:\n");
-        writer.write("    POP DX\n");
-        writer.write("    ADD DL, '0'\n");
-        writer.write("    MOV AH, 02h\n");
-        writer.write("    INT 21h\n");
-        writer.write("    LOOP PRINT_DIGITS\n\n");
-
-        writer.write("    POP DX\n");
-        writer.write("    POP CX\n");
-        writer.write("    POP BX\n");
-        writer.write("    POP AX\n");
-        writer.write("    RET\n");
-        writer.write("PRINT_NUM_INT ENDP\n");
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,12 @@
+package lyc.compiler.files;
+
+/**
+ * Backend que traduce la polaca de {@link IntermediateCodeGenerator} a código final.
+ * Se elige por línea de comandos con --target.
+ */
+public interface Backend extends FileGenerator {
+
+    /** Nombre del archivo que genera dentro de target/output. */
+    String getOutputFileName();
+
+}
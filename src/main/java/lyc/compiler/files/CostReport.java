@@ -0,0 +1,304 @@
+package lyc.compiler.files;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Costo del código final por línea del fuente y por tipo de sentencia (--cost-report).
+ * El backend le pasa cada instrucción con la línea y la sentencia del token de la polaca
+ * que la generó; el prólogo y las rutinas de runtime no cuentan (sí sus CALL).
+ *
+ * <p>Los bytes son los de la codificación en un segmento de 16 bits con .386: prefijo 66h
+ * para operandos de 32 bits, direcciones de 16 bits y saltos en su forma near. Es una
+ * estimación para comparar, no el tamaño exacto que arma TASM.</p>
+ */
+public final class CostReport implements FileGenerator {
+
+    private static final Set<String> REGISTERS_8 = Set.of("AL", "AH", "BL", "BH", "CL", "CH", "DL", "DH");
+    private static final Set<String> REGISTERS_32 = Set.of("EAX", "EBX", "ECX", "EDX", "ESI", "EDI", "EBP", "ESP");
+
+    private static final String RULE = "------------------------------------------------------------\n";
+
+    /** Lo que suman las instrucciones de una línea o de un tipo de sentencia. */
+    private static final class Cost {
+        long instructions;
+        long bytes;
+        long temporaries;
+        long fpu;
+
+        void add(Cost other) {
+            instructions += other.instructions;
+            bytes += other.bytes;
+            temporaries += other.temporaries;
+            fpu += other.fpu;
+        }
+    }
+
+    private final Map<Integer, Cost> byLine = new TreeMap<>();
+    private final Map<StatementKind, Cost> byKind = new EnumMap<>(StatementKind.class);
+    // Instrucciones sin sentencia: la salida precalculada de --partial-eval, el final
+    private final Cost unclassified = new Cost();
+    // La misma línea suele emitir varias instrucciones seguidas
+    private int lastLine = -1;
+    private Cost lastLineCost;
+
+    /**
+     * Suma las instrucciones de {@code text} (puede traer etiquetas y líneas en blanco).
+     * Se llama por cada texto que emite el backend, así que no arma cadenas.
+     * @param line línea del fuente, 0 si no se conoce
+     * @param kind sentencia que generó el código, o null
+     */
+    public void add(int line, StatementKind kind, String text) {
+        int start = 0;
+        while (start < text.length()) {
+            int end = text.indexOf('\n', start);
+            if (end < 0) {
+                end = text.length();
+            }
+            int from = skipSpaces(text, start, end);
+            int to = end;
+            while (to > from && text.charAt(to - 1) == ' ') {
+                to--;
+            }
+            start = end + 1;
+            if (from == to || text.charAt(to - 1) == ':' || text.charAt(from) == ';') {
+                continue;
+            }
+            if (line != lastLine || lastLineCost == null) {
+                lastLine = line;
+                lastLineCost = byLine.computeIfAbsent(line, l -> new Cost());
+            }
+            Cost kindCost = kind == null ? unclassified : byKind.computeIfAbsent(kind, k -> new Cost());
+            int bytes = estimateBytes(text, from, to);
+            boolean fpu = text.charAt(from) == 'F';
+            // Escritura de un temporal: FSTP @Tn, o MOV @Tn, EAX con --fixed-point
+            boolean temporary = (fpu && text.startsWith("FST", from) || text.startsWith("MOV @T", from))
+                && indexIn(text, " @T", from, to) >= 0;
+            count(lastLineCost, bytes, fpu, temporary);
+            count(kindCost, bytes, fpu, temporary);
+        }
+    }
+
+    private static void count(Cost cost, int bytes, boolean fpu, boolean temporary) {
+        cost.instructions++;
+        cost.bytes += bytes;
+        cost.fpu += fpu ? 1 : 0;
+        cost.temporaries += temporary ? 1 : 0;
+    }
+
+    /** Suma lo de otro reporte (el de un tramo traducido aparte). */
+    public void addAll(CostReport other) {
+        other.byLine.forEach((line, cost) -> byLine.computeIfAbsent(line, l -> new Cost()).add(cost));
+        other.byKind.forEach((kind, cost) -> byKind.computeIfAbsent(kind, k -> new Cost()).add(cost));
+        unclassified.add(other.unclassified);
+    }
+
+    public void clear() {
+        lastLine = -1;
+        lastLineCost = null;
+        byLine.clear();
+        byKind.clear();
+        unclassified.instructions = 0;
+        unclassified.bytes = 0;
+        unclassified.temporaries = 0;
+        unclassified.fpu = 0;
+    }
+
+    @Override
+    public void generate(Writer writer) throws IOException {
+        // Una fila por línea del fuente: se arman sin String.format
+        StringBuilder row = new StringBuilder();
+        Cost total = new Cost();
+        writer.write("Costo del código final por línea del fuente (bytes estimados)\n");
+        writer.write(RULE);
+        writeHeader(writer, "Línea");
+        for (Map.Entry<Integer, Cost> entry : byLine.entrySet()) {
+            int line = entry.getKey();
+            writeRow(writer, row, line == 0 ? "?" : Integer.toString(line), entry.getValue());
+            total.add(entry.getValue());
+        }
+        writeRow(writer, row, "Total", total);
+        writer.write(RULE);
+        writer.write("Por tipo de sentencia\n");
+        writer.write(RULE);
+        writeHeader(writer, "Sentencia");
+        for (Map.Entry<StatementKind, Cost> entry : byKind.entrySet()) {
+            writeRow(writer, row, entry.getKey().getDescription(), entry.getValue());
+        }
+        if (unclassified.instructions > 0) {
+            writeRow(writer, row, "otro", unclassified);
+        }
+        writer.write(RULE);
+    }
+
+    private static void writeHeader(Writer writer, String name) throws IOException {
+        writer.write(String.format("%-12s %13s %8s %11s %8s%n", name, "Instrucciones", "Bytes", "Temporales", "x87"));
+    }
+
+    private static void writeRow(Writer writer, StringBuilder row, String name, Cost cost) throws IOException {
+        row.setLength(0);
+        row.append(name);
+        pad(row, 12);
+        pad(row.append(' '), 26 - digits(cost.instructions)).append(cost.instructions);
+        pad(row.append(' '), 35 - digits(cost.bytes)).append(cost.bytes);
+        pad(row.append(' '), 47 - digits(cost.temporaries)).append(cost.temporaries);
+        pad(row.append(' '), 56 - digits(cost.fpu)).append(cost.fpu);
+        row.append(System.lineSeparator());
+        writer.append(row);
+    }
+
+    /** Completa con espacios hasta la columna {@code width}. */
+    private static StringBuilder pad(StringBuilder row, int width) {
+        while (row.length() < width) {
+            row.append(' ');
+        }
+        return row;
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    /** Bytes de una instrucción (sin etiqueta) del código que genera {@link AsmCodeGenerator}. */
+    static int estimateBytes(String instruction) {
+        return estimateBytes(instruction, 0, instruction.length());
+    }
+
+    /** Lo mismo para la instrucción en {@code text[from, to)}, sin espacios alrededor. */
+    private static int estimateBytes(String text, int from, int to) {
+        int space = text.indexOf(' ', from);
+        int mnemonicEnd = space < 0 || space > to ? to : space;
+        // Hasta dos operandos separados por coma: [a0, b0) y [a1, b1)
+        int a0 = skipSpaces(text, mnemonicEnd, to);
+        int comma = indexIn(text, ",", a0, to);
+        int b0 = comma < 0 ? to : trimEnd(text, a0, comma);
+        int a1 = comma < 0 ? to : skipSpaces(text, comma + 1, to);
+        int b1 = to;
+        int operands = a0 == to ? 0 : comma < 0 ? 1 : 2;
+
+        if (text.charAt(from) == 'F') {
+            // ESC + ModR/M, con desplazamiento de 16 bits si va a memoria; FSTSW lleva WAIT
+            if (is(text, from, mnemonicEnd, "FSTSW") || is(text, from, mnemonicEnd, "FINIT")) {
+                return 3;
+            }
+            return operands > 0 && isMemory(text, a0, b0) || operands > 1 && isMemory(text, a1, b1) ? 4 : 2;
+        }
+
+        int prefix = operands > 0 && isWide(text, a0, b0) || operands > 1 && isWide(text, a1, b1) ? 1 : 0;
+        if (operands == 0) {
+            return 1 + prefix;
+        }
+        if (is(text, from, mnemonicEnd, "JMP")) {
+            return isMemory(text, a0, b0) ? 4 : 3;
+        }
+        if (is(text, from, mnemonicEnd, "CALL")) {
+            return 3;
+        }
+        if (is(text, from, mnemonicEnd, "INT")) {
+            return 2;
+        }
+        if (is(text, from, mnemonicEnd, "INC") || is(text, from, mnemonicEnd, "DEC")
+                || is(text, from, mnemonicEnd, "PUSH") || is(text, from, mnemonicEnd, "POP")) {
+            return (isMemory(text, a0, b0) ? 4 : 1) + prefix;
+        }
+        if (text.charAt(from) == 'J') {
+            // Jcc near de 386: 0F 8x rel16
+            return 4;
+        }
+        if (operands == 1) {
+            return 2 + (isMemory(text, a0, b0) ? 2 : 0) + prefix;
+        }
+
+        boolean move = is(text, from, mnemonicEnd, "MOV");
+        if (move) {
+            if (isImmediate(text, a1, b1) && !isMemory(text, a0, b0)) {
+                return 1 + immediateSize(text, a0, b0, a1, b1, false) + prefix;
+            }
+            // Acumulador contra dirección directa: A1 / A3 sin ModR/M
+            if (isAccumulator(text, a0, b0) && isMemory(text, a1, b1)
+                    || isAccumulator(text, a1, b1) && isMemory(text, a0, b0)) {
+                return 3 + prefix;
+            }
+        }
+        int bytes = 2 + prefix;
+        if (isMemory(text, a0, b0) || isMemory(text, a1, b1)) {
+            bytes += 2;
+        }
+        if (isImmediate(text, a1, b1)) {
+            boolean shift = text.startsWith("SH", from) || text.startsWith("SA", from) || text.startsWith("RO", from);
+            bytes += shift ? 1 : immediateSize(text, a0, b0, a1, b1, !move);
+        }
+        return bytes;
+    }
+
+    private static boolean isMemory(String text, int from, int to) {
+        char first = text.charAt(from);
+        return first == '_' || first == '@' || indexIn(text, "PTR", from, to) >= 0 || indexIn(text, "[", from, to) >= 0;
+    }
+
+    private static boolean isImmediate(String text, int from, int to) {
+        char first = text.charAt(from);
+        return Character.isDigit(first) || first == '-' || text.startsWith("OFFSET", from);
+    }
+
+    /** Registro de 32 bits u operando DWORD fuera del x87: llevan el prefijo 66h. */
+    private static boolean isWide(String text, int from, int to) {
+        return to - from == 3 && text.charAt(from) == 'E' && REGISTERS_32.contains(text.substring(from, to))
+            || text.startsWith("DWORD PTR", from);
+    }
+
+    private static boolean isAccumulator(String text, int from, int to) {
+        return is(text, from, to, "AX") || is(text, from, to, "EAX");
+    }
+
+    /** Bytes del inmediato según el destino; las operaciones aritméticas tienen forma corta. */
+    private static int immediateSize(String text, int a0, int b0, int a1, int b1, boolean signExtended) {
+        if (b0 - a0 == 2 && REGISTERS_8.contains(text.substring(a0, b0))) {
+            return 1;
+        }
+        if (signExtended && !text.startsWith("OFFSET", a1)) {
+            boolean hex = text.charAt(b1 - 1) == 'h';
+            try {
+                long value = Long.parseLong(text, a1, hex ? b1 - 1 : b1, hex ? 16 : 10);
+                if (value >= -128 && value <= 127) {
+                    return 1;
+                }
+            } catch (NumberFormatException e) {
+                // Expresión del ensamblador: tamaño completo
+            }
+        }
+        return isWide(text, a0, b0) ? 4 : 2;
+    }
+
+    private static boolean is(String text, int from, int to, String word) {
+        return to - from == word.length() && text.startsWith(word, from);
+    }
+
+    private static int indexIn(String text, String part, int from, int to) {
+        int index = text.indexOf(part, from);
+        return index >= 0 && index + part.length() <= to ? index : -1;
+    }
+
+    private static int skipSpaces(String text, int from, int to) {
+        while (from < to && text.charAt(from) == ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimEnd(String text, int from, int to) {
+        while (to > from && text.charAt(to - 1) == ' ') {
+            to--;
+        }
+        return to;
+    }
+}
@@ -22,6 +22,12 @@ public final class FileOutputWriter {
       }
     }
 
+    /** Abre un archivo de salida para escribirlo de a partes (modo --stream). */
+    public static FileWriter open(String fileName) throws IOException {
+        createOutputDirectory();
+        return new FileWriter("%s/%s".formatted(OUTPUT_DIRECTORY, fileName));
+    }
+
     private static void createOutputDirectory() {
         Path path = Paths.get(OUTPUT_DIRECTORY);
         try {
@@ -0,0 +1,58 @@
+package lyc.compiler.files;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Números en punto fijo de 32 bits para --fixed-point: el valor x se guarda como el entero
+ * x * 2^bits, redondeado al más cercano. Con 16 bits es Q16.16 (de -32768 a 32767.99998,
+ * de a 1/65536).
+ */
+public final class FixedPoint {
+
+    private FixedPoint() {}
+
+    /** Nombre del formato: Q16.16 para 16 bits de parte fraccionaria. */
+    public static String format(int bits) {
+        return "Q" + (32 - bits) + "." + bits;
+    }
+
+    /** El valor de la constante {@code literal} (como la escribe el lexer, "1." o ".5" incluidos). */
+    public static BigDecimal valueOf(String literal) {
+        return new BigDecimal(literal.endsWith(".") ? literal + "0" : literal);
+    }
+
+    /** Si {@code value} entra en el formato. */
+    public static boolean fits(BigDecimal value, int bits) {
+        BigDecimal raw = scaled(value, bits);
+        return raw.compareTo(BigDecimal.valueOf(Integer.MIN_VALUE)) >= 0
+            && raw.compareTo(BigDecimal.valueOf(Integer.MAX_VALUE)) <= 0;
+    }
+
+    /** El entero que representa a {@code value}; tiene que entrar en el formato. */
+    public static int raw(BigDecimal value, int bits) {
+        if (!fits(value, bits)) {
+            throw new IllegalArgumentException("La constante " + value.toPlainString() + " no entra en " + format(bits));
+        }
+        return scaled(value, bits).intValueExact();
+    }
+
+    /** Si {@code value} se representa sin redondear. */
+    public static boolean isExact(BigDecimal value, int bits) {
+        return value.multiply(BigDecimal.valueOf(1L << bits)).stripTrailingZeros().scale() <= 0;
+    }
+
+    /** El valor que representa {@code raw}, exacto (2^-bits siempre tiene desarrollo decimal finito). */
+    public static BigDecimal toDecimal(int raw, int bits) {
+        return new BigDecimal(raw).divide(BigDecimal.valueOf(1L << bits)).stripTrailingZeros();
+    }
+
+    /** El mayor valor del formato, para los mensajes de error. */
+    public static BigDecimal max(int bits) {
+        return toDecimal(Integer.MAX_VALUE, bits);
+    }
+
+    private static BigDecimal scaled(BigDecimal value, int bits) {
+        return value.multiply(BigDecimal.valueOf(1L << bits)).setScale(0, RoundingMode.HALF_EVEN);
+    }
+}
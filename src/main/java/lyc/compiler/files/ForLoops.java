@@ -0,0 +1,73 @@
+package lyc.compiler.files;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+
+/**
+ * Los for de la polaca:
+ * <pre>
+ *   inicio i :=  limite i paso FOR fin  cuerpo  i paso NEXT cuerpo
+ * </pre>
+ * Empareja cada NEXT con su FOR y elige cuáles llevan la cuenta de vueltas y la variable
+ * en registros: los que no tienen otro for adentro. En esos la variable se guarda en
+ * memoria solo donde el cuerpo la lee y al salir.
+ */
+public final class ForLoops {
+
+    private final Map<Integer, Integer> startOfNext = new HashMap<>();
+    private final Set<Integer> inRegisters = new HashSet<>();
+    private final Set<Integer> inductionReads = new HashSet<>();
+
+    /** Agrega los for de {@code rpn[from, to)}; los índices son los de la polaca. */
+    public void scan(List<String> rpn, int from, int to) {
+        Stack<Integer> open = new Stack<>();
+        Set<Integer> withInner = new HashSet<>();
+        for (int pc = from; pc < to; pc++) {
+            String tok = rpn.get(pc);
+            if (tok.equals(RpnTokens.FOR)) {
+                if (!open.isEmpty()) {
+                    withInner.add(open.peek());
+                }
+                open.push(pc);
+            } else if (tok.equals(RpnTokens.NEXT)) {
+                int start = open.pop();
+                startOfNext.put(pc, start);
+                if (!withInner.contains(start)) {
+                    inRegisters.add(start);
+                    String variable = rpn.get(start - 2);
+                    for (int p = start + 2; p < pc - 2; p++) {
+                        if (rpn.get(p).equals(variable)) {
+                            inductionReads.add(p);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        startOfNext.clear();
+        inRegisters.clear();
+        inductionReads.clear();
+    }
+
+    /** Posición del FOR que abre el bucle cerrado por el NEXT en {@code nextPc}. */
+    public int startOf(int nextPc) {
+        return startOfNext.get(nextPc);
+    }
+
+    /** ¿El for que empieza en {@code forPc} lleva cuenta y variable en registros? */
+    public boolean isInRegisters(int forPc) {
+        return inRegisters.contains(forPc);
+    }
+
+    /** ¿El token en {@code pc} es una lectura de la variable de un for en registros? */
+    public boolean isInductionRead(int pc) {
+        return inductionReads.contains(pc);
+    }
+
+}
@@ -1,8 +1,11 @@
 package lyc.compiler.files;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class IntermediateCodeGenerator implements FileGenerator {
@@ -13,8 +16,33 @@ public class IntermediateCodeGenerator implements FileGenerator {
     // Lista para almacenar la secuencia de RPN
     private final List<String> rpnCode;
 
+    // Línea y columna (desde 1) del fuente de cada token, en paralelo a rpnCode; 0 si no
+    // se conoce (polaca leída de IR binario). El parser avisa la posición con setPosition.
+    private int[] lines = new int[64];
+    private int[] columns = new int[64];
+    // Sentencia de cada token, que se conoce recién al reducirla (null hasta entonces), y
+    // fin de la sentencia que empieza en cada token: la de afuera saltea las anidadas
+    private StatementKind[] kinds = new StatementKind[64];
+    private int[] statementEnds = new int[64];
+    private int line;
+    private int column;
+
     // El contador de etiquetas y su lógica se eliminan.
 
+    /**
+     * Recibe, en modo --stream, cada tramo de polaca ya cerrado (sin huecos pendientes).
+     * Los índices de la polaca son globales: el tramo empieza en {@code base}.
+     */
+    public interface StatementSink {
+        void accept(int base, List<String> tokens) throws IOException;
+    }
+
+    // Modo --stream: destino de los tramos cerrados, índice global del primer token
+    // que sigue en memoria y cantidad de _PLHDR sin parchear.
+    private StatementSink sink;
+    private int base;
+    private int pendingPlaceholders;
+
     // Constructor privado para el Singleton
     private IntermediateCodeGenerator() {
         this.rpnCode = new ArrayList<>();
@@ -30,6 +58,22 @@ public class IntermediateCodeGenerator implements FileGenerator {
         return instance;
     }
 
+    /** Descarta la polaca y el modo --stream para compilar otro programa en el mismo proceso. */
+    public void clear() {
+        this.rpnCode.clear();
+        this.sink = null;
+        this.base = 0;
+        this.pendingPlaceholders = 0;
+        this.line = 0;
+        this.column = 0;
+    }
+
+    /** Posición del último token que leyó el parser: la toman los tokens que se agreguen. */
+    public void setPosition(int line, int column) {
+        this.line = line;
+        this.column = column;
+    }
+
     /**
      * Agrega un token (operando o operador) a la secuencia de RPN.
      * @param token El token a agregar (ej: "mi_variable", "5", "+").
@@ -37,11 +81,37 @@ public class IntermediateCodeGenerator implements FileGenerator {
      */
     public int addToken(String token) {
         // La posición del token es su índice en la lista (size() antes de añadir)
-        int index = this.rpnCode.size();
+        int index = this.base + this.rpnCode.size();
+        int local = this.rpnCode.size();
+        if (local == this.lines.length) {
+            this.lines = Arrays.copyOf(this.lines, local * 2);
+            this.columns = Arrays.copyOf(this.columns, local * 2);
+            this.kinds = Arrays.copyOf(this.kinds, local * 2);
+            this.statementEnds = Arrays.copyOf(this.statementEnds, local * 2);
+        }
+        this.lines[local] = this.line;
+        this.columns[local] = this.column;
+        this.kinds[local] = null;
+        this.statementEnds[local] = 0;
         this.rpnCode.add(token);
+        if (token.equals(RpnTokens.PLACEHOLDER)) {
+            this.pendingPlaceholders++;
+        }
         return index;
     }
 
+    /**
+     * Saca el último token agregado (el selector de un switch, que se mueve al despacho).
+     * @return El token quitado.
+     */
+    public String removeLastToken() {
+        String token = this.rpnCode.remove(this.rpnCode.size() - 1);
+        if (token.equals(RpnTokens.PLACEHOLDER)) {
+            this.pendingPlaceholders--;
+        }
+        return token;
+    }
+
     // --- Métodos de Backpatching ---
 
     /**
@@ -52,7 +122,7 @@ public class IntermediateCodeGenerator implements FileGenerator {
     public int getInstructionCount() {
         // La siguiente instrucción se agregará al final, por lo tanto, el índice
         // es el tamaño actual de la lista.
-        return this.rpnCode.size();
+        return this.base + this.rpnCode.size();
     }
 
     /**
@@ -64,18 +134,21 @@ public class IntermediateCodeGenerator implements FileGenerator {
     public void backpatch(int indexToPatch, String targetIndex) {
         
         // 1. Verificación básica de índice
-        if (indexToPatch < 0 || indexToPatch >= this.rpnCode.size()) {
+        int local = indexToPatch - this.base;
+        if (local < 0 || local >= this.rpnCode.size()) {
             System.err.println("ADVERTENCIA: Intento de parchear un índice fuera de rango: " + indexToPatch);
             return;
         }
 
         // 2. Opcional: Verificar que estemos modificando el placeholder
-        if (!this.rpnCode.get(indexToPatch).equals("_PLHDR")) {
+        if (!this.rpnCode.get(local).equals("_PLHDR")) {
             System.err.println("ADVERTENCIA: Parcheando un token que no es un placeholder en el índice: " + indexToPatch);
+        } else {
+            this.pendingPlaceholders--;
         }
 
         // 3. Modifica el token. El formato será "POSICIÓN"
-        this.rpnCode.set(indexToPatch, targetIndex);
+        this.rpnCode.set(local, targetIndex);
         System.out.println("PATCHED: Indice " + indexToPatch + " => " + targetIndex);
     }
 
@@ -84,20 +157,132 @@ public class IntermediateCodeGenerator implements FileGenerator {
         return this.rpnCode;
     }
 
+    /**
+     * Reemplaza la polaca por la que devuelve una pasada de optimización.
+     * @param optimized La polaca nueva, con los índices de salto ya recalculados.
+     */
+    public void replaceRpnCode(List<String> optimized) {
+        this.rpnCode.clear();
+        this.rpnCode.addAll(optimized);
+        this.lines = new int[Math.max(64, optimized.size())];
+        this.columns = new int[this.lines.length];
+        this.kinds = new StatementKind[this.lines.length];
+        this.statementEnds = new int[this.lines.length];
+    }
+
+    /**
+     * Como {@link #replaceRpnCode(List)}, conservando las posiciones del fuente.
+     * @param origins índice en la polaca actual de cada token nuevo (-1 si no sale de ninguno)
+     */
+    public void replaceRpnCode(List<String> optimized, int[] origins) {
+        int[] oldLines = this.lines;
+        int[] oldColumns = this.columns;
+        StatementKind[] oldKinds = this.kinds;
+        replaceRpnCode(optimized);
+        for (int i = 0; i < optimized.size(); i++) {
+            if (origins[i] >= 0) {
+                this.lines[i] = oldLines[origins[i]];
+                this.columns[i] = oldColumns[origins[i]];
+                this.kinds[i] = oldKinds[origins[i]];
+            }
+        }
+    }
+
+    /** Pone la posición y la sentencia del token en {@code index} (polaca leída de IR binario). */
+    public void setSource(int index, int line, int column, StatementKind kind) {
+        this.lines[index - this.base] = line;
+        this.columns[index - this.base] = column;
+        this.kinds[index - this.base] = kind;
+    }
+
+    /** Línea del fuente (desde 1) del token en {@code index}, o 0 si no se conoce. */
+    public int getLine(int index) {
+        return this.lines[index - this.base];
+    }
+
+    /** Columna del fuente (desde 1) del token en {@code index}, o 0 si no se conoce. */
+    public int getColumn(int index) {
+        return this.columns[index - this.base];
+    }
+
+    /**
+     * Lo llama el parser al reducir una sentencia que empieza en {@code start}: los tokens
+     * desde ahí que no son de una sentencia anidada quedan como de tipo {@code kind}.
+     */
+    public void markStatement(int start, StatementKind kind) {
+        int first = Math.max(start - this.base, 0);
+        int end = this.rpnCode.size();
+        for (int local = first; local < end; local++) {
+            if (this.statementEnds[local] > local) {
+                local = this.statementEnds[local] - 1;
+            } else if (this.kinds[local] == null) {
+                this.kinds[local] = kind;
+            }
+        }
+        if (first < end) {
+            this.statementEnds[first] = end;
+        }
+    }
+
+    /** Sentencia que generó el token en {@code index}, o null si no se conoce. */
+    public StatementKind getKind(int index) {
+        return this.kinds[index - this.base];
+    }
+
+
+    /**
+     * Modo --stream: a partir de ahora cada sentencia que termina sin huecos pendientes
+     * se entrega a {@code sink} y se descarta de memoria. Así la memoria depende del
+     * anidamiento de if/while abiertos y no del largo del programa.
+     */
+    public void streamTo(StatementSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Lo llama el parser al reducir cada sentencia. Dentro de un if/while abierto hay
+     * saltos sin parchear, así que el tramo recién se entrega al cerrar el de más afuera.
+     */
+    public void endOfStatement() {
+        if (this.sink == null || this.pendingPlaceholders > 0 || this.rpnCode.isEmpty()) {
+            return;
+        }
+        try {
+            this.sink.accept(this.base, Collections.unmodifiableList(this.rpnCode));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.base += this.rpnCode.size();
+        this.rpnCode.clear();
+    }
 
     @Override
-    public void generate(FileWriter fileWriter) throws IOException {
+    public void generate(Writer fileWriter) throws IOException {
+        writeHeader(fileWriter);
+        writeTokens(fileWriter, base, rpnCode);
+        writeFooter(fileWriter);
+    }
 
+    public static void writeHeader(Writer writer) throws IOException {
         // Escribe el título o cabecera del código intermedio
-        fileWriter.write("Código Intermedio (Notación Polaca Inversa con Índices)\n");
-        fileWriter.write("------------------------------------------------------\n");
+        writer.write("Código Intermedio (Notación Polaca Inversa con Índices)\n");
+        writer.write("------------------------------------------------------\n");
+    }
 
-        // Itera sobre la lista de tokens RPN acumulados y los escribe en el archivo
-        for (int i = 0; i < rpnCode.size(); i++) {
-            // Incluimos el índice al inicio de cada línea para mejor visibilidad
-            fileWriter.write( String.format("[%d] %s%n", i, rpnCode.get(i)) );
+    public static void writeTokens(Writer writer, int base, List<String> tokens) throws IOException {
+        // Incluimos el índice al inicio de cada línea para mejor visibilidad
+        // Sin String.format: se llama una vez por token
+        String newline = System.lineSeparator();
+        for (int i = 0; i < tokens.size(); i++) {
+            writer.write('[');
+            writer.write(Integer.toString(base + i));
+            writer.write("] ");
+            writer.write(tokens.get(i));
+            writer.write(newline);
         }
+    }
 
-        fileWriter.write("------------------------------------------------------\n");
+    public static void writeFooter(Writer writer) throws IOException {
+        writer.write("------------------------------------------------------\n");
     }
 }
\ No newline at end of file
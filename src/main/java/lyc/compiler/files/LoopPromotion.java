@@ -0,0 +1,176 @@
+package lyc.compiler.files;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+import java.util.function.UnaryOperator;
+
+import lyc.compiler.constants.Constants;
+
+/**
+ * Variables que viven en la pila x87 durante un while (--promote):
+ * <pre>
+ *   W: cond B<salida> salida  cuerpo  BI W  salida
+ * </pre>
+ * En cada while sin otro bucle ni switch adentro se eligen las variables numéricas más
+ * usadas (hasta {@link Constants#PROMOTED_VARIABLES}). Se cargan antes de la condición,
+ * el cuerpo las lee y escribe como {@code ST(i)} y se guardan en memoria en un bloque
+ * propio al que van los saltos de salida; la vuelta salta después de las cargas.
+ *
+ * <p>Los resultados no cambian: lo que se asigna a una variable siempre sale de memoria
+ * (otra variable, una constante o el temporal de una operación), así que ya está
+ * redondeado a real de 4 bytes igual que si se guardara con FSTP.</p>
+ */
+public final class LoopPromotion {
+
+    /** Un while con variables promovidas; {@code variables.get(i)} está en ST(i) al entrar. */
+    private static final class Loop {
+        final int start;
+        final int backEdge;
+        final List<String> variables;
+
+        Loop(int start, int backEdge, List<String> variables) {
+            this.start = start;
+            this.backEdge = backEdge;
+            this.variables = variables;
+        }
+    }
+
+    private final TreeMap<Integer, Loop> loops = new TreeMap<>();
+    private final Map<Integer, Loop> exits = new HashMap<>();
+
+    /**
+     * Agrega los while de {@code rpn[from, to)}. {@code candidate} dice si el token en una
+     * posición es una variable que se puede promover y {@code label} da su etiqueta.
+     */
+    public void scan(List<String> rpn, int from, int to, Set<Integer> skip,
+                     IntPredicate candidate, UnaryOperator<String> label) {
+        // Bucles (inicio, BI de vuelta) en orden de cierre, y posiciones que los anidan
+        List<int[]> found = new ArrayList<>();
+        Set<Integer> barriers = new HashSet<>();
+        for (int pc = from; pc < to; pc++) {
+            String tok = rpn.get(pc);
+            if (tok.equals(RpnTokens.SWITCH)) {
+                barriers.add(pc);
+                pc = SwitchDispatch.endOf(rpn, pc) - 1;
+            } else if (tok.equals(RpnTokens.FOR) || tok.equals(RpnTokens.NEXT)) {
+                barriers.add(pc);
+            } else if (RpnTokens.isBranch(tok)) {
+                int target = Integer.parseInt(rpn.get(pc + 1));
+                if (tok.equals("BI") && target < pc && target >= from) {
+                    found.add(new int[] {target, pc});
+                }
+                pc++;
+            }
+        }
+
+        for (int[] loop : found) {
+            int start = loop[0];
+            int backEdge = loop[1];
+            if (skip.contains(start) || containsBarrier(found, barriers, start, backEdge)) {
+                continue;
+            }
+            List<Integer> loopExits = new ArrayList<>();
+            Map<String, Integer> uses = new LinkedHashMap<>();
+            boolean structured = true;
+            for (int pc = start; pc < backEdge; pc++) {
+                String tok = rpn.get(pc);
+                if (RpnTokens.isBranch(tok)) {
+                    int target = Integer.parseInt(rpn.get(pc + 1));
+                    if (target == backEdge + 2) {
+                        loopExits.add(pc);
+                    } else if (target <= start || target > backEdge) {
+                        structured = false;
+                    }
+                    pc++;
+                } else if (candidate.test(pc)) {
+                    uses.merge(label.apply(tok), 1, Integer::sum);
+                }
+            }
+            if (!structured || loopExits.isEmpty()) {
+                continue;
+            }
+
+            // Una variable usada una sola vez no paga la carga y el guardado
+            List<String> variables = new ArrayList<>();
+            uses.entrySet().stream()
+                .filter(use -> use.getValue() > 1)
+                .sorted((a, b) -> b.getValue() - a.getValue())
+                .limit(Constants.PROMOTED_VARIABLES)
+                .forEach(use -> variables.add(use.getKey()));
+            if (variables.isEmpty()) {
+                continue;
+            }
+            Loop promoted = new Loop(start, backEdge, variables);
+            loops.put(start, promoted);
+            for (int exit : loopExits) {
+                exits.put(exit, promoted);
+            }
+        }
+    }
+
+    /** ¿Hay otro bucle, un for o un switch entre {@code start} y {@code backEdge}? */
+    private static boolean containsBarrier(List<int[]> found, Set<Integer> barriers, int start, int backEdge) {
+        for (int[] other : found) {
+            if (other[1] != backEdge && other[0] >= start && other[1] < backEdge) {
+                return true;
+            }
+        }
+        for (int pc : barriers) {
+            if (pc > start && pc < backEdge) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void clear() {
+        loops.clear();
+        exits.clear();
+    }
+
+    /** Variables que se cargan antes de la condición del while que empieza en {@code pc}, o null. */
+    public List<String> loadedAt(int pc) {
+        Loop loop = loops.get(pc);
+        return loop == null ? null : loop.variables;
+    }
+
+    /** Variables que se guardan después de la vuelta en {@code pc}, o null si no es una. */
+    public List<String> storedAfter(int pc) {
+        Map.Entry<Integer, Loop> entry = loops.floorEntry(pc);
+        if (entry == null || entry.getValue().backEdge != pc) {
+            return null;
+        }
+        return entry.getValue().variables;
+    }
+
+    /**
+     * Destino en el código final del salto en {@code pc} hacia {@code dest}: las salidas
+     * van al bloque que guarda las variables y la vuelta, a después de las cargas.
+     */
+    public String jumpTarget(int pc, String dest) {
+        Loop exit = exits.get(pc);
+        if (exit != null) {
+            return "X" + exit.start;
+        }
+        if (storedAfter(pc) != null) {
+            return "P" + dest;
+        }
+        return dest;
+    }
+
+    /** Lugar en la pila x87 (sin contar lo que se cargó encima) de {@code label} en {@code pc}, o -1. */
+    public int slotOf(int pc, String label) {
+        Map.Entry<Integer, Loop> entry = loops.floorEntry(pc);
+        if (entry == null || pc > entry.getValue().backEdge) {
+            return -1;
+        }
+        return entry.getValue().variables.indexOf(label);
+    }
+}
@@ -0,0 +1,78 @@
+package lyc.compiler.files;
+
+import java.util.regex.Pattern;
+
+/**
+ * Clasificación de los tokens de la polaca inversa generada por
+ * {@link IntermediateCodeGenerator}. Compartida por todos los backends.
+ */
+public final class RpnTokens {
+
+    public static final String PLACEHOLDER = "_PLHDR";
+    /** Despacho de un switch: {@code sel SWITCH v1 BCASE t1 ... vn BCASE tn BI default}. */
+    public static final String SWITCH = "SWITCH";
+    public static final String CASE_BRANCH = "BCASE";
+    /** for: {@code limite i paso FOR fin ... i paso NEXT cuerpo}. */
+    public static final String FOR = "FOR";
+    public static final String NEXT = "NEXT";
+    /**
+     * write con varios argumentos: {@code a WRITEP "txt" WRITEP b WRITE}. WRITEP escribe su
+     * operando sin terminar la línea; el WRITE del último argumento la termina.
+     */
+    public static final String WRITE = "WRITE";
+    public static final String WRITE_PART = "WRITEP";
+
+    // Compiladas una vez (String.matches compila la expresión en cada llamada y los
+    // backends preguntan por cada token). Enteros: 123, -123; floats: 1.23, 99., .99
+    private static final Pattern NUMBER = Pattern.compile("-?(\\d+\\.?\\d*|\\.\\d+)");
+    private static final Pattern INTEGER = Pattern.compile("-?\\d+");
+
+    private RpnTokens() {}
+
+    public static boolean isOperator(String t) {
+        return isArithmeticOperator(t) || t.equals(":=") || t.equals("CMP") || isBranch(t) || isWrite(t) || t.equals("READ")
+            || t.equals(SWITCH);
+    }
+
+    public static boolean isArithmeticOperator(String t) {
+        return t.equals("+") || t.equals("-") || t.equals("*") || t.equals("/");
+    }
+
+    /** WRITE o WRITEP: los dos consumen un valor y lo escriben. */
+    public static boolean isWrite(String t) {
+        return t.equals(WRITE) || t.equals(WRITE_PART);
+    }
+
+    public static boolean isControlToken(String t) { return t.equals(PLACEHOLDER); }
+
+    /** Saltos: el token siguiente es el índice destino. */
+    public static boolean isBranch(String t) {
+        return t.equals("BLE") || t.equals("BGE") || t.equals("BLT") ||
+                t.equals("BGT") || t.equals("BEQ") || t.equals("BNE") || t.equals("BI") || t.equals(CASE_BRANCH) ||
+                t.equals(FOR) || t.equals(NEXT);
+    }
+
+    /** Saltos que dependen del último CMP (los de if/while). */
+    public static boolean isConditionalBranch(String t) {
+        return isBranch(t) && !t.equals("BI") && !t.equals(CASE_BRANCH) && !t.equals(FOR) && !t.equals(NEXT);
+    }
+
+    public static boolean isStringLiteral(String s) { return s != null && s.startsWith("\"") && s.endsWith("\""); }
+
+    public static boolean isNumberLiteral(String s) {
+        return s != null && NUMBER.matcher(s).matches();
+    }
+
+    /** Constante entera (sin punto decimal). */
+    public static boolean isIntegerLiteral(String s) {
+        return s != null && INTEGER.matcher(s).matches();
+    }
+
+    /** Contenido de un literal de texto, sin las comillas. */
+    public static String stripQuotes(String raw) {
+        if (raw.startsWith("\"") && raw.endsWith("\"") && raw.length() >= 2) {
+            return raw.substring(1, raw.length() - 1);
+        }
+        return raw;
+    }
+}
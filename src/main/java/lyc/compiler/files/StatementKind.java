@@ -0,0 +1,26 @@
+package lyc.compiler.files;
+
+/**
+ * Sentencia del fuente que generó cada token de la polaca. Las sentencias anidadas se
+ * marcan primero, así que a un if, while, switch o for le quedan su condición (o
+ * selector) y sus saltos.
+ */
+public enum StatementKind {
+    ASSIGNMENT("asignación"),
+    READ("read"),
+    WRITE("write"),
+    IF("if"),
+    WHILE("while"),
+    SWITCH("switch"),
+    FOR("for");
+
+    private final String description;
+
+    StatementKind(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
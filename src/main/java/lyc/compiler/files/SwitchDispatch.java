@@ -0,0 +1,116 @@
+package lyc.compiler.files;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import lyc.compiler.constants.Constants;
+
+/**
+ * Despacho de un switch tal como queda en la polaca:
+ * <pre>
+ *   sel SWITCH  v1 BCASE t1  ...  vn BCASE tn  BI default
+ * </pre>
+ * Los backends lo traducen entero de una vez: con una tabla de saltos si los casos son
+ * densos, o con un árbol de comparaciones (búsqueda binaria) si no.
+ */
+public final class SwitchDispatch {
+
+    /** Un {@code case}: valor y posición de la polaca donde empieza su cuerpo. */
+    public static final class Case {
+        private final long value;
+        private final int target;
+
+        Case(long value, int target) {
+            this.value = value;
+            this.target = target;
+        }
+
+        public long getValue() {
+            return value;
+        }
+
+        public int getTarget() {
+            return target;
+        }
+    }
+
+    private final List<Case> cases;
+    private final int defaultTarget;
+    private final int end;
+
+    private SwitchDispatch(List<Case> cases, int defaultTarget, int end) {
+        this.cases = cases;
+        this.defaultTarget = defaultTarget;
+        this.end = end;
+    }
+
+    /** Lee el despacho cuyo token SWITCH está en {@code pc}. */
+    public static SwitchDispatch read(List<String> rpn, int pc) {
+        List<Case> cases = new ArrayList<>();
+        int p = pc + 1;
+        while (rpn.get(p + 1).equals(RpnTokens.CASE_BRANCH)) {
+            cases.add(new Case(Long.parseLong(rpn.get(p)), Integer.parseInt(rpn.get(p + 2))));
+            p += 3;
+        }
+        if (!rpn.get(p).equals("BI")) {
+            throw new IllegalStateException("Despacho de switch sin salto por defecto en pc=" + p);
+        }
+        cases.sort((a, b) -> Long.compare(a.value, b.value));
+        return new SwitchDispatch(Collections.unmodifiableList(cases), Integer.parseInt(rpn.get(p + 1)), p + 2);
+    }
+
+    /** Posición que sigue al despacho (después del BI por defecto). */
+    public static int endOf(List<String> rpn, int pc) {
+        int p = pc + 1;
+        while (rpn.get(p + 1).equals(RpnTokens.CASE_BRANCH)) {
+            p += 3;
+        }
+        return p + 2;
+    }
+
+    /** ¿El token en {@code p} es el valor de un case (va seguido de BCASE)? */
+    public static boolean isCaseValue(List<String> rpn, int p) {
+        return p + 1 < rpn.size() && rpn.get(p + 1).equals(RpnTokens.CASE_BRANCH);
+    }
+
+    /** Casos ordenados por valor. */
+    public List<Case> getCases() {
+        return cases;
+    }
+
+    public int getDefaultTarget() {
+        return defaultTarget;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    public long getMin() {
+        return cases.get(0).value;
+    }
+
+    /** Cantidad de valores entre el menor y el mayor caso, inclusive. */
+    public long getSpan() {
+        return cases.get(cases.size() - 1).value - getMin() + 1;
+    }
+
+    /** ¿Conviene una tabla de saltos indexada por {@code sel - min}? */
+    public boolean isDense() {
+        return cases.size() >= Constants.SWITCH_TABLE_MIN_CASES
+            && getSpan() <= Constants.SWITCH_TABLE_MAX_SPAN
+            && getSpan() <= (long) cases.size() * Constants.SWITCH_TABLE_DENSITY;
+    }
+
+    /** Destino de cada valor del rango [min, min + span): el del caso, o el por defecto. */
+    public int[] tableTargets() {
+        int[] targets = new int[(int) getSpan()];
+        Arrays.fill(targets, defaultTarget);
+        for (Case c : cases) {
+            targets[(int) (c.value - getMin())] = c.target;
+        }
+        return targets;
+    }
+}
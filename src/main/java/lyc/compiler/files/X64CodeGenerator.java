@@ -0,0 +1,926 @@
+package lyc.compiler.files;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+
+import lyc.compiler.model.CompilerOptions;
+import lyc.compiler.model.CompilerOptions.OutputMode;
+
+/**
+ * Backend x86-64 para Linux: assembler GNU (sintaxis Intel) que se arma con
+ * {@code as final.s -o final.o && ld -static final.o -o final}.
+ * Float usa SSE2 escalar (double), Int registros de propósito general (64 bits)
+ * y la E/S va por las syscalls write/read, con buffer propio.
+ */
+public class X64CodeGenerator implements Backend {
+
+    private static final String INT = "Int";
+    private static final String FLOAT = "Float";
+    private static final String STRING = "String";
+
+    private static final int OUT_BUFFER_SIZE = 4096;
+    private static final int IN_BUFFER_SIZE = 4096;
+    private static final int STRING_BUFFER_SIZE = 256;
+
+    private static X64CodeGenerator instance;
+
+    private int tempCounter = 0;
+    // etiqueta -> tipo (variables y temporales, van a .data)
+    private final Map<String, String> variables = new LinkedHashMap<>();
+    // etiqueta -> literal numérico (van a .rodata)
+    private final Map<String, String> constants = new LinkedHashMap<>();
+    // literal -> etiqueta
+    private final Map<String, String> stringLiterals = new LinkedHashMap<>();
+    private final Set<Integer> jumpTargets = new LinkedHashSet<>();
+    private final Set<String> readBuffers = new LinkedHashSet<>();
+    private final StringBuilder code = new StringBuilder();
+    // Tablas de saltos de los switch densos (van a .rodata)
+    private final StringBuilder switchTables = new StringBuilder();
+    // for: los más internos llevan la cuenta en rbx y la variable en r12
+    private final ForLoops forLoops = new ForLoops();
+    private final List<String> forCounters = new ArrayList<>();
+    // El último CMP fue entero (saltos con signo) o SSE (saltos sin signo)
+    private boolean lastCompareSigned;
+
+    private X64CodeGenerator() {}
+
+    public static X64CodeGenerator getInstance() {
+        if (instance == null) {
+            instance = new X64CodeGenerator();
+        }
+        return instance;
+    }
+
+    @Override
+    public String getOutputFileName() {
+        return "final.s";
+    }
+
+    @Override
+    public void generate(Writer writer) throws IOException {
+        resetState();
+        List<String> rpn = IntermediateCodeGenerator.getInstance().getRpnCode();
+
+        performPreScan(rpn);
+        forLoops.scan(rpn, 0, rpn.size());
+        emitCode(rpn);
+
+        writer.write("# Generado por lyc-compiler (x86-64 Linux)\n");
+        writer.write(".intel_syntax noprefix\n\n");
+
+        writer.write(".section .data\n");
+        for (Map.Entry<String, String> var : variables.entrySet()) {
+            if (FLOAT.equals(var.getValue())) {
+                writer.write(String.format("%s: .double 0.0\n", var.getKey()));
+            } else {
+                writer.write(String.format("%s: .quad 0\n", var.getKey()));
+            }
+        }
+        for (String counter : forCounters) {
+            writer.write(String.format("%s: .quad 0\n", counter));
+        }
+        writer.write("_outlen: .quad 0\n");
+        writer.write("_inpos: .quad 0\n");
+        writer.write("_inlen: .quad 0\n");
+
+        writer.write("\n.section .rodata\n");
+        for (Map.Entry<String, String> cte : constants.entrySet()) {
+            if (RpnTokens.isIntegerLiteral(cte.getValue())) {
+                writer.write(String.format("%s: .quad %s\n", cte.getKey(), cte.getValue()));
+            } else {
+                writer.write(String.format("%s: .double %s\n", cte.getKey(), normalizeFloat(cte.getValue())));
+            }
+        }
+        for (Map.Entry<String, String> str : stringLiterals.entrySet()) {
+            writer.write(String.format("%s: .asciz \"%s\"\n", str.getValue(), escape(RpnTokens.stripQuotes(str.getKey()))));
+        }
+        writer.write(switchTables.toString());
+        writer.write("_nl: .byte 10\n");
+        writer.write("_minus: .byte '-'\n");
+        writer.write("_dot: .byte '.'\n");
+        writer.write("_zero: .byte '0'\n");
+        writer.write("_f_10: .double 10.0\n");
+        writer.write("_f_10000: .double 10000.0\n");
+        writer.write("_f_1e18: .double 1.0e18\n");
+
+        writer.write("\n.section .bss\n");
+        writer.write(String.format(".lcomm _outbuf, %d\n", OUT_BUFFER_SIZE));
+        writer.write(String.format(".lcomm _inbuf, %d\n", IN_BUFFER_SIZE));
+        for (String buffer : readBuffers) {
+            writer.write(String.format(".lcomm %s, %d\n", buffer, STRING_BUFFER_SIZE));
+        }
+
+        writer.write("\n.section .text\n");
+        writer.write(".globl _start\n");
+        writer.write("_start:\n");
+        writer.write(code.toString());
+        writer.write("    call rt_flush\n");
+        writer.write("    mov eax, 60\n");
+        writer.write("    xor edi, edi\n");
+        writer.write("    syscall\n");
+        writer.write(RUNTIME);
+    }
+
+    private void resetState() {
+        tempCounter = 0;
+        variables.clear();
+        constants.clear();
+        stringLiterals.clear();
+        jumpTargets.clear();
+        readBuffers.clear();
+        code.setLength(0);
+        switchTables.setLength(0);
+        forLoops.clear();
+        forCounters.clear();
+        lastCompareSigned = false;
+    }
+
+    private void performPreScan(List<String> rpn) {
+        SymbolTableGenerator symbolTable = SymbolTableGenerator.getInstance();
+        for (int i = 0; i < rpn.size(); i++) {
+            String tok = rpn.get(i);
+            if (RpnTokens.isBranch(tok)) {
+                if (i + 1 < rpn.size() && RpnTokens.isIntegerLiteral(rpn.get(i + 1)) && !rpn.get(i + 1).startsWith("-")) {
+                    jumpTargets.add(Integer.parseInt(rpn.get(i + 1)));
+                }
+                i++;
+            } else if (tok.equals(RpnTokens.SWITCH)) {
+                // Los valores de los casos van como inmediatos
+                SwitchDispatch dispatch = SwitchDispatch.read(rpn, i);
+                for (SwitchDispatch.Case c : dispatch.getCases()) {
+                    jumpTargets.add(c.getTarget());
+                }
+                jumpTargets.add(dispatch.getDefaultTarget());
+                i = dispatch.getEnd() - 1;
+            } else if (RpnTokens.isStringLiteral(tok)) {
+                stringLiterals.putIfAbsent(tok, "_STR_" + stringLiterals.size());
+            } else if (RpnTokens.isNumberLiteral(tok)) {
+                constants.putIfAbsent(label(tok), tok);
+            } else if (!RpnTokens.isOperator(tok) && !RpnTokens.isControlToken(tok)) {
+                // Variables no declaradas (ej: las auxiliares de triangleAreaMaximum) son Float
+                String type = symbolTable.getVariableType(tok);
+                variables.putIfAbsent(label(tok), type == null ? FLOAT : type);
+            }
+        }
+    }
+
+    private void emitCode(List<String> rpn) {
+        Stack<String> evalStack = new Stack<>();
+
+        for (int pc = 0; pc < rpn.size(); pc++) {
+            if (jumpTargets.contains(pc)) {
+                emit("L%d:", pc);
+            }
+
+            String token = rpn.get(pc);
+
+            if (RpnTokens.isWrite(token)) {
+                if (evalStack.isEmpty()) throw new RuntimeException("Error: " + token + " sin operando");
+                String operand = evalStack.pop();
+                if (RpnTokens.isStringLiteral(operand)) {
+                    String text = RpnTokens.stripQuotes(operand);
+                    emit("    lea rsi, [rip + %s]", stringLiterals.get(operand));
+                    emit("    mov edx, %d", text.getBytes(StandardCharsets.UTF_8).length);
+                    emit("    call rt_out_bytes");
+                } else if (STRING.equals(typeOf(operand))) {
+                    emit("    mov rsi, qword ptr [rip + %s]", operand);
+                    emit("    call rt_out_cstr");
+                } else if (INT.equals(typeOf(operand))) {
+                    emit("    mov rax, qword ptr [rip + %s]", operand);
+                    emit("    call rt_print_int");
+                } else {
+                    emit("    movsd xmm0, qword ptr [rip + %s]", operand);
+                    emit("    call rt_print_float");
+                }
+                // Los argumentos de un write van todos a la misma línea, que se vuelca al final
+                if (token.equals(RpnTokens.WRITE_PART)) {
+                    continue;
+                }
+                emit("    call rt_newline");
+                if (CompilerOptions.getInstance().getOutputMode() == OutputMode.UNBUFFERED) {
+                    emit("    call rt_flush");
+                }
+                emit("");
+                continue;
+            }
+
+            if (token.equals("READ")) {
+                if (evalStack.isEmpty()) throw new RuntimeException("Error: READ sin operando");
+                String operand = evalStack.pop();
+                String type = typeOf(operand);
+                if (STRING.equals(type)) {
+                    String buffer = operand + "_BUF";
+                    readBuffers.add(buffer);
+                    emit("    lea rdi, [rip + %s]", buffer);
+                    emit("    call rt_read_str");
+                    emit("    mov qword ptr [rip + %s], rdi", operand);
+                } else if (INT.equals(type)) {
+                    emit("    call rt_read_int");
+                    emit("    mov qword ptr [rip + %s], rax", operand);
+                } else {
+                    emit("    call rt_read_float");
+                    emit("    movsd qword ptr [rip + %s], xmm0", operand);
+                }
+                emit("");
+                continue;
+            }
+
+            if (RpnTokens.isArithmeticOperator(token)) {
+                // Mismo criterio que el backend DOS para el menos unario
+                if (token.equals("-") && evalStack.size() < 2) {
+                    String op1 = evalStack.pop();
+                    String aux = newTemp(typeOf(op1));
+                    if (INT.equals(typeOf(op1))) {
+                        emit("    mov rax, qword ptr [rip + %s]", op1);
+                        emit("    neg rax");
+                        emit("    mov qword ptr [rip + %s], rax", aux);
+                    } else {
+                        loadFloat("xmm1", op1);
+                        emit("    xorpd xmm0, xmm0");
+                        emit("    subsd xmm0, xmm1");
+                        emit("    movsd qword ptr [rip + %s], xmm0", aux);
+                    }
+                    emit("");
+                    evalStack.push(aux);
+                    continue;
+                }
+
+                if (evalStack.size() < 2) {
+                    throw new RuntimeException("RPN inválida: operador " + token + " sin suficientes operandos en pc=" + pc);
+                }
+                String op2 = evalStack.pop();
+                String op1 = evalStack.pop();
+
+                if (INT.equals(typeOf(op1)) && INT.equals(typeOf(op2))) {
+                    String aux = newTemp(INT);
+                    emit("    mov rax, qword ptr [rip + %s]", op1);
+                    switch (token) {
+                        case "+": emit("    add rax, qword ptr [rip + %s]", op2); break;
+                        case "-": emit("    sub rax, qword ptr [rip + %s]", op2); break;
+                        case "*": emit("    imul rax, qword ptr [rip + %s]", op2); break;
+                        case "/":
+                            emit("    cqo");
+                            emit("    idiv qword ptr [rip + %s]", op2);
+                            break;
+                    }
+                    emit("    mov qword ptr [rip + %s], rax", aux);
+                    emit("");
+                    evalStack.push(aux);
+                } else {
+                    String aux = newTemp(FLOAT);
+                    loadFloat("xmm0", op1);
+                    loadFloat("xmm1", op2);
+                    switch (token) {
+                        case "+": emit("    addsd xmm0, xmm1"); break;
+                        case "-": emit("    subsd xmm0, xmm1"); break;
+                        case "*": emit("    mulsd xmm0, xmm1"); break;
+                        case "/": emit("    divsd xmm0, xmm1"); break;
+                    }
+                    emit("    movsd qword ptr [rip + %s], xmm0", aux);
+                    emit("");
+                    evalStack.push(aux);
+                }
+                continue;
+            }
+
+            if (token.equals(":=")) {
+                if (evalStack.size() < 2) {
+                    throw new RuntimeException("RPN inválida: ':=' sin suficientes operandos en pc=" + pc);
+                }
+                String dst = evalStack.pop();
+                String src = evalStack.pop();
+                String dstType = typeOf(dst);
+
+                if (RpnTokens.isStringLiteral(src)) {
+                    emit("    lea rax, [rip + %s]", stringLiterals.get(src));
+                    emit("    mov qword ptr [rip + %s], rax", dst);
+                } else if (INT.equals(dstType) || STRING.equals(dstType)) {
+                    if (FLOAT.equals(typeOf(src))) {
+                        emit("    cvttsd2si rax, qword ptr [rip + %s]", src);
+                    } else {
+                        emit("    mov rax, qword ptr [rip + %s]", src);
+                    }
+                    emit("    mov qword ptr [rip + %s], rax", dst);
+                } else {
+                    loadFloat("xmm0", src);
+                    emit("    movsd qword ptr [rip + %s], xmm0", dst);
+                }
+                emit("");
+                continue;
+            }
+
+            if (token.equals("CMP")) {
+                if (evalStack.size() < 2) throw new RuntimeException("CMP sin operandos");
+                String op2 = evalStack.pop();
+                String op1 = evalStack.pop();
+                if (INT.equals(typeOf(op1)) && INT.equals(typeOf(op2))) {
+                    emit("    mov rax, qword ptr [rip + %s]", op1);
+                    emit("    cmp rax, qword ptr [rip + %s]", op2);
+                    lastCompareSigned = true;
+                } else {
+                    loadFloat("xmm0", op1);
+                    loadFloat("xmm1", op2);
+                    emit("    ucomisd xmm0, xmm1");
+                    lastCompareSigned = false;
+                }
+                continue;
+            }
+
+            if (token.equals(RpnTokens.SWITCH)) {
+                if (evalStack.isEmpty()) throw new RuntimeException("Error: SWITCH sin selector");
+                pc = emitSwitch(rpn, pc, evalStack.pop()) - 1;
+                continue;
+            }
+
+            if (token.equals(RpnTokens.FOR)) {
+                if (evalStack.size() < 3) throw new RuntimeException("RPN inválida: FOR sin suficientes operandos en pc=" + pc);
+                evalStack.pop();
+                String variable = evalStack.pop();
+                emitForStart(rpn, pc, variable, evalStack.pop());
+                pc++;
+                continue;
+            }
+
+            if (token.equals(RpnTokens.NEXT)) {
+                if (evalStack.size() < 2) throw new RuntimeException("RPN inválida: NEXT sin suficientes operandos en pc=" + pc);
+                evalStack.pop();
+                emitForNext(rpn, pc, evalStack.pop());
+                pc++;
+                continue;
+            }
+
+            if (RpnTokens.isBranch(token)) {
+                if (pc + 1 < rpn.size()) {
+                    emit("    %s L%s", mapBranch(token), rpn.get(pc + 1));
+                    emit("");
+                    pc++;
+                    continue;
+                }
+            }
+
+            if (RpnTokens.isStringLiteral(token)) {
+                evalStack.push(token);
+            } else {
+                if (forLoops.isInductionRead(pc)) {
+                    emit("    mov qword ptr [rip + %s], r12", label(token));
+                }
+                evalStack.push(label(token));
+            }
+        }
+
+        if (jumpTargets.contains(rpn.size())) {
+            emit("L%d:", rpn.size());
+        }
+    }
+
+    /**
+     * Despacho de un switch: con casos densos, salto indirecto por una tabla de
+     * direcciones; si no, comparaciones en forma de árbol binario. Devuelve la posición
+     * que sigue al despacho.
+     */
+    private int emitSwitch(List<String> rpn, int pc, String selector) {
+        SwitchDispatch dispatch = SwitchDispatch.read(rpn, pc);
+        String otherwise = "L" + dispatch.getDefaultTarget();
+        emit("    mov rax, qword ptr [rip + %s]", selector);
+        if (dispatch.isDense()) {
+            String table = "_SWT" + pc;
+            if (dispatch.getMin() != 0) {
+                emit("    sub rax, %d", dispatch.getMin());
+            }
+            emit("    cmp rax, %d", dispatch.getSpan() - 1);
+            emit("    ja %s", otherwise);
+            emit("    lea rdx, [rip + %s]", table);
+            emit("    jmp qword ptr [rdx + rax*8]");
+            int[] targets = dispatch.tableTargets();
+            switchTables.append(table).append(":");
+            for (int i = 0; i < targets.length; i++) {
+                switchTables.append(i % 8 == 0 ? "\n    .quad " : ", ").append('L').append(targets[i]);
+            }
+            switchTables.append('\n');
+        } else {
+            emitCaseSearch(dispatch.getCases(), 0, dispatch.getCases().size(), "LSW" + pc + "_", otherwise);
+        }
+        emit("");
+        return dispatch.getEnd();
+    }
+
+    /**
+     * Inicio de un for: calcula una sola vez la cantidad de vueltas, (limite - inicio) / paso + 1,
+     * y si no es positiva saltea el cuerpo.
+     */
+    private void emitForStart(List<String> rpn, int pc, String variable, String limit) {
+        long step = Long.parseLong(rpn.get(pc - 1));
+        emit("    mov rax, qword ptr [rip + %s]", limit);
+        emit("    mov rdx, qword ptr [rip + %s]", variable);
+        if (step > 0) {
+            emit("    sub rax, rdx");
+        } else {
+            emit("    sub rdx, rax");
+            emit("    mov rax, rdx");
+        }
+        emit("    jl L%s", rpn.get(pc + 1));
+        long magnitude = Math.abs(step);
+        if (Long.bitCount(magnitude) == 1) {
+            if (magnitude > 1) {
+                emit("    shr rax, %d", Long.numberOfTrailingZeros(magnitude));
+            }
+        } else {
+            emit("    xor edx, edx");
+            emit("    mov r8, %d", magnitude);
+            emit("    div r8");
+        }
+        emit("    inc rax");
+        if (forLoops.isInRegisters(pc)) {
+            emit("    mov rbx, rax");
+            emit("    mov r12, qword ptr [rip + %s]", variable);
+        } else {
+            String counter = "_FORC" + pc;
+            forCounters.add(counter);
+            emit("    mov qword ptr [rip + %s], rax", counter);
+        }
+        emit("");
+    }
+
+    /** Fin de una vuelta del for: avanza la variable y descuenta una vuelta. */
+    private void emitForNext(List<String> rpn, int pc, String variable) {
+        int start = forLoops.startOf(pc);
+        String step = rpn.get(pc - 1);
+        if (forLoops.isInRegisters(start)) {
+            emit("    add r12, %s", step);
+            emit("    dec rbx");
+            emit("    jnz L%s", rpn.get(pc + 1));
+            emit("    mov qword ptr [rip + %s], r12", variable);
+        } else {
+            emit("    add qword ptr [rip + %s], %s", variable, step);
+            emit("    dec qword ptr [rip + _FORC%d]", start);
+            emit("    jnz L%s", rpn.get(pc + 1));
+        }
+        emit("");
+    }
+
+    private void emitCaseSearch(List<SwitchDispatch.Case> cases, int from, int to, String prefix, String otherwise) {
+        if (to - from <= 3) {
+            for (int i = from; i < to; i++) {
+                emit("    cmp rax, %d", cases.get(i).getValue());
+                emit("    je L%d", cases.get(i).getTarget());
+            }
+            emit("    jmp %s", otherwise);
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        String upper = prefix + middle;
+        emit("    cmp rax, %d", cases.get(middle).getValue());
+        emit("    je L%d", cases.get(middle).getTarget());
+        emit("    jg %s", upper);
+        emitCaseSearch(cases, from, middle, prefix, otherwise);
+        emit("%s:", upper);
+        emitCaseSearch(cases, middle + 1, to, prefix, otherwise);
+    }
+
+    private void loadFloat(String register, String operand) {
+        if (INT.equals(typeOf(operand))) {
+            emit("    cvtsi2sd %s, qword ptr [rip + %s]", register, operand);
+        } else {
+            emit("    movsd %s, qword ptr [rip + %s]", register, operand);
+        }
+    }
+
+    private String typeOf(String operand) {
+        if (RpnTokens.isStringLiteral(operand)) return STRING;
+        if (constants.containsKey(operand)) {
+            return RpnTokens.isIntegerLiteral(constants.get(operand)) ? INT : FLOAT;
+        }
+        String type = variables.get(operand);
+        return type == null ? FLOAT : type;
+    }
+
+    private String newTemp(String type) {
+        tempCounter++;
+        String name = "_T" + tempCounter;
+        variables.put(name, type);
+        return name;
+    }
+
+    private String mapBranch(String br) {
+        switch (br) {
+            case "BLE": return lastCompareSigned ? "jle" : "jbe";
+            case "BGE": return lastCompareSigned ? "jge" : "jae";
+            case "BLT": return lastCompareSigned ? "jl" : "jb";
+            case "BGT": return lastCompareSigned ? "jg" : "ja";
+            case "BEQ": return "je";
+            case "BNE": return "jne";
+            case "BI":  return "jmp";
+        }
+        return null;
+    }
+
+    /**
+     * Etiqueta de una constante o variable. Las variables van con {@code _v_}: así no chocan
+     * con los símbolos propios ({@code _start}, {@code _nl}, {@code _T1}...) aunque se llamen igual.
+     */
+    private static String label(String rawToken) {
+        if (RpnTokens.isNumberLiteral(rawToken)) {
+            return "_" + rawToken.replace(".", "_").replace("-", "neg_");
+        }
+        return "_v_" + rawToken.replace(".", "_");
+    }
+
+    private static String normalizeFloat(String val) {
+        if (val.startsWith(".")) val = "0" + val;
+        if (val.startsWith("-.")) val = "-0" + val.substring(1);
+        if (val.endsWith(".")) val = val + "0";
+        return val;
+    }
+
+    private static String escape(String text) {
+        StringBuilder b = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            if (c == '"' || c == '\\') b.append('\\');
+            b.append(c);
+        }
+        return b.toString();
+    }
+
+    private void emit(String format, Object... args) {
+        code.append(args.length == 0 ? format : String.format(format, args)).append('\n');
+    }
+
+    // --- Runtime ------------------------------------------------------------------
+    // Todas las rutinas preservan los registros que no devuelven.
+
+    private static final String RUNTIME = String.join("\n",
+        "",
+        "# Vuelca el buffer de salida con write(1, ...)",
+        "rt_flush:",
+        "    push rax",
+        "    push rcx",
+        "    push rdx",
+        "    push rsi",
+        "    push rdi",
+        "    push r11",
+        "    mov rdx, qword ptr [rip + _outlen]",
+        "    lea rsi, [rip + _outbuf]",
+        "1:  test rdx, rdx",
+        "    jz 2f",
+        "    mov eax, 1",
+        "    mov edi, 1",
+        "    syscall",
+        "    test rax, rax",
+        "    jle 2f",
+        "    add rsi, rax",
+        "    sub rdx, rax",
+        "    jmp 1b",
+        "2:  mov qword ptr [rip + _outlen], 0",
+        "    pop r11",
+        "    pop rdi",
+        "    pop rsi",
+        "    pop rdx",
+        "    pop rcx",
+        "    pop rax",
+        "    ret",
+        "",
+        "# Agrega rdx bytes desde rsi al buffer de salida",
+        "rt_out_bytes:",
+        "    push rax",
+        "    push rcx",
+        "    push rdx",
+        "    push rsi",
+        "    push rdi",
+        "    lea rdi, [rip + _outbuf]",
+        "1:  test rdx, rdx",
+        "    jz 3f",
+        "    mov rax, qword ptr [rip + _outlen]",
+        "    cmp rax, " + OUT_BUFFER_SIZE,
+        "    jb 2f",
+        "    call rt_flush",
+        "    xor eax, eax",
+        "2:  mov cl, byte ptr [rsi]",
+        "    mov byte ptr [rdi + rax], cl",
+        "    inc rax",
+        "    mov qword ptr [rip + _outlen], rax",
+        "    inc rsi",
+        "    dec rdx",
+        "    jmp 1b",
+        "3:  pop rdi",
+        "    pop rsi",
+        "    pop rdx",
+        "    pop rcx",
+        "    pop rax",
+        "    ret",
+        "",
+        "# Agrega la cadena terminada en 0 apuntada por rsi (nada si es nula)",
+        "rt_out_cstr:",
+        "    test rsi, rsi",
+        "    jz 2f",
+        "    push rdx",
+        "    xor edx, edx",
+        "1:  cmp byte ptr [rsi + rdx], 0",
+        "    je 3f",
+        "    inc rdx",
+        "    jmp 1b",
+        "3:  call rt_out_bytes",
+        "    pop rdx",
+        "2:  ret",
+        "",
+        "rt_newline:",
+        "    push rsi",
+        "    push rdx",
+        "    lea rsi, [rip + _nl]",
+        "    mov edx, 1",
+        "    call rt_out_bytes",
+        "    pop rdx",
+        "    pop rsi",
+        "    ret",
+        "",
+        "# Imprime rax en decimal (con signo)",
+        "rt_print_int:",
+        "    push rax",
+        "    push rbx",
+        "    push rcx",
+        "    push rdx",
+        "    push rsi",
+        "    push rdi",
+        "    sub rsp, 32",
+        "    lea rdi, [rsp + 32]",
+        "    mov rbx, rax",
+        "    test rax, rax",
+        "    jns 1f",
+        "    neg rax",
+        "1:  mov rcx, 10",
+        "2:  xor edx, edx",
+        "    div rcx",
+        "    add dl, '0'",
+        "    dec rdi",
+        "    mov byte ptr [rdi], dl",
+        "    test rax, rax",
+        "    jnz 2b",
+        "    test rbx, rbx",
+        "    jns 3f",
+        "    dec rdi",
+        "    mov byte ptr [rdi], '-'",
+        "3:  mov rsi, rdi",
+        "    lea rdx, [rsp + 32]",
+        "    sub rdx, rdi",
+        "    call rt_out_bytes",
+        "    add rsp, 32",
+        "    pop rdi",
+        "    pop rsi",
+        "    pop rdx",
+        "    pop rcx",
+        "    pop rbx",
+        "    pop rax",
+        "    ret",
+        "",
+        "# Imprime xmm0 con 4 decimales (truncados, como el runtime DOS)",
+        "rt_print_float:",
+        "    push rax",
+        "    push rcx",
+        "    push rdx",
+        "    push rsi",
+        "    push rdi",
+        "    push r8",
+        "    sub rsp, 32",
+        "    movsd qword ptr [rsp], xmm0",
+        "    movsd qword ptr [rsp + 8], xmm1",
+        "    xorpd xmm1, xmm1",
+        "    ucomisd xmm0, xmm1",
+        "    jae 1f",
+        "    lea rsi, [rip + _minus]",
+        "    mov edx, 1",
+        "    call rt_out_bytes",
+        "    subsd xmm1, xmm0",
+        "    movapd xmm0, xmm1",
+        "1:  xor r8d, r8d",
+        "    movsd xmm1, qword ptr [rip + _f_1e18]",
+        "2:  ucomisd xmm0, xmm1",
+        "    jb 3f",
+        "    divsd xmm0, qword ptr [rip + _f_10]",
+        "    inc r8",
+        "    jmp 2b",
+        "3:  cvttsd2si rax, xmm0",
+        "    call rt_print_int",
+        "    mov rcx, r8",
+        "4:  test rcx, rcx",
+        "    jz 5f",
+        "    lea rsi, [rip + _zero]",
+        "    mov edx, 1",
+        "    call rt_out_bytes",
+        "    dec rcx",
+        "    jmp 4b",
+        "5:  cvtsi2sd xmm1, rax",
+        "    subsd xmm0, xmm1",
+        "    mulsd xmm0, qword ptr [rip + _f_10000]",
+        "    cvttsd2si rax, xmm0",
+        "    test r8, r8",
+        "    jz 6f",
+        "    xor eax, eax",
+        "6:  lea rsi, [rip + _dot]",
+        "    mov edx, 1",
+        "    call rt_out_bytes",
+        "    lea rdi, [rsp + 20]",
+        "    mov rcx, 4",
+        "    mov r8, 10",
+        "7:  xor edx, edx",
+        "    div r8",
+        "    add dl, '0'",
+        "    dec rdi",
+        "    mov byte ptr [rdi], dl",
+        "    dec rcx",
+        "    jnz 7b",
+        "    mov rsi, rdi",
+        "    mov edx, 4",
+        "    call rt_out_bytes",
+        "    movsd xmm0, qword ptr [rsp]",
+        "    movsd xmm1, qword ptr [rsp + 8]",
+        "    add rsp, 32",
+        "    pop r8",
+        "    pop rdi",
+        "    pop rsi",
+        "    pop rdx",
+        "    pop rcx",
+        "    pop rax",
+        "    ret",
+        "",
+        "# Devuelve en rsi la próxima línea de stdin (terminada en 0, sin el salto).",
+        "# Lee de a bloques con read(0, ...) y guarda lo que sobra para la próxima.",
+        "rt_read_line:",
+        "    call rt_flush",
+        "    push rax",
+        "    push rcx",
+        "    push rdx",
+        "    push rdi",
+        "    push r11",
+        "0:  mov rcx, qword ptr [rip + _inpos]",
+        "    mov rdx, qword ptr [rip + _inlen]",
+        "    lea rsi, [rip + _inbuf]",
+        "1:  cmp rcx, rdx",
+        "    jae 2f",
+        "    cmp byte ptr [rsi + rcx], 10",
+        "    je 8f",
+        "    inc rcx",
+        "    jmp 1b",
+        "2:  mov rcx, qword ptr [rip + _inpos]",
+        "    xor edi, edi",
+        "3:  cmp rcx, rdx",
+        "    jae 4f",
+        "    mov al, byte ptr [rsi + rcx]",
+        "    mov byte ptr [rsi + rdi], al",
+        "    inc rcx",
+        "    inc rdi",
+        "    jmp 3b",
+        "4:  mov qword ptr [rip + _inpos], 0",
+        "    mov qword ptr [rip + _inlen], rdi",
+        "    cmp rdi, " + (IN_BUFFER_SIZE - 1),
+        "    jae 7f",
+        "    lea rsi, [rsi + rdi]",
+        "    mov rdx, " + (IN_BUFFER_SIZE - 1),
+        "    sub rdx, rdi",
+        "    xor edi, edi",
+        "    xor eax, eax",
+        "    syscall",
+        "    test rax, rax",
+        "    jle 7f",
+        "    add qword ptr [rip + _inlen], rax",
+        "    jmp 0b",
+        "7:  mov rcx, qword ptr [rip + _inlen]",
+        "    lea rsi, [rip + _inbuf]",
+        "8:  mov byte ptr [rsi + rcx], 0",
+        "    test rcx, rcx",
+        "    jz 9f",
+        "    cmp byte ptr [rsi + rcx - 1], 13",
+        "    jne 9f",
+        "    mov byte ptr [rsi + rcx - 1], 0",
+        "9:  mov rax, qword ptr [rip + _inpos]",
+        "    inc rcx",
+        "    mov qword ptr [rip + _inpos], rcx",
+        "    add rsi, rax",
+        "    mov rax, qword ptr [rip + _inlen]",
+        "    cmp rcx, rax",
+        "    jbe 10f",
+        "    mov qword ptr [rip + _inpos], rax",
+        "10: pop r11",
+        "    pop rdi",
+        "    pop rdx",
+        "    pop rcx",
+        "    pop rax",
+        "    ret",
+        "",
+        "# Saltea blancos y signo de la cadena en rsi. rcx = 1 si es negativo",
+        "rt_in_sign:",
+        "    xor ecx, ecx",
+        "1:  cmp byte ptr [rsi], ' '",
+        "    jne 2f",
+        "    inc rsi",
+        "    jmp 1b",
+        "2:  cmp byte ptr [rsi], '-'",
+        "    jne 3f",
+        "    mov ecx, 1",
+        "    inc rsi",
+        "    ret",
+        "3:  cmp byte ptr [rsi], '+'",
+        "    jne 4f",
+        "    inc rsi",
+        "4:  ret",
+        "",
+        "# Lee un entero en rax",
+        "rt_read_int:",
+        "    push rcx",
+        "    push rdx",
+        "    push rsi",
+        "    call rt_read_line",
+        "    call rt_in_sign",
+        "    xor eax, eax",
+        "1:  movzx edx, byte ptr [rsi]",
+        "    sub edx, '0'",
+        "    cmp edx, 9",
+        "    ja 2f",
+        "    imul rax, rax, 10",
+        "    add rax, rdx",
+        "    inc rsi",
+        "    jmp 1b",
+        "2:  test rcx, rcx",
+        "    jz 3f",
+        "    neg rax",
+        "3:  pop rsi",
+        "    pop rdx",
+        "    pop rcx",
+        "    ret",
+        "",
+        "# Lee un flotante en xmm0",
+        "rt_read_float:",
+        "    push rax",
+        "    push rcx",
+        "    push rdx",
+        "    push rsi",
+        "    push r8",
+        "    sub rsp, 16",
+        "    movsd qword ptr [rsp], xmm1",
+        "    call rt_read_line",
+        "    call rt_in_sign",
+        "    xorpd xmm0, xmm0",
+        "    xor r8d, r8d",
+        "    xor edx, edx",
+        "1:  movzx eax, byte ptr [rsi]",
+        "    cmp eax, '.'",
+        "    jne 2f",
+        "    mov edx, 1",
+        "    inc rsi",
+        "    jmp 1b",
+        "2:  sub eax, '0'",
+        "    cmp eax, 9",
+        "    ja 3f",
+        "    mulsd xmm0, qword ptr [rip + _f_10]",
+        "    cvtsi2sd xmm1, rax",
+        "    addsd xmm0, xmm1",
+        "    add r8, rdx",
+        "    inc rsi",
+        "    jmp 1b",
+        "3:  test r8, r8",
+        "    jz 4f",
+        "    divsd xmm0, qword ptr [rip + _f_10]",
+        "    dec r8",
+        "    jmp 3b",
+        "4:  test rcx, rcx",
+        "    jz 5f",
+        "    xorpd xmm1, xmm1",
+        "    subsd xmm1, xmm0",
+        "    movapd xmm0, xmm1",
+        "5:  movsd xmm1, qword ptr [rsp]",
+        "    add rsp, 16",
+        "    pop r8",
+        "    pop rsi",
+        "    pop rdx",
+        "    pop rcx",
+        "    pop rax",
+        "    ret",
+        "",
+        "# Lee una línea y la copia (hasta " + (STRING_BUFFER_SIZE - 1) + " bytes) en el buffer rdi",
+        "rt_read_str:",
+        "    push rax",
+        "    push rcx",
+        "    push rsi",
+        "    call rt_read_line",
+        "    xor ecx, ecx",
+        "1:  cmp rcx, " + (STRING_BUFFER_SIZE - 1),
+        "    jae 2f",
+        "    mov al, byte ptr [rsi + rcx]",
+        "    test al, al",
+        "    jz 2f",
+        "    mov byte ptr [rdi + rcx], al",
+        "    inc rcx",
+        "    jmp 1b",
+        "2:  mov byte ptr [rdi + rcx], 0",
+        "    pop rsi",
+        "    pop rcx",
+        "    pop rax",
+        "    ret",
+        "");
+}
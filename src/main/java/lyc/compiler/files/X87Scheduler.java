@@ -0,0 +1,399 @@
+package lyc.compiler.files;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import lyc.compiler.emulator.TimingTable;
+
+/**
+ * Reordena el código x87 ya traducido dentro de cada bloque básico.
+ *
+ * <p>El backend traduce cada operador como {@code FLD a / FLD b / Fop / FSTP t}, en el orden
+ * de la polaca, así que el FSTP espera siempre la latencia de la operación que lo precede.
+ * Acá se toman los tramos seguidos de esas secuencias (cada una deja la pila x87 vacía),
+ * se arma el grafo de dependencias, por los operandos en la pila y por las etiquetas de
+ * memoria que se leen y escriben, y se vuelven a emitir con planificación de lista: en cada
+ * paso va la instrucción que puede empezar antes según la tabla de tiempos del emulador.
+ * Los operandos que no quedan arriba se traen con {@code FXCH}, que en un Pentium se aparea
+ * con la instrucción x87 anterior y no cuesta nada.</p>
+ *
+ * <p>Se hacen las mismas operaciones sobre los mismos valores y se guardan en las mismas
+ * variables, así que los resultados no cambian. Un tramo solo se reemplaza si la
+ * estimación de ciclos baja.</p>
+ */
+public final class X87Scheduler {
+
+    // Lugares de la pila x87 que puede ocupar un tramo reordenado (quedan dos libres)
+    private static final int MAX_DEPTH = 6;
+    // Instrucciones por tramo: la planificación es cuadrática en esto
+    private static final int MAX_REGION = 256;
+
+    private static final char LOAD = 'L';
+    private static final char NEGATE = 'N';
+    private static final char STORE = 'S';
+
+    /** Un FLD, FCHS, operación o FSTP del tramo. */
+    private static final class Node {
+        final char kind;
+        final String label;
+        final int left;
+        final int right;
+        final List<Integer> successors = new ArrayList<>();
+        int predecessors;
+        long height;
+
+        Node(char kind, String label, int left, int right) {
+            this.kind = kind;
+            this.label = label;
+            this.left = left;
+            this.right = right;
+        }
+
+        int stackEffect() {
+            if (kind == LOAD) return 1;
+            if (kind == NEGATE) return 0;
+            return -1;
+        }
+    }
+
+    /** Instrucciones de un orden y los ciclos que tardan. */
+    private static final class Emission {
+        final List<String> lines = new ArrayList<>();
+        long cycles;
+    }
+
+    private final TimingTable timing;
+    private final int maxDepth;
+    private int reordered;
+    private long savedCycles;
+
+    public X87Scheduler(TimingTable timing) {
+        this(timing, 0);
+    }
+
+    /** @param occupied lugares de la pila x87 que ya usan valores de afuera de los tramos */
+    public X87Scheduler(TimingTable timing, int occupied) {
+        this.timing = timing;
+        this.maxDepth = Math.min(MAX_DEPTH, 8 - occupied);
+    }
+
+    /** Devuelve {@code code} con los tramos x87 reordenados; el resto queda igual. */
+    public String schedule(String code) {
+        String[] lines = code.split("\n", -1);
+        StringBuilder out = new StringBuilder(code.length());
+        // El último elemento es lo que sigue al último salto de línea
+        int count = lines.length - 1;
+        int i = 0;
+        while (i < count) {
+            int end = regionEnd(lines, i, count);
+            if (end == i) {
+                out.append(lines[i]).append('\n');
+                i++;
+                continue;
+            }
+            List<String> region = new ArrayList<>();
+            for (int j = i; j < end; j++) {
+                region.add(lines[j]);
+            }
+            out.append(rewrite(region));
+            i = end;
+        }
+        out.append(lines[count]);
+        return out.toString();
+    }
+
+    /** Tramos reemplazados. */
+    public int getReordered() {
+        return reordered;
+    }
+
+    /** Ciclos estimados que se ahorran en total (una pasada por cada tramo). */
+    public long getSavedCycles() {
+        return savedCycles;
+    }
+
+    /**
+     * Fin del tramo que empieza en {@code from}: la última línea después de la cual la
+     * pila x87 queda vacía, antes de la primera instrucción que no se puede mover.
+     */
+    private static int regionEnd(String[] lines, int from, int to) {
+        int depth = 0;
+        int last = from;
+        int instructions = 0;
+        for (int j = from; j < to && instructions < MAX_REGION; j++) {
+            String line = lines[j].trim();
+            if (line.isEmpty()) {
+                if (depth == 0) {
+                    last = j + 1;
+                }
+                continue;
+            }
+            int effect = stackEffect(line);
+            if (effect == Integer.MIN_VALUE || depth + effect < 0 || (effect == 0 && depth == 0)
+                    || (effect < 0 && !line.startsWith("FSTP") && depth < 2)) {
+                break;
+            }
+            depth += effect;
+            instructions++;
+            if (depth == 0) {
+                last = j + 1;
+            }
+        }
+        return last;
+    }
+
+    /** Efecto sobre la pila de una instrucción que se puede mover, o MIN_VALUE si no lo es. */
+    private static int stackEffect(String line) {
+        if (line.equals("FCHS")) return 0;
+        if (line.equals("FADD") || line.equals("FSUB") || line.equals("FMUL") || line.equals("FDIV")) return -1;
+        if (line.startsWith("FLD ") && isLabel(line.substring(4))) return 1;
+        if (line.startsWith("FSTP ") && isLabel(line.substring(5))) return -1;
+        return Integer.MIN_VALUE;
+    }
+
+    private static boolean isLabel(String operand) {
+        return !operand.isEmpty() && (operand.charAt(0) == '_' || operand.charAt(0) == '@');
+    }
+
+    /** El tramo reordenado, o tal como estaba si así no se gana nada. */
+    private String rewrite(List<String> region) {
+        List<Node> nodes = buildGraph(region);
+        String original = String.join("\n", region) + "\n";
+        if (nodes.size() < 2) {
+            return original;
+        }
+        int[] sequential = new int[nodes.size()];
+        for (int k = 0; k < sequential.length; k++) {
+            sequential[k] = k;
+        }
+        int[] order = listSchedule(nodes);
+        if (order == null) {
+            return original;
+        }
+        long before = emit(nodes, sequential).cycles;
+        Emission after = emit(nodes, order);
+        if (after.cycles >= before) {
+            return original;
+        }
+        reordered++;
+        savedCycles += before - after.cycles;
+        StringBuilder text = new StringBuilder();
+        for (String line : after.lines) {
+            text.append("    ").append(line).append('\n');
+        }
+        return text.append('\n').toString();
+    }
+
+    /** Nodos en el orden original, con las dependencias de datos y de memoria. */
+    private List<Node> buildGraph(List<String> region) {
+        List<Node> nodes = new ArrayList<>();
+        List<Integer> stack = new ArrayList<>();
+        Map<String, Integer> lastStore = new HashMap<>();
+        Map<String, List<Integer>> loadsSinceStore = new HashMap<>();
+        for (String raw : region) {
+            String line = raw.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            int id = nodes.size();
+            Node node;
+            if (line.startsWith("FLD ")) {
+                String label = line.substring(4);
+                node = new Node(LOAD, label, -1, -1);
+                nodes.add(node);
+                dependOn(nodes, lastStore.get(label), id);
+                loadsSinceStore.computeIfAbsent(label, k -> new ArrayList<>()).add(id);
+                stack.add(id);
+            } else if (line.startsWith("FSTP ")) {
+                String label = line.substring(5);
+                node = new Node(STORE, label, stack.remove(stack.size() - 1), -1);
+                nodes.add(node);
+                dependOn(nodes, node.left, id);
+                // Después de las lecturas anteriores de la etiqueta y de la escritura anterior
+                dependOn(nodes, lastStore.get(label), id);
+                for (int load : loadsSinceStore.getOrDefault(label, List.of())) {
+                    dependOn(nodes, load, id);
+                }
+                lastStore.put(label, id);
+                loadsSinceStore.remove(label);
+            } else if (line.equals("FCHS")) {
+                node = new Node(NEGATE, null, stack.remove(stack.size() - 1), -1);
+                nodes.add(node);
+                dependOn(nodes, node.left, id);
+                stack.add(id);
+            } else {
+                int right = stack.remove(stack.size() - 1);
+                int left = stack.remove(stack.size() - 1);
+                node = new Node(operatorOf(line), null, left, right);
+                nodes.add(node);
+                dependOn(nodes, left, id);
+                dependOn(nodes, right, id);
+                stack.add(id);
+            }
+        }
+        // Camino más largo hasta el final, contando la latencia de cada nodo
+        for (int id = nodes.size() - 1; id >= 0; id--) {
+            Node node = nodes.get(id);
+            long tail = 0;
+            for (int next : node.successors) {
+                tail = Math.max(tail, nodes.get(next).height);
+            }
+            node.height = timing.latency(mnemonic(node)) + tail;
+        }
+        return nodes;
+    }
+
+    private static void dependOn(List<Node> nodes, Integer from, int to) {
+        if (from != null && from >= 0 && !nodes.get(from).successors.contains(to)) {
+            nodes.get(from).successors.add(to);
+            nodes.get(to).predecessors++;
+        }
+    }
+
+    /**
+     * Planificación de lista: entre los nodos con sus dependencias ya emitidas va el que
+     * empieza antes; a igualdad, el de camino más largo y después el primero del original.
+     * Devuelve null si la pila se llenaría sin poder seguir.
+     */
+    private int[] listSchedule(List<Node> nodes) {
+        int n = nodes.size();
+        int[] waiting = new int[n];
+        long[] ready = new long[n];
+        boolean[] done = new boolean[n];
+        for (int id = 0; id < n; id++) {
+            waiting[id] = nodes.get(id).predecessors;
+        }
+        int[] order = new int[n];
+        long cycle = 0;
+        int live = 0;
+        for (int step = 0; step < n; step++) {
+            int best = -1;
+            long bestStart = 0;
+            for (int id = 0; id < n; id++) {
+                Node node = nodes.get(id);
+                if (done[id] || waiting[id] > 0 || (node.kind == LOAD && live >= maxDepth)) {
+                    continue;
+                }
+                long start = Math.max(cycle, operandsReady(node, ready));
+                if (best < 0 || start < bestStart
+                        || (start == bestStart && node.height > nodes.get(best).height)) {
+                    best = id;
+                    bestStart = start;
+                }
+            }
+            if (best < 0) {
+                return null;
+            }
+            Node node = nodes.get(best);
+            String m = mnemonic(node);
+            cycle = bestStart + timing.issue(m);
+            ready[best] = bestStart + timing.latency(m);
+            live += node.stackEffect();
+            done[best] = true;
+            order[step] = best;
+            for (int next : node.successors) {
+                waiting[next]--;
+            }
+        }
+        return order;
+    }
+
+    private static long operandsReady(Node node, long[] ready) {
+        long at = 0;
+        if (node.left >= 0) at = Math.max(at, ready[node.left]);
+        if (node.right >= 0) at = Math.max(at, ready[node.right]);
+        return at;
+    }
+
+    /**
+     * Emite los nodos en {@code order} siguiendo dónde queda cada valor en la pila y
+     * cuenta los ciclos como el emulador: cada instrucción espera a sus operandos.
+     */
+    private Emission emit(List<Node> nodes, int[] order) {
+        Emission emission = new Emission();
+        // stack.get(0) es ST(0)
+        List<Integer> stack = new ArrayList<>();
+        long[] ready = new long[nodes.size()];
+        for (int id : order) {
+            Node node = nodes.get(id);
+            String instruction;
+            long operands = operandsReady(node, ready);
+            if (node.kind == LOAD) {
+                instruction = "FLD " + node.label;
+                stack.add(0, id);
+            } else if (node.kind == STORE) {
+                exchangeToTop(stack, node.left, emission);
+                instruction = "FSTP " + node.label;
+                stack.remove(0);
+            } else if (node.kind == NEGATE) {
+                exchangeToTop(stack, node.left, emission);
+                instruction = "FCHS";
+                stack.set(0, id);
+            } else {
+                if (stack.indexOf(node.left) != 0) {
+                    exchangeToTop(stack, node.right, emission);
+                }
+                int left = stack.indexOf(node.left);
+                int right = stack.indexOf(node.right);
+                String base = mnemonic(node);
+                int destination;
+                if (right == 0 && left == 1) {
+                    // La forma de siempre: F<op>P ST(1), ST
+                    instruction = base;
+                    destination = 1;
+                } else if (right == 0) {
+                    instruction = base + "P ST(" + left + "), ST";
+                    destination = left;
+                } else {
+                    // El izquierdo está arriba: suma y producto conmutan, resta y división se invierten
+                    boolean commutative = node.kind == '+' || node.kind == '*';
+                    instruction = base + (commutative ? "P" : "RP") + " ST(" + right + "), ST";
+                    destination = right;
+                }
+                stack.set(destination, id);
+                stack.remove(0);
+            }
+            String m = instruction.split(" ")[0];
+            long start = Math.max(emission.cycles, operands);
+            emission.cycles = start + timing.issue(m);
+            ready[id] = start + timing.latency(m);
+            emission.lines.add(instruction);
+        }
+        return emission;
+    }
+
+    /** Trae {@code value} a ST(0) con FXCH si no está ahí. */
+    private void exchangeToTop(List<Integer> stack, int value, Emission emission) {
+        int position = stack.indexOf(value);
+        if (position == 0) {
+            return;
+        }
+        emission.lines.add("FXCH ST(" + position + ")");
+        emission.cycles += timing.issue("FXCH");
+        stack.set(position, stack.get(0));
+        stack.set(0, value);
+    }
+
+    private static char operatorOf(String line) {
+        switch (line) {
+            case "FADD": return '+';
+            case "FSUB": return '-';
+            case "FMUL": return '*';
+            default: return '/';
+        }
+    }
+
+    private static String mnemonic(Node node) {
+        switch (node.kind) {
+            case LOAD: return "FLD";
+            case STORE: return "FSTP";
+            case NEGATE: return "FCHS";
+            case '+': return "FADD";
+            case '-': return "FSUB";
+            case '*': return "FMUL";
+            default: return "FDIV";
+        }
+    }
+}
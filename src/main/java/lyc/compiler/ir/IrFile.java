@@ -0,0 +1,265 @@
+package lyc.compiler.ir;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lyc.compiler.files.IntermediateCodeGenerator;
+import lyc.compiler.files.StatementKind;
+import lyc.compiler.files.SymbolTableData;
+import lyc.compiler.files.SymbolTableGenerator;
+
+/**
+ * Polaca y tabla de símbolos en binario, para volver a correr los backends sin parsear.
+ *
+ * <p>Formato (little endian):</p>
+ * <pre>
+ *   cabecera   magic "LYCI", versión (u16), reservado (u16),
+ *              cantidad de cadenas, de tokens y de símbolos (u32 cada una)
+ *   cadenas    largo en bytes (u16) + UTF-8, sin repetir
+ *   polaca     índice de cadena (u32) por token
+ *   posiciones línea y columna del fuente (u32 cada una) y sentencia (u8, ordinal + 1;
+ *              0 si no se conoce) por token
+ *   símbolos   nombre, tipo, valor, longitud: índice de cadena (i32), -1 si es null
+ * </pre>
+ * <p>Los operandos y destinos de salto que se repiten se guardan una sola vez. Las
+ * posiciones están desde la versión 2, para que --cost-report dé lo mismo que desde el fuente.</p>
+ */
+public final class IrFile {
+
+    /** "LYCI" leído como entero little endian. */
+    public static final int MAGIC = 0x4943594C;
+    public static final int VERSION = 2;
+
+    private static final int HEADER_SIZE = 20;
+    private static final int NULL_INDEX = -1;
+
+    private static final StatementKind[] KINDS = StatementKind.values();
+
+    private final List<String> rpn;
+    private final int[] lines;
+    private final int[] columns;
+    private final byte[] kinds;
+    private final Map<String, SymbolTableData> symbols;
+
+    /** Polaca sin posiciones del fuente. */
+    public IrFile(List<String> rpn, Map<String, SymbolTableData> symbols) {
+        this(rpn, new int[rpn.size()], new int[rpn.size()], new byte[rpn.size()], symbols);
+    }
+
+    private IrFile(List<String> rpn, int[] lines, int[] columns, byte[] kinds, Map<String, SymbolTableData> symbols) {
+        this.rpn = Collections.unmodifiableList(new ArrayList<>(rpn));
+        this.lines = lines;
+        this.columns = columns;
+        this.kinds = kinds;
+        this.symbols = Collections.unmodifiableMap(new LinkedHashMap<>(symbols));
+    }
+
+    /** La polaca, con sus posiciones, y la tabla de símbolos que dejó el último parse. */
+    public static IrFile capture() {
+        IntermediateCodeGenerator icg = IntermediateCodeGenerator.getInstance();
+        List<String> rpn = icg.getRpnCode();
+        int[] lines = new int[rpn.size()];
+        int[] columns = new int[rpn.size()];
+        byte[] kinds = new byte[rpn.size()];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = icg.getLine(i);
+            columns[i] = icg.getColumn(i);
+            StatementKind kind = icg.getKind(i);
+            kinds[i] = (byte) (kind == null ? 0 : kind.ordinal() + 1);
+        }
+        return new IrFile(rpn, lines, columns, kinds, SymbolTableGenerator.getInstance().getTable());
+    }
+
+    public void write(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = encode();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /** Lee el archivo mapeándolo en memoria: las cadenas se decodifican directo del mapeo. */
+    public static IrFile load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return parse(mapped);
+        }
+    }
+
+    public static IrFile parse(ByteBuffer content) throws IOException {
+        ByteBuffer buffer = content.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+                throw new IOException("No es un archivo de código intermedio");
+            }
+            int version = Short.toUnsignedInt(buffer.getShort());
+            if (version != VERSION) {
+                throw new IOException("Versión de código intermedio no soportada: " + version + " (se espera " + VERSION + ")");
+            }
+            buffer.getShort();
+            int poolSize = count(buffer);
+            int rpnSize = count(buffer);
+            int symbolCount = count(buffer);
+
+            if (buffer.remaining() < 2L * poolSize) {
+                throw new IOException("Archivo de código intermedio truncado");
+            }
+            String[] pool = new String[poolSize];
+            byte[] scratch = new byte[0];
+            for (int i = 0; i < poolSize; i++) {
+                int length = Short.toUnsignedInt(buffer.getShort());
+                if (scratch.length < length) {
+                    scratch = new byte[Math.max(length, 64)];
+                }
+                buffer.get(scratch, 0, length);
+                pool[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+
+            if (buffer.remaining() < 13L * rpnSize + 16L * symbolCount) {
+                throw new IOException("Archivo de código intermedio truncado");
+            }
+            String[] tokens = new String[rpnSize];
+            for (int i = 0; i < rpnSize; i++) {
+                tokens[i] = string(pool, buffer.getInt(), false);
+            }
+            int[] lines = new int[rpnSize];
+            int[] columns = new int[rpnSize];
+            byte[] kinds = new byte[rpnSize];
+            for (int i = 0; i < rpnSize; i++) {
+                lines[i] = buffer.getInt();
+                columns[i] = buffer.getInt();
+                kinds[i] = buffer.get();
+                if (lines[i] < 0 || columns[i] < 0 || Byte.toUnsignedInt(kinds[i]) > KINDS.length) {
+                    throw new IOException("Posición inválida en el código intermedio, token " + i);
+                }
+            }
+            Map<String, SymbolTableData> symbols = new LinkedHashMap<>();
+            for (int i = 0; i < symbolCount; i++) {
+                String name = string(pool, buffer.getInt(), false);
+                symbols.put(name, new SymbolTableData(string(pool, buffer.getInt(), true),
+                    string(pool, buffer.getInt(), true), string(pool, buffer.getInt(), true)));
+            }
+            if (buffer.hasRemaining()) {
+                throw new IOException("Datos de más al final del código intermedio");
+            }
+            return new IrFile(Arrays.asList(tokens), lines, columns, kinds, symbols);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Archivo de código intermedio truncado");
+        }
+    }
+
+    /** Deja la polaca y la tabla de símbolos como las del programa actual. */
+    public void install() {
+        IntermediateCodeGenerator icg = IntermediateCodeGenerator.getInstance();
+        icg.clear();
+        icg.replaceRpnCode(rpn);
+        for (int i = 0; i < lines.length; i++) {
+            icg.setSource(i, lines[i], columns[i], kinds[i] == 0 ? null : KINDS[kinds[i] - 1]);
+        }
+        SymbolTableGenerator symbolTable = SymbolTableGenerator.getInstance();
+        symbolTable.clear();
+        symbols.forEach((name, data) -> symbolTable.getTable().put(name,
+            new SymbolTableData(data.getType(), data.getValue(), data.getLength())));
+    }
+
+    public List<String> getRpn() {
+        return rpn;
+    }
+
+    public Map<String, SymbolTableData> getSymbols() {
+        return symbols;
+    }
+
+    private ByteBuffer encode() throws IOException {
+        Map<String, Integer> indexes = new HashMap<>();
+        List<byte[]> pool = new ArrayList<>();
+        int[] tokens = new int[rpn.size()];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = intern(rpn.get(i), indexes, pool);
+        }
+        int[] symbolFields = new int[4 * symbols.size()];
+        int f = 0;
+        for (Map.Entry<String, SymbolTableData> entry : symbols.entrySet()) {
+            SymbolTableData data = entry.getValue();
+            symbolFields[f++] = intern(entry.getKey(), indexes, pool);
+            symbolFields[f++] = intern(data.getType(), indexes, pool);
+            symbolFields[f++] = intern(data.getValue(), indexes, pool);
+            symbolFields[f++] = intern(data.getLength(), indexes, pool);
+        }
+
+        long size = HEADER_SIZE + 13L * tokens.length + 4L * symbolFields.length;
+        for (byte[] bytes : pool) {
+            size += 2 + bytes.length;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Código intermedio demasiado grande: " + size + " bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putShort((short) VERSION).putShort((short) 0);
+        buffer.putInt(pool.size()).putInt(tokens.length).putInt(symbols.size());
+        for (byte[] bytes : pool) {
+            buffer.putShort((short) bytes.length).put(bytes);
+        }
+        for (int index : tokens) {
+            buffer.putInt(index);
+        }
+        for (int i = 0; i < tokens.length; i++) {
+            buffer.putInt(lines[i]).putInt(columns[i]).put(kinds[i]);
+        }
+        for (int index : symbolFields) {
+            buffer.putInt(index);
+        }
+        return buffer.flip();
+    }
+
+    private static int intern(String value, Map<String, Integer> indexes, List<byte[]> pool) throws IOException {
+        if (value == null) {
+            return NULL_INDEX;
+        }
+        Integer known = indexes.get(value);
+        if (known != null) {
+            return known;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("Cadena demasiado larga para el código intermedio: " + bytes.length + " bytes");
+        }
+        indexes.put(value, pool.size());
+        pool.add(bytes);
+        return pool.size() - 1;
+    }
+
+    private static int count(ByteBuffer buffer) throws IOException {
+        int value = buffer.getInt();
+        if (value < 0) {
+            throw new IOException("Cantidad inválida en el código intermedio: " + Integer.toUnsignedLong(value));
+        }
+        return value;
+    }
+
+    private static String string(String[] pool, int index, boolean nullable) throws IOException {
+        if (index == NULL_INDEX && nullable) {
+            return null;
+        }
+        if (index < 0 || index >= pool.length) {
+            throw new IOException("Índice de cadena fuera de rango en el código intermedio: " + index);
+        }
+        return pool[index];
+    }
+}
@@ -2,41 +2,75 @@ package lyc.compiler.main;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.file.Path;
+import java.util.EnumSet;
 
-import lyc.compiler.Parser;
 import lyc.compiler.factories.FileFactory;
-import lyc.compiler.factories.ParserFactory;
-import lyc.compiler.files.AsmCodeGenerator;
 import lyc.compiler.files.FileOutputWriter;
-import lyc.compiler.files.IntermediateCodeGenerator;
-import lyc.compiler.files.SymbolTableGenerator;
+import lyc.compiler.ir.IrFile;
+import lyc.compiler.model.Artifact;
+import lyc.compiler.model.CompilationError;
+import lyc.compiler.model.CompilationResult;
+import lyc.compiler.model.CompilerOptions;
 
 public final class Compiler {
 
+    // Códigos de salida del proceso
+    private static final int EXIT_COMPILATION_ERROR = 1;
+    private static final int EXIT_USAGE = 2;
+
     private Compiler(){}
 
     public static void main(String[] args) {
-        if (args.length != 1) {
-            System.out.println("Filename must be provided as argument.");
-            System.exit(0);
+        int status = run(args);
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+
+    /** Compila el archivo de la línea de comandos a target/output; devuelve el código de salida. */
+    static int run(String[] args) {
+        CompilerOptions options;
+        try {
+            options = CompilerOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println("Uso: [--output=unbuffered|buffered] [--target=dos|linux64] [--profile-generate] [--profile-use=archivo] [--unroll=n] [--optimize] [--schedule] [--promote] [--partial-eval[=pasos]] [--fixed-point[=bits]] [--float-digits=n] [--cost-report] [--jobs=n] [--stream] [--emit-ir=archivo] [--from-ir] archivo");
+            return EXIT_USAGE;
         }
 
-        try (Reader reader = FileFactory.create(args[0])) {
-            Parser parser = ParserFactory.create(reader);
-            parser.parse();
-            FileOutputWriter.writeOutput("symbol-table.txt", SymbolTableGenerator.getInstance());
-            FileOutputWriter.writeOutput("intermediate-code.txt", IntermediateCodeGenerator.getInstance());
-            FileOutputWriter.writeOutput("final.asm", AsmCodeGenerator.getInstance());
+        CompilerApi.Sink outputDirectory = (artifact, fileName) -> FileOutputWriter.open(fileName);
+        EnumSet<Artifact> artifacts = EnumSet.allOf(Artifact.class);
+        if (!options.isCostReport()) {
+            artifacts.remove(Artifact.COST_REPORT);
+        }
+        CompilationResult result;
+        try {
+            if (options.isFromIr()) {
+                IrFile ir = IrFile.load(Path.of(options.getSourceFile()));
+                result = CompilerApi.compile(ir, options, artifacts, outputDirectory);
+            } else {
+                try (Reader reader = FileFactory.create(options.getSourceFile())) {
+                    result = CompilerApi.compile(reader, options, artifacts, outputDirectory);
+                }
+            }
         } catch (IOException e) {
-            System.err.println("There was an error trying to read input file " + e.getMessage());
-            System.exit(0);
-        } catch (Exception e) {
-            System.err.println("Compilation error: " + e.getMessage());
-            System.exit(0);
+            System.err.println("There was an I/O error: " + e.getMessage());
+            return EXIT_COMPILATION_ERROR;
         }
 
+        if (!result.isSuccessful()) {
+            for (CompilationError error : result.getErrors()) {
+                String where = error.getLine() > 0 ? options.getSourceFile() + ":" : "";
+                System.err.println("Compilation error: " + where + error);
+            }
+            return EXIT_COMPILATION_ERROR;
+        }
+        for (String warning : result.getWarnings()) {
+            System.err.println("Advertencia: " + warning);
+        }
         System.out.println("Compilation Successful");
-
+        return 0;
     }
 
 }
@@ -0,0 +1,273 @@
+package lyc.compiler.main;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+import lyc.compiler.Lexer;
+import lyc.compiler.Parser;
+import lyc.compiler.factories.BackendFactory;
+import lyc.compiler.factories.LexerFactory;
+import lyc.compiler.factories.ParserFactory;
+import lyc.compiler.files.AsmCodeGenerator;
+import lyc.compiler.files.Backend;
+import lyc.compiler.files.IntermediateCodeGenerator;
+import lyc.compiler.files.SymbolTableGenerator;
+import lyc.compiler.ir.IrFile;
+import lyc.compiler.model.Artifact;
+import lyc.compiler.model.CompilationError;
+import lyc.compiler.model.CompilationResult;
+import lyc.compiler.model.CompilerException;
+import lyc.compiler.model.CompilerOptions;
+import lyc.compiler.optimizer.CopyPropagator;
+import lyc.compiler.optimizer.LoopUnroller;
+
+/**
+ * Compilación desde código Java, sin pasar por archivos ni terminar el proceso.
+ *
+ * <p>Solo se arman las salidas pedidas: si no se pide {@link Artifact#SYMBOL_TABLE} la tabla
+ * se usa para generar código pero nunca se formatea. Los errores de compilación vuelven en
+ * el resultado con línea y columna; las excepciones de E/S (leer el fuente, escribir en un
+ * {@link Sink}) se propagan.</p>
+ *
+ * <p>La tabla de símbolos, la polaca y los backends son únicos por proceso, así que las
+ * compilaciones de distintos hilos se hacen de a una.</p>
+ */
+public final class CompilerApi {
+
+    private static final Object LOCK = new Object();
+
+    /** Destino de cada salida. El {@link Writer} que devuelve lo cierra el compilador. */
+    public interface Sink {
+        Writer open(Artifact artifact, String fileName) throws IOException;
+    }
+
+    private CompilerApi() {}
+
+    public static CompilationResult compile(String source, CompilerOptions options, Set<Artifact> artifacts) {
+        try {
+            return compile(new StringReader(source), options, artifacts);
+        } catch (IOException e) {
+            // Leer de un String o escribir en un StringWriter no falla
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Compila y devuelve las salidas pedidas como texto. */
+    public static CompilationResult compile(Reader source, CompilerOptions options, Set<Artifact> artifacts)
+            throws IOException {
+        return inMemory(sink -> compile(source, options, artifacts, sink));
+    }
+
+    /**
+     * Compila y escribe las salidas pedidas en los destinos que da {@code sink}. Cada destino
+     * se abre recién cuando hay algo para escribir (en modo --stream, antes de empezar).
+     */
+    public static CompilationResult compile(Reader source, CompilerOptions options, Set<Artifact> artifacts,
+                                            Sink sink) throws IOException {
+        Lexer lexer = LexerFactory.create(source);
+        return run(options, lexer, () -> {
+            Parser parser = ParserFactory.create(lexer);
+            if (options.isStreaming()) {
+                compileStreaming(parser, options, artifacts, sink);
+                return;
+            }
+            parser.parse();
+            if (options.getEmitIr() != null) {
+                IrFile.capture().write(Path.of(options.getEmitIr()));
+            }
+            generate(options, artifacts, sink);
+        });
+    }
+
+    /** Corre solo los backends sobre código intermedio ya guardado, sin parsear. */
+    public static CompilationResult compile(IrFile ir, CompilerOptions options, Set<Artifact> artifacts)
+            throws IOException {
+        return inMemory(sink -> compile(ir, options, artifacts, sink));
+    }
+
+    public static CompilationResult compile(IrFile ir, CompilerOptions options, Set<Artifact> artifacts,
+                                            Sink sink) throws IOException {
+        if (options.isStreaming()) {
+            throw new IllegalArgumentException("--stream necesita el fuente, no código intermedio");
+        }
+        return run(options, null, () -> {
+            ir.install();
+            generate(options, artifacts, sink);
+        });
+    }
+
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    private interface SinkCompilation {
+        CompilationResult compile(Sink sink) throws IOException;
+    }
+
+    private static CompilationResult inMemory(SinkCompilation compilation) throws IOException {
+        Map<Artifact, StringWriter> buffers = new EnumMap<>(Artifact.class);
+        CompilationResult result = compilation.compile((artifact, fileName) -> {
+            StringWriter buffer = new StringWriter();
+            buffers.put(artifact, buffer);
+            return buffer;
+        });
+        if (!result.isSuccessful()) {
+            return result;
+        }
+        Map<Artifact, String> texts = new EnumMap<>(Artifact.class);
+        buffers.forEach((artifact, buffer) -> texts.put(artifact, buffer.toString()));
+        return CompilationResult.success(texts, result.getWarnings());
+    }
+
+    /** Corre {@code stage} con el estado global limpio y convierte los errores en el resultado. */
+    private static CompilationResult run(CompilerOptions options, Lexer lexer, Stage stage) throws IOException {
+        options.validate();
+        synchronized (LOCK) {
+            CompilerOptions previous = CompilerOptions.getInstance();
+            CompilerOptions.setInstance(options);
+            SymbolTableGenerator.getInstance().clear();
+            IntermediateCodeGenerator.getInstance().clear();
+            AsmCodeGenerator.getInstance().clearWarnings();
+            try {
+                stage.run();
+                return CompilationResult.success(Map.of(), AsmCodeGenerator.getInstance().getWarnings());
+            } catch (CompilerException e) {
+                if (lexer != null) {
+                    e.setPositionIfUnknown(lexer.getLine(), lexer.getColumn());
+                }
+                return CompilationResult.failure(new CompilationError(e.getLine(), e.getColumn(), e.getMessage()));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                // Errores del backend (por ejemplo, .DATA de más de 64 KB): no tienen posición
+                return CompilationResult.failure(new CompilationError(0, 0, e.getMessage()));
+            } finally {
+                IntermediateCodeGenerator.getInstance().clear();
+                CompilerOptions.setInstance(previous);
+            }
+        }
+    }
+
+    /** Optimizaciones sobre la polaca y salidas pedidas, a partir del front end ya corrido. */
+    private static void generate(CompilerOptions options, Set<Artifact> artifacts, Sink sink) throws Exception {
+        if (options.getUnrollFactor() > 1) {
+            IntermediateCodeGenerator icg = IntermediateCodeGenerator.getInstance();
+            LoopUnroller unroller = new LoopUnroller(options.getUnrollFactor());
+            icg.replaceRpnCode(unroller.optimize(icg.getRpnCode()), unroller.getOrigins());
+        }
+        if (options.isOptimize()) {
+            IntermediateCodeGenerator icg = IntermediateCodeGenerator.getInstance();
+            CopyPropagator propagator = new CopyPropagator();
+            icg.replaceRpnCode(propagator.optimize(icg.getRpnCode()), propagator.getOrigins());
+        }
+        if (artifacts.contains(Artifact.SYMBOL_TABLE)) {
+            try (Writer writer = sink.open(Artifact.SYMBOL_TABLE, "symbol-table.txt")) {
+                SymbolTableGenerator.getInstance().generate(writer);
+            }
+        }
+        if (artifacts.contains(Artifact.INTERMEDIATE_CODE)) {
+            try (Writer writer = sink.open(Artifact.INTERMEDIATE_CODE, "intermediate-code.txt")) {
+                IntermediateCodeGenerator.getInstance().generate(writer);
+            }
+        }
+        boolean costReport = wantsCostReport(options, artifacts);
+        if (artifacts.contains(Artifact.FINAL_CODE)) {
+            Backend backend = BackendFactory.create(options.getTarget());
+            try (Writer writer = sink.open(Artifact.FINAL_CODE, backend.getOutputFileName())) {
+                backend.generate(writer);
+            }
+        } else if (costReport) {
+            // El reporte sale de traducir: el código final se descarta
+            AsmCodeGenerator.getInstance().generate(Writer.nullWriter());
+        }
+        if (costReport) {
+            writeCostReport(sink);
+        }
+    }
+
+    /** El reporte de costos sale del backend de dos; con otro destino no se escribe. */
+    private static boolean wantsCostReport(CompilerOptions options, Set<Artifact> artifacts) {
+        boolean dos = options.getTarget() == CompilerOptions.Target.DOS;
+        boolean wanted = artifacts.contains(Artifact.COST_REPORT) && dos;
+        // Si no se traduce a dos el backend no se toca: ni se carga su clase
+        if (wanted || dos && artifacts.contains(Artifact.FINAL_CODE)) {
+            AsmCodeGenerator.getInstance().setCollectCosts(wanted);
+        }
+        return wanted;
+    }
+
+    private static void writeCostReport(Sink sink) throws IOException {
+        try (Writer writer = sink.open(Artifact.COST_REPORT, "cost-report.txt")) {
+            AsmCodeGenerator.getInstance().getCostReport().generate(writer);
+        }
+    }
+
+    /**
+     * --stream: cada sentencia cerrada pasa al listado de la polaca y a assembler apenas
+     * el parser la reduce, y se descarta. El código final se arma al terminar.
+     */
+    private static void compileStreaming(Parser parser, CompilerOptions options, Set<Artifact> artifacts, Sink sink) throws Exception {
+        IntermediateCodeGenerator icg = IntermediateCodeGenerator.getInstance();
+        boolean costReport = wantsCostReport(options, artifacts);
+        boolean lower = artifacts.contains(Artifact.FINAL_CODE) || costReport;
+        AsmCodeGenerator backend = lower ? AsmCodeGenerator.getInstance() : null;
+        Writer listing = artifacts.contains(Artifact.INTERMEDIATE_CODE)
+            ? sink.open(Artifact.INTERMEDIATE_CODE, "intermediate-code.txt")
+            : null;
+        try {
+            if (listing != null) {
+                IntermediateCodeGenerator.writeHeader(listing);
+            }
+            if (lower) {
+                backend.beginStream();
+            }
+            icg.streamTo((base, tokens) -> {
+                if (listing != null) {
+                    IntermediateCodeGenerator.writeTokens(listing, base, tokens);
+                }
+                if (lower) {
+                    backend.lowerStatements(base, tokens);
+                }
+            });
+            parser.parse();
+            icg.endOfStatement();
+            if (listing != null) {
+                IntermediateCodeGenerator.writeFooter(listing);
+            }
+        } catch (Exception e) {
+            if (lower) {
+                backend.abortStream();
+            }
+            throw e;
+        } finally {
+            if (listing != null) {
+                listing.close();
+            }
+        }
+        if (artifacts.contains(Artifact.SYMBOL_TABLE)) {
+            try (Writer writer = sink.open(Artifact.SYMBOL_TABLE, "symbol-table.txt")) {
+                SymbolTableGenerator.getInstance().generate(writer);
+            }
+        }
+        if (artifacts.contains(Artifact.FINAL_CODE)) {
+            try (Writer writer = sink.open(Artifact.FINAL_CODE, backend.getOutputFileName())) {
+                backend.finishStream(writer);
+            }
+        } else if (lower) {
+            backend.finishStream(Writer.nullWriter());
+        }
+        if (costReport) {
+            writeCostReport(sink);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package lyc.compiler.main;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import java_cup.runtime.Symbol;
+import lyc.compiler.Lexer;
+import lyc.compiler.ParserSym;
+import lyc.compiler.factories.LexerFactory;
+import lyc.compiler.files.SymbolTableGenerator;
+import lyc.compiler.model.CompilerException;
+
+/**
+ * Mide solo el analizador léxico sobre un fuente: tokens por segundo y bytes asignados
+ * por token (lo que cuenta la JVM para este hilo, incluidos los Symbol que pide CUP).
+ * Uso: [--rounds=n] archivo
+ */
+public final class LexerBenchmark {
+
+    private static final int WARMUP_ROUNDS = 20;
+
+    private LexerBenchmark() {}
+
+    public static void main(String[] args) throws IOException {
+        String file = null;
+        int rounds = 50;
+        for (String arg : args) {
+            if (arg.startsWith("--rounds=")) {
+                rounds = Integer.parseInt(arg.substring("--rounds=".length()));
+            } else if (file == null) {
+                file = arg;
+            } else {
+                usage();
+                return;
+            }
+        }
+        if (file == null || rounds < 1) {
+            usage();
+            return;
+        }
+        String source = Files.readString(Paths.get(file));
+
+        try {
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                lex(source);
+            }
+            com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long tokens = 0;
+            long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                tokens += lex(source);
+            }
+            long nanos = System.nanoTime() - start;
+            long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+
+            System.out.printf("Tokens por vuelta:     %d%n", tokens / rounds);
+            System.out.printf("Tokens por segundo:    %.0f%n", tokens * 1e9 / nanos);
+            System.out.printf("Bytes por token:       %.1f%n", (double) bytes / tokens);
+        } catch (CompilerException e) {
+            System.err.println("Error léxico: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Una pasada completa con la tabla de símbolos vacía, como en una compilación. */
+    private static long lex(String source) throws IOException, CompilerException {
+        SymbolTableGenerator.getInstance().clear();
+        Lexer lexer = LexerFactory.create(source);
+        long count = 0;
+        for (Symbol token = lexer.next_token(); token.sym != ParserSym.EOF; token = lexer.next_token()) {
+            count++;
+        }
+        return count;
+    }
+
+    private static void usage() {
+        System.out.println("Uso: [--rounds=n] archivo");
+    }
+}
@@ -0,0 +1,131 @@
+package lyc.compiler.main;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Mide el arranque en frío: lanza una JVM nueva por vuelta para compilar un programa de una
+ * sola sentencia (o el archivo dado) y muestra cuánto tarda hasta tenerla compilada, sin y
+ * con el archivo CDS de las clases del compilador que arma run.sh. Cada JVM corre en un
+ * directorio temporal, así que no pisa target/output.
+ * Uso: [--runs=n] [archivo]
+ */
+public final class StartupBenchmark {
+
+    private static final String ONE_STATEMENT = """
+        init {
+            a : Int
+        }
+        a := 1
+        """;
+
+    private StartupBenchmark() {}
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String file = null;
+        int runs = 20;
+        for (String arg : args) {
+            if (arg.startsWith("--runs=")) {
+                runs = Integer.parseInt(arg.substring("--runs=".length()));
+            } else if (file == null) {
+                file = arg;
+            } else {
+                usage();
+                return;
+            }
+        }
+        if (runs < 1) {
+            usage();
+            return;
+        }
+
+        Path directory = Files.createTempDirectory("lyc-startup");
+        try {
+            Path source;
+            if (file != null) {
+                source = Paths.get(file).toAbsolutePath();
+            } else {
+                source = directory.resolve("prog.txt");
+                Files.writeString(source, ONE_STATEMENT);
+            }
+            Path archive = directory.resolve("lyc-compiler.jsa");
+
+            // La primera de cada una no cuenta: arma el archivo CDS y trae el jar al caché del disco
+            run(directory, source, "-XX:ArchiveClassesAtExit=" + archive);
+            long[] plain = measure(directory, source, null, runs);
+            long[] shared = measure(directory, source, "-XX:SharedArchiveFile=" + archive, runs);
+
+            System.out.printf("Sin CDS:    mediana %.1f ms, mejor %.1f ms%n", median(plain) / 1e6, plain[0] / 1e6);
+            System.out.printf("Con CDS:    mediana %.1f ms, mejor %.1f ms%n", median(shared) / 1e6, shared[0] / 1e6);
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    /** Tiempos ordenados de {@code runs} compilaciones, después de una que no se cuenta. */
+    private static long[] measure(Path directory, Path source, String jvmOption, int runs)
+            throws IOException, InterruptedException {
+        run(directory, source, jvmOption);
+        long[] nanos = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            nanos[i] = run(directory, source, jvmOption);
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    /** Compila en una JVM nueva y devuelve cuánto tardó, desde lanzarla hasta que terminó. */
+    private static long run(Path directory, Path source, String jvmOption) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (jvmOption != null) {
+            command.add(jvmOption);
+        }
+        command.add("-cp");
+        command.add(classPath());
+        command.add(Compiler.class.getName());
+        command.add(source.toString());
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+            .directory(directory.toFile())
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        int status = process.waitFor();
+        long nanos = System.nanoTime() - start;
+        if (status != 0) {
+            throw new IllegalStateException("La compilación terminó con código " + status);
+        }
+        return nanos;
+    }
+
+    /** El classpath de esta JVM con rutas absolutas, porque la nueva corre en otro directorio. */
+    private static String classPath() {
+        List<String> entries = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            entries.add(Paths.get(entry).toAbsolutePath().toString());
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static long median(long[] sorted) {
+        return sorted[sorted.length / 2];
+    }
+
+    private static void usage() {
+        System.out.println("Uso: [--runs=n] [archivo]");
+    }
+}
@@ -0,0 +1,13 @@
+package lyc.compiler.model;
+
+/** Salidas que puede producir una compilación. */
+public enum Artifact {
+    /** Tabla de símbolos (symbol-table.txt). */
+    SYMBOL_TABLE,
+    /** Polaca inversa con índices (intermediate-code.txt). */
+    INTERMEDIATE_CODE,
+    /** Código final del backend elegido con --target (final.asm o final.s). */
+    FINAL_CODE,
+    /** Costo del código final por línea y por tipo de sentencia (cost-report.txt), solo con --target=dos. */
+    COST_REPORT
+}
@@ -0,0 +1,35 @@
+package lyc.compiler.model;
+
+/**
+ * Error de compilación con su posición en el fuente. Línea y columna empiezan en 1;
+ * son 0 si el error no se puede ubicar (por ejemplo, datos demasiado grandes para el backend).
+ */
+public final class CompilationError {
+
+    private final int line;
+    private final int column;
+    private final String message;
+
+    public CompilationError(int line, int column, String message) {
+        this.line = line;
+        this.column = column;
+        this.message = message;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return line > 0 ? "%d:%d: %s".formatted(line, column, message) : message;
+    }
+}
@@ -0,0 +1,52 @@
+package lyc.compiler.model;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado de una compilación en memoria: los errores, o las salidas pedidas como texto y
+ * los avisos. Si las salidas se mandaron a un destino del llamador, acá no quedan.
+ */
+public final class CompilationResult {
+
+    private final List<CompilationError> errors;
+    private final Map<Artifact, String> artifacts;
+    private final List<String> warnings;
+
+    private CompilationResult(List<CompilationError> errors, Map<Artifact, String> artifacts,
+                              List<String> warnings) {
+        this.errors = errors;
+        this.artifacts = artifacts;
+        this.warnings = warnings;
+    }
+
+    public static CompilationResult success(Map<Artifact, String> artifacts, List<String> warnings) {
+        Map<Artifact, String> copy = new EnumMap<>(Artifact.class);
+        copy.putAll(artifacts);
+        return new CompilationResult(List.of(), Collections.unmodifiableMap(copy), List.copyOf(warnings));
+    }
+
+    public static CompilationResult failure(CompilationError error) {
+        return new CompilationResult(List.of(error), Map.of(), List.of());
+    }
+
+    public boolean isSuccessful() {
+        return errors.isEmpty();
+    }
+
+    public List<CompilationError> getErrors() {
+        return errors;
+    }
+
+    /** Avisos que no impiden compilar (constantes redondeadas, perfil ignorado). */
+    public List<String> getWarnings() {
+        return warnings;
+    }
+
+    /** Texto de la salida, o null si no se pidió o la compilación falló. */
+    public String getArtifact(Artifact artifact) {
+        return artifacts.get(artifact);
+    }
+}
@@ -7,7 +7,37 @@ public abstract class CompilerException extends Exception {
     @Serial
     private static final long serialVersionUID = -3138875452688305726L;
 
+    // Posición en el fuente (desde 1); 0 si no se conoce
+    private int line;
+    private int column;
+
     public CompilerException(String message) {
         super(message);
     }
+
+    public CompilerException(String message, int line, int column) {
+        super(message);
+        this.line = line;
+        this.column = column;
+    }
+
+    public boolean hasPosition() {
+        return line > 0;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    /** Completa la posición si quien lanzó la excepción no la conocía. */
+    public void setPositionIfUnknown(int line, int column) {
+        if (!hasPosition()) {
+            this.line = line;
+            this.column = column;
+        }
+    }
 }
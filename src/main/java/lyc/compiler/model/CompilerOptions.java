@@ -0,0 +1,376 @@
+package lyc.compiler.model;
+
+import lyc.compiler.constants.Constants;
+
+/**
+ * Opciones de compilación recibidas por línea de comandos.
+ * Formato: [--opcion=valor ...] archivo
+ */
+public class CompilerOptions {
+
+    /** Cómo escribe el runtime por consola. */
+    public enum OutputMode {
+        /** Una llamada a DOS por cadena / dígito (comportamiento original). */
+        UNBUFFERED,
+        /** Acumula en un buffer de .DATA y lo vuelca con una sola INT 21h AH=40h. */
+        BUFFERED
+    }
+
+    /** Plataforma para la que se genera el código final. */
+    public enum Target {
+        /** 16 bits, x87, TASM/DOSBox (final.asm). */
+        DOS,
+        /** x86-64 con SSE2 y syscalls de Linux, para as/ld (final.s). */
+        LINUX64
+    }
+
+    private static CompilerOptions instance;
+
+    private String sourceFile;
+    private OutputMode outputMode = OutputMode.UNBUFFERED;
+    private Target target = Target.DOS;
+    private boolean profileGenerate;
+    private String profileUse;
+    private int unrollFactor = 1;
+    private boolean optimize;
+    private boolean schedule;
+    private boolean promote;
+    private int partialEvalSteps;
+    private boolean costReport;
+    private int fixedPointBits;
+    private int floatDigits = Constants.FLOAT_DIGITS;
+    private int jobs = 1;
+    private boolean streaming;
+    private String emitIr;
+    private boolean fromIr;
+
+    public static CompilerOptions getInstance() {
+        if (instance == null) {
+            instance = new CompilerOptions();
+        }
+        return instance;
+    }
+
+    public static void setInstance(CompilerOptions options) {
+        instance = options;
+    }
+
+    /** Interpreta los argumentos de línea de comandos y deja las opciones como instancia actual. */
+    public static CompilerOptions parse(String[] args) {
+        CompilerOptions options = new CompilerOptions();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                int eq = arg.indexOf('=');
+                String name = eq < 0 ? arg.substring(2) : arg.substring(2, eq);
+                String value = eq < 0 ? "" : arg.substring(eq + 1);
+                options.set(name, value);
+            } else if (options.sourceFile == null) {
+                options.sourceFile = arg;
+            } else {
+                throw new IllegalArgumentException("Se esperaba un solo archivo fuente: " + arg);
+            }
+        }
+        if (options.sourceFile == null) {
+            throw new IllegalArgumentException("Filename must be provided as argument.");
+        }
+        options.validate();
+        setInstance(options);
+        return options;
+    }
+
+    /** Rechaza combinaciones de opciones que no se pueden usar juntas. */
+    public void validate() {
+        // --stream traduce sentencia por sentencia: nada que necesite la polaca entera
+        if (streaming && (target != Target.DOS || unrollFactor > 1 || optimize || jobs > 1
+                || profileGenerate || profileUse != null || emitIr != null || fromIr || partialEvalSteps > 0)) {
+            throw new IllegalArgumentException(
+                "--stream solo se puede usar con --target=dos, sin --unroll, --optimize, --jobs, --profile-*, --partial-eval ni IR binario");
+        }
+        // La salida precalculada tiene el formato del runtime de dos; un programa
+        // instrumentado tiene que ejecutar sus bloques para contarlos
+        if (partialEvalSteps > 0 && (target != Target.DOS || profileGenerate)) {
+            throw new IllegalArgumentException("--partial-eval solo se puede usar con --target=dos y sin --profile-generate");
+        }
+        // Las instrucciones se atribuyen al fuente solo en el backend de dos
+        if (costReport && target != Target.DOS) {
+            throw new IllegalArgumentException("--cost-report solo se puede usar con --target=dos");
+        }
+        // Punto fijo en registros enteros: nada de lo que trabaja sobre la pila x87
+        if (fixedPointBits > 0 && (target != Target.DOS || promote || schedule || partialEvalSteps > 0)) {
+            throw new IllegalArgumentException("--fixed-point solo se puede usar con --target=dos, sin --promote, --schedule ni --partial-eval");
+        }
+        // El runtime de linux64 imprime con su propio formato
+        if (floatDigits != Constants.FLOAT_DIGITS && target != Target.DOS) {
+            throw new IllegalArgumentException("--float-digits solo se puede usar con --target=dos");
+        }
+        if (fromIr && emitIr != null) {
+            throw new IllegalArgumentException("--emit-ir no se puede usar con --from-ir");
+        }
+    }
+
+    private void set(String name, String value) {
+        switch (name) {
+            case "output":
+                this.outputMode = parseEnum(OutputMode.class, name, value);
+                break;
+            case "target":
+                this.target = parseEnum(Target.class, name, value);
+                break;
+            case "profile-generate":
+                if (!value.isEmpty()) {
+                    throw new IllegalArgumentException("--profile-generate no lleva valor");
+                }
+                this.profileGenerate = true;
+                break;
+            case "profile-use":
+                if (value.isEmpty()) {
+                    throw new IllegalArgumentException("Falta el archivo de perfil: --profile-use=archivo");
+                }
+                this.profileUse = value;
+                break;
+            case "unroll":
+                this.unrollFactor = parsePositive(name, value);
+                break;
+            case "optimize":
+                if (!value.isEmpty()) {
+                    throw new IllegalArgumentException("--optimize no lleva valor");
+                }
+                this.optimize = true;
+                break;
+            case "schedule":
+                if (!value.isEmpty()) {
+                    throw new IllegalArgumentException("--schedule no lleva valor");
+                }
+                this.schedule = true;
+                break;
+            case "promote":
+                if (!value.isEmpty()) {
+                    throw new IllegalArgumentException("--promote no lleva valor");
+                }
+                this.promote = true;
+                break;
+            case "partial-eval":
+                this.partialEvalSteps = value.isEmpty() ? Constants.PARTIAL_EVAL_STEPS : parsePositive(name, value);
+                break;
+            case "cost-report":
+                if (!value.isEmpty()) {
+                    throw new IllegalArgumentException("--cost-report no lleva valor");
+                }
+                this.costReport = true;
+                break;
+            case "fixed-point":
+                this.fixedPointBits = value.isEmpty() ? Constants.FIXED_POINT_BITS : parsePositive(name, value);
+                if (fixedPointBits > Constants.FIXED_POINT_MAX_BITS) {
+                    throw new IllegalArgumentException("Valor inválido para --fixed-point: " + value
+                        + " (se espera de 1 a " + Constants.FIXED_POINT_MAX_BITS + ")");
+                }
+                break;
+            case "float-digits":
+                this.floatDigits = parseDigits(name, value);
+                break;
+            case "jobs":
+                this.jobs = parsePositive(name, value);
+                break;
+            case "stream":
+                if (!value.isEmpty()) {
+                    throw new IllegalArgumentException("--stream no lleva valor");
+                }
+                this.streaming = true;
+                break;
+            case "emit-ir":
+                if (value.isEmpty()) {
+                    throw new IllegalArgumentException("Falta el archivo de salida: --emit-ir=archivo");
+                }
+                this.emitIr = value;
+                break;
+            case "from-ir":
+                if (!value.isEmpty()) {
+                    throw new IllegalArgumentException("--from-ir no lleva valor");
+                }
+                this.fromIr = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Opción desconocida: --" + name);
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String name, String value) {
+        for (E constant : type.getEnumConstants()) {
+            if (constant.name().equalsIgnoreCase(value)) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException("Valor inválido para --" + name + ": " + value);
+    }
+
+    private static int parsePositive(String name, String value) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number >= 1) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // cae al error de abajo
+        }
+        throw new IllegalArgumentException("Valor inválido para --" + name + ": " + value + " (se espera un entero >= 1)");
+    }
+
+    private static int parseDigits(String name, String value) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number >= 0 && number <= Constants.FLOAT_MAX_PRINT_DIGITS) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // cae al error de abajo
+        }
+        throw new IllegalArgumentException("Valor inválido para --" + name + ": " + value
+            + " (se espera de 0 a " + Constants.FLOAT_MAX_PRINT_DIGITS + ")");
+    }
+
+    public String getSourceFile() {
+        return sourceFile;
+    }
+
+    public OutputMode getOutputMode() {
+        return outputMode;
+    }
+
+    public void setOutputMode(OutputMode outputMode) {
+        this.outputMode = outputMode;
+    }
+
+    public Target getTarget() {
+        return target;
+    }
+
+    public void setTarget(Target target) {
+        this.target = target;
+    }
+
+    /** Instrumentar el programa para que cuente las ejecuciones de cada bloque. */
+    public boolean isProfileGenerate() {
+        return profileGenerate;
+    }
+
+    public void setProfileGenerate(boolean profileGenerate) {
+        this.profileGenerate = profileGenerate;
+    }
+
+    /** Perfil de una ejecución instrumentada para ordenar los bloques, o null. */
+    public String getProfileUse() {
+        return profileUse;
+    }
+
+    public void setProfileUse(String profileUse) {
+        this.profileUse = profileUse;
+    }
+
+    /** Copias del cuerpo por vuelta al desenrollar bucles con contador; 1 = no desenrollar. */
+    public int getUnrollFactor() {
+        return unrollFactor;
+    }
+
+    public void setUnrollFactor(int unrollFactor) {
+        this.unrollFactor = unrollFactor;
+    }
+
+    /** Propagar copias y borrar asignaciones muertas en la polaca antes del backend. */
+    public boolean isOptimize() {
+        return optimize;
+    }
+
+    public void setOptimize(boolean optimize) {
+        this.optimize = optimize;
+    }
+
+    /** Reordenar el código x87 de cada bloque básico para no esperar latencias. */
+    public boolean isSchedule() {
+        return schedule;
+    }
+
+    public void setSchedule(boolean schedule) {
+        this.schedule = schedule;
+    }
+
+    /** Dejar las variables más usadas de cada while en la pila x87 mientras dura el bucle. */
+    public boolean isPromote() {
+        return promote;
+    }
+
+    public void setPromote(boolean promote) {
+        this.promote = promote;
+    }
+
+    /** Escribir cost-report.txt desde la línea de comandos (en la API, pedir {@code Artifact.COST_REPORT}). */
+    public boolean isCostReport() {
+        return costReport;
+    }
+
+    public void setCostReport(boolean costReport) {
+        this.costReport = costReport;
+    }
+
+    /** Bits de la parte fraccionaria de los números en punto fijo; 0 = reales de la x87. */
+    public int getFixedPointBits() {
+        return fixedPointBits;
+    }
+
+    public void setFixedPointBits(int fixedPointBits) {
+        this.fixedPointBits = fixedPointBits;
+    }
+
+    /** Decimales que imprime write con un Int o Float (--float-digits). */
+    public int getFloatDigits() {
+        return floatDigits;
+    }
+
+    public void setFloatDigits(int floatDigits) {
+        this.floatDigits = floatDigits;
+    }
+
+    /** Tokens de la polaca que se pueden ejecutar al compilar; 0 = sin evaluación parcial. */
+    public int getPartialEvalSteps() {
+        return partialEvalSteps;
+    }
+
+    public void setPartialEvalSteps(int partialEvalSteps) {
+        this.partialEvalSteps = partialEvalSteps;
+    }
+
+    /** Hilos para la generación de código; 1 = secuencial. */
+    public int getJobs() {
+        return jobs;
+    }
+
+    public void setJobs(int jobs) {
+        this.jobs = jobs;
+    }
+
+    /** Traducir cada sentencia apenas se reduce, sin guardar la polaca completa. */
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /** Archivo donde guardar la polaca y la tabla de símbolos en binario, o null. */
+    public String getEmitIr() {
+        return emitIr;
+    }
+
+    public void setEmitIr(String emitIr) {
+        this.emitIr = emitIr;
+    }
+
+    /** El archivo de entrada es código intermedio binario (de --emit-ir), no fuente. */
+    public boolean isFromIr() {
+        return fromIr;
+    }
+
+    public void setFromIr(boolean fromIr) {
+        this.fromIr = fromIr;
+    }
+}
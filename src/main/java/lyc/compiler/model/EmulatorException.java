@@ -0,0 +1,17 @@
+package lyc.compiler.model;
+
+import java.io.Serial;
+
+/**
+ * Error al interpretar o ejecutar el assembler generado en el emulador
+ * (instrucción no soportada, desborde de pila, división por cero, etc.).
+ */
+public class EmulatorException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 4127539067315702218L;
+
+    public EmulatorException(String message) {
+        super(message);
+    }
+}
@@ -4,4 +4,8 @@ public class InvalidLabelException extends CompilerException {
     public InvalidLabelException(String message) {
         super(message);
     }
-}
\ No newline at end of file
+
+    public InvalidLabelException(String message, int line, int column) {
+        super(message, line, column);
+    }
+}
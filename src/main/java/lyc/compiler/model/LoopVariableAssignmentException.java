@@ -0,0 +1,13 @@
+package lyc.compiler.model;
+
+import java.io.Serial;
+
+public class LoopVariableAssignmentException extends CompilerException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public LoopVariableAssignmentException(String message, int line, int column) {
+        super(message, line, column);
+    }
+}
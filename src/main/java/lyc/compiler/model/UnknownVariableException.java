@@ -4,4 +4,8 @@ public class UnknownVariableException extends CompilerException {
     public UnknownVariableException(String message) {
         super(message);
     }
+
+    public UnknownVariableException(String message, int line, int column) {
+        super(message, line, column);
+    }
 }
@@ -0,0 +1,466 @@
+package lyc.compiler.optimizer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import lyc.compiler.files.RpnTokens;
+import lyc.compiler.files.SwitchDispatch;
+import lyc.compiler.files.SymbolTableGenerator;
+
+/**
+ * Propagación de copias y eliminación de asignaciones muertas sobre la polaca.
+ *
+ * <p>Una copia es {@code y x :=} con {@code y} variable o constante del mismo tipo que
+ * {@code x} (una constante entera en una variable Float también cuenta, escrita como real).
+ * Donde una lectura de {@code x} solo puede ver esa copia y {@code y} no cambió desde
+ * entonces, se lee {@code y} directamente. Después se borran las asignaciones cuyo valor
+ * nadie lee antes de que se vuelva a escribir la variable o termine el programa.</p>
+ *
+ * <p>Los backends resuelven la pila de la polaca al compilar, en orden, y leen cada
+ * operando recién cuando lo consume su operador: por eso un uso cuenta en la posición
+ * del operador, aunque el operando se haya apilado antes (los argumentos de
+ * triangleAreaMaximum se apilan todos y se asignan después). Los flujos de datos se
+ * calculan sobre los bloques básicos que dejan los saltos de if, while, for y switch.</p>
+ *
+ * <p>No se tocan las variables String ni las que controlan un for.</p>
+ */
+public final class CopyPropagator {
+
+    private static final String INT = "Int";
+    private static final String FLOAT = "Float";
+    private static final String STRING = "String";
+
+    private int propagated;
+    private int removedStores;
+    // Índice en la polaca recibida de cada token de la polaca actual
+    private int[] origins;
+
+    public List<String> optimize(List<String> rpn) {
+        List<String> current = new ArrayList<>(rpn);
+        origins = new int[rpn.size()];
+        for (int p = 0; p < origins.length; p++) {
+            origins[p] = p;
+        }
+        boolean changed = true;
+        while (changed) {
+            Flow flow = Flow.analyze(current);
+            if (flow == null) {
+                // Polaca que no se puede simular como lo hacen los backends: se deja igual
+                return current;
+            }
+            changed = propagate(flow, current);
+            if (changed) {
+                flow = Flow.analyze(current);
+            }
+            List<String> reduced = removeDeadStores(flow, current);
+            if (reduced != null) {
+                current = reduced;
+                changed = true;
+            }
+        }
+        return current;
+    }
+
+    /** Índice en la polaca recibida de cada token de la última que devolvió {@link #optimize}. */
+    public int[] getOrigins() {
+        return origins;
+    }
+
+    /** Lecturas reemplazadas por el origen de una copia. */
+    public int getPropagated() {
+        return propagated;
+    }
+
+    /** Asignaciones borradas porque nadie leía su valor. */
+    public int getRemovedStores() {
+        return removedStores;
+    }
+
+    // ------------------------------------------------------------------
+    // Propagación (copias disponibles, hacia adelante)
+    // ------------------------------------------------------------------
+
+    private boolean propagate(Flow flow, List<String> rpn) {
+        int blocks = flow.blockStarts.length;
+        List<Map<String, String>> in = new ArrayList<>();
+        for (int b = 0; b < blocks; b++) {
+            in.add(null);
+        }
+        in.set(0, new HashMap<>());
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int b = 0; b < blocks; b++) {
+                if (in.get(b) == null) {
+                    continue;
+                }
+                Map<String, String> available = new HashMap<>(in.get(b));
+                for (int pc = flow.blockStarts[b]; pc < flow.blockEnd(b); pc++) {
+                    transfer(flow, rpn, pc, available, false);
+                }
+                for (int succ : flow.successors.get(b)) {
+                    Map<String, String> current = in.get(succ);
+                    if (current == null) {
+                        in.set(succ, new HashMap<>(available));
+                        changed = true;
+                    } else if (current.entrySet().retainAll(available.entrySet())) {
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        int before = propagated;
+        for (int b = 0; b < blocks; b++) {
+            // Los bloques inalcanzables quedan como están
+            if (in.get(b) == null) {
+                continue;
+            }
+            Map<String, String> available = new HashMap<>(in.get(b));
+            for (int pc = flow.blockStarts[b]; pc < flow.blockEnd(b); pc++) {
+                transfer(flow, rpn, pc, available, true);
+            }
+        }
+        return propagated > before;
+    }
+
+    /**
+     * Efecto de la posición {@code pc} sobre las copias disponibles: primero las lecturas
+     * de sus operandos (que con {@code rewrite} se reemplazan), después lo que escribe.
+     */
+    private void transfer(Flow flow, List<String> rpn, int pc, Map<String, String> available, boolean rewrite) {
+        if (rewrite && flow.consumed[pc] != null) {
+            for (Value operand : flow.consumed[pc]) {
+                if (operand.leaf < 0) {
+                    continue;
+                }
+                String source = available.get(rpn.get(operand.leaf));
+                if (source != null) {
+                    rpn.set(operand.leaf, source);
+                    propagated++;
+                }
+            }
+        }
+        String target = flow.defined[pc];
+        if (target == null) {
+            return;
+        }
+        String source = null;
+        Value value = flow.storedValue[pc];
+        if (value != null && value.leaf >= 0 && isTracked(flow, target)) {
+            String token = rpn.get(value.leaf);
+            source = available.getOrDefault(token, token);
+            if (!RpnTokens.isNumberLiteral(source) && !isTracked(flow, source)) {
+                source = null;
+            } else if (!typeOf(source).equals(typeOf(target))) {
+                source = FLOAT.equals(typeOf(target)) && RpnTokens.isIntegerLiteral(source) ? source + ".0" : null;
+            }
+        }
+        available.remove(target);
+        available.values().removeIf(target::equals);
+        if (source != null && !source.equals(target)) {
+            available.put(target, source);
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Asignaciones muertas (variables vivas, hacia atrás)
+    // ------------------------------------------------------------------
+
+    private List<String> removeDeadStores(Flow flow, List<String> rpn) {
+        int blocks = flow.blockStarts.length;
+        List<Set<String>> liveIn = new ArrayList<>();
+        for (int b = 0; b < blocks; b++) {
+            liveIn.add(new HashSet<>());
+        }
+        List<Integer> dead = new ArrayList<>();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            dead.clear();
+            for (int b = blocks - 1; b >= 0; b--) {
+                Set<String> live = new HashSet<>();
+                for (int succ : flow.successors.get(b)) {
+                    live.addAll(liveIn.get(succ));
+                }
+                for (int pc = flow.blockEnd(b) - 1; pc >= flow.blockStarts[b]; pc--) {
+                    String target = flow.defined[pc];
+                    if (target != null) {
+                        if (flow.storedValue[pc] != null && !live.contains(target) && isTracked(flow, target)) {
+                            dead.add(pc);
+                        }
+                        live.remove(target);
+                    }
+                    if (flow.consumed[pc] != null) {
+                        for (Value operand : flow.consumed[pc]) {
+                            if (operand.leaf >= 0 && isVariable(rpn.get(operand.leaf))) {
+                                live.add(rpn.get(operand.leaf));
+                            }
+                        }
+                    }
+                }
+                if (!live.equals(liveIn.get(b))) {
+                    liveIn.set(b, live);
+                    changed = true;
+                }
+            }
+        }
+        if (dead.isEmpty()) {
+            return null;
+        }
+
+        List<String> reduced = remove(flow, rpn, dead, false);
+        if (reduced == null) {
+            // Sacar un operando apilado lejos de su := puede volver unario un '-' del medio
+            reduced = remove(flow, rpn, dead, true);
+        }
+        return reduced;
+    }
+
+    /** Polaca sin las asignaciones {@code dead}, o null si no cambia o no se puede. */
+    private List<String> remove(Flow flow, List<String> rpn, List<Integer> dead, boolean contiguousOnly) {
+        boolean[] drop = new boolean[rpn.size()];
+        int count = 0;
+        for (int pc : dead) {
+            List<Integer> positions = new ArrayList<>(flow.storedValue[pc].positions);
+            positions.add(flow.storeTarget[pc]);
+            positions.add(pc);
+            if (contiguousOnly && positions.stream().mapToInt(Integer::intValue).min().getAsInt() != pc + 1 - positions.size()) {
+                continue;
+            }
+            for (int p : positions) {
+                drop[p] = true;
+            }
+            count++;
+        }
+        if (count == 0) {
+            return null;
+        }
+
+        List<String> out = new ArrayList<>(rpn.size());
+        int[] oldToNew = new int[rpn.size() + 1];
+        for (int p = 0; p < rpn.size(); p++) {
+            oldToNew[p] = out.size();
+            if (!drop[p]) {
+                out.add(rpn.get(p));
+            }
+        }
+        oldToNew[rpn.size()] = out.size();
+        for (int p = 0; p + 1 < out.size(); p++) {
+            if (RpnTokens.isBranch(out.get(p))) {
+                out.set(p + 1, String.valueOf(oldToNew[Integer.parseInt(out.get(p + 1))]));
+                p++;
+            }
+        }
+
+        Flow check = Flow.analyze(out);
+        if (check == null) {
+            return null;
+        }
+        for (int p = 0; p < rpn.size(); p++) {
+            if (!drop[p] && flow.unary[p] != check.unary[oldToNew[p]]) {
+                return null;
+            }
+        }
+        removedStores += count;
+        int[] kept = new int[out.size()];
+        for (int p = 0; p < rpn.size(); p++) {
+            if (!drop[p]) {
+                kept[oldToNew[p]] = origins[p];
+            }
+        }
+        origins = kept;
+        return out;
+    }
+
+    // ------------------------------------------------------------------
+
+    private static boolean isVariable(String token) {
+        return !RpnTokens.isNumberLiteral(token) && !RpnTokens.isStringLiteral(token);
+    }
+
+    /** Variables que el pase puede propagar y borrar. */
+    private static boolean isTracked(Flow flow, String token) {
+        return isVariable(token) && !STRING.equals(typeOf(token)) && !flow.loopVariables.contains(token);
+    }
+
+    private static String typeOf(String token) {
+        if (RpnTokens.isNumberLiteral(token)) {
+            return RpnTokens.isIntegerLiteral(token) ? INT : FLOAT;
+        }
+        String type = SymbolTableGenerator.getInstance().getVariableType(token);
+        // Las auxiliares de triangleAreaMaximum no están declaradas: los backends las tratan como Float
+        return type == null ? FLOAT : type;
+    }
+
+    /** Un valor de la pila: un operando de la polaca ({@code leaf}) o el resultado de una cuenta. */
+    private static final class Value {
+        final int leaf;
+        final List<Integer> positions;
+
+        Value(int leaf, List<Integer> positions) {
+            this.leaf = leaf;
+            this.positions = positions;
+        }
+    }
+
+    /**
+     * La polaca simulada como la recorren los backends: qué consume y qué escribe cada
+     * posición, y los bloques básicos con sus sucesores.
+     */
+    private static final class Flow {
+        Value[][] consumed;
+        String[] defined;
+        Value[] storedValue;
+        int[] storeTarget;
+        boolean[] unary;
+        final Set<String> loopVariables = new HashSet<>();
+        int[] blockStarts;
+        int size;
+        final List<List<Integer>> successors = new ArrayList<>();
+
+        int blockEnd(int b) {
+            return b + 1 < blockStarts.length ? blockStarts[b + 1] : size;
+        }
+
+        static Flow analyze(List<String> rpn) {
+            int n = rpn.size();
+            Flow flow = new Flow();
+            flow.size = n;
+            flow.consumed = new Value[n][];
+            flow.defined = new String[n];
+            flow.storedValue = new Value[n];
+            flow.storeTarget = new int[n];
+            flow.unary = new boolean[n];
+
+            TreeSet<Integer> leaders = new TreeSet<>();
+            leaders.add(0);
+            // Fin de bloque (posición que sigue al salto) -> destinos, y si además sigue de largo
+            Map<Integer, List<Integer>> jumps = new HashMap<>();
+            List<Value> stack = new ArrayList<>();
+
+            for (int pc = 0; pc < n; pc++) {
+                String tok = rpn.get(pc);
+                if (RpnTokens.isArithmeticOperator(tok)) {
+                    if (tok.equals("-") && stack.size() < 2) {
+                        if (stack.isEmpty()) return null;
+                        Value operand = pop(stack);
+                        flow.consumed[pc] = new Value[] {operand};
+                        flow.unary[pc] = true;
+                        stack.add(computed(pc, operand));
+                    } else {
+                        if (stack.size() < 2) return null;
+                        Value right = pop(stack);
+                        Value left = pop(stack);
+                        flow.consumed[pc] = new Value[] {left, right};
+                        stack.add(computed(pc, left, right));
+                    }
+                } else if (tok.equals(":=")) {
+                    if (stack.size() < 2) return null;
+                    Value target = pop(stack);
+                    Value source = pop(stack);
+                    if (target.leaf < 0) return null;
+                    flow.consumed[pc] = new Value[] {source};
+                    flow.defined[pc] = rpn.get(target.leaf);
+                    flow.storedValue[pc] = source;
+                    flow.storeTarget[pc] = target.leaf;
+                } else if (tok.equals("CMP")) {
+                    if (stack.size() < 2) return null;
+                    Value right = pop(stack);
+                    flow.consumed[pc] = new Value[] {pop(stack), right};
+                } else if (RpnTokens.isWrite(tok)) {
+                    if (stack.isEmpty()) return null;
+                    flow.consumed[pc] = new Value[] {pop(stack)};
+                } else if (tok.equals("READ")) {
+                    if (stack.isEmpty() || stack.get(stack.size() - 1).leaf < 0) return null;
+                    flow.defined[pc] = rpn.get(pop(stack).leaf);
+                } else if (tok.equals(RpnTokens.SWITCH)) {
+                    if (stack.isEmpty()) return null;
+                    flow.consumed[pc] = new Value[] {pop(stack)};
+                    SwitchDispatch dispatch = SwitchDispatch.read(rpn, pc);
+                    List<Integer> targets = new ArrayList<>();
+                    for (SwitchDispatch.Case c : dispatch.getCases()) {
+                        targets.add(c.getTarget());
+                    }
+                    targets.add(dispatch.getDefaultTarget());
+                    leaders.addAll(targets);
+                    leaders.add(dispatch.getEnd());
+                    jumps.put(dispatch.getEnd(), targets);
+                    pc = dispatch.getEnd() - 1;
+                } else if (tok.equals(RpnTokens.FOR) || tok.equals(RpnTokens.NEXT)) {
+                    int operands = tok.equals(RpnTokens.FOR) ? 3 : 2;
+                    if (stack.size() < operands) return null;
+                    pop(stack);
+                    Value variable = pop(stack);
+                    if (variable.leaf < 0) return null;
+                    flow.consumed[pc] = operands == 3 ? new Value[] {pop(stack), variable} : new Value[] {variable};
+                    flow.defined[pc] = rpn.get(variable.leaf);
+                    flow.loopVariables.add(rpn.get(variable.leaf));
+                    addJump(rpn, pc, true, leaders, jumps);
+                    pc++;
+                } else if (RpnTokens.isBranch(tok)) {
+                    addJump(rpn, pc, !tok.equals("BI"), leaders, jumps);
+                    pc++;
+                } else if (RpnTokens.isControlToken(tok)) {
+                    return null;
+                } else {
+                    List<Integer> positions = new ArrayList<>(1);
+                    positions.add(pc);
+                    stack.add(new Value(pc, positions));
+                }
+            }
+
+            leaders.removeIf(p -> p >= n);
+            flow.blockStarts = leaders.stream().mapToInt(Integer::intValue).toArray();
+            Map<Integer, Integer> blockAt = new HashMap<>();
+            for (int b = 0; b < flow.blockStarts.length; b++) {
+                blockAt.put(flow.blockStarts[b], b);
+            }
+            for (int b = 0; b < flow.blockStarts.length; b++) {
+                int end = flow.blockEnd(b);
+                List<Integer> targets = jumps.getOrDefault(end, List.of(end));
+                List<Integer> blocks = new ArrayList<>();
+                for (int target : targets) {
+                    Integer succ = blockAt.get(target);
+                    if (succ != null) {
+                        blocks.add(succ);
+                    }
+                }
+                flow.successors.add(blocks);
+            }
+            return flow;
+        }
+
+        private static void addJump(List<String> rpn, int pc, boolean fallsThrough,
+                                    Set<Integer> leaders, Map<Integer, List<Integer>> jumps) {
+            int target = Integer.parseInt(rpn.get(pc + 1));
+            List<Integer> targets = new ArrayList<>();
+            targets.add(target);
+            if (fallsThrough) {
+                targets.add(pc + 2);
+            }
+            leaders.add(target);
+            leaders.add(pc + 2);
+            jumps.put(pc + 2, targets);
+        }
+
+        private static Value pop(List<Value> stack) {
+            return stack.remove(stack.size() - 1);
+        }
+
+        private static Value computed(int pc, Value... operands) {
+            List<Integer> positions = new ArrayList<>();
+            for (Value operand : operands) {
+                positions.addAll(operand.positions);
+            }
+            positions.add(pc);
+            return new Value(-1, positions);
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package lyc.compiler.optimizer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lyc.compiler.constants.Constants;
+import lyc.compiler.files.RpnTokens;
+import lyc.compiler.files.SymbolTableGenerator;
+
+/**
+ * Desenrolla los while con cantidad de vueltas conocida en compilación, sobre la polaca.
+ *
+ * <p>Reconoce la forma que deja el parser para un contador:</p>
+ * <pre>
+ *   c0 i :=  ...            (valor inicial constante, en el mismo bloque básico)
+ *   W: x y CMP B E          (x e y son i y una constante, en cualquier orden)
+ *      cuerpo               (no escribe i ni la cota)
+ *      i c + i :=           (o i c -, c i +; c entero)
+ *      BI W
+ *   E:
+ * </pre>
+ * <p>Si el cuerpo repetido entra en {@link Constants#UNROLL_TOKEN_BUDGET} tokens el bucle
+ * se reemplaza por las copias. Si no, el cuerpo se repite {@code factor} veces dentro de
+ * un solo chequeo y las vueltas sobrantes ({@code n % factor}) van delante, sin chequeo:
+ * como después de ellas lo que falta es múltiplo de {@code factor}, la condición original
+ * sigue siendo la correcta para cada grupo.</p>
+ */
+public final class LoopUnroller {
+
+    // Más vueltas que esto no se simulan: el bucle queda como está
+    private static final int MAX_TRIP_COUNT = 1 << 20;
+    // Enteros exactos en un float de 32 bits (así guarda las variables el backend DOS)
+    private static final double MAX_EXACT = 1 << 24;
+
+    private final int factor;
+    private final int budget;
+    private int fullyUnrolled;
+    private int partiallyUnrolled;
+    // Índice en la polaca recibida de cada token de la polaca actual
+    private int[] origins;
+
+    public LoopUnroller(int factor) {
+        this(factor, Constants.UNROLL_TOKEN_BUDGET);
+    }
+
+    public LoopUnroller(int factor, int budget) {
+        this.factor = factor;
+        this.budget = budget;
+    }
+
+    public List<String> optimize(List<String> rpn) {
+        List<String> current = new ArrayList<>(rpn);
+        origins = new int[rpn.size()];
+        for (int p = 0; p < origins.length; p++) {
+            origins[p] = p;
+        }
+        // Los bucles internos cierran antes: recorrer los BI en orden los procesa primero.
+        // Tras cada cambio se recorre de nuevo, porque los índices se movieron.
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int j = 0; j < current.size(); j++) {
+                if (!RpnTokens.isBranch(current.get(j))) {
+                    continue;
+                }
+                if (current.get(j).equals("BI") && Integer.parseInt(current.get(j + 1)) < j) {
+                    List<String> rewritten = tryUnroll(current, Integer.parseInt(current.get(j + 1)), j);
+                    if (rewritten != null) {
+                        current = rewritten;
+                        changed = true;
+                        break;
+                    }
+                }
+                j++;
+            }
+        }
+        return current;
+    }
+
+    /** Índice en la polaca recibida de cada token de la última que devolvió {@link #optimize}. */
+    public int[] getOrigins() {
+        return origins;
+    }
+
+    public int getFullyUnrolled() {
+        return fullyUnrolled;
+    }
+
+    public int getPartiallyUnrolled() {
+        return partiallyUnrolled;
+    }
+
+    private List<String> tryUnroll(List<String> rpn, int loopStart, int backEdge) {
+        int loopEnd = backEdge + 2;
+        int bodyStart = loopStart + 5;
+        if (bodyStart > backEdge
+            || !rpn.get(loopStart + 2).equals("CMP")
+            || !RpnTokens.isBranch(rpn.get(loopStart + 3))
+            || rpn.get(loopStart + 3).equals("BI")
+            || Integer.parseInt(rpn.get(loopStart + 4)) != loopEnd) {
+            return null;
+        }
+        String left = rpn.get(loopStart);
+        String right = rpn.get(loopStart + 1);
+        String exitBranch = rpn.get(loopStart + 3);
+
+        // Incremento al final del cuerpo: i c + i :=
+        if (backEdge - 5 < bodyStart) {
+            return null;
+        }
+        String var = rpn.get(backEdge - 2);
+        if (!rpn.get(backEdge - 1).equals(":=") || !"Int".equals(typeOf(var))) {
+            return null;
+        }
+        String a = rpn.get(backEdge - 5);
+        String b = rpn.get(backEdge - 4);
+        String op = rpn.get(backEdge - 3);
+        long step;
+        if (a.equals(var) && RpnTokens.isIntegerLiteral(b) && (op.equals("+") || op.equals("-"))) {
+            step = op.equals("+") ? Long.parseLong(b) : -Long.parseLong(b);
+        } else if (b.equals(var) && RpnTokens.isIntegerLiteral(a) && op.equals("+")) {
+            step = Long.parseLong(a);
+        } else {
+            return null;
+        }
+        if (step == 0) {
+            return null;
+        }
+
+        String bound;
+        if (left.equals(var)) {
+            bound = right;
+        } else if (right.equals(var)) {
+            bound = left;
+        } else {
+            return null;
+        }
+
+        // El cuerpo no puede tocar i ni la cota, y sus saltos tienen que quedar adentro
+        if (writes(rpn, bodyStart, backEdge - 5, var) || writes(rpn, bodyStart, backEdge, bound)) {
+            return null;
+        }
+        for (int p = bodyStart; p < backEdge; p++) {
+            if (RpnTokens.isBranch(rpn.get(p))) {
+                int target = Integer.parseInt(rpn.get(p + 1));
+                if (target < bodyStart || target > backEdge) {
+                    return null;
+                }
+                p++;
+            }
+        }
+        // Y de afuera solo se puede entrar por W
+        for (int p = 0; p < rpn.size(); p++) {
+            if (RpnTokens.isBranch(rpn.get(p))) {
+                int target = Integer.parseInt(rpn.get(p + 1));
+                boolean inside = p >= loopStart && p < loopEnd;
+                if (!inside && target > loopStart && target < loopEnd) {
+                    return null;
+                }
+                p++;
+            }
+        }
+
+        Map<String, Double> known = constantsBefore(rpn, loopStart);
+        Double start = known.get(var);
+        Double limit = RpnTokens.isNumberLiteral(bound) ? Double.valueOf(bound) : known.get(bound);
+        if (start == null || limit == null || start != Math.rint(start)) {
+            return null;
+        }
+        int trips = tripCount(start, step, limit, left.equals(var), exitBranch);
+        if (trips < 0) {
+            return null;
+        }
+
+        int bodyLength = backEdge - bodyStart;
+        if ((long) trips * bodyLength <= budget) {
+            fullyUnrolled++;
+            return rewrite(rpn, loopStart, backEdge, trips, 0);
+        }
+        int k = Math.min(factor, budget / bodyLength);
+        if (k < 2 || trips < 2 * k) {
+            return null;
+        }
+        partiallyUnrolled++;
+        return rewrite(rpn, loopStart, backEdge, trips % k, k);
+    }
+
+    /**
+     * Cantidad de vueltas simulando el contador, o -1 si no termina dentro del límite
+     * o sale del rango en que los enteros son exactos.
+     */
+    private static int tripCount(double start, long step, double limit, boolean varOnLeft, String exitBranch) {
+        double value = start;
+        for (int trips = 0; trips <= MAX_TRIP_COUNT; trips++) {
+            if (Math.abs(value) > MAX_EXACT) {
+                return -1;
+            }
+            double x = varOnLeft ? value : limit;
+            double y = varOnLeft ? limit : value;
+            if (exits(exitBranch, x, y)) {
+                return trips;
+            }
+            value += step;
+        }
+        return -1;
+    }
+
+    private static boolean exits(String branch, double x, double y) {
+        switch (branch) {
+            case "BLE": return x <= y;
+            case "BGE": return x >= y;
+            case "BLT": return x < y;
+            case "BGT": return x > y;
+            case "BEQ": return x == y;
+            case "BNE": return x != y;
+        }
+        throw new IllegalArgumentException("Salto condicional desconocido: " + branch);
+    }
+
+    /**
+     * Arma la polaca nueva: [0, W) igual, después {@code prologue} copias del cuerpo y,
+     * si {@code groupSize > 0}, el bucle con {@code groupSize} copias por vuelta; luego [E, fin).
+     * Los destinos de salto se recalculan.
+     */
+    private List<String> rewrite(List<String> rpn, int loopStart, int backEdge, int prologue, int groupSize) {
+        int loopEnd = backEdge + 2;
+        int bodyStart = loopStart + 5;
+        List<String> out = new ArrayList<>(rpn.size());
+        List<Integer> sources = new ArrayList<>(rpn.size());
+        int[] oldToNew = new int[rpn.size() + 1];
+        List<Integer> outsideJumps = new ArrayList<>();
+
+        copyOutside(rpn, 0, loopStart, out, sources, oldToNew, outsideJumps);
+        oldToNew[loopStart] = out.size();
+
+        for (int n = 0; n < prologue; n++) {
+            copyBody(rpn, bodyStart, backEdge, out, sources);
+        }
+        if (groupSize > 0) {
+            int condition = out.size();
+            for (int p = loopStart; p < bodyStart - 1; p++) {
+                out.add(rpn.get(p));
+                sources.add(p);
+            }
+            int exitSlot = out.size();
+            out.add(RpnTokens.PLACEHOLDER);
+            sources.add(bodyStart - 1);
+            for (int n = 0; n < groupSize; n++) {
+                copyBody(rpn, bodyStart, backEdge, out, sources);
+            }
+            out.add("BI");
+            out.add(String.valueOf(condition));
+            sources.add(backEdge);
+            sources.add(backEdge + 1);
+            out.set(exitSlot, String.valueOf(out.size()));
+        }
+
+        copyOutside(rpn, loopEnd, rpn.size(), out, sources, oldToNew, outsideJumps);
+        oldToNew[rpn.size()] = out.size();
+
+        for (int slot : outsideJumps) {
+            out.set(slot, String.valueOf(oldToNew[Integer.parseInt(out.get(slot))]));
+        }
+        int[] composed = new int[out.size()];
+        for (int p = 0; p < composed.length; p++) {
+            composed[p] = origins[sources.get(p)];
+        }
+        origins = composed;
+        return out;
+    }
+
+    private static void copyOutside(List<String> rpn, int from, int to, List<String> out, List<Integer> sources,
+                                    int[] oldToNew, List<Integer> outsideJumps) {
+        for (int p = from; p < to; p++) {
+            oldToNew[p] = out.size();
+            out.add(rpn.get(p));
+            sources.add(p);
+            if (RpnTokens.isBranch(rpn.get(p))) {
+                oldToNew[p + 1] = out.size();
+                outsideJumps.add(out.size());
+                out.add(rpn.get(++p));
+                sources.add(p);
+            }
+        }
+    }
+
+    /** Copia [from, to) corrigiendo los saltos internos para que apunten dentro de la copia. */
+    private static void copyBody(List<String> rpn, int from, int to, List<String> out, List<Integer> sources) {
+        int base = out.size();
+        for (int p = from; p < to; p++) {
+            out.add(rpn.get(p));
+            sources.add(p);
+            if (RpnTokens.isBranch(rpn.get(p))) {
+                int target = Integer.parseInt(rpn.get(++p));
+                out.add(String.valueOf(base + target - from));
+                sources.add(p);
+            }
+        }
+    }
+
+    /** ¿Algún := o READ en [from, to) escribe {@code name}? */
+    private static boolean writes(List<String> rpn, int from, int to, String name) {
+        for (int p = from + 1; p < to; p++) {
+            String tok = rpn.get(p);
+            if ((tok.equals(":=") || tok.equals("READ")) && rpn.get(p - 1).equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Variables con valor constante al llegar a {@code end}, mirando solo el bloque
+     * básico que termina ahí (asignaciones {@code c x :=} o {@code y x :=} con y conocida).
+     */
+    private static Map<String, Double> constantsBefore(List<String> rpn, int end) {
+        int blockStart = 0;
+        Set<Integer> targets = new HashSet<>();
+        for (int p = 0; p < rpn.size(); p++) {
+            if (RpnTokens.isBranch(rpn.get(p))) {
+                targets.add(Integer.parseInt(rpn.get(p + 1)));
+                if (p + 2 <= end) {
+                    blockStart = Math.max(blockStart, p + 2);
+                }
+                p++;
+            }
+        }
+        for (int target : targets) {
+            if (target < end) {
+                blockStart = Math.max(blockStart, target);
+            }
+        }
+
+        Map<String, Double> known = new HashMap<>();
+        int statementStart = blockStart;
+        for (int p = blockStart; p < end; p++) {
+            String tok = rpn.get(p);
+            if (tok.equals(":=")) {
+                String dst = rpn.get(p - 1);
+                String src = rpn.get(p - 2);
+                Double value = null;
+                if (p - statementStart == 2) {
+                    value = RpnTokens.isNumberLiteral(src) ? Double.valueOf(src) : known.get(src);
+                }
+                if (value != null) {
+                    known.put(dst, value);
+                } else {
+                    known.remove(dst);
+                }
+            } else if (tok.equals("READ")) {
+                known.remove(rpn.get(p - 1));
+            } else if (!RpnTokens.isWrite(tok)) {
+                continue;
+            }
+            statementStart = p + 1;
+        }
+        return known;
+    }
+
+    private static String typeOf(String name) {
+        return SymbolTableGenerator.getInstance().getVariableType(name);
+    }
+}
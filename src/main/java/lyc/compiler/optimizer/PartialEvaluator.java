@@ -0,0 +1,396 @@
+package lyc.compiler.optimizer;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lyc.compiler.files.ForLoops;
+import lyc.compiler.files.RpnTokens;
+import lyc.compiler.files.SwitchDispatch;
+import lyc.compiler.files.SymbolTableGenerator;
+
+/**
+ * Evaluación parcial (--partial-eval): ejecuta la polaca al compilar, con la misma
+ * aritmética que el código x87 del backend dos (cada resultado se guarda como real de
+ * 4 bytes) y el mismo formato de write.
+ *
+ * <p>Se detiene en el primer read, al agotar los pasos o ante algo que no sabe reproducir
+ * exactamente (una división por cero o un desborde, un número que no entra en la parte
+ * entera que imprime el runtime, un for con límites no enteros). Si llega al final, la salida del
+ * programa es {@link #getOutput()}. Si no, el estado sirve para retomar desde la última
+ * sentencia fuera de todo bucle que empezó con la pila vacía: esas sentencias se
+ * ejecutan una sola vez, así que basta deshacer lo que cambió desde ahí.</p>
+ */
+public final class PartialEvaluator {
+
+    // Variable que no tenía valor asignado (vale cero)
+    private static final Object UNSET = new Object();
+
+    /** Lo que se dejó de evaluar y por qué. */
+    public enum Stop {
+        /** Llegó al final del programa. */
+        END,
+        /** El programa lee de la entrada. */
+        READ,
+        /** Se agotaron los pasos. */
+        BUDGET,
+        /** Algo que no se reproduce exactamente al compilar. */
+        UNSUPPORTED
+    }
+
+    private final long budget;
+    private final int maxOutput;
+    private final int floatDigits;
+
+    private final Map<String, Float> numbers = new HashMap<>();
+    private final Map<String, String> strings = new HashMap<>();
+    private final StringBuilder output = new StringBuilder();
+    private long steps;
+    private Stop stop;
+    private int resume;
+
+    // Valores anteriores de lo que cambió desde la última sentencia donde se puede retomar
+    private final Map<String, Object> undo = new LinkedHashMap<>();
+    private int outputMark;
+
+    /**
+     * @param budget    tokens de la polaca que se pueden ejecutar
+     * @param maxOutput caracteres de salida que se pueden acumular
+     * @param floatDigits decimales que imprime write (--float-digits)
+     */
+    public PartialEvaluator(long budget, int maxOutput, int floatDigits) {
+        this.budget = budget;
+        this.maxOutput = maxOutput;
+        this.floatDigits = floatDigits;
+    }
+
+    /** Evalúa {@code rpn} desde el comienzo con todas las variables en cero. */
+    public void evaluate(List<String> rpn) {
+        numbers.clear();
+        strings.clear();
+        output.setLength(0);
+        undo.clear();
+        steps = 0;
+        resume = 0;
+        outputMark = 0;
+        stop = run(rpn);
+        if (stop == Stop.END) {
+            resume = rpn.size();
+        } else {
+            rollBack();
+        }
+    }
+
+    public Stop getStop() {
+        return stop;
+    }
+
+    /** Posición de la polaca desde donde sigue el programa (el tamaño si terminó). */
+    public int getResumePoint() {
+        return resume;
+    }
+
+    /** Lo que el programa escribe antes de {@link #getResumePoint()}. */
+    public String getOutput() {
+        return output.toString();
+    }
+
+    /** Variables numéricas distintas de cero al llegar a {@link #getResumePoint()}. */
+    public Map<String, Float> getNumbers() {
+        Map<String, Float> nonZero = new HashMap<>();
+        numbers.forEach((name, value) -> {
+            if (Float.floatToRawIntBits(value) != 0) {
+                nonZero.put(name, value);
+            }
+        });
+        return nonZero;
+    }
+
+    /** Variables String asignadas (con el literal, entre comillas) al llegar a {@link #getResumePoint()}. */
+    public Map<String, String> getStrings() {
+        return strings;
+    }
+
+    /** Tokens ejecutados, incluidos los que después se deshicieron. */
+    public long getSteps() {
+        return steps;
+    }
+
+    private Stop run(List<String> rpn) {
+        SymbolTableGenerator symbolTable = SymbolTableGenerator.getInstance();
+        ForLoops forLoops = new ForLoops();
+        forLoops.scan(rpn, 0, rpn.size());
+        boolean[] inLoop = loopPositions(rpn);
+        Map<Integer, Long> remaining = new HashMap<>();
+        List<Object> stack = new ArrayList<>();
+        int flags = 0;
+        // Dentro de un write con varios argumentos: no se retoma a mitad de la línea
+        boolean lineOpen = false;
+
+        int pc = 0;
+        while (pc < rpn.size()) {
+            String token = rpn.get(pc);
+            if (stack.isEmpty() && !lineOpen && !inLoop[pc] && !RpnTokens.isBranch(token)) {
+                mark(pc);
+            }
+            if (++steps > budget) {
+                return Stop.BUDGET;
+            }
+
+            if (token.equals("READ")) {
+                return Stop.READ;
+            }
+            if (RpnTokens.isWrite(token)) {
+                Object operand = pop(stack);
+                String text = operand instanceof String name ? textOf(name, symbolTable) : null;
+                if (text == null) {
+                    Float value = valueOf(operand, symbolTable);
+                    text = value == null ? null : formatFloat(value, floatDigits);
+                }
+                if (text == null || output.length() + text.length() + 2 > maxOutput) {
+                    return Stop.UNSUPPORTED;
+                }
+                lineOpen = token.equals(RpnTokens.WRITE_PART);
+                output.append(text);
+                if (!lineOpen) {
+                    output.append("\r\n");
+                }
+                pc++;
+            } else if (RpnTokens.isArithmeticOperator(token)) {
+                if (token.equals("-") && stack.size() < 2) {
+                    Float value = valueOf(pop(stack), symbolTable);
+                    if (value == null) {
+                        return Stop.UNSUPPORTED;
+                    }
+                    stack.add(-value);
+                } else {
+                    Float right = valueOf(pop(stack), symbolTable);
+                    Float left = valueOf(pop(stack), symbolTable);
+                    if (left == null || right == null || (token.equals("/") && right == 0)) {
+                        return Stop.UNSUPPORTED;
+                    }
+                    float result = arithmetic(token, left, right);
+                    if (Float.isInfinite(result) || Float.isNaN(result)) {
+                        return Stop.UNSUPPORTED;
+                    }
+                    stack.add(result);
+                }
+                pc++;
+            } else if (token.equals(":=")) {
+                String target = (String) pop(stack);
+                Object source = pop(stack);
+                if ("String".equals(symbolTable.getVariableType(target))) {
+                    if (!(source instanceof String literal) || !RpnTokens.isStringLiteral(literal)) {
+                        return Stop.UNSUPPORTED;
+                    }
+                    record(target);
+                    strings.put(target, literal);
+                } else {
+                    Float value = valueOf(source, symbolTable);
+                    if (value == null) {
+                        return Stop.UNSUPPORTED;
+                    }
+                    record(target);
+                    numbers.put(target, value);
+                }
+                pc++;
+            } else if (token.equals("CMP")) {
+                Float right = valueOf(pop(stack), symbolTable);
+                Float left = valueOf(pop(stack), symbolTable);
+                if (left == null || right == null) {
+                    return Stop.UNSUPPORTED;
+                }
+                float a = left;
+                float b = right;
+                flags = Float.isNaN(a) || Float.isNaN(b) ? 2 : a < b ? -1 : a == b ? 0 : 1;
+                pc++;
+            } else if (token.equals(RpnTokens.SWITCH)) {
+                Float selector = valueOf(pop(stack), symbolTable);
+                if (selector == null || Float.isNaN(selector) || Math.abs(selector) >= Integer.MAX_VALUE) {
+                    return Stop.UNSUPPORTED;
+                }
+                SwitchDispatch dispatch = SwitchDispatch.read(rpn, pc);
+                double rounded = Math.rint(selector);
+                pc = dispatch.getDefaultTarget();
+                if (rounded == selector) {
+                    for (SwitchDispatch.Case c : dispatch.getCases()) {
+                        if (c.getValue() == (long) rounded) {
+                            pc = c.getTarget();
+                        }
+                    }
+                }
+            } else if (token.equals(RpnTokens.FOR)) {
+                pop(stack);
+                String variable = (String) pop(stack);
+                Float limit = valueOf(pop(stack), symbolTable);
+                Float start = valueOf(variable, symbolTable);
+                long step = Long.parseLong(rpn.get(pc - 1));
+                if (limit == null || start == null || !isExactInteger(start) || Math.abs(limit) >= 1 << 24) {
+                    return Stop.UNSUPPORTED;
+                }
+                // La cuenta de vueltas del backend: (limite - inicio) / paso + 1, en enteros
+                long difference = step > 0 ? (long) Math.rint(limit) - start.longValue() : start.longValue() - (long) Math.rint(limit);
+                if (difference < 0) {
+                    pc = Integer.parseInt(rpn.get(pc + 1));
+                } else {
+                    remaining.put(pc, difference / Math.abs(step) + 1);
+                    pc += 2;
+                }
+            } else if (token.equals(RpnTokens.NEXT)) {
+                long step = Long.parseLong(rpn.get(pc - 1));
+                pop(stack);
+                String variable = (String) pop(stack);
+                float next = numbers.getOrDefault(variable, 0f) + step;
+                if (!isExactInteger(next)) {
+                    return Stop.UNSUPPORTED;
+                }
+                record(variable);
+                numbers.put(variable, next);
+                int start = forLoops.startOf(pc);
+                long left = remaining.merge(start, -1L, Long::sum);
+                pc = left != 0 ? Integer.parseInt(rpn.get(pc + 1)) : pc + 2;
+            } else if (RpnTokens.isBranch(token)) {
+                pc = jumps(token, flags) ? Integer.parseInt(rpn.get(pc + 1)) : pc + 2;
+            } else if (RpnTokens.isControlToken(token)) {
+                return Stop.UNSUPPORTED;
+            } else {
+                stack.add(token);
+                pc++;
+            }
+        }
+        return Stop.END;
+    }
+
+    /** Posiciones dentro de algún bucle (while o for): desde el destino del salto hacia atrás hasta el salto. */
+    private static boolean[] loopPositions(List<String> rpn) {
+        boolean[] inLoop = new boolean[rpn.size()];
+        for (int pc = 0; pc < rpn.size(); pc++) {
+            String token = rpn.get(pc);
+            if (token.equals(RpnTokens.SWITCH)) {
+                pc = SwitchDispatch.endOf(rpn, pc) - 1;
+            } else if (RpnTokens.isBranch(token)) {
+                int target = Integer.parseInt(rpn.get(pc + 1));
+                if (target <= pc) {
+                    for (int p = target; p <= pc + 1; p++) {
+                        inLoop[p] = true;
+                    }
+                }
+                pc++;
+            }
+        }
+        return inLoop;
+    }
+
+    /** Ningún salto vuelve a {@code pc} (está fuera de bucles): desde acá se puede retomar. */
+    private void mark(int pc) {
+        resume = pc;
+        undo.clear();
+        outputMark = output.length();
+    }
+
+    private void record(String variable) {
+        if (!undo.containsKey(variable)) {
+            Object previous = strings.containsKey(variable) ? strings.get(variable) : numbers.get(variable);
+            undo.put(variable, previous == null ? UNSET : previous);
+        }
+    }
+
+    private void rollBack() {
+        undo.forEach((variable, previous) -> {
+            if (previous instanceof Float value) {
+                numbers.put(variable, value);
+            } else if (previous == UNSET) {
+                numbers.remove(variable);
+                strings.remove(variable);
+            } else {
+                strings.put(variable, (String) previous);
+            }
+        });
+        undo.clear();
+        output.setLength(outputMark);
+    }
+
+    private static Object pop(List<Object> stack) {
+        return stack.remove(stack.size() - 1);
+    }
+
+    /** Valor numérico de un operando (temporal, constante o variable), o null si no lo es. */
+    private Float valueOf(Object operand, SymbolTableGenerator symbolTable) {
+        if (operand instanceof Float value) {
+            return value;
+        }
+        String token = (String) operand;
+        if (RpnTokens.isNumberLiteral(token)) {
+            // Como lo lee el ensamblador: el valor decimal redondeado a real de 4 bytes
+            return (float) Double.parseDouble(token.endsWith(".") ? token + "0" : token);
+        }
+        String type = symbolTable.getVariableType(token);
+        if (!"Int".equals(type) && !"Float".equals(type)) {
+            return null;
+        }
+        return numbers.getOrDefault(token, 0f);
+    }
+
+    /** Texto que imprime write de un literal o variable String, o null si no es texto. */
+    private String textOf(String token, SymbolTableGenerator symbolTable) {
+        String literal = RpnTokens.isStringLiteral(token) ? token
+            : "String".equals(symbolTable.getVariableType(token)) ? strings.get(token) : null;
+        if (literal == null) {
+            return null;
+        }
+        // El runtime imprime con INT 21h AH=09h: hasta el primer '$'
+        String text = RpnTokens.stripQuotes(literal);
+        int dollar = text.indexOf('$');
+        return dollar < 0 ? text : text.substring(0, dollar);
+    }
+
+    /** La operación en el x87 (doble en el emulador) y el resultado guardado en el temporal. */
+    private static float arithmetic(String operator, float left, float right) {
+        double a = left;
+        double b = right;
+        return switch (operator) {
+            case "+" -> (float) (a + b);
+            case "-" -> (float) (a - b);
+            case "*" -> (float) (a * b);
+            default -> (float) (a / b);
+        };
+    }
+
+    /** Si salta el J&lt;cc&gt; del backend después de FCOMPP; {@code flags} 2 = no comparables. */
+    private static boolean jumps(String branch, int flags) {
+        boolean unordered = flags == 2;
+        return switch (branch) {
+            case "BLE" -> unordered || flags <= 0;
+            case "BGE" -> !unordered && flags >= 0;
+            case "BLT" -> unordered || flags < 0;
+            case "BGT" -> !unordered && flags > 0;
+            case "BEQ" -> unordered || flags == 0;
+            case "BNE" -> !unordered && flags != 0;
+            default -> true;
+        };
+    }
+
+    /**
+     * Lo que imprime PRINT_FLOAT: el signo, la parte entera exacta, un punto y {@code digits}
+     * decimales truncados, con ceros (sin punto si son 0). Infinito y NaN salen como
+     * {@code Inf}, {@code -Inf} y {@code NaN}.
+     */
+    static String formatFloat(float value, int digits) {
+        if (Float.isNaN(value)) {
+            return "NaN";
+        }
+        if (Float.isInfinite(value)) {
+            return value < 0 ? "-Inf" : "Inf";
+        }
+        String text = new BigDecimal(Math.abs(value)).setScale(digits, RoundingMode.DOWN).toPlainString();
+        return value < 0 ? "-" + text : text;
+    }
+
+    private static boolean isExactInteger(float value) {
+        return value == Math.rint(value) && Math.abs(value) < 1 << 24;
+    }
+}
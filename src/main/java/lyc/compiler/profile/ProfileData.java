@@ -0,0 +1,81 @@
+package lyc.compiler.profile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contadores de bloques básicos que deja un programa compilado con --profile-generate.
+ * Formato (little endian, enteros de 32 bits): magic "LYCP", huella del programa,
+ * cantidad de contadores y pares (índice en la polaca, veces que se ejecutó).
+ */
+public final class ProfileData {
+
+    /** "LYCP" leído como entero little endian. */
+    public static final int MAGIC = 0x5043594C;
+
+    private final int fingerprint;
+    private final Map<Integer, Long> counts;
+
+    public ProfileData(int fingerprint, Map<Integer, Long> counts) {
+        this.fingerprint = fingerprint;
+        this.counts = Collections.unmodifiableMap(new LinkedHashMap<>(counts));
+    }
+
+    /**
+     * Huella del programa: hash de la polaca. Cambios que no alteran la polaca
+     * (comentarios, espacios) no invalidan el perfil; cualquier otro sí.
+     */
+    public static int fingerprint(List<String> rpn) {
+        return String.join("\n", rpn).hashCode();
+    }
+
+    public static ProfileData load(Path path) throws IOException {
+        return parse(Files.readAllBytes(path));
+    }
+
+    public static ProfileData parse(byte[] content) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(content).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+            throw new IOException("No es un archivo de perfil");
+        }
+        int fingerprint = buffer.getInt();
+        long entries = Integer.toUnsignedLong(buffer.getInt());
+        if (buffer.remaining() != entries * 8) {
+            throw new IOException("Archivo de perfil truncado");
+        }
+        Map<Integer, Long> counts = new LinkedHashMap<>();
+        for (long i = 0; i < entries; i++) {
+            int index = buffer.getInt();
+            counts.put(index, Integer.toUnsignedLong(buffer.getInt()));
+        }
+        return new ProfileData(fingerprint, counts);
+    }
+
+    public int getFingerprint() {
+        return fingerprint;
+    }
+
+    public boolean matches(List<String> rpn) {
+        return fingerprint == fingerprint(rpn);
+    }
+
+    public boolean hasCount(int rpnIndex) {
+        return counts.containsKey(rpnIndex);
+    }
+
+    /** Veces que se llegó al bloque que empieza en {@code rpnIndex} (0 si no fue instrumentado). */
+    public long getCount(int rpnIndex) {
+        return counts.getOrDefault(rpnIndex, 0L);
+    }
+
+    public Map<Integer, Long> getCounts() {
+        return counts;
+    }
+}
@@ -0,0 +1,884 @@
+package lyc.compiler.runtime;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lyc.compiler.constants.Constants;
+import lyc.compiler.model.CompilerOptions.OutputMode;
+
+/**
+ * Biblioteca de rutinas de runtime del assembler generado.
+ * El generador marca con {@link #use(String)} lo que referencia y al final
+ * solo se emite la clausura transitiva de lo usado (datos y código).
+ *
+ * <p>Reemplaza a las bibliotecas de resources/asm: FORMAT_FLOAT y READ_INT/READ_FLOAT hacen
+ * lo de ftoa/itoa y atoi/atof de numbers.asm, y STRLEN/STRCPY salen de macros.asm.</p>
+ */
+public class RuntimeLibrary {
+
+    public static final String NEWLINE = "_NEWLINE";
+    public static final String PRINT_FLOAT = "PRINT_FLOAT";
+    public static final String FORMAT_FLOAT = "FORMAT_FLOAT";
+    public static final String NUMBER_BUFFER = "_NUMBUF";
+    public static final String PUT_DIGITS = "PUT_DIGITS";
+    public static final String PRINT_NUMBUF = "PRINT_NUMBUF";
+    public static final String STRLEN = "STRLEN";
+    public static final String STRCPY = "STRCPY";
+    public static final String OUT_BUFFER = "_OUTBUF";
+    public static final String OUT_CHAR = "OUT_CHAR";
+    public static final String OUT_STR = "OUT_STR";
+    public static final String OUT_NEWLINE = "OUT_NEWLINE";
+    public static final String OUT_FLUSH = "OUT_FLUSH";
+    public static final String IN_BUFFER = "_INBUF";
+    public static final String READ_LINE = "READ_LINE";
+    public static final String IN_SIGN = "IN_SIGN";
+    public static final String READ_INT = "READ_INT";
+    public static final String READ_FLOAT = "READ_FLOAT";
+    public static final String READ_STR = "READ_STR";
+    public static final String PGO_DUMP = "PGO_DUMP";
+    public static final String PRINT_FIXED = "PRINT_FIXED";
+    public static final String FORMAT_FIXED = "FORMAT_FIXED";
+    public static final String IN_FIXED = "IN_FIXED";
+    public static final String READ_FIXED = "READ_FIXED";
+    public static final String READ_FIXED_INT = "READ_FIXED_INT";
+
+    // Texto de un número: signo, las 39 cifras de la parte entera del mayor real de 4 bytes,
+    // punto, hasta 9 decimales y el '$'
+    private static final int NUMBER_BUFFER_SIZE = 51;
+
+    // Orden de registro = orden de emisión (salida determinística)
+    private final Map<String, RuntimeRoutine> routines = new LinkedHashMap<>();
+    private final Set<String> used = new LinkedHashSet<>();
+    private final OutputMode outputMode;
+    private final int floatDigits;
+
+    public RuntimeLibrary() {
+        this(OutputMode.UNBUFFERED);
+    }
+
+    public RuntimeLibrary(OutputMode outputMode) {
+        this(outputMode, 0, Constants.FLOAT_DIGITS);
+    }
+
+    /**
+     * @param fixedPointBits bits fraccionarios de los números con --fixed-point; 0 sin punto fijo
+     * @param floatDigits decimales que imprimen PRINT_FLOAT y PRINT_FIXED
+     */
+    public RuntimeLibrary(OutputMode outputMode, int fixedPointBits, int floatDigits) {
+        this.outputMode = outputMode;
+        this.floatDigits = floatDigits;
+        registerStandardRoutines();
+        registerOutputBuffer();
+        registerInput();
+        registerProfiling();
+        if (fixedPointBits > 0) {
+            registerFixedPoint(fixedPointBits);
+        }
+    }
+
+    public OutputMode getOutputMode() {
+        return outputMode;
+    }
+
+    public void register(RuntimeRoutine routine) {
+        routines.put(routine.getName(), routine);
+    }
+
+    /** Marca una rutina como referenciada por el código generado. */
+    public void use(String name) {
+        if (!routines.containsKey(name)) {
+            throw new IllegalArgumentException("Rutina de runtime desconocida: " + name);
+        }
+        used.add(name);
+    }
+
+    public boolean isUsed(String name) {
+        return resolve().stream().anyMatch(r -> r.getName().equals(name));
+    }
+
+    public void reset() {
+        used.clear();
+    }
+
+    /** Clausura transitiva de las rutinas usadas, en orden de registro. */
+    public List<RuntimeRoutine> resolve() {
+        Set<String> closure = new LinkedHashSet<>();
+        for (String name : used) {
+            collect(name, closure);
+        }
+        List<RuntimeRoutine> result = new ArrayList<>();
+        for (RuntimeRoutine routine : routines.values()) {
+            if (closure.contains(routine.getName())) {
+                result.add(routine);
+            }
+        }
+        return result;
+    }
+
+    private void collect(String name, Set<String> closure) {
+        if (!closure.add(name)) return;
+        RuntimeRoutine routine = routines.get(name);
+        if (routine == null) {
+            throw new IllegalStateException("Dependencia de runtime desconocida: " + name);
+        }
+        for (String dep : routine.getDependencies()) {
+            collect(dep, closure);
+        }
+    }
+
+    public boolean usesFpu() {
+        return resolve().stream().anyMatch(RuntimeRoutine::isUsingFpu);
+    }
+
+    public boolean usesExtraSegment() {
+        return resolve().stream().anyMatch(RuntimeRoutine::isUsingExtraSegment);
+    }
+
+    public boolean hasData() {
+        return resolve().stream().anyMatch(r -> !r.getData().isEmpty());
+    }
+
+    /** Escribe los datos de las rutinas usadas, de a 4 bytes primero y los bytes al final. */
+    public void writeData(Writer writer) throws IOException {
+        writeData(writer, "dd");
+        writeData(writer, "dw");
+        writeData(writer, "db");
+    }
+
+    /**
+     * Escribe los datos de las rutinas usadas declarados con {@code directive} (dd, dw o db),
+     * para que el generador pueda agrupar .DATA por tamaño.
+     */
+    public void writeData(Writer writer, String directive) throws IOException {
+        for (RuntimeRoutine routine : resolve()) {
+            for (String line : routine.getData()) {
+                String[] parts = line.trim().split("\\s+", 3);
+                if (parts.length > 1 && parts[1].equalsIgnoreCase(directive)) {
+                    writer.write(line + "\n");
+                }
+            }
+        }
+    }
+
+    public void writeCode(Writer writer) throws IOException {
+        for (RuntimeRoutine routine : resolve()) {
+            if (routine.getCode().isEmpty()) continue;
+            writer.write("\n");
+            for (String line : routine.getCode()) {
+                writer.write(line + "\n");
+            }
+        }
+    }
+
+    // --- Rutinas estándar --------------------------------------------------------
+
+    private void registerStandardRoutines() {
+        register(new RuntimeRoutine(NEWLINE)
+                .data("_NEWLINE db 0DH,0AH,'$'"));
+
+        register(new RuntimeRoutine(NUMBER_BUFFER)
+                .data("_NUMBUF db " + NUMBER_BUFFER_SIZE + " dup(?)",
+                      "_NUMTEXT dw 0",
+                      "_NUMBITS dd 0",
+                      "_NUMINT dd 5 dup(0)"));
+
+        register(new RuntimeRoutine(PUT_DIGITS)
+                .requires(NUMBER_BUFFER)
+                .code(
+                "; Escribe EAX en decimal (sin signo) hacia atras desde DS:DI, con al menos CX",
+                "; cifras (completa con ceros). Deja DI en la primera cifra.",
+                "PUT_DIGITS PROC NEAR",
+                "    PUSH EBX",
+                "    PUSH EDX",
+                "    MOV EBX, 10",
+                "PUT_DIGITS_NEXT:",
+                "    XOR EDX, EDX",
+                "    DIV EBX",
+                "    ADD DL, '0'",
+                "    DEC DI",
+                "    MOV BYTE PTR [DI], DL",
+                "    DEC CX",
+                "    JG PUT_DIGITS_NEXT",
+                "    TEST EAX, EAX",
+                "    JNZ PUT_DIGITS_NEXT",
+                "    POP EDX",
+                "    POP EBX",
+                "    RET",
+                "PUT_DIGITS ENDP"));
+
+        register(new RuntimeRoutine(PRINT_NUMBUF)
+                .requires(NUMBER_BUFFER)
+                .requires(outputMode == OutputMode.BUFFERED ? new String[] {OUT_STR} : new String[0])
+                .code(lines(
+                "; Imprime con una sola salida el numero que armo FORMAT_FLOAT o FORMAT_FIXED (DS:DX)",
+                "PRINT_NUMBUF PROC NEAR"),
+                outputMode == OutputMode.BUFFERED
+                    ? lines("    CALL OUT_STR")
+                    : lines("    PUSH AX", "    MOV AH, 09h", "    INT 21h", "    POP AX"),
+                lines(
+                "    RET",
+                "PRINT_NUMBUF ENDP")));
+
+        register(new RuntimeRoutine(FORMAT_FLOAT)
+                .requires(PUT_DIGITS)
+                .usesFpu()
+                .code(lines(
+                "; --------------------------------------------------",
+                "; Arma en _NUMBUF el texto del numero flotante de ST0 (lo saca de la pila) y deja",
+                "; DS:DX en su comienzo, terminado en '$'. No cambia otros registros",
+                "; Como real de 4 bytes vale M * 2^k: la parte entera (hasta 128 bits) y los",
+                "; " + floatDigits + " decimales truncados salen de M con enteros de 32 bits",
+                "; Con exponente 0FFh imprime Inf, -Inf o NaN",
+                "; --------------------------------------------------",
+                "FORMAT_FLOAT PROC NEAR",
+                "    PUSHAD",
+                "    FSTP DWORD PTR _NUMBITS",
+                "    MOV DI, OFFSET _NUMBUF+" + (NUMBER_BUFFER_SIZE - 1),
+                "    MOV BYTE PTR [DI], '$'",
+                "    XOR EAX, EAX",
+                "    MOV DWORD PTR _NUMINT, EAX",
+                "    MOV DWORD PTR _NUMINT+4, EAX",
+                "    MOV DWORD PTR _NUMINT+8, EAX",
+                "    MOV DWORD PTR _NUMINT+12, EAX",
+                "    MOV DWORD PTR _NUMINT+16, EAX",
+                "",
+                "    MOV ESI, DWORD PTR _NUMBITS",
+                "    AND ESI, 7FFFFFh",
+                "    MOV EAX, DWORD PTR _NUMBITS",
+                "    SHR EAX, 23",
+                "    AND EAX, 0FFh",
+                "    JNZ FORMAT_FLOAT_NORMAL",
+                "    INC EAX",
+                "    JMP FORMAT_FLOAT_SPLIT",
+                "FORMAT_FLOAT_NORMAL:",
+                "    CMP EAX, 0FFh",
+                "    JE FORMAT_FLOAT_SPECIAL",
+                "    OR ESI, 800000h",
+                "FORMAT_FLOAT_SPLIT:",
+                "    SUB EAX, 150",
+                "    MOV EBP, EAX",
+                "    JGE FORMAT_FLOAT_WHOLE_ONLY",
+                "",
+                "    ; k < 0: parte entera M >> -k, decimales (fraccion * 10^d) >> -k",
+                "    NEG EBP",
+                "    CMP EBP, 32",
+                "    JAE FORMAT_FLOAT_FRACTION",
+                "    MOV ECX, EBP",
+                "    MOV EAX, ESI",
+                "    SHR EAX, CL",
+                "    MOV DWORD PTR _NUMINT, EAX",
+                "    SHL EAX, CL",
+                "    SUB ESI, EAX",
+                "FORMAT_FLOAT_FRACTION:"),
+                floatDigits == 0 ? lines() : lines(
+                "    MOV EAX, ESI",
+                "    MOV EBX, " + BigInteger.TEN.pow(floatDigits),
+                "    MUL EBX",
+                "    CMP EBP, 64",
+                "    JAE FORMAT_FLOAT_NO_DIGITS",
+                "    CMP EBP, 32",
+                "    JB FORMAT_FLOAT_SHIFT",
+                "    MOV EAX, EDX",
+                "    MOV ECX, EBP",
+                "    SUB ECX, 32",
+                "    SHR EAX, CL",
+                "    JMP FORMAT_FLOAT_DIGITS",
+                "FORMAT_FLOAT_SHIFT:",
+                "    MOV ECX, EBP",
+                "    SHR EAX, CL",
+                "    NEG ECX",
+                "    ADD ECX, 32",
+                "    SHL EDX, CL",
+                "    OR EAX, EDX",
+                "    JMP FORMAT_FLOAT_DIGITS",
+                "FORMAT_FLOAT_NO_DIGITS:",
+                "    XOR EAX, EAX",
+                "FORMAT_FLOAT_DIGITS:",
+                "    MOV CX, " + floatDigits,
+                "    CALL PUT_DIGITS",
+                "    DEC DI",
+                "    MOV BYTE PTR [DI], '.'"),
+                lines(
+                "    JMP FORMAT_FLOAT_WHOLE",
+                "",
+                "    ; k >= 0: sin decimales, parte entera M << k",
+                "FORMAT_FLOAT_WHOLE_ONLY:"),
+                floatDigits == 0 ? lines() : lines(
+                "    XOR EAX, EAX",
+                "    MOV CX, " + floatDigits,
+                "    CALL PUT_DIGITS",
+                "    DEC DI",
+                "    MOV BYTE PTR [DI], '.'"),
+                lines(
+                "    MOV ECX, EBP",
+                "    AND ECX, 31",
+                "    MOV EAX, 1",
+                "    SHL EAX, CL",
+                "    MUL ESI",
+                "    MOV BX, BP",
+                "    SHR BX, 5",
+                "    SHL BX, 2",
+                "    MOV DWORD PTR _NUMINT[BX], EAX",
+                "    MOV DWORD PTR _NUMINT[BX+4], EDX",
+                "",
+                "    ; Mientras no entre en 32 bits, divide los 128 por 10 de la palabra alta a la baja",
+                "FORMAT_FLOAT_WHOLE:",
+                "    MOV ECX, 10",
+                "FORMAT_FLOAT_WIDE:",
+                "    MOV EAX, DWORD PTR _NUMINT+4",
+                "    OR EAX, DWORD PTR _NUMINT+8",
+                "    OR EAX, DWORD PTR _NUMINT+12",
+                "    JZ FORMAT_FLOAT_NARROW",
+                "    XOR EDX, EDX",
+                "    MOV BX, 12",
+                "FORMAT_FLOAT_DIV:",
+                "    MOV EAX, DWORD PTR _NUMINT[BX]",
+                "    DIV ECX",
+                "    MOV DWORD PTR _NUMINT[BX], EAX",
+                "    SUB BX, 4",
+                "    JNC FORMAT_FLOAT_DIV",
+                "    ADD DL, '0'",
+                "    DEC DI",
+                "    MOV BYTE PTR [DI], DL",
+                "    JMP FORMAT_FLOAT_WIDE",
+                "FORMAT_FLOAT_NARROW:",
+                "    MOV EAX, DWORD PTR _NUMINT",
+                "    MOV CX, 1",
+                "    CALL PUT_DIGITS",
+                "",
+                "    ; Signo, salvo en -0",
+                "FORMAT_FLOAT_SIGN:",
+                "    MOV EAX, DWORD PTR _NUMBITS",
+                "    TEST EAX, EAX",
+                "    JNS FORMAT_FLOAT_OUT",
+                "    AND EAX, 7FFFFFFFh",
+                "    JZ FORMAT_FLOAT_OUT",
+                "    DEC DI",
+                "    MOV BYTE PTR [DI], '-'",
+                "FORMAT_FLOAT_OUT:",
+                "    MOV WORD PTR _NUMTEXT, DI",
+                "    POPAD",
+                "    MOV DX, WORD PTR _NUMTEXT",
+                "    RET",
+                "",
+                "    ; Exponente 0FFh: infinito si M es 0 (con signo), si no NaN",
+                "FORMAT_FLOAT_SPECIAL:",
+                "    TEST ESI, ESI",
+                "    JNZ FORMAT_FLOAT_NAN",
+                "    SUB DI, 3",
+                "    MOV BYTE PTR [DI], 'I'",
+                "    MOV BYTE PTR [DI+1], 'n'",
+                "    MOV BYTE PTR [DI+2], 'f'",
+                "    JMP FORMAT_FLOAT_SIGN",
+                "FORMAT_FLOAT_NAN:",
+                "    SUB DI, 3",
+                "    MOV BYTE PTR [DI], 'N'",
+                "    MOV BYTE PTR [DI+1], 'a'",
+                "    MOV BYTE PTR [DI+2], 'N'",
+                "    JMP FORMAT_FLOAT_OUT",
+                "FORMAT_FLOAT ENDP")));
+
+        register(new RuntimeRoutine(PRINT_FLOAT)
+                .requires(FORMAT_FLOAT, PRINT_NUMBUF)
+                .usesFpu()
+                .code(
+                "; Imprime el numero flotante de ST0 (lo saca de la pila). Cambia DX",
+                "PRINT_FLOAT PROC NEAR",
+                "    CALL FORMAT_FLOAT",
+                "    CALL PRINT_NUMBUF",
+                "    RET",
+                "PRINT_FLOAT ENDP"));
+
+        // Adaptadas de las macros STRLEN/STRCPY de macros.asm; las usa READ_STR
+        register(new RuntimeRoutine(STRLEN)
+                .code(
+                "; Deja en BX la cantidad de caracteres de la cadena DS:SI (terminada en '$')",
+                "STRLEN PROC NEAR",
+                "    MOV BX, 0",
+                "STRL01:",
+                "    CMP BYTE PTR [SI+BX], '$'",
+                "    JE STREND",
+                "    INC BX",
+                "    JMP STRL01",
+                "STREND:",
+                "    RET",
+                "STRLEN ENDP"));
+
+        register(new RuntimeRoutine(STRCPY)
+                .requires(STRLEN)
+                .usesExtraSegment()
+                .code(
+                "; Copia DS:SI en ES:DI (maximo 255 caracteres) y termina con '$'",
+                "STRCPY PROC NEAR",
+                "    PUSH BX",
+                "    PUSH CX",
+                "    CALL STRLEN",
+                "    CMP BX, 255",
+                "    JLE STRCPY_OK",
+                "    MOV BX, 255",
+                "STRCPY_OK:",
+                "    MOV CX, BX",
+                "    CLD",
+                "    REP MOVSB",
+                "    MOV BYTE PTR [DI], '$'",
+                "    POP CX",
+                "    POP BX",
+                "    RET",
+                "STRCPY ENDP"));
+    }
+
+    // --- Salida por buffer ---------------------------------------------------------
+
+    /**
+     * Buffer de salida en .DATA. WRITE agrega al buffer y se vuelca con una sola
+     * INT 21h AH=40h cuando se llena, antes de leer y al terminar el programa.
+     */
+    private void registerOutputBuffer() {
+        int size = Constants.OUTPUT_BUFFER_SIZE;
+
+        register(new RuntimeRoutine(OUT_BUFFER)
+                .data("_OUTBUF db " + size + " dup(?)",
+                      "_OUTLEN dw 0"));
+
+        register(new RuntimeRoutine(OUT_FLUSH)
+                .requires(OUT_BUFFER)
+                .code(
+                "; Vuelca el buffer de salida por stdout con una sola llamada a DOS",
+                "OUT_FLUSH PROC NEAR",
+                "    PUSH AX",
+                "    PUSH BX",
+                "    PUSH CX",
+                "    PUSH DX",
+                "    MOV CX, _OUTLEN",
+                "    JCXZ OUT_FLUSH_END",
+                "    MOV AH, 40h",
+                "    MOV BX, 1",
+                "    MOV DX, OFFSET _OUTBUF",
+                "    INT 21h",
+                "    MOV WORD PTR _OUTLEN, 0",
+                "OUT_FLUSH_END:",
+                "    POP DX",
+                "    POP CX",
+                "    POP BX",
+                "    POP AX",
+                "    RET",
+                "OUT_FLUSH ENDP"));
+
+        register(new RuntimeRoutine(OUT_CHAR)
+                .requires(OUT_FLUSH)
+                .code(
+                "; Agrega DL al buffer de salida",
+                "OUT_CHAR PROC NEAR",
+                "    PUSH BX",
+                "    MOV BX, _OUTLEN",
+                "    CMP BX, " + size,
+                "    JB OUT_CHAR_PUT",
+                "    CALL OUT_FLUSH",
+                "    MOV BX, 0",
+                "OUT_CHAR_PUT:",
+                "    MOV BYTE PTR _OUTBUF[BX], DL",
+                "    INC BX",
+                "    MOV _OUTLEN, BX",
+                "    POP BX",
+                "    RET",
+                "OUT_CHAR ENDP"));
+
+        register(new RuntimeRoutine(OUT_STR)
+                .requires(OUT_FLUSH)
+                .code(
+                "; Agrega al buffer la cadena DS:DX terminada en '$'",
+                "OUT_STR PROC NEAR",
+                "    PUSH AX",
+                "    PUSH BX",
+                "    PUSH SI",
+                "    MOV SI, DX",
+                "    MOV BX, _OUTLEN",
+                "OUT_STR_LOOP:",
+                "    MOV AL, [SI]",
+                "    CMP AL, '$'",
+                "    JE OUT_STR_END",
+                "    CMP BX, " + size,
+                "    JB OUT_STR_PUT",
+                "    MOV _OUTLEN, BX",
+                "    CALL OUT_FLUSH",
+                "    MOV BX, 0",
+                "OUT_STR_PUT:",
+                "    MOV BYTE PTR _OUTBUF[BX], AL",
+                "    INC BX",
+                "    INC SI",
+                "    JMP OUT_STR_LOOP",
+                "OUT_STR_END:",
+                "    MOV _OUTLEN, BX",
+                "    POP SI",
+                "    POP BX",
+                "    POP AX",
+                "    RET",
+                "OUT_STR ENDP"));
+
+        register(new RuntimeRoutine(OUT_NEWLINE)
+                .requires(OUT_CHAR)
+                .code(
+                "OUT_NEWLINE PROC NEAR",
+                "    PUSH DX",
+                "    MOV DL, 0DH",
+                "    CALL OUT_CHAR",
+                "    MOV DL, 0AH",
+                "    CALL OUT_CHAR",
+                "    POP DX",
+                "    RET",
+                "OUT_NEWLINE ENDP"));
+    }
+
+    // --- Entrada ---------------------------------------------------------------------
+
+    /**
+     * READ: una sola llamada a DOS (AH=0Ah) llena el buffer de línea y después
+     * se parsea en memoria directo sobre la variable destino (DS:DI).
+     */
+    private void registerInput() {
+        register(new RuntimeRoutine(IN_BUFFER)
+                .data("_INBUF db 255, 0, 256 dup(?)",
+                      "_INTMP dd 0",
+                      "_INTEN dw 10",
+                      "_INDIGIT dw 0"));
+
+        register(new RuntimeRoutine(READ_LINE)
+                .requires(IN_BUFFER)
+                .requires(outputMode == OutputMode.BUFFERED ? new String[] {OUT_FLUSH} : new String[0])
+                .requires(charOutputDependencies())
+                .code(lines(
+                "; Lee una linea de teclado en _INBUF y deja SI al inicio del texto ('$' al final)",
+                "READ_LINE PROC NEAR",
+                "    PUSH AX",
+                "    PUSH BX",
+                "    PUSH DX"),
+                outputMode == OutputMode.BUFFERED ? lines("    CALL OUT_FLUSH") : lines(),
+                lines(
+                "    MOV AH, 0Ah",
+                "    MOV DX, OFFSET _INBUF",
+                "    INT 21h",
+                "    MOV BL, _INBUF+1",
+                "    MOV BH, 0",
+                "    MOV BYTE PTR _INBUF[BX+2], '$'",
+                "    MOV DL, 0AH"),
+                putChar(),
+                lines(
+                "    MOV SI, OFFSET _INBUF+2",
+                "    POP DX",
+                "    POP BX",
+                "    POP AX",
+                "    RET",
+                "READ_LINE ENDP")));
+
+        register(new RuntimeRoutine(IN_SIGN)
+                .code(
+                "; Saltea blancos y el signo de DS:SI. BL = 1 si es negativo",
+                "IN_SIGN PROC NEAR",
+                "    MOV BL, 0",
+                "IN_SIGN_BLANK:",
+                "    CMP BYTE PTR [SI], ' '",
+                "    JNE IN_SIGN_MINUS",
+                "    INC SI",
+                "    JMP IN_SIGN_BLANK",
+                "IN_SIGN_MINUS:",
+                "    CMP BYTE PTR [SI], '-'",
+                "    JNE IN_SIGN_PLUS",
+                "    MOV BL, 1",
+                "    INC SI",
+                "    RET",
+                "IN_SIGN_PLUS:",
+                "    CMP BYTE PTR [SI], '+'",
+                "    JNE IN_SIGN_END",
+                "    INC SI",
+                "IN_SIGN_END:",
+                "    RET",
+                "IN_SIGN ENDP"));
+
+        register(new RuntimeRoutine(READ_INT)
+                .requires(READ_LINE, IN_SIGN)
+                .usesFpu()
+                .code(
+                "; Lee un entero con la unidad entera y lo guarda (como dd) en DS:DI",
+                "READ_INT PROC NEAR",
+                "    PUSHAD",
+                "    CALL READ_LINE",
+                "    CALL IN_SIGN",
+                "    MOV EAX, 0",
+                "READ_INT_LOOP:",
+                "    MOVZX EDX, BYTE PTR [SI]",
+                "    SUB EDX, '0'",
+                "    CMP EDX, 9",
+                "    JA READ_INT_END",
+                "    IMUL EAX, EAX, 10",
+                "    ADD EAX, EDX",
+                "    INC SI",
+                "    JMP READ_INT_LOOP",
+                "READ_INT_END:",
+                "    CMP BL, 0",
+                "    JE READ_INT_STORE",
+                "    NEG EAX",
+                "READ_INT_STORE:",
+                "    MOV _INTMP, EAX",
+                "    FILD DWORD PTR _INTMP",
+                "    FSTP DWORD PTR [DI]",
+                "    POPAD",
+                "    RET",
+                "READ_INT ENDP"));
+
+        register(new RuntimeRoutine(READ_FLOAT)
+                .requires(READ_LINE, IN_SIGN)
+                .usesFpu()
+                .code(
+                "; Lee un flotante acumulando los digitos en la x87 y lo guarda en DS:DI",
+                "READ_FLOAT PROC NEAR",
+                "    PUSHAD",
+                "    CALL READ_LINE",
+                "    CALL IN_SIGN",
+                "    FLDZ",
+                "    MOV CX, 0",
+                "    MOV DX, 0",
+                "READ_FLOAT_LOOP:",
+                "    MOV AL, [SI]",
+                "    CMP AL, '.'",
+                "    JNE READ_FLOAT_DIGIT",
+                "    MOV DX, 1",
+                "    INC SI",
+                "    JMP READ_FLOAT_LOOP",
+                "READ_FLOAT_DIGIT:",
+                "    SUB AL, '0'",
+                "    CMP AL, 9",
+                "    JA READ_FLOAT_SCALE",
+                "    FIMUL WORD PTR _INTEN",
+                "    MOV AH, 0",
+                "    MOV _INDIGIT, AX",
+                "    FIADD WORD PTR _INDIGIT",
+                "    ADD CX, DX",
+                "    INC SI",
+                "    JMP READ_FLOAT_LOOP",
+                "READ_FLOAT_SCALE:",
+                "    JCXZ READ_FLOAT_SIGN",
+                "READ_FLOAT_DIV:",
+                "    FIDIV WORD PTR _INTEN",
+                "    LOOP READ_FLOAT_DIV",
+                "READ_FLOAT_SIGN:",
+                "    CMP BL, 0",
+                "    JE READ_FLOAT_STORE",
+                "    FCHS",
+                "READ_FLOAT_STORE:",
+                "    FSTP DWORD PTR [DI]",
+                "    POPAD",
+                "    RET",
+                "READ_FLOAT ENDP"));
+
+        register(new RuntimeRoutine(READ_STR)
+                .requires(READ_LINE, STRCPY)
+                .code(
+                "; Lee una linea y la copia en el buffer ES:DI de la variable",
+                "READ_STR PROC NEAR",
+                "    PUSHAD",
+                "    CALL READ_LINE",
+                "    CALL STRCPY",
+                "    POPAD",
+                "    RET",
+                "READ_STR ENDP"));
+    }
+
+    // --- Perfilado (--profile-generate) -----------------------------------------
+
+    /**
+     * Escribe el bloque de contadores del programa instrumentado en PROFILE.DAT.
+     * El generador declara _PGO_HDR (cabecera seguida de los contadores) y _PGO_LEN.
+     */
+    private void registerProfiling() {
+        register(new RuntimeRoutine(PGO_DUMP)
+                .data("_PGO_FILE db \"" + Constants.PROFILE_FILE + "\", 0")
+                .code(
+                "; Vuelca los contadores de bloques a disco (crear, escribir, cerrar)",
+                "PGO_DUMP PROC NEAR",
+                "    PUSHAD",
+                "    MOV AH, 3Ch",
+                "    MOV CX, 0",
+                "    MOV DX, OFFSET _PGO_FILE",
+                "    INT 21h",
+                "    JC PGO_DUMP_END",
+                "    MOV BX, AX",
+                "    MOV AH, 40h",
+                "    MOV CX, _PGO_LEN",
+                "    MOV DX, OFFSET _PGO_HDR",
+                "    INT 21h",
+                "    MOV AH, 3Eh",
+                "    INT 21h",
+                "PGO_DUMP_END:",
+                "    POPAD",
+                "    RET",
+                "PGO_DUMP ENDP"));
+    }
+
+    // --- Punto fijo (--fixed-point) ---------------------------------------------
+
+    /**
+     * Escritura y lectura de números en punto fijo de 32 bits con {@code bits} de parte
+     * fraccionaria, solo con la unidad entera. PRINT_FIXED usa el formato de PRINT_FLOAT
+     * (signo, parte entera, punto y los decimales truncados) para que las salidas se puedan comparar.
+     */
+    private void registerFixedPoint(int bits) {
+        register(new RuntimeRoutine(FORMAT_FIXED)
+                .requires(PUT_DIGITS)
+                .code(lines(
+                "; Arma en _NUMBUF el texto del numero en punto fijo de EAX (" + (32 - bits) + "." + bits + " bits)",
+                "; y deja DS:DX en su comienzo, como FORMAT_FLOAT",
+                "FORMAT_FIXED PROC NEAR",
+                "    PUSHAD",
+                "    MOV DI, OFFSET _NUMBUF+" + (NUMBER_BUFFER_SIZE - 1),
+                "    MOV BYTE PTR [DI], '$'",
+                "    MOV ESI, EAX",
+                "    TEST EAX, EAX",
+                "    JNS FORMAT_FIXED_ABS",
+                "    NEG EAX",
+                "FORMAT_FIXED_ABS:",
+                "    MOV EBX, EAX"),
+                floatDigits == 0 ? lines() : lines(
+                "    AND EAX, " + ((1L << bits) - 1),
+                "    MOV EDX, " + BigInteger.TEN.pow(floatDigits),
+                "    MUL EDX",
+                "    SHR EAX, " + bits,
+                "    SHL EDX, " + (32 - bits),
+                "    OR EAX, EDX",
+                "    MOV CX, " + floatDigits,
+                "    CALL PUT_DIGITS",
+                "    DEC DI",
+                "    MOV BYTE PTR [DI], '.'"),
+                lines(
+                "    MOV EAX, EBX",
+                "    SHR EAX, " + bits,
+                "    MOV CX, 1",
+                "    CALL PUT_DIGITS",
+                "    TEST ESI, ESI",
+                "    JNS FORMAT_FIXED_OUT",
+                "    DEC DI",
+                "    MOV BYTE PTR [DI], '-'",
+                "FORMAT_FIXED_OUT:",
+                "    MOV WORD PTR _NUMTEXT, DI",
+                "    POPAD",
+                "    MOV DX, WORD PTR _NUMTEXT",
+                "    RET",
+                "FORMAT_FIXED ENDP")));
+
+        register(new RuntimeRoutine(PRINT_FIXED)
+                .requires(FORMAT_FIXED, PRINT_NUMBUF)
+                .code(
+                "; Imprime el numero en punto fijo de EAX. Cambia DX",
+                "PRINT_FIXED PROC NEAR",
+                "    CALL FORMAT_FIXED",
+                "    CALL PRINT_NUMBUF",
+                "    RET",
+                "PRINT_FIXED ENDP"));
+
+        register(new RuntimeRoutine(IN_FIXED)
+                .requires(IN_SIGN)
+                .code(
+                "; Convierte el texto de DS:SI a punto fijo en EAX, redondeando los decimales",
+                "; (hasta 9). Con BH = 1 solo lee la parte entera.",
+                "IN_FIXED PROC NEAR",
+                "    CALL IN_SIGN",
+                "    MOV EAX, 0",
+                "IN_FIXED_INT:",
+                "    MOVZX EDX, BYTE PTR [SI]",
+                "    SUB EDX, '0'",
+                "    CMP EDX, 9",
+                "    JA IN_FIXED_POINT",
+                "    IMUL EAX, EAX, 10",
+                "    ADD EAX, EDX",
+                "    INC SI",
+                "    JMP IN_FIXED_INT",
+                "IN_FIXED_POINT:",
+                "    SHL EAX, " + bits,
+                "    CMP BH, 0",
+                "    JNE IN_FIXED_SIGN",
+                "    CMP BYTE PTR [SI], '.'",
+                "    JNE IN_FIXED_SIGN",
+                "    INC SI",
+                "    MOV ECX, 0",
+                "    MOV EBP, 1",
+                "IN_FIXED_FRAC:",
+                "    MOVZX EDX, BYTE PTR [SI]",
+                "    SUB EDX, '0'",
+                "    CMP EDX, 9",
+                "    JA IN_FIXED_SCALE",
+                "    INC SI",
+                "    CMP EBP, 100000000",
+                "    JA IN_FIXED_FRAC",
+                "    IMUL ECX, ECX, 10",
+                "    ADD ECX, EDX",
+                "    IMUL EBP, EBP, 10",
+                "    JMP IN_FIXED_FRAC",
+                "IN_FIXED_SCALE:",
+                "    PUSH EAX",
+                "    MOV EAX, ECX",
+                "    MOV EDX, " + (1L << (bits + 1)),
+                "    MUL EDX",
+                "    DIV EBP",
+                "    INC EAX",
+                "    SHR EAX, 1",
+                "    POP EDX",
+                "    ADD EAX, EDX",
+                "IN_FIXED_SIGN:",
+                "    CMP BL, 0",
+                "    JE IN_FIXED_END",
+                "    NEG EAX",
+                "IN_FIXED_END:",
+                "    RET",
+                "IN_FIXED ENDP"));
+
+        register(new RuntimeRoutine(READ_FIXED)
+                .requires(READ_LINE, IN_FIXED)
+                .code(
+                "; Lee un numero en punto fijo y lo guarda en DS:DI",
+                "READ_FIXED PROC NEAR",
+                "    PUSHAD",
+                "    CALL READ_LINE",
+                "    MOV BH, 0",
+                "    CALL IN_FIXED",
+                "    MOV DWORD PTR [DI], EAX",
+                "    POPAD",
+                "    RET",
+                "READ_FIXED ENDP"));
+
+        register(new RuntimeRoutine(READ_FIXED_INT)
+                .requires(READ_LINE, IN_FIXED)
+                .code(
+                "; Lee un entero (como READ_INT, sin decimales) y lo guarda en punto fijo en DS:DI",
+                "READ_FIXED_INT PROC NEAR",
+                "    PUSHAD",
+                "    CALL READ_LINE",
+                "    MOV BH, 1",
+                "    CALL IN_FIXED",
+                "    MOV DWORD PTR [DI], EAX",
+                "    POPAD",
+                "    RET",
+                "READ_FIXED_INT ENDP"));
+    }
+
+    /** Salida de un caracter (DL) según el modo: DOS directo o buffer. */
+    private String[] putChar() {
+        if (outputMode == OutputMode.BUFFERED) {
+            return new String[] {"    CALL OUT_CHAR"};
+        }
+        return new String[] {"    MOV AH, 02h", "    INT 21h"};
+    }
+
+    private String[] charOutputDependencies() {
+        return outputMode == OutputMode.BUFFERED ? new String[] {OUT_CHAR} : new String[0];
+    }
+
+    private static String[] lines(String... lines) {
+        return lines;
+    }
+}
@@ -0,0 +1,86 @@
+package lyc.compiler.runtime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Rutina (o dato compartido) de la biblioteca de runtime del assembler generado.
+ * Declara de qué otras rutinas depende, qué líneas necesita en .DATA y su código.
+ */
+public class RuntimeRoutine {
+
+    private final String name;
+    private final List<String> dependencies = new ArrayList<>();
+    private final List<String> data = new ArrayList<>();
+    private final List<String> code = new ArrayList<>();
+    private boolean usesFpu;
+    private boolean usesExtraSegment;
+
+    public RuntimeRoutine(String name) {
+        this.name = name;
+    }
+
+    /** Rutinas que tienen que enlazarse junto con esta. */
+    public RuntimeRoutine requires(String... names) {
+        this.dependencies.addAll(Arrays.asList(names));
+        return this;
+    }
+
+    /** Líneas que se agregan al segmento .DATA si la rutina se usa. */
+    public RuntimeRoutine data(String... lines) {
+        this.data.addAll(Arrays.asList(lines));
+        return this;
+    }
+
+    /** Cuerpo de la rutina (PROC ... ENDP). Vacío para entradas que solo aportan datos. */
+    public RuntimeRoutine code(String... lines) {
+        this.code.addAll(Arrays.asList(lines));
+        return this;
+    }
+
+    /** Igual que {@link #code(String...)}, armando el cuerpo a partir de varios bloques. */
+    public RuntimeRoutine code(String[]... blocks) {
+        for (String[] block : blocks) {
+            this.code.addAll(Arrays.asList(block));
+        }
+        return this;
+    }
+
+    /** La rutina ejecuta instrucciones x87, el programa necesita FINIT. */
+    public RuntimeRoutine usesFpu() {
+        this.usesFpu = true;
+        return this;
+    }
+
+    /** La rutina usa ES (instrucciones de cadena), el programa necesita inicializarlo. */
+    public RuntimeRoutine usesExtraSegment() {
+        this.usesExtraSegment = true;
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getDependencies() {
+        return Collections.unmodifiableList(dependencies);
+    }
+
+    public List<String> getData() {
+        return Collections.unmodifiableList(data);
+    }
+
+    public List<String> getCode() {
+        return Collections.unmodifiableList(code);
+    }
+
+    public boolean isUsingFpu() {
+        return usesFpu;
+    }
+
+    public boolean isUsingExtraSegment() {
+        return usesExtraSegment;
+    }
+}
@@ -0,0 +1,81 @@
+package lyc.compiler.files;
+
+/**
+ * Lexemas ya vistos por el analizador léxico, buscados directo sobre su buffer de
+ * caracteres. Un identificador o constante que se repite devuelve el mismo String sin
+ * crear uno nuevo; solo la primera aparición asigna memoria.
+ */
+public final class LexemePool {
+
+    private String[] entries = new String[1024];
+    private int size;
+
+    /** El lexema {@code chars[start, start + length)} si ya está, o null. */
+    public String lookup(char[] chars, int start, int length) {
+        int mask = entries.length - 1;
+        for (int slot = hash(chars, start, length) & mask; ; slot = (slot + 1) & mask) {
+            String entry = entries[slot];
+            if (entry == null) {
+                return null;
+            }
+            if (matches(entry, chars, start, length)) {
+                return entry;
+            }
+        }
+    }
+
+    /** Agrega el lexema (que no debe estar) y devuelve su String. */
+    public String add(char[] chars, int start, int length) {
+        if (2 * (size + 1) > entries.length) {
+            grow();
+        }
+        String lexeme = new String(chars, start, length);
+        insert(entries, lexeme);
+        size++;
+        return lexeme;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        String[] bigger = new String[entries.length * 2];
+        for (String entry : entries) {
+            if (entry != null) {
+                insert(bigger, entry);
+            }
+        }
+        entries = bigger;
+    }
+
+    private static void insert(String[] table, String lexeme) {
+        int mask = table.length - 1;
+        int slot = lexeme.hashCode() & mask;
+        while (table[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = lexeme;
+    }
+
+    /** El mismo valor que {@link String#hashCode()} del lexema. */
+    private static int hash(char[] chars, int start, int length) {
+        int h = 0;
+        for (int i = start; i < start + length; i++) {
+            h = 31 * h + chars[i];
+        }
+        return h;
+    }
+
+    private static boolean matches(String entry, char[] chars, int start, int length) {
+        if (entry.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (entry.charAt(i) != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,7 +1,7 @@
 package lyc.compiler.files;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,55 +26,63 @@ public class SymbolTableGenerator implements FileGenerator {
         return symbolTable;
     }
 
+    /** Vacía la tabla para compilar otro programa en el mismo proceso. */
+    public void clear() {
+        this.symbols.clear();
+    }
+
     @Override
-    public void generate(FileWriter fileWriter) throws IOException {
-        // 1) Armo todas las filas (header + datos) para poder medir anchos
+    public void generate(Writer fileWriter) throws IOException {
+        // 1) Anchos máximos por columna (header + datos)
         final String[] header = {"NOMBRE", "TIPODATO", "VALOR", "LONGITUD"};
-        java.util.List<String[]> rows = new java.util.ArrayList<>();
-        rows.add(header);
-    
+        int[] w = new int[4];
+        widen(w, header);
         for (Map.Entry<String, SymbolTableData> e : this.symbols.entrySet()) {
-            SymbolTableData d = e.getValue();
-            String nombre  = nz(e.getKey());
-            String tipo    = d.getType()   == null ? "" : d.getType();
-            String valor   = d.getValue()  == null ? "" : d.getValue();
-            String longitud= d.getLength() == null ? "" : d.getLength();
-            rows.add(new String[]{nombre, tipo, valor, longitud});
+            widen(w, row(e));
         }
-    
-        // 2) Calcular anchos máximos por columna
-        int[] w = new int[4];
-        for (String[] r : rows) {
-            for (int i = 0; i < 4; i++) {
-                if (r[i].length() > w[i]) w[i] = r[i].length();
-            }
+
+        // 2) Imprimir fila por fila (3 cols izquierdas, LONGITUD derecha), sin armar
+        //    la tabla entera en memoria: con muchas constantes es tan grande como el archivo
+        writeRow(fileWriter, header, w);
+        final String SEP = " | ";
+        fileWriter.write(repeat('-', w[0]) + SEP + repeat('-', w[1]) + SEP
+            + repeat('-', w[2]) + SEP + repeat('-', w[3]) + System.lineSeparator());
+        for (Map.Entry<String, SymbolTableData> e : this.symbols.entrySet()) {
+            writeRow(fileWriter, row(e), w);
         }
-    
-        // 3) Imprimir con formato dinámico (3 cols izquierdas, LONGITUD derecha)
+    }
+
+    private static String[] row(Map.Entry<String, SymbolTableData> e) {
+        SymbolTableData d = e.getValue();
+        String nombre  = nz(e.getKey());
+        String tipo    = d.getType()   == null ? "" : d.getType();
+        String valor   = d.getValue()  == null ? "" : d.getValue();
+        String longitud= d.getLength() == null ? "" : d.getLength();
+        return new String[]{nombre, tipo, valor, longitud};
+    }
+
+    private static void widen(int[] w, String[] r) {
+        for (int i = 0; i < 4; i++) {
+            if (r[i].length() > w[i]) w[i] = r[i].length();
+        }
+    }
+
+    private static void writeRow(Writer out, String[] r, int[] w) throws IOException {
         final String SEP = " | ";
-        StringBuilder out = new StringBuilder();
-    
-        for (int idx = 0; idx < rows.size(); idx++) {
-            String[] r = rows.get(idx);
-            // NOMBRE, TIPODATO, VALOR -> left
-            out.append(padRight(r[0], w[0])).append(SEP)
-               .append(padRight(r[1], w[1])).append(SEP)
-               .append(padRight(r[2], w[2])).append(SEP)
-               // LONGITUD -> right
-               .append(String.format("%" + w[3] + "s", r[3]))
-               .append(System.lineSeparator());
-    
-            // línea separadora debajo del header
-            if (idx == 0) {
-                out.append(repeat('-', w[0])).append(SEP)
-                   .append(repeat('-', w[1])).append(SEP)
-                   .append(repeat('-', w[2])).append(SEP)
-                   .append(repeat('-', w[3]))
-                   .append(System.lineSeparator());
-            }
+        // NOMBRE, TIPODATO, VALOR -> left
+        for (int i = 0; i < 3; i++) {
+            out.write(r[i]);
+            pad(out, w[i] - r[i].length());
+            out.write(SEP);
         }
-    
-        fileWriter.write(out.toString());
+        // LONGITUD -> right
+        pad(out, w[3] - r[3].length());
+        out.write(r[3]);
+        out.write(System.lineSeparator());
+    }
+
+    private static void pad(Writer out, int n) throws IOException {
+        for (int i = 0; i < n; i++) out.write(' ');
     }
 
     /** Registra un token “genérico” (lo dejo como lo tenías). */
@@ -164,14 +172,6 @@ public class SymbolTableGenerator implements FileGenerator {
         return lexeme.length();
     }
     
-    private static String padRight(String s, int n) {
-        if (s == null) s = "";
-        if (s.length() >= n) return s;
-        StringBuilder b = new StringBuilder(s);
-        while (b.length() < n) b.append(' ');
-        return b.toString();
-    }
-    
     private static String repeat(char ch, int n) {
         StringBuilder b = new StringBuilder(n);
         for (int i = 0; i < n; i++) b.append(ch);
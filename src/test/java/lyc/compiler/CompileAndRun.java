@@ -0,0 +1,56 @@
+package lyc.compiler;
+
+import lyc.compiler.emulator.AsmProgram;
+import lyc.compiler.emulator.Emulator;
+import lyc.compiler.emulator.ExecutionReport;
+import lyc.compiler.main.CompilerApi;
+import lyc.compiler.model.Artifact;
+import lyc.compiler.model.CompilationResult;
+import lyc.compiler.model.CompilerOptions;
+
+import java.util.EnumSet;
+import java.util.function.Consumer;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/** Compila un programa al assembler de dos y lo corre en el emulador. */
+final class CompileAndRun {
+
+  private CompileAndRun() {}
+
+  /** Opciones por defecto con los cambios de {@code setup}, p. ej. {@code options(o -> o.setSchedule(true))}. */
+  static CompilerOptions options(Consumer<CompilerOptions> setup) {
+    CompilerOptions options = new CompilerOptions();
+    setup.accept(options);
+    return options;
+  }
+
+  /** final.asm de {@code program} con las opciones por defecto; falla si no compila. */
+  static String compile(String program) {
+    return compile(program, new CompilerOptions());
+  }
+
+  static String compile(String program, CompilerOptions options) {
+    CompilationResult result = CompilerApi.compile(program, options, EnumSet.of(Artifact.FINAL_CODE));
+    assertThat(result.getErrors()).isEmpty();
+    return result.getArtifact(Artifact.FINAL_CODE);
+  }
+
+  /** Lo que imprime {@code asm} sin entrada. */
+  static String run(String asm) {
+    return execute(asm, "").getOutput();
+  }
+
+  static String run(String asm, String input) {
+    return execute(asm, input).getOutput();
+  }
+
+  /** La ejecución completa: salida, ciclos, llamadas a DOS. */
+  static ExecutionReport execute(String asm) {
+    return execute(asm, "");
+  }
+
+  static ExecutionReport execute(String asm, String input) {
+    return new Emulator(AsmProgram.parse(asm)).run(input);
+  }
+}
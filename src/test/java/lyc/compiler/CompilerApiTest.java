@@ -0,0 +1,101 @@
+package lyc.compiler;
+
+import lyc.compiler.main.CompilerApi;
+import lyc.compiler.model.Artifact;
+import lyc.compiler.model.CompilationError;
+import lyc.compiler.model.CompilationResult;
+import lyc.compiler.model.CompilerOptions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class CompilerApiTest {
+
+  private static final String PROGRAM = """
+      init {
+          apiA, apiB : Int
+      }
+      apiA := 3
+      apiB := apiA + 4
+      write(apiB)
+      """;
+
+  @Test
+  public void onlyRequestedArtifactsAreProduced() {
+    CompilationResult result = CompilerApi.compile(PROGRAM, new CompilerOptions(), EnumSet.of(Artifact.FINAL_CODE));
+
+    assertThat(result.isSuccessful()).isTrue();
+    assertThat(result.getArtifact(Artifact.FINAL_CODE)).contains("_apiB");
+    assertThat(result.getArtifact(Artifact.SYMBOL_TABLE)).isNull();
+    assertThat(result.getArtifact(Artifact.INTERMEDIATE_CODE)).isNull();
+  }
+
+  @Test
+  public void consecutiveCompilationsDoNotShareState() {
+    Artifact[] all = Artifact.values();
+    CompilationResult first = CompilerApi.compile(PROGRAM, new CompilerOptions(), EnumSet.allOf(Artifact.class));
+    CompilationResult second = CompilerApi.compile(PROGRAM, new CompilerOptions(), EnumSet.allOf(Artifact.class));
+
+    for (Artifact artifact : all) {
+      assertThat(second.getArtifact(artifact)).isEqualTo(first.getArtifact(artifact));
+    }
+    assertThat(first.getArtifact(Artifact.INTERMEDIATE_CODE)).startsWith("Código Intermedio");
+  }
+
+  @Test
+  public void streamingWritesToCallerSinks() throws Exception {
+    CompilerOptions options = new CompilerOptions();
+    options.setStreaming(true);
+    Map<Artifact, StringWriter> sinks = new EnumMap<>(Artifact.class);
+    CompilationResult result = CompilerApi.compile(new StringReader(PROGRAM), options, EnumSet.allOf(Artifact.class),
+        (artifact, fileName) -> {
+          StringWriter writer = new StringWriter();
+          sinks.put(artifact, writer);
+          return writer;
+        });
+
+    assertThat(result.isSuccessful()).isTrue();
+    assertThat(sinks.keySet()).containsExactlyElementsIn(Artifact.values());
+    String inMemory = CompilerApi.compile(PROGRAM, options, EnumSet.of(Artifact.FINAL_CODE))
+        .getArtifact(Artifact.FINAL_CODE);
+    assertThat(sinks.get(Artifact.FINAL_CODE).toString()).isEqualTo(inMemory);
+  }
+
+  @Test
+  public void syntaxErrorReportsLineAndColumn() {
+    CompilationResult result = CompilerApi.compile("""
+        init {
+            apiA : Int
+        }
+        apiA := 3 +
+        write(apiA)
+        """, new CompilerOptions(), EnumSet.allOf(Artifact.class));
+
+    assertThat(result.isSuccessful()).isFalse();
+    CompilationError error = result.getErrors().get(0);
+    assertThat(error.getLine()).isEqualTo(5);
+    assertThat(error.getColumn()).isEqualTo(1);
+    assertThat(result.getArtifact(Artifact.FINAL_CODE)).isNull();
+  }
+
+  @Test
+  public void semanticErrorReportsLine() {
+    CompilationResult result = CompilerApi.compile("""
+        init {
+            apiA : Int
+        }
+        apiA := 1
+        apiZ := apiA
+        """, new CompilerOptions(), EnumSet.allOf(Artifact.class));
+
+    assertThat(result.isSuccessful()).isFalse();
+    assertThat(result.getErrors().get(0).getMessage()).contains("apiZ");
+    assertThat(result.getErrors().get(0).getLine()).isEqualTo(5);
+  }
+}
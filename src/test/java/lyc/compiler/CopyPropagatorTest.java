@@ -0,0 +1,74 @@
+package lyc.compiler;
+
+import lyc.compiler.files.SymbolTableGenerator;
+import lyc.compiler.main.CompilerApi;
+import lyc.compiler.optimizer.CopyPropagator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static lyc.compiler.CompileAndRun.compile;
+import static lyc.compiler.CompileAndRun.options;
+import static lyc.compiler.CompileAndRun.run;
+
+public class CopyPropagatorTest {
+
+  @BeforeEach
+  public void declareVariables() throws Exception {
+    // CompilerApi limpia la tabla de símbolos al compilar
+    SymbolTableGenerator.getInstance().clear();
+    SymbolTableGenerator.getInstance().addIdentifiers(List.of("cpA", "cpB", "cpC"), "Int");
+  }
+
+  @Test
+  public void copyChainCollapsesIntoItsSource() {
+    // cpA := 5  cpB := cpA  write(cpB)
+    CopyPropagator propagator = new CopyPropagator();
+    List<String> optimized = propagator.optimize(rpn("5 cpA := cpA cpB := cpB WRITE"));
+
+    assertThat(optimized).isEqualTo(rpn("5 WRITE"));
+    assertThat(propagator.getRemovedStores()).isEqualTo(2);
+  }
+
+  @Test
+  public void copiesMeetAtTheEndOfAnIf() {
+    // cpA := 5  cpB := cpA  if (cpC = 0) { cpA := 7 }  write(cpB)  write(cpA)
+    List<String> optimized = new CopyPropagator().optimize(
+        rpn("5 cpA := cpA cpB := cpC 0 CMP BNE 14 7 cpA := cpB WRITE cpA WRITE"));
+
+    // cpB vale 5 por los dos caminos; cpA no
+    assertThat(optimized).isEqualTo(rpn("5 cpA := cpC 0 CMP BNE 11 7 cpA := 5 WRITE cpA WRITE"));
+  }
+
+  @Test
+  public void copyKilledInsideTheLoopIsKept() {
+    // cpA := 0  while (cpA < 3) { cpB := cpA  cpA := cpA + 1 }  write(cpB)
+    List<String> loop = rpn("0 cpA := cpA 3 CMP BGE 18 cpA cpB := cpA 1 + cpA := BI 3 cpB WRITE");
+
+    assertThat(new CopyPropagator().optimize(loop)).isEqualTo(loop);
+  }
+
+  @Test
+  public void triangleArgumentsAreReadFromTheirSources() {
+    String program = """
+        init {
+            cpArea : Float
+        }
+        cpArea := triangleAreaMaximum([0,0; 4,0; 0,3] ; [0,0; 2,0; 0,2])
+        write(cpArea)
+        """;
+    String plain = compile(program);
+    String optimized = compile(program, options(o -> o.setOptimize(true)));
+
+    assertThat(plain).contains("_t_x1_1 dd");
+    assertThat(optimized).doesNotContain("_t_x1_1");
+    assertThat(run(optimized)).isEqualTo(run(plain));
+  }
+
+  private static List<String> rpn(String tokens) {
+    return Arrays.asList(tokens.split(" "));
+  }
+}
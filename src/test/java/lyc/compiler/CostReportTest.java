@@ -0,0 +1,113 @@
+package lyc.compiler;
+
+import lyc.compiler.main.CompilerApi;
+import lyc.compiler.model.Artifact;
+import lyc.compiler.model.CompilationResult;
+import lyc.compiler.model.CompilerOptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class CostReportTest {
+
+  // Las líneas importan: el reporte las cuenta desde 1
+  private static final String PROGRAM = """
+      init {
+          crA, crB, crI : Int
+          crF : Float
+      }
+      crA := crB * 2 + 1
+      write(crA)
+      crI := 0
+      while (crI < 4) {
+          crF := crF + 0.5
+          crI := crI + 1
+      }
+      if (crF > 1.0) {
+          read(crB)
+      }
+      """;
+
+  @Test
+  public void eachLineGetsTheCodeItGenerated() {
+    Map<String, long[]> lines = rows(report(new CompilerOptions()), "Línea");
+
+    // crB * 2 + 1: dos operaciones, cada una FLD FLD Fop FSTP @Tn, y el FLD/FSTP de la asignación
+    assertThat(lines.get("5")).isEqualTo(new long[] {10, 36, 2, 10});
+    // FLD, CALL PRINT_FLOAT y el salto de línea por DOS
+    assertThat(lines.get("6")).isEqualTo(new long[] {5, 14, 0, 1});
+    // La condición del while (FLD FLD FXCH FCOMPP FSTSW SAHF Jcc) y su vuelta con JMP
+    assertThat(lines.get("8")).isEqualTo(new long[] {7, 20, 0, 5});
+    assertThat(lines.get("11")).isEqualTo(new long[] {1, 3, 0, 0});
+    assertThat(lines.get("13")).isEqualTo(new long[] {2, 6, 0, 0});
+    assertThat(lines).doesNotContainKey("1");
+    assertThat(lines).doesNotContainKey("?");
+  }
+
+  @Test
+  public void statementKindsOnlyKeepTheirOwnCode() {
+    Map<String, long[]> kinds = rows(report(new CompilerOptions()), "Sentencia");
+
+    assertThat(kinds.keySet()).containsExactly("asignación", "read", "write", "if", "while").inOrder();
+    // El while se queda con la condición y la vuelta; las asignaciones del cuerpo van aparte
+    assertThat(kinds.get("while")).isEqualTo(new long[] {8, 23, 0, 5});
+    assertThat(kinds.get("if")[0]).isEqualTo(7);
+    assertThat(kinds.get("asignación")[2]).isEqualTo(4);
+  }
+
+  @Test
+  public void unrolledCopiesKeepTheLineOfTheBody() {
+    CompilerOptions options = new CompilerOptions();
+    options.setUnrollFactor(4);
+    Map<String, long[]> plain = rows(report(new CompilerOptions()), "Línea");
+    Map<String, long[]> unrolled = rows(report(options), "Línea");
+
+    // Cuatro vueltas conocidas: el cuerpo se copia cuatro veces y la condición desaparece
+    assertThat(unrolled.get("9")[0]).isEqualTo(4 * plain.get("9")[0]);
+    assertThat(unrolled).doesNotContainKey("8");
+    assertThat(unrolled).doesNotContainKey("?");
+  }
+
+  @Test
+  public void streamingAndParallelLoweringGiveTheSameReport() {
+    CompilerOptions streaming = new CompilerOptions();
+    streaming.setStreaming(true);
+    CompilerOptions parallel = new CompilerOptions();
+    parallel.setJobs(4);
+    String expected = report(new CompilerOptions());
+
+    assertThat(report(streaming)).isEqualTo(expected);
+    assertThat(report(parallel)).isEqualTo(expected);
+  }
+
+  private static String report(CompilerOptions options) {
+    CompilationResult result = CompilerApi.compile(PROGRAM, options, EnumSet.of(Artifact.COST_REPORT));
+    assertThat(result.getErrors()).isEmpty();
+    return result.getArtifact(Artifact.COST_REPORT);
+  }
+
+  /** Filas de la tabla que empieza con {@code header}: nombre -> instrucciones, bytes, temporales, x87. */
+  private static Map<String, long[]> rows(String report, String header) {
+    Map<String, long[]> rows = new LinkedHashMap<>();
+    boolean inTable = false;
+    for (String line : report.split("\n")) {
+      if (line.startsWith(header + " ")) {
+        inTable = true;
+      } else if (line.startsWith("---")) {
+        inTable = false;
+      } else if (inTable && !line.startsWith("Total")) {
+        String[] columns = line.trim().split("\\s+");
+        long[] values = new long[4];
+        for (int i = 0; i < 4; i++) {
+          values[i] = Long.parseLong(columns[i + 1]);
+        }
+        rows.put(columns[0], values);
+      }
+    }
+    return rows;
+  }
+}
@@ -0,0 +1,91 @@
+package lyc.compiler;
+
+import lyc.compiler.emulator.AsmProgram;
+import lyc.compiler.emulator.Emulator;
+import lyc.compiler.emulator.ExecutionReport;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static lyc.compiler.CompileAndRun.compile;
+
+public class DataLayoutTest {
+
+  @Test
+  public void equalConstantsShareOneSlotAndUnusedOnesAreDropped() {
+    String asm = compile("""
+        init {
+            dlX, dlY, dlZ : Float
+            dlI : Int
+        }
+        dlX := 1
+        dlY := 1.0
+        dlZ := 1.
+        for dlI := 0 to 3 step 2 {
+            write(dlI)
+        }
+        """);
+
+    assertThat(dataLines(asm).stream().filter(line -> line.endsWith(" dd 1.0")).count()).isEqualTo(1);
+    // El paso del for va como inmediato: su constante no se declara
+    assertThat(asm).doesNotContain("_2 dd");
+    assertThat(asm).contains("_0 dd 0.0");
+  }
+
+  @Test
+  public void dwordsComeBeforeBytesSoNothingIsMisaligned() {
+    String asm = compile("""
+        init {
+            dlN : Int
+        }
+        write("abc")
+        read(dlN)
+        switch (dlN) {
+            case 1: write("uno")
+            default: write("otro")
+        }
+        """);
+
+    List<String> data = dataLines(asm);
+    int lastDword = 0;
+    int firstByte = data.size();
+    for (int i = 0; i < data.size(); i++) {
+      if (data.get(i).contains(" dd ")) lastDword = i;
+      if (data.get(i).contains(" db ")) firstByte = Math.min(firstByte, i);
+    }
+    assertThat(lastDword).isLessThan(firstByte);
+
+    ExecutionReport report = new Emulator(AsmProgram.parse(asm)).run("1\r");
+    assertThat(report.getOutput()).contains("uno");
+    assertThat(report.getMisalignedAccesses()).isEqualTo(0);
+  }
+
+  @Test
+  public void innerLoopVariablesGoFirst() {
+    String asm = compile("""
+        init {
+            dlCold, dlOuter, dlInner : Int
+        }
+        dlCold := 5
+        write(dlCold)
+        dlOuter := 0
+        while (dlOuter < 3) {
+            dlInner := 0
+            while (dlInner < 3) {
+                dlInner := dlInner + 1
+            }
+            dlOuter := dlOuter + 1
+        }
+        """);
+
+    List<String> data = dataLines(asm);
+    assertThat(data.get(0)).startsWith("_dlInner ");
+    assertThat(data.indexOf("_dlCold dd 0.0")).isGreaterThan(data.indexOf("_dlOuter dd 0.0"));
+  }
+
+  private static List<String> dataLines(String asm) {
+    String data = asm.substring(asm.indexOf(".DATA\n") + 6, asm.indexOf("\n.CODE"));
+    return data.lines().filter(line -> !line.isBlank()).toList();
+  }
+}
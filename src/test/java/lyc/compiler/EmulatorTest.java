@@ -0,0 +1,157 @@
+package lyc.compiler;
+
+import lyc.compiler.constants.Constants;
+import lyc.compiler.emulator.AsmProgram;
+import lyc.compiler.emulator.Emulator;
+import lyc.compiler.emulator.ExecutionReport;
+import lyc.compiler.model.CompilerOptions.OutputMode;
+import lyc.compiler.model.EmulatorException;
+import lyc.compiler.profile.ProfileData;
+import lyc.compiler.runtime.RuntimeLibrary;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EmulatorTest {
+
+  @Test
+  public void loopAndPrint() throws IOException {
+    ExecutionReport report = run(OutputMode.UNBUFFERED, """
+        L0:
+            FLD _i
+            FLD _n
+            FXCH
+            FCOMPP
+            FSTSW ax
+            SAHF
+            JAE L1
+            FLD _i
+            FLD _1
+            FADD
+            FSTP _i
+            JMP L0
+        L1:
+            FLD _i
+            CALL PRINT_FLOAT
+            MOV DX, OFFSET _NEWLINE
+            MOV AH, 09h
+            INT 21h
+            MOV DX, OFFSET _hola
+            MOV AH, 09h
+            INT 21h
+        """, "", RuntimeLibrary.PRINT_FLOAT, RuntimeLibrary.NEWLINE);
+
+    assertThat(report.getOutput()).isEqualTo("5.0000\r\nhola");
+    assertThat(report.getBlock("L0").getEntries()).isEqualTo(6);
+    assertThat(report.getBlock("L1").getEntries()).isEqualTo(1);
+    assertThat(report.getMnemonicCounts().get("FCOMPP")).isEqualTo(6);
+    assertThat(report.getExitCode()).isEqualTo(0);
+  }
+
+  @Test
+  public void bufferedOutputSavesDosCalls() throws IOException {
+    String code = """
+            FLD _n
+            CALL PRINT_FLOAT
+            CALL OUT_NEWLINE
+        """;
+    ExecutionReport buffered = run(OutputMode.BUFFERED, code, "",
+        RuntimeLibrary.PRINT_FLOAT, RuntimeLibrary.OUT_NEWLINE, RuntimeLibrary.OUT_FLUSH);
+
+    assertThat(buffered.getOutput()).isEqualTo("5.0000\r\n");
+    // Un volcado (AH=40h) y la salida (AH=4Ch)
+    assertThat(buffered.getDosCalls()).isEqualTo(2);
+  }
+
+  @Test
+  public void readInt() throws IOException {
+    ExecutionReport report = run(OutputMode.UNBUFFERED, """
+            MOV DI, OFFSET _i
+            CALL READ_INT
+            FLD _i
+            CALL PRINT_FLOAT
+        """, "-42\n", RuntimeLibrary.READ_INT, RuntimeLibrary.PRINT_FLOAT);
+
+    // DOS hace eco de lo tipeado y del Enter; el runtime agrega el salto de línea
+    assertThat(report.getOutput()).isEqualTo("-42\r\n-42.0000");
+  }
+
+  @Test
+  public void dependentFpuInstructionsStall() throws IOException {
+    ExecutionReport report = run(OutputMode.UNBUFFERED, """
+            FLD _n
+            FLD _1
+            FADD
+            FSTP _i
+        """, "");
+
+    assertThat(report.getFpuStallCycles()).isGreaterThan(0L);
+    assertThat(report.getCycles()).isGreaterThan(report.getFpuStallCycles());
+  }
+
+  @Test
+  public void profileDumpWritesCounters() throws IOException {
+    String asm = source(OutputMode.UNBUFFERED, """
+        L0:
+            INC DWORD PTR _PGO_HDR+16
+            FLD _i
+            FLD _n
+            FXCH
+            FCOMPP
+            FSTSW ax
+            SAHF
+            JAE L1
+            FLD _i
+            FLD _1
+            FADD
+            FSTP _i
+            JMP L0
+        L1:
+            CALL PGO_DUMP
+        """, RuntimeLibrary.PGO_DUMP)
+        .replace(".DATA\n", ".DATA\n_PGO_HDR dd 05043594Ch, 1234h, 1\n    dd 7, 0\n_PGO_LEN dw 20\n");
+    ExecutionReport report = new Emulator(AsmProgram.parse(asm)).run("");
+
+    ProfileData profile = ProfileData.parse(report.getFiles().get(Constants.PROFILE_FILE));
+    assertThat(profile.getFingerprint()).isEqualTo(0x1234);
+    assertThat(profile.getCount(7)).isEqualTo(6L);
+  }
+
+  @Test
+  public void runawayProgramIsStopped() throws IOException {
+    AsmProgram program = AsmProgram.parse(source(OutputMode.UNBUFFERED, """
+        L0:
+            JMP L0
+        """));
+    assertThrows(EmulatorException.class, () -> new Emulator(program).setMaxSteps(1000).run(""));
+  }
+
+  private static ExecutionReport run(OutputMode mode, String code, String input, String... routines)
+      throws IOException {
+    return new Emulator(AsmProgram.parse(source(mode, code, routines))).run(input);
+  }
+
+  private static String source(OutputMode mode, String code, String... routines) throws IOException {
+    RuntimeLibrary runtime = new RuntimeLibrary(mode);
+    for (String routine : routines) {
+      runtime.use(routine);
+    }
+    StringWriter asm = new StringWriter();
+    asm.write(".MODEL LARGE\n.386\n.STACK 200h\n\n.DATA\n");
+    asm.write("_i dd 0.0\n_n dd 5.0\n_1 dd 1.0\n_hola db \"hola$\"\n");
+    runtime.writeData(asm);
+    asm.write("\n.CODE\nSTART:\n    MOV AX, @DATA\n    MOV DS, AX\n    MOV ES, AX\n    FINIT\n");
+    asm.write(code);
+    if (runtime.isUsed(RuntimeLibrary.OUT_FLUSH)) {
+      asm.write("    CALL OUT_FLUSH\n");
+    }
+    asm.write("    MOV AX, 4C00h\n    INT 21h\n");
+    runtime.writeCode(asm);
+    asm.write("END START\n");
+    return asm.toString();
+  }
+}
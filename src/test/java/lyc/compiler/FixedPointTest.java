@@ -0,0 +1,121 @@
+package lyc.compiler;
+
+import lyc.compiler.main.CompilerApi;
+import lyc.compiler.model.Artifact;
+import lyc.compiler.model.CompilationResult;
+import lyc.compiler.model.CompilerOptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static com.google.common.truth.Truth.assertThat;
+import static lyc.compiler.CompileAndRun.compile;
+import static lyc.compiler.CompileAndRun.options;
+import static lyc.compiler.CompileAndRun.run;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FixedPointTest {
+
+  // Valores exactos en Q16.16 y fracciones de hasta 4 cifras: la salida es la misma que con la x87
+  private static final String PROGRAM = """
+      init {
+          fxA, fxB, fxI : Int
+          fxX, fxY : Float
+      }
+      fxA := 7
+      fxB := fxA * 3 - 2
+      write(fxB)
+      fxX := 2.5
+      fxY := fxX * fxX / 0.5
+      write(fxY)
+      fxY := fxY / 4
+      write(fxY)
+      fxX := -3.25
+      write(fxX)
+      for fxI := 1 to 5 {
+          fxA := fxA + fxI
+      }
+      write(fxA)
+      while (fxB > 10) {
+          fxB := fxB - 4
+      }
+      if (fxX < 1.0) {
+          write("menor")
+      }
+      switch (fxB) {
+          case 7: write("siete")
+          default: write("otro")
+      }
+      read(fxX)
+      fxX := fxX * 2
+      write(fxX)
+      read(fxA)
+      fxA := fxA / 2
+      write(fxA)
+      """;
+
+  @Test
+  public void numbersDoNotUseTheFpu() {
+    String asm = compile(PROGRAM, options(o -> o.setFixedPointBits(16)));
+
+    assertThat(asm).doesNotContain("\n    F");
+    assertThat(asm).contains("_2_5 dd 163840\n");
+    assertThat(asm).contains("IMUL EAX, EAX, 3\n");
+    assertThat(run(asm, "1.25\n9\n")).isEqualTo(run(compile(PROGRAM, options(o -> o.setFixedPointBits(0))), "1.25\n9\n"));
+  }
+
+  @Test
+  public void otherWidthsGiveTheSameOutput() {
+    String expected = run(compile(PROGRAM, options(o -> o.setFixedPointBits(0))), "-2.5\n3\n");
+
+    assertThat(run(compile(PROGRAM, options(o -> o.setFixedPointBits(8))), "-2.5\n3\n")).isEqualTo(expected);
+    assertThat(run(compile(PROGRAM, options(o -> o.setFixedPointBits(20))), "-2.5\n3\n")).isEqualTo(expected);
+  }
+
+  @Test
+  public void roundedConstantsAreReported() {
+    CompilationResult result = CompilerApi.compile("""
+        init {
+            fxR : Float
+        }
+        fxR := 0.5
+        fxR := fxR + 0.1
+        """, options(o -> o.setFixedPointBits(16)), EnumSet.of(Artifact.FINAL_CODE));
+
+    assertThat(result.getErrors()).isEmpty();
+    assertThat(result.getWarnings())
+        .containsExactly("línea 5: la constante 0.1 queda como 0.100006103515625 en Q16.16");
+    // Sin --fixed-point no hay nada que redondear
+    assertThat(CompilerApi.compile("""
+        init {
+            fxR : Float
+        }
+        fxR := 0.1
+        """, new CompilerOptions(), EnumSet.of(Artifact.FINAL_CODE)).getWarnings()).isEmpty();
+  }
+
+  @Test
+  public void constantsOutOfRangeAreRejected() {
+    CompilationResult result = CompilerApi.compile("""
+        init {
+            fxR : Float
+        }
+        fxR := 40000.0
+        """, options(o -> o.setFixedPointBits(16)), EnumSet.of(Artifact.FINAL_CODE));
+
+    assertThat(result.isSuccessful()).isFalse();
+    assertThat(result.getErrors().get(0).getLine()).isEqualTo(4);
+    assertThat(result.getErrors().get(0).getMessage()).contains("Q16.16");
+  }
+
+  @Test
+  public void onlyTheDosBackendWithoutFpuPassesAcceptsIt() {
+    assertThrows(IllegalArgumentException.class,
+        () -> CompilerOptions.parse(new String[] {"--fixed-point", "--target=linux64", "a.txt"}));
+    assertThrows(IllegalArgumentException.class,
+        () -> CompilerOptions.parse(new String[] {"--fixed-point", "--promote", "a.txt"}));
+    assertThrows(IllegalArgumentException.class,
+        () -> CompilerOptions.parse(new String[] {"--fixed-point=31", "a.txt"}));
+    assertThat(CompilerOptions.parse(new String[] {"--fixed-point", "a.txt"}).getFixedPointBits()).isEqualTo(16);
+  }
+}
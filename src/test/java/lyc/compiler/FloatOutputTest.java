@@ -0,0 +1,78 @@
+package lyc.compiler;
+
+import lyc.compiler.emulator.ExecutionReport;
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static lyc.compiler.CompileAndRun.compile;
+import static lyc.compiler.CompileAndRun.execute;
+import static lyc.compiler.CompileAndRun.options;
+import static lyc.compiler.CompileAndRun.run;
+
+public class FloatOutputTest {
+
+  private static final String PROGRAM = """
+      init {
+          foX : Float
+          foI : Int
+      }
+      foX := 2.05
+      write(foX)
+      foX := -0.5
+      write(foX)
+      foX := 40000.0
+      write(foX)
+      foX := 100000000000000000000000000000000000000.0
+      write(foX)
+      foX := 0.000001
+      write(foX)
+      foI := 19
+      write(foI)
+      """;
+
+  @Test
+  public void printsTheExactValueTruncatedWithPaddedDecimals() {
+    ExecutionReport report = execute(compile(PROGRAM));
+
+    // 2.05 como real de 4 bytes es 2.04999995...; 1e38 es 99999996802856924650656260769173209088
+    assertThat(report.getOutput()).isEqualTo(
+        "2.0499\r\n-0.5000\r\n40000.0000\r\n99999996802856924650656260769173209088.0000\r\n0.0000\r\n19.0000\r\n");
+    // Una salida por número y una por salto de línea, más la de terminar
+    assertThat(report.getDosCalls()).isEqualTo(13);
+  }
+
+  @Test
+  public void precisionIsConfigurable() {
+    assertThat(run(compile(PROGRAM, options(o -> o.setFloatDigits(9))))).startsWith("2.049999952\r\n-0.500000000\r\n");
+    assertThat(run(compile(PROGRAM, options(o -> o.setFloatDigits(0))))).endsWith("\r\n0\r\n19\r\n");
+  }
+
+  @Test
+  public void partialEvaluationPrintsTheSameText() {
+    String asm = compile(PROGRAM, options(o -> {
+      o.setFloatDigits(6);
+      o.setPartialEvalSteps(100_000);
+    }));
+
+    assertThat(asm).doesNotContain("PRINT_FLOAT");
+    assertThat(run(asm)).isEqualTo(run(compile(PROGRAM, options(o -> o.setFloatDigits(6)))));
+  }
+
+  @Test
+  public void infinityAndNanArePrintedByName() {
+    String program = """
+        init {
+            foF, foG : Float
+        }
+        foF := 99999999999999999999999999999999999999.0 * 10
+        write(foF)
+        foG := 0 - foF
+        write(foG)
+        write("x=", foF + foG)
+        """;
+    assertThat(run(compile(program))).isEqualTo("Inf\r\n-Inf\r\nx=NaN\r\n");
+    // El desborde corta la evaluación parcial y el resto lo imprime el runtime
+    assertThat(run(compile(program, options(o -> o.setPartialEvalSteps(100_000))))).isEqualTo("Inf\r\n-Inf\r\nx=NaN\r\n");
+  }
+
+}
@@ -0,0 +1,82 @@
+package lyc.compiler;
+
+import lyc.compiler.main.CompilerApi;
+import lyc.compiler.model.Artifact;
+import lyc.compiler.model.CompilationResult;
+import lyc.compiler.model.CompilerOptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static com.google.common.truth.Truth.assertThat;
+import static lyc.compiler.CompileAndRun.compile;
+import static lyc.compiler.CompileAndRun.run;
+
+public class ForLoopTest {
+
+  @Test
+  public void innermostLoopKeepsCountAndVariableInRegisters() {
+    String asm = compile("""
+        init {
+            fi, fj, fTotal : Int
+        }
+        fTotal := 0
+        for fi := 1 to 5 {
+            for fj := fi to 10 step 3 {
+                fTotal := fTotal + fj
+            }
+        }
+        write(fTotal)
+        write(fi)
+        """);
+
+    assertThat(asm).contains("DEC ECX");
+    assertThat(asm).containsMatch("DEC DWORD PTR _FORC\\d+");
+    assertThat(run(asm)).isEqualTo("89.0000\r\n6.0000\r\n");
+  }
+
+  @Test
+  public void negativeStepCountsDown() {
+    String asm = compile("""
+        init {
+            fi : Int
+        }
+        for fi := 10 to 1 step -4 {
+            write(fi)
+        }
+        write(fi)
+        """);
+
+    assertThat(run(asm)).isEqualTo("10.0000\r\n6.0000\r\n2.0000\r\n-2.0000\r\n");
+  }
+
+  @Test
+  public void emptyRangeSkipsTheBody() {
+    String asm = compile("""
+        init {
+            fi : Int
+        }
+        for fi := 5 to 4 {
+            write("nunca")
+        }
+        write(fi)
+        """);
+
+    assertThat(run(asm)).isEqualTo("5.0000\r\n");
+  }
+
+  @Test
+  public void assigningTheLoopVariableIsRejected() {
+    CompilationResult result = CompilerApi.compile("""
+        init {
+            fi : Int
+        }
+        for fi := 1 to 3 {
+            fi := 2
+        }
+        """, new CompilerOptions(), EnumSet.of(Artifact.FINAL_CODE));
+
+    assertThat(result.isSuccessful()).isFalse();
+    assertThat(result.getErrors().get(0).getLine()).isEqualTo(5);
+  }
+}
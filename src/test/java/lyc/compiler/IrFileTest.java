@@ -0,0 +1,86 @@
+package lyc.compiler;
+
+import lyc.compiler.ir.IrFile;
+import lyc.compiler.main.CompilerApi;
+import lyc.compiler.model.Artifact;
+import lyc.compiler.model.CompilationResult;
+import lyc.compiler.model.CompilerOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class IrFileTest {
+
+  private static final String PROGRAM = """
+      init {
+          irA, irB : Int
+          irF : Float
+      }
+      irA := 10
+      irF := 2.5
+      while (irA > 0) {
+          irB := irA * 2
+          write(irB)
+          irA := irA - 1
+      }
+      write("fin")
+      """;
+
+  @TempDir
+  Path dir;
+
+  @Test
+  public void backendFromIrMatchesCompilingTheSource() throws IOException {
+    Path ir = dir.resolve("prog.lir");
+    CompilerOptions emit = new CompilerOptions();
+    emit.setEmitIr(ir.toString());
+    CompilationResult fromSource = CompilerApi.compile(PROGRAM, emit, EnumSet.allOf(Artifact.class));
+
+    CompilationResult fromIr = CompilerApi.compile(IrFile.load(ir), new CompilerOptions(), EnumSet.allOf(Artifact.class));
+
+    assertThat(fromIr.isSuccessful()).isTrue();
+    for (Artifact artifact : Artifact.values()) {
+      assertThat(fromIr.getArtifact(artifact)).isEqualTo(fromSource.getArtifact(artifact));
+    }
+  }
+
+  @Test
+  public void roundTripKeepsRpnAndSymbols() throws IOException {
+    Path ir = dir.resolve("prog.lir");
+    CompilerOptions emit = new CompilerOptions();
+    emit.setEmitIr(ir.toString());
+    String listing = CompilerApi.compile(PROGRAM, emit, EnumSet.of(Artifact.INTERMEDIATE_CODE))
+        .getArtifact(Artifact.INTERMEDIATE_CODE);
+
+    IrFile loaded = IrFile.load(ir);
+    assertThat(listing).contains("[" + (loaded.getRpn().size() - 1) + "] " + loaded.getRpn().get(loaded.getRpn().size() - 1));
+    assertThat(loaded.getSymbols().get("irF").getType()).isEqualTo("Float");
+    assertThat(loaded.getSymbols().get("irF").getValue()).isEmpty();
+    assertThat(loaded.getSymbols().get("_\"fin\"").getLength()).isEqualTo("3");
+  }
+
+  @Test
+  public void otherVersionsAreRejected() throws IOException {
+    Path ir = dir.resolve("prog.lir");
+    CompilerOptions emit = new CompilerOptions();
+    emit.setEmitIr(ir.toString());
+    CompilerApi.compile(PROGRAM, emit, EnumSet.noneOf(Artifact.class));
+
+    byte[] content = Files.readAllBytes(ir);
+    content[4] = (byte) (IrFile.VERSION + 1);
+    IOException error = assertThrows(IOException.class, () -> IrFile.parse(ByteBuffer.wrap(content)));
+    assertThat(error).hasMessageThat().contains("Versión");
+
+    byte[] truncated = Arrays.copyOf(Files.readAllBytes(ir), content.length - 3);
+    assertThrows(IOException.class, () -> IrFile.parse(ByteBuffer.wrap(truncated)));
+  }
+}
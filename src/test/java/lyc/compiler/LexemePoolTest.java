@@ -0,0 +1,81 @@
+package lyc.compiler;
+
+import java_cup.runtime.Symbol;
+import lyc.compiler.factories.LexerFactory;
+import lyc.compiler.files.LexemePool;
+import lyc.compiler.files.SymbolTableGenerator;
+import lyc.compiler.model.CompilerException;
+import lyc.compiler.model.InvalidNumericConstantException;
+import lyc.compiler.model.NumberOutOfRangeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LexemePoolTest {
+
+  @BeforeEach
+  public void clearSymbolTable() {
+    SymbolTableGenerator.getInstance().clear();
+  }
+
+  @Test
+  public void poolFindsLexemesInsideABuffer() {
+    LexemePool pool = new LexemePool();
+    char[] buffer = "xx count + count12 count".toCharArray();
+
+    assertThat(pool.lookup(buffer, 3, 5)).isNull();
+    String count = pool.add(buffer, 3, 5);
+    assertThat(pool.lookup(buffer, 19, 5)).isSameInstanceAs(count);
+    assertThat(pool.lookup(buffer, 11, 7)).isNull();
+    for (int i = 0; i < 5000; i++) {
+      char[] name = ("v" + i).toCharArray();
+      pool.add(name, 0, name.length);
+    }
+    assertThat(pool.lookup(buffer, 19, 5)).isSameInstanceAs(count);
+    assertThat(pool.lookup("v4999".toCharArray(), 0, 5)).isEqualTo("v4999");
+    assertThat(pool.size()).isEqualTo(5001);
+  }
+
+  @Test
+  public void repeatedTokensShareTheirString() throws Exception {
+    Lexer lexer = LexerFactory.create("total := total + 1.5 * 1.5 + 7 + 7");
+
+    Object first = lexer.next_token().value;
+    lexer.next_token();
+    Object second = lexer.next_token().value;
+    assertThat(second).isSameInstanceAs(first);
+
+    Object[] constants = new Object[4];
+    int found = 0;
+    for (Symbol token = lexer.next_token(); token.sym != ParserSym.EOF; token = lexer.next_token()) {
+      if (token.sym == ParserSym.FLOAT_CONSTANT || token.sym == ParserSym.INTEGER_CONSTANT) {
+        constants[found++] = token.value;
+      }
+    }
+    assertThat(constants[1]).isSameInstanceAs(constants[0]);
+    assertThat(constants[3]).isSameInstanceAs(constants[2]);
+    assertThat(SymbolTableGenerator.getInstance().getTable()).containsKey("_1.5");
+    assertThat(SymbolTableGenerator.getInstance().getTable()).containsKey("_7");
+  }
+
+  @Test
+  public void numericBoundsAreCheckedOnTheBuffer() throws Exception {
+    assertThat(lex("2147483647").sym).isEqualTo(ParserSym.INTEGER_CONSTANT);
+    assertThat(lex("100000000000000000000000000000000000000.000").sym).isEqualTo(ParserSym.FLOAT_CONSTANT);
+    assertThat(lex("00099999999999999999999999999999999999999.").sym).isEqualTo(ParserSym.FLOAT_CONSTANT);
+    assertThat(lex(".000").sym).isEqualTo(ParserSym.FLOAT_CONSTANT);
+
+    assertThrows(NumberOutOfRangeException.class, () -> lex("2147483648"));
+    assertThrows(InvalidNumericConstantException.class, () -> lex("9223372036854775808"));
+    assertThrows(NumberOutOfRangeException.class, () -> lex("100000000000000000000000000000000000000.01"));
+    assertThrows(NumberOutOfRangeException.class, () -> lex("200000000000000000000000000000000000000."));
+  }
+
+  private static Symbol lex(String input) throws IOException, CompilerException {
+    return LexerFactory.create(input).next_token();
+  }
+}
@@ -0,0 +1,102 @@
+package lyc.compiler;
+
+import lyc.compiler.emulator.ExecutionReport;
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static lyc.compiler.CompileAndRun.compile;
+import static lyc.compiler.CompileAndRun.execute;
+import static lyc.compiler.CompileAndRun.options;
+import static lyc.compiler.CompileAndRun.run;
+
+public class LoopPromotionTest {
+
+  private static final String ACCUMULATOR = """
+      init {
+          lpI, lpN : Int
+          lpS, lpX : Float
+      }
+      lpN := 40
+      lpS := 0.0
+      lpX := 1.5
+      lpI := 0
+      while (lpI < lpN) {
+          lpS := lpS + lpX * 2.0
+          lpX := 0.75 - lpX / 3.0
+          if (lpS > 30.0) {
+              write(lpS)
+          }
+          lpI := lpI + 1
+      }
+      write(lpS)
+      write(lpX)
+      write(lpI)
+      """;
+
+  @Test
+  public void accumulatorsStayOnTheStack() {
+    String asm = compile(ACCUMULATOR, options(o -> o.setPromote(true)));
+    ExecutionReport plain = execute(compile(ACCUMULATOR, options(o -> o.setPromote(false))));
+    ExecutionReport promoted = execute(asm);
+
+    assertThat(asm).contains("LP");
+    assertThat(asm).contains("FSTP ST(");
+    assertThat(asm).contains("    FSTP _lpS\n");
+    assertThat(promoted.getOutput()).isEqualTo(plain.getOutput());
+    assertThat(promoted.getInstructionCount()).isLessThan(plain.getInstructionCount());
+    assertThat(promoted.getCycles()).isLessThan(plain.getCycles());
+  }
+
+  @Test
+  public void readsInsideTheLoopReachTheRegister() {
+    String program = """
+        init {
+            lpK, lpT : Int
+        }
+        lpK := 0
+        lpT := 0
+        while (lpK < 3) {
+            read(lpT)
+            lpT := lpT + lpK
+            write(lpT)
+            lpK := lpK + 1
+        }
+        write(lpT)
+        """;
+    String input = "10\r20\r-5\r";
+    String asm = compile(program, options(o -> o.setPromote(true)));
+
+    assertThat(asm).contains("CALL READ_INT");
+    assertThat(run(asm, input)).isEqualTo(run(compile(program, options(o -> o.setPromote(false))), input));
+  }
+
+  @Test
+  public void onlyInnermostLoopsWithoutSwitchArePromoted() {
+    String program = """
+        init {
+            lpA, lpB, lpC : Int
+        }
+        lpA := 0
+        while (lpA < 3) {
+            lpB := 0
+            while (lpB < 4) {
+                lpC := lpC + lpB
+                lpB := lpB + 1
+            }
+            lpA := lpA + 1
+        }
+        while (lpA > 0) {
+            switch (lpA) {
+                case 1: write(lpA)
+                default: lpA := lpA - 1
+            }
+            lpA := lpA - 1
+        }
+        write(lpC)
+        """;
+    String asm = compile(program, options(o -> o.setPromote(true)));
+
+    assertThat(asm.split("\nLP", -1)).hasLength(2);
+    assertThat(run(asm, "")).isEqualTo(run(compile(program, options(o -> o.setPromote(false))), ""));
+  }
+}
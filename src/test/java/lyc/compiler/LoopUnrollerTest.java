@@ -0,0 +1,124 @@
+package lyc.compiler;
+
+import lyc.compiler.files.RpnTokens;
+import lyc.compiler.files.SymbolTableGenerator;
+import lyc.compiler.optimizer.LoopUnroller;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class LoopUnrollerTest {
+
+  @BeforeAll
+  public static void declareVariables() throws Exception {
+    SymbolTableGenerator.getInstance().addIdentifiers(List.of("uIdx", "uAcc", "uLim"), "Int");
+  }
+
+  // uIdx := 0  uAcc := 0  while (uIdx < 10) { uAcc := uAcc + uIdx  uIdx := uIdx + 1 }
+  private static final List<String> SHORT_LOOP = rpn(
+      "0 uIdx := 0 uAcc := uIdx 10 CMP BGE 23 uAcc uIdx + uAcc := uIdx 1 + uIdx := BI 6");
+
+  @Test
+  public void shortLoopIsFullyUnrolled() {
+    LoopUnroller unroller = new LoopUnroller(4);
+    List<String> unrolled = unroller.optimize(SHORT_LOOP);
+
+    assertThat(unroller.getFullyUnrolled()).isEqualTo(1);
+    assertThat(unrolled).doesNotContain("BI");
+    assertThat(run(unrolled)).isEqualTo(run(SHORT_LOOP));
+  }
+
+  @Test
+  public void longLoopKeepsRemainderBeforeUnrolledBody() {
+    // 10 vueltas, presupuesto para 4 copias: 2 sueltas y el bucle de a 4
+    LoopUnroller unroller = new LoopUnroller(4, 40);
+    List<String> unrolled = unroller.optimize(SHORT_LOOP);
+
+    assertThat(unroller.getPartiallyUnrolled()).isEqualTo(1);
+    assertThat(unrolled.stream().filter("BI"::equals).count()).isEqualTo(1);
+    assertThat(unrolled.stream().filter(":="::equals).count()).isEqualTo(2 + 2 * (2 + 4));
+    assertThat(run(unrolled)).isEqualTo(run(SHORT_LOOP));
+  }
+
+  @Test
+  public void loopThatWritesItsBoundIsLeftAlone() {
+    // uLim := 10  while (uIdx < uLim) { uLim := uLim - 1  uIdx := uIdx + 1 }
+    List<String> loop = rpn(
+        "0 uIdx := 10 uLim := uIdx uLim CMP BGE 23 uLim 1 - uLim := uIdx 1 + uIdx := BI 6");
+    assertThat(new LoopUnroller(4).optimize(loop)).isEqualTo(loop);
+  }
+
+  @Test
+  public void jumpsAroundTheLoopAreRelocated() {
+    // uAcc := 0  if (uAcc = 0) { uIdx := 0  while (uIdx < 3) { write(uIdx) uIdx := uIdx + 1 } }  uAcc := 1
+    List<String> program = rpn(
+        "0 uAcc := uAcc 0 CMP BNE 25 0 uIdx := uIdx 3 CMP BGE 25 uIdx WRITE uIdx 1 + uIdx := BI 11 1 uAcc :=");
+    List<String> unrolled = new LoopUnroller(4).optimize(program);
+
+    // El salto del if sobre el bucle apunta ahora después de las 3 copias del cuerpo
+    assertThat(unrolled.get(7)).isEqualTo(String.valueOf(11 + 3 * 7));
+    assertThat(run(unrolled)).isEqualTo(run(program));
+  }
+
+  private static List<String> rpn(String tokens) {
+    return Arrays.asList(tokens.split(" "));
+  }
+
+  /** Ejecuta la polaca (+, -, :=, CMP, saltos, WRITE) y devuelve las variables y lo escrito. */
+  private static Map<String, Object> run(List<String> rpn) {
+    Map<String, Object> state = new HashMap<>();
+    StringBuilder written = new StringBuilder();
+    Deque<String> stack = new ArrayDeque<>();
+    double compared = 0;
+    for (int pc = 0; pc < rpn.size(); pc++) {
+      String tok = rpn.get(pc);
+      switch (tok) {
+        case "+", "-" -> {
+          double b = value(state, stack.pop());
+          double a = value(state, stack.pop());
+          stack.push(String.valueOf(tok.equals("+") ? a + b : a - b));
+        }
+        case ":=" -> {
+          String dst = stack.pop();
+          state.put(dst, value(state, stack.pop()));
+        }
+        case "CMP" -> {
+          double b = value(state, stack.pop());
+          compared = value(state, stack.pop()) - b;
+        }
+        case "WRITE" -> written.append(value(state, stack.pop())).append(';');
+        default -> {
+          if (!RpnTokens.isBranch(tok)) {
+            stack.push(tok);
+            continue;
+          }
+          boolean jump = switch (tok) {
+            case "BGE" -> compared >= 0;
+            case "BNE" -> compared != 0;
+            case "BI" -> true;
+            default -> throw new IllegalArgumentException(tok);
+          };
+          int target = Integer.parseInt(rpn.get(++pc));
+          if (jump) {
+            pc = target - 1;
+          }
+        }
+      }
+    }
+    state.put("salida", written.toString());
+    return state;
+  }
+
+  private static double value(Map<String, Object> state, String operand) {
+    Object known = state.get(operand);
+    return known != null ? (Double) known : Double.parseDouble(operand);
+  }
+}
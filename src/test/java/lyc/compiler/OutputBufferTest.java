@@ -0,0 +1,71 @@
+package lyc.compiler;
+
+import lyc.compiler.constants.Constants;
+import lyc.compiler.emulator.ExecutionReport;
+import lyc.compiler.model.CompilerOptions.OutputMode;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static com.google.common.truth.Truth.assertThat;
+import static lyc.compiler.CompileAndRun.compile;
+import static lyc.compiler.CompileAndRun.execute;
+import static lyc.compiler.CompileAndRun.options;
+import static lyc.compiler.CompileAndRun.run;
+
+public class OutputBufferTest {
+
+  private static final String LOOP = """
+      init {
+          obI : Int
+      }
+      for obI := 1 to 200 {
+          write("linea ", obI)
+      }
+      """;
+
+  @Test
+  public void fullBufferIsFlushedWithOneCall() {
+    ExecutionReport report = execute(compile(LOOP, options(o -> o.setOutputMode(OutputMode.BUFFERED))));
+    int length = report.getOutput().getBytes(StandardCharsets.US_ASCII).length;
+
+    assertThat(report.getOutput()).isEqualTo(run(compile(LOOP)));
+    assertThat(length).isGreaterThan(4 * Constants.OUTPUT_BUFFER_SIZE);
+    // Un AH=40h por buffer lleno, otro con lo que queda al terminar, y la salida
+    int flushes = (length + Constants.OUTPUT_BUFFER_SIZE - 1) / Constants.OUTPUT_BUFFER_SIZE;
+    assertThat(report.getDosCalls()).isEqualTo(flushes + 1);
+  }
+
+  @Test
+  public void pendingOutputIsFlushedBeforeReading() {
+    String asm = compile("""
+        init {
+            obX : Float
+        }
+        write("dato?")
+        read(obX)
+        write(obX * 2)
+        """, options(o -> o.setOutputMode(OutputMode.BUFFERED)));
+    ExecutionReport report = execute(asm, "1.5\n");
+
+    // Si no se volcara, "dato?" saldría después del eco de lo tipeado
+    assertThat(report.getOutput()).isEqualTo("dato?\r\n1.5\r\n3.0000\r\n");
+    // Volcado antes de leer, la lectura (AH=0Ah), volcado al terminar y la salida
+    assertThat(report.getDosCalls()).isEqualTo(4);
+  }
+
+  @Test
+  public void remainingOutputIsFlushedAtExit() {
+    ExecutionReport report = execute(compile("""
+        init {
+            obY : Float
+        }
+        obY := 2.5
+        write("y=", obY)
+        write("fin")
+        """, options(o -> o.setOutputMode(OutputMode.BUFFERED))));
+
+    assertThat(report.getOutput()).isEqualTo("y=2.5000\r\nfin\r\n");
+    assertThat(report.getDosCalls()).isEqualTo(2);
+  }
+}
@@ -0,0 +1,105 @@
+package lyc.compiler;
+
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static lyc.compiler.CompileAndRun.compile;
+import static lyc.compiler.CompileAndRun.options;
+import static lyc.compiler.CompileAndRun.run;
+
+public class PartialEvaluationTest {
+
+  private static final String INPUT_FREE = """
+      init {
+          peI, peN : Int
+          peS, peX : Float
+          peT : String
+      }
+      peT := "suma"
+      peN := 12
+      peX := 1.5
+      for peI := 1 to 3 {
+          peS := peS + peI
+      }
+      while (peN > 0) {
+          peS := peS + peX / 3.0
+          peN := peN - 1
+          if (peS > 20.0) {
+              write(peS)
+          }
+      }
+      write(peT)
+      write(peS)
+      switch (peI) {
+          case 4: write("cuatro")
+          default: write("otro")
+      }
+      """;
+
+  @Test
+  public void inputFreeProgramsOnlyPrint() {
+    String asm = compile(INPUT_FREE, options(o -> o.setPartialEvalSteps(0)));
+    String evaluated = compile(INPUT_FREE, options(o -> o.setPartialEvalSteps(100_000)));
+
+    assertThat(evaluated).contains("_PRECOMPUTED db ");
+    assertThat(evaluated).doesNotContain("FLD");
+    assertThat(evaluated).doesNotContain("CALL");
+    assertThat(run(evaluated, "")).isEqualTo(run(asm, ""));
+  }
+
+  @Test
+  public void onlyThePrefixBeforeTheFirstReadIsEvaluated() {
+    String program = """
+        init {
+            peA, peB, peC : Float
+            peT : String
+        }
+        peT := "listo"
+        peA := 10.0 / 4.0
+        peB := peA * peA
+        write(peB)
+        read(peC)
+        peC := peC + peB
+        write(peC)
+        write(peT)
+        """;
+    String evaluated = compile(program, options(o -> o.setPartialEvalSteps(100_000)));
+
+    assertThat(evaluated).contains("_peB dd 6.25\n");
+    assertThat(evaluated).contains("_PRECOMPUTED db \"6.2500\",0DH,0AH");
+    assertThat(evaluated).doesNotContain("FSTP _peA");
+    assertThat(run(evaluated, "1.5\r")).isEqualTo(run(compile(program, options(o -> o.setPartialEvalSteps(0))), "1.5\r"));
+  }
+
+  @Test
+  public void stepBudgetAndCaseBodiesFallBackToRunningTheCode() {
+    String program = """
+        init {
+            peK, peR : Int
+        }
+        write("inicio")
+        peK := 2
+        while (peK < 500) {
+            peK := peK * 2
+        }
+        switch (peK) {
+            case 512: read(peR)
+            default: peR := 1
+        }
+        peR := peK + peR
+        write(peR)
+        """;
+    String plain = compile(program, options(o -> o.setPartialEvalSteps(0)));
+    String cut = compile(program, options(o -> o.setPartialEvalSteps(20)));
+    String evaluated = compile(program, options(o -> o.setPartialEvalSteps(100_000)));
+
+    // Con 20 pasos no sale del while: se retoma antes de entrar
+    assertThat(cut).contains("_PRECOMPUTED db \"inicio\"");
+    assertThat(cut).contains("FMUL");
+    // Se retoma en el cuerpo del case, con el while y el despacho ya resueltos
+    assertThat(evaluated).contains("_peK dd 512.0\n");
+    assertThat(evaluated).doesNotContain("FMUL");
+    assertThat(run(cut, "7\r")).isEqualTo(run(plain, "7\r"));
+    assertThat(run(evaluated, "7\r")).isEqualTo(run(plain, "7\r"));
+  }
+}
@@ -0,0 +1,62 @@
+package lyc.compiler;
+
+import lyc.compiler.constants.Constants;
+import lyc.compiler.main.CompilerApi;
+import lyc.compiler.model.Artifact;
+import lyc.compiler.model.CompilationResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+
+import static com.google.common.truth.Truth.assertThat;
+import static lyc.compiler.CompileAndRun.compile;
+import static lyc.compiler.CompileAndRun.execute;
+import static lyc.compiler.CompileAndRun.options;
+
+public class ProfileUseTest {
+
+  private static final String PROGRAM = """
+      init {
+          puI : Int
+      }
+      puI := 0
+      while (puI < 50) {
+          puI := puI + 1
+      }
+      write(puI)
+      """;
+
+  @Test
+  public void profileOfAnotherProgramIsIgnoredWithAWarning(@TempDir Path dir) throws IOException {
+    Path profile = dir.resolve(Constants.PROFILE_FILE);
+    Files.write(profile, execute(compile(PROGRAM, options(o -> o.setProfileGenerate(true)))).getFiles().get(Constants.PROFILE_FILE));
+
+    CompilationResult same = compileUsing(profile, PROGRAM);
+    CompilationResult edited = compileUsing(profile, PROGRAM.replace("50", "60"));
+
+    assertThat(same.getWarnings()).isEmpty();
+    assertThat(edited.getErrors()).isEmpty();
+    assertThat(edited.getWarnings())
+        .containsExactly("el perfil " + profile + " es de otra versión del programa, se ignora");
+  }
+
+  @Test
+  public void unreadableProfileIsIgnoredWithAWarning(@TempDir Path dir) throws IOException {
+    Path profile = dir.resolve(Constants.PROFILE_FILE);
+    Files.writeString(profile, "no es un perfil");
+
+    CompilationResult result = compileUsing(profile, PROGRAM);
+
+    assertThat(result.getErrors()).isEmpty();
+    assertThat(result.getWarnings())
+        .containsExactly("no se pudo leer el perfil " + profile + " (No es un archivo de perfil), se ignora");
+  }
+
+  private static CompilationResult compileUsing(Path profile, String program) {
+    return CompilerApi.compile(program, options(o -> o.setProfileUse(profile.toString())), EnumSet.of(Artifact.FINAL_CODE));
+  }
+}
@@ -0,0 +1,72 @@
+package lyc.compiler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static lyc.compiler.CompileAndRun.compile;
+import static lyc.compiler.CompileAndRun.run;
+
+public class ReadTest {
+
+  private static final String PROGRAM = """
+      init {
+          rdI, rdJ, rdK, rdL : Int
+          rdX, rdY, rdZ : Float
+          rdS : String
+      }
+      read(rdI)
+      read(rdJ)
+      read(rdK)
+      read(rdL)
+      read(rdX)
+      read(rdY)
+      read(rdZ)
+      read(rdS)
+      write(rdI, " ", rdJ, " ", rdK, " ", rdL)
+      write(rdX, " ", rdY, " ", rdZ)
+      write("[", rdS, "]")
+      """;
+
+  @Test
+  public void readIntSkipsBlanksAndStopsAtTheFirstNonDigit() {
+    String input = "  -42\n+17\n12abc\n\n0\n0\n0\n\n";
+
+    assertThat(lastLines(run(compile(PROGRAM), input), 3).get(0))
+        .isEqualTo("-42.0000 17.0000 12.0000 0.0000");
+  }
+
+  @Test
+  public void readFloatKeepsTheDecimals() {
+    String input = "0\n0\n0\n0\n-3.25\n.5\n7\n\n";
+
+    assertThat(lastLines(run(compile(PROGRAM), input), 3).get(1))
+        .isEqualTo("-3.2500 0.5000 7.0000");
+  }
+
+  @Test
+  public void readStrTakesTheWholeLine() {
+    String input = "0\n0\n0\n0\n0\n0\n0\n  hola, mundo 1.5\n";
+
+    assertThat(lastLines(run(compile(PROGRAM), input), 3).get(2)).isEqualTo("[  hola, mundo 1.5]");
+  }
+
+  @Test
+  public void eachLineIsEchoedOnce() {
+    String output = run(compile("""
+        init {
+            rdA : Int
+        }
+        read(rdA)
+        write(rdA * 2)
+        """), "21\n");
+
+    assertThat(output).isEqualTo("21\r\n42.0000\r\n");
+  }
+
+  private static List<String> lastLines(String output, int count) {
+    List<String> lines = List.of(output.split("\r\n"));
+    return lines.subList(lines.size() - count, lines.size());
+  }
+}
@@ -0,0 +1,104 @@
+package lyc.compiler;
+
+import lyc.compiler.emulator.ExecutionReport;
+import lyc.compiler.runtime.RuntimeLibrary;
+import lyc.compiler.runtime.RuntimeRoutine;
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static lyc.compiler.CompileAndRun.compile;
+import static lyc.compiler.CompileAndRun.execute;
+import static lyc.compiler.CompileAndRun.run;
+
+public class RuntimeLinkingTest {
+
+  @Test
+  public void onlyTheClosureOfUsedRoutinesIsResolved() {
+    RuntimeLibrary library = new RuntimeLibrary();
+    library.use(RuntimeLibrary.PRINT_FLOAT);
+
+    assertThat(library.resolve().stream().map(RuntimeRoutine::getName).toList()).containsExactly(
+        RuntimeLibrary.NUMBER_BUFFER, RuntimeLibrary.PUT_DIGITS, RuntimeLibrary.PRINT_NUMBUF,
+        RuntimeLibrary.FORMAT_FLOAT, RuntimeLibrary.PRINT_FLOAT).inOrder();
+    assertThat(library.usesFpu()).isTrue();
+
+    library.reset();
+    library.use(RuntimeLibrary.STRCPY);
+    assertThat(library.resolve().stream().map(RuntimeRoutine::getName).toList())
+        .containsExactly(RuntimeLibrary.STRLEN, RuntimeLibrary.STRCPY).inOrder();
+    assertThat(library.usesFpu()).isFalse();
+  }
+
+  @Test
+  public void programsWithoutNumbersDoNotStartTheFpu() {
+    String asm = compile("""
+        init {
+            rlS : String
+        }
+        rlS := "hola"
+        write(rlS)
+        write("chau")
+        """);
+
+    assertThat(asm).doesNotContain("FINIT");
+    assertThat(asm).doesNotContain("PROC");
+    assertThat(asm).doesNotContain("_NUMBUF");
+    assertThat(run(asm)).isEqualTo("hola\r\nchau\r\n");
+  }
+
+  @Test
+  public void printingANumberLinksOnlyTheFormatter() {
+    String asm = compile("""
+        init {
+            rlX : Float
+        }
+        rlX := 1.5
+        write(rlX)
+        """);
+    ExecutionReport report = execute(asm);
+
+    assertThat(asm).contains("FINIT");
+    assertThat(asm).contains("PRINT_FLOAT PROC");
+    assertThat(asm).contains("FORMAT_FLOAT PROC");
+    assertThat(asm).contains("PUT_DIGITS PROC");
+    assertThat(asm).doesNotContain("READ_LINE");
+    assertThat(asm).doesNotContain("STRCPY");
+    assertThat(asm).doesNotContain("OUT_FLUSH");
+    assertThat(report.getOutput()).isEqualTo("1.5000\r\n");
+  }
+
+  @Test
+  public void readingAnIntLinksNeitherFloatNorStringInput() {
+    String asm = compile("""
+        init {
+            rlI : Int
+        }
+        read(rlI)
+        write(rlI + 1)
+        """);
+
+    assertThat(asm).contains("READ_INT PROC");
+    assertThat(asm).contains("READ_LINE PROC");
+    assertThat(asm).contains("IN_SIGN PROC");
+    assertThat(asm).doesNotContain("READ_FLOAT");
+    assertThat(asm).doesNotContain("READ_STR");
+    assertThat(run(asm, "41\n")).isEqualTo("41\r\n42.0000\r\n");
+  }
+
+  @Test
+  public void readingAStringLinksTheStringCopy() {
+    String asm = compile("""
+        init {
+            rlT : String
+        }
+        read(rlT)
+        write(rlT)
+        """);
+
+    assertThat(asm).contains("READ_STR PROC");
+    assertThat(asm).contains("STRCPY PROC");
+    assertThat(asm).contains("STRLEN PROC");
+    assertThat(asm).doesNotContain("READ_INT");
+    assertThat(run(asm, "hola\n")).isEqualTo("hola\r\nhola\r\n");
+  }
+}
@@ -0,0 +1,202 @@
+package lyc.compiler;
+
+import lyc.compiler.main.CompilerApi;
+import lyc.compiler.model.Artifact;
+import lyc.compiler.model.CompilationResult;
+import lyc.compiler.model.CompilerOptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.IntFunction;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+/**
+ * Compila programas generados de tamaño creciente y mide cada fase (front end y cada
+ * salida) en tiempo y bytes asignados. Falla si alguna crece más que linealmente o si
+ * asigna más por sentencia que lo guardado en scaling-budget.properties.
+ *
+ * <p>Tarda varios segundos y depende de la máquina: no corre con el resto, solo con
+ * {@code -Drun-scaling}.</p>
+ */
+@Tag("scaling")
+public class ScalingTest {
+
+  // Exponente máximo de la curva ajustada: lineal con margen para ruido y el GC
+  private static final double MAX_ALLOCATION_EXPONENT = 1.15;
+  private static final double MAX_TIME_EXPONENT = 1.4;
+  // Por debajo de esto el tiempo es ruido y no se ajusta
+  private static final long MIN_MEASURABLE_NANOS = 20_000_000L;
+
+  private static final com.sun.management.ThreadMXBean THREADS =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private static Properties budget;
+
+  @BeforeAll
+  public static void loadBudgetAndWarmUp() throws IOException {
+    budget = new Properties();
+    try (InputStream in = ScalingTest.class.getResourceAsStream("/scaling-budget.properties")) {
+      budget.load(in);
+    }
+    // Que el JIT ya haya compilado el compilador antes de medir
+    for (int i = 0; i < 3; i++) {
+      measure(straightLine(5_000));
+    }
+  }
+
+  @Test
+  public void straightLineProgramsScaleLinearly() throws IOException {
+    checkScaling("straight", ScalingTest::straightLine, 1_000, 10_000, 100_000);
+  }
+
+  @Test
+  public void deepNestingScalesLinearly() throws IOException {
+    checkScaling("nested", ScalingTest::nested, 250, 1_000, 4_000);
+  }
+
+  @Test
+  public void longConditionsScaleLinearly() throws IOException {
+    checkScaling("conditions", ScalingTest::longConditions, 500, 2_000, 8_000);
+  }
+
+  private static void checkScaling(String name, IntFunction<String> generator, int... sizes) throws IOException {
+    Map<String, long[]> bytes = new LinkedHashMap<>();
+    Map<String, long[]> nanos = new LinkedHashMap<>();
+    for (int s = 0; s < sizes.length; s++) {
+      for (Map.Entry<String, long[]> phase : measure(generator.apply(sizes[s])).entrySet()) {
+        bytes.computeIfAbsent(phase.getKey(), k -> new long[sizes.length])[s] = phase.getValue()[0];
+        nanos.computeIfAbsent(phase.getKey(), k -> new long[sizes.length])[s] = phase.getValue()[1];
+      }
+    }
+
+    for (String phase : bytes.keySet()) {
+      long[] allocated = bytes.get(phase);
+      String label = name + "." + phase;
+      assertWithMessage("bytes de %s: %s", label, java.util.Arrays.toString(allocated))
+          .that(exponent(sizes, allocated)).isAtMost(MAX_ALLOCATION_EXPONENT);
+
+      long[] time = nanos.get(phase);
+      if (time[0] >= MIN_MEASURABLE_NANOS) {
+        assertWithMessage("tiempo de %s: %s ns", label, java.util.Arrays.toString(time))
+            .that(exponent(sizes, time)).isAtMost(MAX_TIME_EXPONENT);
+      }
+
+      String limit = budget.getProperty(label);
+      assertWithMessage("falta el presupuesto de %s en scaling-budget.properties", label).that(limit).isNotNull();
+      double perUnit = (double) allocated[allocated.length - 1] / sizes[sizes.length - 1];
+      assertWithMessage("bytes por unidad de %s", label).that(perUnit).isAtMost(Double.parseDouble(limit));
+    }
+  }
+
+  /** Pendiente de log(y) contra log(n) por cuadrados mínimos: 1 es lineal, 2 cuadrático. */
+  private static double exponent(int[] sizes, long[] values) {
+    int k = sizes.length;
+    double sx = 0, sy = 0, sxx = 0, sxy = 0;
+    for (int i = 0; i < k; i++) {
+      double x = Math.log(sizes[i]);
+      double y = Math.log(Math.max(1, values[i]));
+      sx += x;
+      sy += y;
+      sxx += x * x;
+      sxy += x * y;
+    }
+    return (k * sxy - sx * sy) / (k * sxx - sx * sx);
+  }
+
+  /**
+   * Compila con todas las salidas y devuelve, por fase, {bytes asignados, nanosegundos}.
+   * El front end va desde el comienzo hasta que se abre la primera salida.
+   */
+  private static Map<String, long[]> measure(String program) throws IOException {
+    Map<String, long[]> phases = new LinkedHashMap<>();
+    long[] mark = {THREADS.getCurrentThreadAllocatedBytes(), System.nanoTime()};
+    PrintStream console = System.out;
+    // El parser anuncia cada regla que reduce
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    try {
+      CompilationResult result = CompilerApi.compile(new StringReader(program), new CompilerOptions(),
+          EnumSet.allOf(Artifact.class), (artifact, fileName) -> {
+            if (phases.isEmpty()) {
+              phases.put("front", since(mark));
+            }
+            long[] start = {THREADS.getCurrentThreadAllocatedBytes(), System.nanoTime()};
+            return new Writer() {
+              @Override
+              public void write(char[] buffer, int offset, int length) {
+              }
+
+              @Override
+              public void flush() {
+              }
+
+              @Override
+              public void close() {
+                phases.put(artifact.name().toLowerCase(), since(start));
+              }
+            };
+          });
+      assertThat(result.getErrors()).isEmpty();
+    } finally {
+      System.setOut(console);
+    }
+    return phases;
+  }
+
+  private static long[] since(long[] mark) {
+    return new long[] {THREADS.getCurrentThreadAllocatedBytes() - mark[0], System.nanoTime() - mark[1]};
+  }
+
+  /** {@code n} sentencias seguidas de cinco tipos, con una constante distinta cada cinco. */
+  private static String straightLine(int n) {
+    StringBuilder program = new StringBuilder("init {\n    a, b, c : Int\n    f : Float\n}\n");
+    for (int i = 0; i < n; i++) {
+      switch (i % 5) {
+        case 0 -> program.append("a := a + b * ").append(i).append(" - c / 3\n");
+        case 1 -> program.append("f := f * 1.5 + 0.25\n");
+        case 2 -> program.append("if (a > b) {\n    c := c + 1\n} else {\n    c := c - 1\n}\n");
+        case 3 -> program.append("while (c < 3) {\n    c := c + 1\n}\n");
+        default -> program.append("write(a)\n");
+      }
+    }
+    return program.toString();
+  }
+
+  /** {@code depth} if/while anidados, cada uno con una asignación adentro. */
+  private static String nested(int depth) {
+    StringBuilder program = new StringBuilder("init {\n    a, b : Int\n}\n");
+    for (int i = 0; i < depth; i++) {
+      program.append(i % 2 == 0 ? "if (a > b) {\n" : "while (a < b) {\n");
+      program.append("a := a + 1\n");
+    }
+    program.append("b := a\n");
+    program.append("}\n".repeat(depth));
+    return program.toString();
+  }
+
+  /** Un if con {@code terms} comparaciones unidas con OR y un while con otras tantas con AND. */
+  private static String longConditions(int terms) {
+    StringBuilder or = new StringBuilder();
+    StringBuilder and = new StringBuilder();
+    for (int t = 0; t < terms; t++) {
+      or.append(t == 0 ? "" : " OR ").append("a > ").append(t);
+      and.append(t == 0 ? "" : " AND ").append("b < ").append(t);
+    }
+    return "init {\n    a, b : Int\n}\n"
+        + "if (" + or + ") {\n    a := a - 1\n}\n"
+        + "while (" + and + ") {\n    b := b + 1\n}\n";
+  }
+}
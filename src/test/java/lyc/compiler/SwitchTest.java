@@ -0,0 +1,96 @@
+package lyc.compiler;
+
+import lyc.compiler.main.CompilerApi;
+import lyc.compiler.model.Artifact;
+import lyc.compiler.model.CompilationResult;
+import lyc.compiler.model.CompilerOptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static com.google.common.truth.Truth.assertThat;
+import static lyc.compiler.CompileAndRun.compile;
+import static lyc.compiler.CompileAndRun.run;
+
+public class SwitchTest {
+
+  @Test
+  public void denseCasesJumpThroughATable() {
+    String asm = compile("""
+        init {
+            swN, swTotal : Int
+        }
+        swN := 0
+        swTotal := 0
+        while (swN < 8) {
+            switch (swN) {
+                case 1: swTotal := swTotal + 10
+                case 2: swTotal := swTotal + 20
+                case 3: swTotal := swTotal + 30
+                case 5: swTotal := swTotal + 50
+                default: swTotal := swTotal + 1
+            }
+            swN := swN + 1
+        }
+        write(swTotal)
+        """);
+
+    assertThat(asm).containsMatch("_SWT\\d+ dw ");
+    assertThat(asm).contains("JMP WORD PTR _SWT");
+    assertThat(run(asm)).isEqualTo("114.0000\r\n");
+  }
+
+  @Test
+  public void sparseCasesUseComparisons() {
+    String asm = compile("""
+        init {
+            swN : Int
+        }
+        swN := 3
+        switch (swN * 100 - 7) {
+            case -5: write("a")
+            case 293: write("b")
+            case 1000: write("c")
+            case 77777: write("d")
+            case 9: write("e")
+        }
+        write("fin")
+        """);
+
+    assertThat(asm).doesNotContain("_SWT");
+    assertThat(run(asm)).isEqualTo("b\r\nfin\r\n");
+  }
+
+  @Test
+  public void nonIntegralSelectorGoesToDefault() {
+    String asm = compile("""
+        init {
+            swN : Int
+        }
+        swN := 7 / 2
+        switch (swN) {
+            case 3: write("tres")
+            default: write("otro")
+        }
+        """);
+
+    assertThat(run(asm)).isEqualTo("otro\r\n");
+  }
+
+  @Test
+  public void repeatedCaseIsRejected() {
+    CompilationResult result = CompilerApi.compile("""
+        init {
+            swN : Int
+        }
+        swN := 1
+        switch (swN) {
+            case 1: write("uno")
+            case 1: write("otro")
+        }
+        """, new CompilerOptions(), EnumSet.of(Artifact.FINAL_CODE));
+
+    assertThat(result.isSuccessful()).isFalse();
+    assertThat(result.getErrors().get(0).getLine()).isEqualTo(7);
+  }
+}
@@ -0,0 +1,93 @@
+package lyc.compiler;
+
+import lyc.compiler.emulator.ExecutionReport;
+import lyc.compiler.main.CompilerApi;
+import lyc.compiler.model.Artifact;
+import lyc.compiler.model.CompilationResult;
+import lyc.compiler.model.CompilerOptions;
+import lyc.compiler.model.CompilerOptions.OutputMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static com.google.common.truth.Truth.assertThat;
+import static lyc.compiler.CompileAndRun.compile;
+import static lyc.compiler.CompileAndRun.execute;
+import static lyc.compiler.CompileAndRun.options;
+import static lyc.compiler.CompileAndRun.run;
+
+public class WriteArgumentsTest {
+
+  private static final String PROGRAM = """
+      init {
+          waX, waY : Float
+          waI : Int
+          waS : String
+      }
+      waX := 2.5
+      waI := 3
+      waS := "fin"
+      write("x=", waX, " doble=", waX * 2, " menos=", -waX)
+      for waI := 1 to 3 {
+          waY := waY + waI
+          write(waI, ": ", waY * waI - 1, waS)
+      }
+      write((waX + waI) / 2)
+      write("a", "b")
+      """;
+
+  private static final String EXPECTED = """
+      x=2.5000 doble=5.0000 menos=-2.5000\r
+      1.0000: 0.0000fin\r
+      2.0000: 5.0000fin\r
+      3.0000: 17.0000fin\r
+      3.2500\r
+      ab\r
+      """;
+
+  @Test
+  public void allArgumentsGoToTheSameLine() {
+    ExecutionReport report = execute(compile(PROGRAM));
+
+    assertThat(report.getOutput()).isEqualTo(EXPECTED);
+    // Una llamada a DOS por cada línea de varios argumentos (cinco), dos para el write
+    // de un número solo y la de terminar
+    assertThat(report.getDosCalls()).isEqualTo(5 + 2 + 1);
+  }
+
+  @Test
+  public void expressionsArePrintedFromTheFpuStack() {
+    String asm = compile(PROGRAM);
+
+    assertThat(asm).contains("    FMUL\n    CALL FORMAT_FLOAT\n    CALL OUT_STR\n");
+    assertThat(asm).contains("    FCHS\n    CALL FORMAT_FLOAT\n");
+    assertThat(asm).contains("    FDIV\n    CALL PRINT_FLOAT\n");
+    // Los temporales que se guardan son los operandos de otra operación, nunca lo que se imprime
+    assertThat(asm).doesNotContainMatch("FLD @T\\d+\n    CALL");
+  }
+
+  @Test
+  public void otherModesPrintTheSameText() {
+    String evaluatedAsm = compile(PROGRAM, options(o -> o.setPartialEvalSteps(100_000)));
+
+    assertThat(run(compile(PROGRAM, options(o -> o.setOutputMode(OutputMode.BUFFERED))))).isEqualTo(EXPECTED);
+    assertThat(evaluatedAsm).doesNotContain("FORMAT_FLOAT");
+    assertThat(run(evaluatedAsm)).isEqualTo(EXPECTED);
+    assertThat(run(compile(PROGRAM, options(o -> o.setFixedPointBits(16))))).isEqualTo(EXPECTED);
+  }
+
+  @Test
+  public void textsEndAtTheirClosingQuote() {
+    CompilationResult result = CompilerApi.compile("""
+        init {
+            waZ : Int
+        }
+        write("uno", "dos")
+        """, new CompilerOptions(), EnumSet.of(Artifact.INTERMEDIATE_CODE));
+
+    assertThat(result.getErrors()).isEmpty();
+    assertThat(result.getArtifact(Artifact.INTERMEDIATE_CODE)).contains("\"uno\"");
+    assertThat(result.getArtifact(Artifact.INTERMEDIATE_CODE)).contains("WRITEP");
+  }
+
+}
@@ -0,0 +1,79 @@
+package lyc.compiler;
+
+import lyc.compiler.model.CompilerOptions.Target;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+import static lyc.compiler.CompileAndRun.compile;
+import static lyc.compiler.CompileAndRun.options;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class X64BackendTest {
+
+  // Variables que se llaman como los símbolos del runtime (_zero, _nl, _start, _T1...)
+  private static final String PROGRAM = "/golden/x64-runtime-names.txt";
+  private static final String GOLDEN = "/golden/x64-runtime-names.s";
+
+  @Test
+  public void matchesTheGoldenAssembly() throws IOException {
+    assertThat(compileForLinux(resource(PROGRAM))).isEqualTo(resource(GOLDEN));
+  }
+
+  @Test
+  public void userVariablesDoNotCollideWithRuntimeSymbols() throws IOException {
+    String asm = compileForLinux(resource(PROGRAM));
+
+    assertThat(asm).contains("_v_zero: .quad 0\n");
+    assertThat(asm).contains("_v_T1: .double 0.0\n");
+    assertThat(asm).contains("_zero: .byte '0'\n");
+    assertThat(asm).contains("_T1: .quad 0\n");
+  }
+
+  @Test
+  public void assembledProgramRuns(@TempDir Path dir) throws IOException, InterruptedException {
+    // Solo donde están las binutils de x86-64 Linux
+    assumeTrue(System.getProperty("os.name").startsWith("Linux") && "amd64".equals(System.getProperty("os.arch")));
+    assumeTrue(succeeds(dir, "as", "--version") && succeeds(dir, "ld", "--version"));
+
+    Files.writeString(dir.resolve("final.s"), compileForLinux(resource(PROGRAM)), StandardCharsets.UTF_8);
+    assertThat(succeeds(dir, "as", "final.s", "-o", "final.o")).isTrue();
+    assertThat(succeeds(dir, "ld", "-static", "final.o", "-o", "final")).isTrue();
+
+    Process process = new ProcessBuilder(dir.resolve("final").toString()).directory(dir.toFile()).start();
+    process.getOutputStream().close();
+    String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    assertThat(process.waitFor(10, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(process.exitValue()).isEqualTo(0);
+    assertThat(output).isEqualTo("7\n8\n16\n-16\n5.0000\n");
+  }
+
+  private static String compileForLinux(String program) {
+    return compile(program, options(o -> o.setTarget(Target.LINUX64)));
+  }
+
+  private static String resource(String name) throws IOException {
+    try (InputStream in = X64BackendTest.class.getResourceAsStream(name)) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private static boolean succeeds(Path dir, String... command) throws InterruptedException {
+    try {
+      Process process = new ProcessBuilder(command).directory(dir.toFile()).redirectErrorStream(true).start();
+      process.getInputStream().readAllBytes();
+      return process.waitFor(30, TimeUnit.SECONDS) && process.exitValue() == 0;
+    } catch (IOException e) {
+      // No está instalado
+      return false;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package lyc.compiler;
+
+import lyc.compiler.emulator.ExecutionReport;
+import lyc.compiler.emulator.TimingTable;
+import lyc.compiler.files.X87Scheduler;
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static lyc.compiler.CompileAndRun.compile;
+import static lyc.compiler.CompileAndRun.execute;
+import static lyc.compiler.CompileAndRun.options;
+import static lyc.compiler.CompileAndRun.run;
+
+public class X87SchedulerTest {
+
+  private static final String CROSS_PRODUCTS = """
+      init {
+          scA, scB, scC, scD, scE, scF, scP, scQ, scR : Float
+      }
+      scA := 1.5
+      scB := 2.25
+      scC := -3.0
+      scD := 4.75
+      scE := 0.5
+      scF := 6.0
+      scP := (scA - scC) * (scD - scF)
+      scQ := (scB - scD) * (scE - scA)
+      scR := (scC - scE) * (scF - scB)
+      write(scP)
+      write(scQ)
+      write(scR)
+      """;
+
+  @Test
+  public void independentOperationsOverlap() {
+    ExecutionReport plain = execute(compile(CROSS_PRODUCTS, options(o -> o.setSchedule(false))));
+    String asm = compile(CROSS_PRODUCTS, options(o -> o.setSchedule(true)));
+    ExecutionReport scheduled = execute(asm);
+
+    assertThat(asm).contains("FXCH ST(");
+    assertThat(scheduled.getOutput()).isEqualTo(plain.getOutput());
+    assertThat(scheduled.getFpuStallCycles()).isLessThan(plain.getFpuStallCycles());
+    assertThat(scheduled.getCycles()).isLessThan(plain.getCycles());
+  }
+
+  @Test
+  public void reusedVariablesKeepTheirOrder() {
+    // Cada variable se lee y se vuelve a escribir en el mismo bloque
+    String program = """
+        init {
+            scA, scB, scC : Float
+        }
+        scA := 2.0
+        scB := 3.0
+        scC := scA * scB
+        scA := scC - scB
+        scB := scA / 4.0
+        scC := scC + scA * scB
+        scA := -scC
+        write(scA)
+        write(scB)
+        write(scC)
+        """;
+
+    assertThat(run(compile(program, options(o -> o.setSchedule(true))))).isEqualTo(run(compile(program, options(o -> o.setSchedule(false)))));
+  }
+
+  @Test
+  public void codeWithNothingToOverlapIsLeftAlone() {
+    String code = """
+            FLD _scA
+            FLD _scB
+            FADD
+            FSTP @T1
+
+            FLD @T1
+            CALL PRINT_FLOAT
+        """;
+    X87Scheduler scheduler = new X87Scheduler(TimingTable.pentium());
+
+    assertThat(scheduler.schedule(code)).isEqualTo(code);
+    assertThat(scheduler.getReordered()).isEqualTo(0);
+  }
+}
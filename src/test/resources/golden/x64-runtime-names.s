@@ -0,0 +1,468 @@
+# Generado por lyc-compiler (x86-64 Linux)
+.intel_syntax noprefix
+
+.section .data
+_v_zero: .quad 0
+_v_nl: .quad 0
+_v_dot: .quad 0
+_v_minus: .quad 0
+_v_start: .double 0.0
+_v_T1: .double 0.0
+_T1: .quad 0
+_T2: .quad 0
+_T3: .quad 0
+_T4: .double 0.0
+_outlen: .quad 0
+_inpos: .quad 0
+_inlen: .quad 0
+
+.section .rodata
+_7: .quad 7
+_1: .quad 1
+_2: .quad 2
+_0: .quad 0
+_2_5: .double 2.5
+_nl: .byte 10
+_minus: .byte '-'
+_dot: .byte '.'
+_zero: .byte '0'
+_f_10: .double 10.0
+_f_10000: .double 10000.0
+_f_1e18: .double 1.0e18
+
+.section .bss
+.lcomm _outbuf, 4096
+.lcomm _inbuf, 4096
+
+.section .text
+.globl _start
+_start:
+    mov rax, qword ptr [rip + _7]
+    mov qword ptr [rip + _v_zero], rax
+
+    mov rax, qword ptr [rip + _v_zero]
+    add rax, qword ptr [rip + _1]
+    mov qword ptr [rip + _T1], rax
+
+    mov rax, qword ptr [rip + _T1]
+    mov qword ptr [rip + _v_nl], rax
+
+    mov rax, qword ptr [rip + _v_nl]
+    imul rax, qword ptr [rip + _2]
+    mov qword ptr [rip + _T2], rax
+
+    mov rax, qword ptr [rip + _T2]
+    mov qword ptr [rip + _v_dot], rax
+
+    mov rax, qword ptr [rip + _0]
+    sub rax, qword ptr [rip + _v_dot]
+    mov qword ptr [rip + _T3], rax
+
+    mov rax, qword ptr [rip + _T3]
+    mov qword ptr [rip + _v_minus], rax
+
+    movsd xmm0, qword ptr [rip + _2_5]
+    movsd qword ptr [rip + _v_start], xmm0
+
+    movsd xmm0, qword ptr [rip + _v_start]
+    cvtsi2sd xmm1, qword ptr [rip + _2]
+    mulsd xmm0, xmm1
+    movsd qword ptr [rip + _T4], xmm0
+
+    movsd xmm0, qword ptr [rip + _T4]
+    movsd qword ptr [rip + _v_T1], xmm0
+
+    mov rax, qword ptr [rip + _v_zero]
+    call rt_print_int
+    call rt_newline
+    call rt_flush
+
+    mov rax, qword ptr [rip + _v_nl]
+    call rt_print_int
+    call rt_newline
+    call rt_flush
+
+    mov rax, qword ptr [rip + _v_dot]
+    call rt_print_int
+    call rt_newline
+    call rt_flush
+
+    mov rax, qword ptr [rip + _v_minus]
+    call rt_print_int
+    call rt_newline
+    call rt_flush
+
+    movsd xmm0, qword ptr [rip + _v_T1]
+    call rt_print_float
+    call rt_newline
+    call rt_flush
+
+    call rt_flush
+    mov eax, 60
+    xor edi, edi
+    syscall
+
+# Vuelca el buffer de salida con write(1, ...)
+rt_flush:
+    push rax
+    push rcx
+    push rdx
+    push rsi
+    push rdi
+    push r11
+    mov rdx, qword ptr [rip + _outlen]
+    lea rsi, [rip + _outbuf]
+1:  test rdx, rdx
+    jz 2f
+    mov eax, 1
+    mov edi, 1
+    syscall
+    test rax, rax
+    jle 2f
+    add rsi, rax
+    sub rdx, rax
+    jmp 1b
+2:  mov qword ptr [rip + _outlen], 0
+    pop r11
+    pop rdi
+    pop rsi
+    pop rdx
+    pop rcx
+    pop rax
+    ret
+
+# Agrega rdx bytes desde rsi al buffer de salida
+rt_out_bytes:
+    push rax
+    push rcx
+    push rdx
+    push rsi
+    push rdi
+    lea rdi, [rip + _outbuf]
+1:  test rdx, rdx
+    jz 3f
+    mov rax, qword ptr [rip + _outlen]
+    cmp rax, 4096
+    jb 2f
+    call rt_flush
+    xor eax, eax
+2:  mov cl, byte ptr [rsi]
+    mov byte ptr [rdi + rax], cl
+    inc rax
+    mov qword ptr [rip + _outlen], rax
+    inc rsi
+    dec rdx
+    jmp 1b
+3:  pop rdi
+    pop rsi
+    pop rdx
+    pop rcx
+    pop rax
+    ret
+
+# Agrega la cadena terminada en 0 apuntada por rsi (nada si es nula)
+rt_out_cstr:
+    test rsi, rsi
+    jz 2f
+    push rdx
+    xor edx, edx
+1:  cmp byte ptr [rsi + rdx], 0
+    je 3f
+    inc rdx
+    jmp 1b
+3:  call rt_out_bytes
+    pop rdx
+2:  ret
+
+rt_newline:
+    push rsi
+    push rdx
+    lea rsi, [rip + _nl]
+    mov edx, 1
+    call rt_out_bytes
+    pop rdx
+    pop rsi
+    ret
+
+# Imprime rax en decimal (con signo)
+rt_print_int:
+    push rax
+    push rbx
+    push rcx
+    push rdx
+    push rsi
+    push rdi
+    sub rsp, 32
+    lea rdi, [rsp + 32]
+    mov rbx, rax
+    test rax, rax
+    jns 1f
+    neg rax
+1:  mov rcx, 10
+2:  xor edx, edx
+    div rcx
+    add dl, '0'
+    dec rdi
+    mov byte ptr [rdi], dl
+    test rax, rax
+    jnz 2b
+    test rbx, rbx
+    jns 3f
+    dec rdi
+    mov byte ptr [rdi], '-'
+3:  mov rsi, rdi
+    lea rdx, [rsp + 32]
+    sub rdx, rdi
+    call rt_out_bytes
+    add rsp, 32
+    pop rdi
+    pop rsi
+    pop rdx
+    pop rcx
+    pop rbx
+    pop rax
+    ret
+
+# Imprime xmm0 con 4 decimales (truncados, como el runtime DOS)
+rt_print_float:
+    push rax
+    push rcx
+    push rdx
+    push rsi
+    push rdi
+    push r8
+    sub rsp, 32
+    movsd qword ptr [rsp], xmm0
+    movsd qword ptr [rsp + 8], xmm1
+    xorpd xmm1, xmm1
+    ucomisd xmm0, xmm1
+    jae 1f
+    lea rsi, [rip + _minus]
+    mov edx, 1
+    call rt_out_bytes
+    subsd xmm1, xmm0
+    movapd xmm0, xmm1
+1:  xor r8d, r8d
+    movsd xmm1, qword ptr [rip + _f_1e18]
+2:  ucomisd xmm0, xmm1
+    jb 3f
+    divsd xmm0, qword ptr [rip + _f_10]
+    inc r8
+    jmp 2b
+3:  cvttsd2si rax, xmm0
+    call rt_print_int
+    mov rcx, r8
+4:  test rcx, rcx
+    jz 5f
+    lea rsi, [rip + _zero]
+    mov edx, 1
+    call rt_out_bytes
+    dec rcx
+    jmp 4b
+5:  cvtsi2sd xmm1, rax
+    subsd xmm0, xmm1
+    mulsd xmm0, qword ptr [rip + _f_10000]
+    cvttsd2si rax, xmm0
+    test r8, r8
+    jz 6f
+    xor eax, eax
+6:  lea rsi, [rip + _dot]
+    mov edx, 1
+    call rt_out_bytes
+    lea rdi, [rsp + 20]
+    mov rcx, 4
+    mov r8, 10
+7:  xor edx, edx
+    div r8
+    add dl, '0'
+    dec rdi
+    mov byte ptr [rdi], dl
+    dec rcx
+    jnz 7b
+    mov rsi, rdi
+    mov edx, 4
+    call rt_out_bytes
+    movsd xmm0, qword ptr [rsp]
+    movsd xmm1, qword ptr [rsp + 8]
+    add rsp, 32
+    pop r8
+    pop rdi
+    pop rsi
+    pop rdx
+    pop rcx
+    pop rax
+    ret
+
+# Devuelve en rsi la próxima línea de stdin (terminada en 0, sin el salto).
+# Lee de a bloques con read(0, ...) y guarda lo que sobra para la próxima.
+rt_read_line:
+    call rt_flush
+    push rax
+    push rcx
+    push rdx
+    push rdi
+    push r11
+0:  mov rcx, qword ptr [rip + _inpos]
+    mov rdx, qword ptr [rip + _inlen]
+    lea rsi, [rip + _inbuf]
+1:  cmp rcx, rdx
+    jae 2f
+    cmp byte ptr [rsi + rcx], 10
+    je 8f
+    inc rcx
+    jmp 1b
+2:  mov rcx, qword ptr [rip + _inpos]
+    xor edi, edi
+3:  cmp rcx, rdx
+    jae 4f
+    mov al, byte ptr [rsi + rcx]
+    mov byte ptr [rsi + rdi], al
+    inc rcx
+    inc rdi
+    jmp 3b
+4:  mov qword ptr [rip + _inpos], 0
+    mov qword ptr [rip + _inlen], rdi
+    cmp rdi, 4095
+    jae 7f
+    lea rsi, [rsi + rdi]
+    mov rdx, 4095
+    sub rdx, rdi
+    xor edi, edi
+    xor eax, eax
+    syscall
+    test rax, rax
+    jle 7f
+    add qword ptr [rip + _inlen], rax
+    jmp 0b
+7:  mov rcx, qword ptr [rip + _inlen]
+    lea rsi, [rip + _inbuf]
+8:  mov byte ptr [rsi + rcx], 0
+    test rcx, rcx
+    jz 9f
+    cmp byte ptr [rsi + rcx - 1], 13
+    jne 9f
+    mov byte ptr [rsi + rcx - 1], 0
+9:  mov rax, qword ptr [rip + _inpos]
+    inc rcx
+    mov qword ptr [rip + _inpos], rcx
+    add rsi, rax
+    mov rax, qword ptr [rip + _inlen]
+    cmp rcx, rax
+    jbe 10f
+    mov qword ptr [rip + _inpos], rax
+10: pop r11
+    pop rdi
+    pop rdx
+    pop rcx
+    pop rax
+    ret
+
+# Saltea blancos y signo de la cadena en rsi. rcx = 1 si es negativo
+rt_in_sign:
+    xor ecx, ecx
+1:  cmp byte ptr [rsi], ' '
+    jne 2f
+    inc rsi
+    jmp 1b
+2:  cmp byte ptr [rsi], '-'
+    jne 3f
+    mov ecx, 1
+    inc rsi
+    ret
+3:  cmp byte ptr [rsi], '+'
+    jne 4f
+    inc rsi
+4:  ret
+
+# Lee un entero en rax
+rt_read_int:
+    push rcx
+    push rdx
+    push rsi
+    call rt_read_line
+    call rt_in_sign
+    xor eax, eax
+1:  movzx edx, byte ptr [rsi]
+    sub edx, '0'
+    cmp edx, 9
+    ja 2f
+    imul rax, rax, 10
+    add rax, rdx
+    inc rsi
+    jmp 1b
+2:  test rcx, rcx
+    jz 3f
+    neg rax
+3:  pop rsi
+    pop rdx
+    pop rcx
+    ret
+
+# Lee un flotante en xmm0
+rt_read_float:
+    push rax
+    push rcx
+    push rdx
+    push rsi
+    push r8
+    sub rsp, 16
+    movsd qword ptr [rsp], xmm1
+    call rt_read_line
+    call rt_in_sign
+    xorpd xmm0, xmm0
+    xor r8d, r8d
+    xor edx, edx
+1:  movzx eax, byte ptr [rsi]
+    cmp eax, '.'
+    jne 2f
+    mov edx, 1
+    inc rsi
+    jmp 1b
+2:  sub eax, '0'
+    cmp eax, 9
+    ja 3f
+    mulsd xmm0, qword ptr [rip + _f_10]
+    cvtsi2sd xmm1, rax
+    addsd xmm0, xmm1
+    add r8, rdx
+    inc rsi
+    jmp 1b
+3:  test r8, r8
+    jz 4f
+    divsd xmm0, qword ptr [rip + _f_10]
+    dec r8
+    jmp 3b
+4:  test rcx, rcx
+    jz 5f
+    xorpd xmm1, xmm1
+    subsd xmm1, xmm0
+    movapd xmm0, xmm1
+5:  movsd xmm1, qword ptr [rsp]
+    add rsp, 16
+    pop r8
+    pop rsi
+    pop rdx
+    pop rcx
+    pop rax
+    ret
+
+# Lee una línea y la copia (hasta 255 bytes) en el buffer rdi
+rt_read_str:
+    push rax
+    push rcx
+    push rsi
+    call rt_read_line
+    xor ecx, ecx
+1:  cmp rcx, 255
+    jae 2f
+    mov al, byte ptr [rsi + rcx]
+    test al, al
+    jz 2f
+    mov byte ptr [rdi + rcx], al
+    inc rcx
+    jmp 1b
+2:  mov byte ptr [rdi + rcx], 0
+    pop rsi
+    pop rcx
+    pop rax
+    ret